@@ -0,0 +1,102 @@
+package com.example.library.bench;
+
+import com.example.library.service.BookService;
+import com.example.library.service.CursorPage;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * BookService finders and review writes against an embedded H2 catalog.
+ * <p>
+ * {@code catalogSize} scales the table the {@code LIKE '%...%'} finders scan;
+ * {@code reviewsPerBook} scales the review collections the finders load; the review writes are
+ * single inserts and should not move with it.
+ * {@code searchIndex} switches the in-memory trigram index on, to compare both finder paths.
+ * Reviews added during an iteration are removed before the next one.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BookServiceBenchmark {
+
+    private static final String AUTHOR = "Author 42";
+    private static final String TITLE = "Book 1";
+
+    @Param({"1000", "10000", "100000"})
+    public int catalogSize;
+
+    @Param({"0", "20"})
+    public int reviewsPerBook;
+
+    @Param({"false", "true"})
+    public boolean searchIndex;
+
+    private Catalog catalog;
+    private BookService bookService;
+    private long nextBook;
+
+    @Setup(Level.Trial)
+    public void startCatalog() {
+        catalog = Catalog.start(catalogSize, reviewsPerBook,
+                "library.search.ngram-index.enabled=" + searchIndex);
+        bookService = catalog.bean(BookService.class);
+    }
+
+    @Setup(Level.Iteration)
+    public void resetReviews() {
+        catalog.resetReviews();
+    }
+
+    @TearDown(Level.Trial)
+    public void stopCatalog() {
+        catalog.close();
+    }
+
+    @Benchmark
+    public List<?> findBooksByAuthor() {
+        return bookService.findBooksByAuthor(AUTHOR);
+    }
+
+    @Benchmark
+    public List<?> findBooksByAuthorAndTitle() {
+        return bookService.findBooksByAuthorAndTitle(AUTHOR, TITLE);
+    }
+
+    @Benchmark
+    public CursorPage<?> findBooksByAuthorFirstPage() {
+        return bookService.findBooksByAuthor(AUTHOR, null, 20);
+    }
+
+    @Benchmark
+    public CursorPage<?> findBookViewsFirstPage() {
+        return bookService.findBookViews(AUTHOR, null, null, 20);
+    }
+
+    @Benchmark
+    public void addReviewToBook() {
+        bookService.addReviewToBook(nextBookId(), Catalog.BENCHMARK_REVIEW);
+    }
+
+    /** Cycles through the catalog so one book's review list does not grow without bound. */
+    private long nextBookId() {
+        nextBook = nextBook % catalogSize + 1;
+        return nextBook;
+    }
+}
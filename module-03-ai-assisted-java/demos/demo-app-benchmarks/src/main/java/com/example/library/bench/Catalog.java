@@ -0,0 +1,92 @@
+package com.example.library.bench;
+
+import com.example.library.LibraryApplication;
+import jakarta.persistence.EntityManagerFactory;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.context.event.ApplicationStartedEvent;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * A running library-demo context (no web server) over a fresh in-memory H2 catalog of
+ * {@code books} books with {@code reviewsPerBook} reviews each.
+ * <p>
+ * Authors cycle through {@value #AUTHORS} names, so {@code "Author 42"} matches one book
+ * in {@value #AUTHORS}. Rows are inserted with JDBC batches so large catalogs seed quickly;
+ * the app's own search index is then rebuilt by the normal ApplicationReadyEvent.
+ */
+final class Catalog implements AutoCloseable {
+
+    static final int AUTHORS = 100;
+    static final String BENCHMARK_REVIEW = "benchmark review";
+
+    private static final int BATCH = 1_000;
+
+    private final ConfigurableApplicationContext context;
+
+    private Catalog(ConfigurableApplicationContext context) {
+        this.context = context;
+    }
+
+    static Catalog start(int books, int reviewsPerBook, String... properties) {
+        List<String> all = new ArrayList<>(List.of(
+                "spring.datasource.url=jdbc:h2:mem:bench-" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1",
+                "spring.jpa.hibernate.ddl-auto=create-drop",
+                "spring.h2.console.enabled=false",
+                "logging.level.root=WARN"));
+        all.addAll(List.of(properties));
+        SpringApplicationBuilder builder = new SpringApplicationBuilder(LibraryApplication.class)
+                .web(WebApplicationType.NONE)
+                .properties(all.toArray(String[]::new));
+        // Seed before ApplicationReadyEvent, so the search index rebuild sees the full catalog.
+        builder.listeners(event -> {
+            if (event instanceof ApplicationStartedEvent started) {
+                seed(started.getApplicationContext().getBean(JdbcTemplate.class), books, reviewsPerBook);
+            }
+        });
+        return new Catalog(builder.run());
+    }
+
+    <T> T bean(Class<T> type) {
+        return context.getBean(type);
+    }
+
+    /**
+     * Removes the reviews benchmarks added and empties the second-level cache, so each
+     * iteration starts from the seeded catalog.
+     */
+    void resetReviews() {
+        bean(JdbcTemplate.class).update("delete from book_reviews where review = ?", BENCHMARK_REVIEW);
+        bean(EntityManagerFactory.class).getCache().evictAll();
+    }
+
+    @Override
+    public void close() {
+        context.close();
+    }
+
+    private static void seed(JdbcTemplate jdbc, int books, int reviewsPerBook) {
+        List<Object[]> bookRows = new ArrayList<>(BATCH);
+        List<Object[]> reviewRows = new ArrayList<>(BATCH);
+        for (long id = 1; id <= books; id++) {
+            bookRows.add(new Object[]{id, "Book " + id, "Author " + (id % AUTHORS), "isbn-" + id, 1900 + (int) (id % 120)});
+            for (int r = 0; r < reviewsPerBook; r++) {
+                reviewRows.add(new Object[]{id, "Review " + r + " of book " + id});
+            }
+            if (bookRows.size() == BATCH || id == books) {
+                jdbc.batchUpdate("insert into books (id, title, author, isbn, published_year) values (?, ?, ?, ?, ?)", bookRows);
+                jdbc.batchUpdate("insert into book_reviews (id, book_id, review) values (next value for book_review_seq, ?, ?)",
+                        reviewRows);
+                bookRows.clear();
+                reviewRows.clear();
+            }
+        }
+        // Keep ids handed out by Hibernate and BookIdAllocator clear of the seeded ones.
+        jdbc.execute("alter sequence book_seq restart with " + (books + 1));
+    }
+}
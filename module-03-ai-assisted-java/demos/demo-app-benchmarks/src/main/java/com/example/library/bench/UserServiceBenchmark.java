@@ -0,0 +1,90 @@
+package com.example.library.bench;
+
+import com.example.library.model.User;
+import com.example.library.model.UserBatch;
+import com.example.library.service.UserService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * UserService.getActiveUserEmails and its bulk variants (parallel, columnar UserBatch) over
+ * user lists of increasing size. The list is fixed per trial (seeded random): about half the
+ * users are active, and some entries are null or have no email, as in the unit test.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class UserServiceBenchmark {
+
+    @Param({"1000", "100000", "1000000"})
+    public int userCount;
+
+    private final UserService userService = new UserService();
+    private List<User> users;
+    private UserBatch batch;
+
+    @Setup
+    public void createUsers() {
+        users = Users.random(userCount, 42L);
+        batch = UserBatch.of(users);
+    }
+
+    @Benchmark
+    public List<String> getActiveUserEmails() {
+        return userService.getActiveUserEmails(users);
+    }
+
+    @Benchmark
+    public List<String> getActiveUserEmailsParallel() {
+        return userService.getActiveUserEmailsParallel(users);
+    }
+
+    @Benchmark
+    public List<String> getActiveUserEmailsBatch() {
+        return userService.getActiveUserEmails(batch);
+    }
+
+    @Benchmark
+    public List<String> getActiveUserEmailsBatchParallel() {
+        return userService.getActiveUserEmailsParallel(batch);
+    }
+
+    static final class Users {
+
+        private Users() {
+        }
+
+        static List<User> random(int count, long seed) {
+            SplittableRandom random = new SplittableRandom(seed);
+            List<User> users = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                int roll = random.nextInt(100);
+                if (roll < 2) {
+                    users.add(null);
+                } else if (roll < 5) {
+                    users.add(new User("user" + i, roll < 4 ? null : "", true));
+                } else {
+                    users.add(new User("user" + i, "user" + i + "@example.com", random.nextBoolean()));
+                }
+            }
+            return users;
+        }
+    }
+}
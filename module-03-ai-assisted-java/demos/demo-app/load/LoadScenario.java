@@ -0,0 +1,158 @@
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Closed-loop HTTP load generator for comparing the platform-thread and virtual-thread modes.
+ * <p>
+ * {@code concurrency} clients each send a request, wait for the response and send the next,
+ * picking a path at random each time, for {@code warmup} seconds (discarded) and then
+ * {@code duration} seconds (measured). Prints throughput and latency percentiles of the
+ * measured window. Runs as a single source file, no build needed:
+ * <pre>
+ * java load/LoadScenario.java http://localhost:8080 200 30 10 '/api/books?author=Author%201&amp;size=20'
+ * </pre>
+ * Arguments: base URL, concurrency, duration seconds, warmup seconds, one or more paths.
+ */
+public class LoadScenario {
+
+    public static void main(String[] args) throws Exception {
+        if (args.length < 5) {
+            System.err.println("usage: LoadScenario <baseUrl> <concurrency> <durationSeconds> <warmupSeconds> <path>...");
+            System.exit(2);
+        }
+        String baseUrl = args[0];
+        int concurrency = Integer.parseInt(args[1]);
+        Duration duration = Duration.ofSeconds(Long.parseLong(args[2]));
+        Duration warmup = Duration.ofSeconds(Long.parseLong(args[3]));
+        List<URI> targets = new ArrayList<>();
+        for (int i = 4; i < args.length; i++) {
+            targets.add(URI.create(baseUrl + args[i]));
+        }
+
+        HttpClient client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(10))
+                .build();
+        long measureFrom = System.nanoTime() + warmup.toNanos();
+        long measureUntil = measureFrom + duration.toNanos();
+        AtomicBoolean stop = new AtomicBoolean();
+        Worker[] workers = new Worker[concurrency];
+        CountDownLatch done = new CountDownLatch(concurrency);
+        for (int i = 0; i < concurrency; i++) {
+            workers[i] = new Worker(client, targets, measureFrom, measureUntil, stop, done);
+            Thread thread = new Thread(workers[i], "load-" + i);
+            thread.setDaemon(true);
+            thread.start();
+        }
+        done.await();
+
+        long ok = 0;
+        long rejected = 0;
+        long errors = 0;
+        int total = 0;
+        for (Worker worker : workers) {
+            ok += worker.ok;
+            rejected += worker.rejected;
+            errors += worker.errors;
+            total += worker.count;
+        }
+        long[] latencies = new long[total];
+        int n = 0;
+        for (Worker worker : workers) {
+            System.arraycopy(worker.latencies, 0, latencies, n, worker.count);
+            n += worker.count;
+        }
+        Arrays.sort(latencies);
+        double seconds = duration.toNanos() / 1e9;
+        System.out.printf("concurrency=%d duration=%ss requests=%d ok=%d rejected503=%d errors=%d%n",
+                concurrency, duration.toSeconds(), total, ok, rejected, errors);
+        System.out.printf("throughput=%.1f req/s (ok: %.1f req/s)%n", total / seconds, ok / seconds);
+        System.out.printf("latency ms p50=%.1f p90=%.1f p99=%.1f max=%.1f%n",
+                percentile(latencies, 0.50), percentile(latencies, 0.90),
+                percentile(latencies, 0.99), percentile(latencies, 1.0));
+    }
+
+    private static double percentile(long[] sorted, double p) {
+        if (sorted.length == 0) {
+            return Double.NaN;
+        }
+        int index = (int) Math.ceil(p * sorted.length) - 1;
+        return sorted[Math.max(0, index)] / 1e6;
+    }
+
+    private static final class Worker implements Runnable {
+
+        private final HttpClient client;
+        private final List<URI> targets;
+        private final long measureFrom;
+        private final long measureUntil;
+        private final AtomicBoolean stop;
+        private final CountDownLatch done;
+
+        private long[] latencies = new long[1024];
+        private int count;
+        private long ok;
+        private long rejected;
+        private long errors;
+
+        Worker(HttpClient client, List<URI> targets, long measureFrom, long measureUntil,
+               AtomicBoolean stop, CountDownLatch done) {
+            this.client = client;
+            this.targets = targets;
+            this.measureFrom = measureFrom;
+            this.measureUntil = measureUntil;
+            this.stop = stop;
+            this.done = done;
+        }
+
+        @Override
+        public void run() {
+            try {
+                while (!stop.get()) {
+                    URI target = targets.get(ThreadLocalRandom.current().nextInt(targets.size()));
+                    HttpRequest request = HttpRequest.newBuilder(target).timeout(Duration.ofSeconds(30)).GET().build();
+                    long start = System.nanoTime();
+                    int status;
+                    try {
+                        status = client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+                    } catch (Exception e) {
+                        status = -1;
+                    }
+                    long end = System.nanoTime();
+                    if (end >= measureUntil) {
+                        stop.set(true);
+                        break;
+                    }
+                    if (start >= measureFrom) {
+                        record(end - start, status);
+                    }
+                }
+            } finally {
+                done.countDown();
+            }
+        }
+
+        private void record(long nanos, int status) {
+            if (count == latencies.length) {
+                latencies = Arrays.copyOf(latencies, count * 2);
+            }
+            latencies[count++] = nanos;
+            if (status >= 200 && status < 300) {
+                ok++;
+            } else if (status == 503) {
+                rejected++;
+            } else {
+                errors++;
+            }
+        }
+    }
+}
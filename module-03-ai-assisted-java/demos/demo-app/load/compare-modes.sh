@@ -0,0 +1,45 @@
+#!/usr/bin/env bash
+# Runs the same load scenario against the app in platform-thread mode and in the
+# virtual-threads profile, and prints throughput and p99 for each.
+#
+# Usage (from demo-app/): load/compare-modes.sh [concurrency] [durationSeconds] [warmupSeconds]
+# Virtual threads need Java 21+; on older JVMs the second run still uses platform threads.
+set -euo pipefail
+
+cd "$(dirname "$0")/.."
+CONCURRENCY=${1:-400}
+DURATION=${2:-30}
+WARMUP=${3:-10}
+PORT=${PORT:-8080}
+BASE="http://localhost:${PORT}"
+JAR=target/library-demo-0.0.1-SNAPSHOT-exec.jar
+FEED=$(mktemp --suffix=.csv)
+trap 'rm -f "$FEED"' EXIT
+
+[ -f "$JAR" ] || mvn -B -q package -DskipTests
+
+echo "isbn,title,author,published_year" > "$FEED"
+for i in $(seq 0 19999); do
+  echo "isbn-$i,Book $i,Author $((i % 500)),$((1900 + i % 120))"
+done >> "$FEED"
+
+run_mode() {
+  local label=$1; shift
+  java -jar "$JAR" --server.port="$PORT" "$@" > "target/load-${label}.log" 2>&1 &
+  local pid=$!
+  for _ in $(seq 1 120); do
+    curl -sf "$BASE/api/cache/stats" > /dev/null && break
+    sleep 1
+  done
+  curl -sf -X POST -H 'Content-Type: text/csv' --data-binary @"$FEED" "$BASE/api/books/import" > /dev/null
+  echo "== $label ($(grep -oE '(Request execution: |no virtual threads).*' "target/load-${label}.log" || echo 'see log'))"
+  java load/LoadScenario.java "$BASE" "$CONCURRENCY" "$DURATION" "$WARMUP" \
+    '/api/books?author=Author%2042&size=20' \
+    '/api/books/summaries?author=Author%2017&size=50' \
+    '/api/books/1/reviews'
+  kill "$pid"
+  wait "$pid" 2>/dev/null || true
+}
+
+run_mode platform
+run_mode virtual-threads --spring.profiles.active=virtual-threads
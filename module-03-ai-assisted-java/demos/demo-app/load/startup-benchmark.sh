@@ -0,0 +1,65 @@
+#!/usr/bin/env bash
+# Measures time-to-first-request for each startup mode: from launching the JVM until a catalog
+# search (GET /api/books) returns 200. Runs each mode several times and prints the median and
+# spread, plus Spring's own "Started ... in" time for comparison.
+#
+#   default          java -jar, Hibernate create-drop, eager beans
+#   fast-start       --spring.profiles.active=fast-start (lazy beans, db/schema.sql, no DDL generation)
+#   fast-start+aot   ... plus -Dspring.aot.enabled=true (needs mvn package -Pfast-start)
+#   fast-start+aot+cds ... plus a class-data-sharing archive from a training run
+#
+# Usage (from demo-app/): load/startup-benchmark.sh [runsPerMode]
+set -euo pipefail
+
+cd "$(dirname "$0")/.."
+RUNS=${1:-5}
+PORT=${PORT:-8080}
+URL="http://localhost:${PORT}/api/books?author=benchmark&size=1"
+JAR=library-demo-0.0.1-SNAPSHOT-exec.jar
+APP=target/fast-start
+ARCHIVE=$APP/application.jsa
+
+# AOT output is only generated with -Pfast-start; CDS needs the jar unpacked to a fixed classpath.
+mvn -B -q clean package -DskipTests -Pfast-start
+rm -rf "$APP"
+java -Djarmode=tools -jar "target/$JAR" extract --destination "$APP" > /dev/null
+
+# Training run: start the context, stop straight after refresh, and dump the loaded classes.
+java -XX:ArchiveClassesAtExit="$ARCHIVE" -Dspring.aot.enabled=true -Dspring.context.exit=onRefresh \
+  -jar "$APP/$JAR" --spring.profiles.active=fast-start --server.port="$PORT" > target/startup-cds-training.log 2>&1
+
+measure() {
+  local label=$1; shift
+  local samples=() started=()
+  for _ in $(seq 1 "$RUNS"); do
+    local begin end pid
+    begin=$(date +%s%N)
+    java "$@" > "target/startup-${label}.log" 2>&1 &
+    pid=$!
+    until curl -sf -o /dev/null "$URL"; do
+      if ! kill -0 "$pid" 2> /dev/null; then
+        echo "$label: application exited, see target/startup-${label}.log" >&2
+        exit 1
+      fi
+      sleep 0.02
+    done
+    end=$(date +%s%N)
+    samples+=($(( (end - begin) / 1000000 )))
+    started+=("$(grep -aoE 'Started LibraryApplication in [0-9.]+' "target/startup-${label}.log" | grep -oE '[0-9.]+$')")
+    kill "$pid"
+    wait "$pid" 2> /dev/null || true
+  done
+  local sorted
+  sorted=$(printf '%s\n' "${samples[@]}" | sort -n)
+  printf '%-20s median %6d ms   min %6d ms   max %6d ms   (Spring "Started in" %ss)\n' "$label" \
+    "$(sed -n "$(( (RUNS + 1) / 2 ))p" <<< "$sorted")" "$(head -1 <<< "$sorted")" "$(tail -1 <<< "$sorted")" \
+    "$(printf '%s\n' "${started[@]}" | sort -n | sed -n "$(( (RUNS + 1) / 2 ))p")"
+}
+
+echo "Time to first request over $RUNS runs per mode:"
+measure default -jar "$APP/$JAR" --server.port="$PORT"
+measure fast-start -jar "$APP/$JAR" --spring.profiles.active=fast-start --server.port="$PORT"
+measure fast-start+aot -Dspring.aot.enabled=true \
+  -jar "$APP/$JAR" --spring.profiles.active=fast-start --server.port="$PORT"
+measure fast-start+aot+cds -XX:SharedArchiveFile="$ARCHIVE" -Dspring.aot.enabled=true \
+  -jar "$APP/$JAR" --spring.profiles.active=fast-start --server.port="$PORT"
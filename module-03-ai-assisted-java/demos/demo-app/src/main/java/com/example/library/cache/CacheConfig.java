@@ -0,0 +1,79 @@
+package com.example.library.cache;
+
+import com.example.library.model.Book;
+import org.ehcache.config.builders.CacheConfigurationBuilder;
+import org.ehcache.config.builders.ExpiryPolicyBuilder;
+import org.ehcache.config.builders.ResourcePoolsBuilder;
+import org.ehcache.core.config.DefaultConfiguration;
+import org.ehcache.jsr107.Eh107Configuration;
+import org.ehcache.jsr107.EhcacheCachingProvider;
+import org.hibernate.cache.jcache.ConfigSettings;
+import org.hibernate.cache.spi.RegionFactory;
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.cache.CacheManager;
+import javax.cache.Caching;
+import java.net.URI;
+import java.time.Duration;
+import java.util.UUID;
+
+/**
+ * Hibernate second-level cache for Book entities, their review collections and finder
+ * query results, on size-bounded Ehcache heap stores with a time-to-live.
+ * <p>
+ * Ehcache evicts the least recently used of a sample of entries once a region is full.
+ * Regions are created here rather than by Hibernate (missing regions fail fast), so every
+ * region has an explicit bound. Statistics are enabled for {@link CacheStatistics}.
+ */
+@Configuration
+public class CacheConfig {
+
+    static final String BOOKS_REGION = Book.CACHE_REGION;
+    static final String BOOK_REVIEWS_REGION = Book.REVIEWS_CACHE_REGION;
+    static final String QUERY_RESULTS_REGION = RegionFactory.DEFAULT_QUERY_RESULTS_REGION_UNQUALIFIED_NAME;
+    static final String TIMESTAMPS_REGION = RegionFactory.DEFAULT_UPDATE_TIMESTAMPS_REGION_UNQUALIFIED_NAME;
+    static final String[] REGIONS = {BOOKS_REGION, BOOK_REVIEWS_REGION, QUERY_RESULTS_REGION, TIMESTAMPS_REGION};
+
+    // One entry per table; must never expire or evict, or cached queries could outlive a write.
+    private static final long TIMESTAMP_ENTRIES = 1_000;
+
+    @Bean(destroyMethod = "close")
+    public CacheManager hibernateCacheManager(@Value("${library.cache.max-entries:10000}") long maxEntries,
+                                              @Value("${library.cache.query-max-entries:1000}") long queryMaxEntries,
+                                              @Value("${library.cache.ttl:10m}") Duration ttl) {
+        EhcacheCachingProvider provider =
+                (EhcacheCachingProvider) Caching.getCachingProvider(EhcacheCachingProvider.class.getName());
+        CacheManager cacheManager = provider.getCacheManager(
+                URI.create("urn:library:hibernate:" + UUID.randomUUID()),
+                new DefaultConfiguration(getClass().getClassLoader()));
+        createRegion(cacheManager, BOOKS_REGION, maxEntries, ttl);
+        createRegion(cacheManager, BOOK_REVIEWS_REGION, maxEntries, ttl);
+        createRegion(cacheManager, QUERY_RESULTS_REGION, queryMaxEntries, ttl);
+        createRegion(cacheManager, TIMESTAMPS_REGION, TIMESTAMP_ENTRIES, null);
+        return cacheManager;
+    }
+
+    @Bean
+    public HibernatePropertiesCustomizer secondLevelCacheCustomizer(CacheManager hibernateCacheManager,
+                                                                    @Value("${library.cache.enabled:true}") boolean enabled) {
+        return properties -> {
+            properties.put(AvailableSettings.USE_SECOND_LEVEL_CACHE, enabled);
+            properties.put(AvailableSettings.USE_QUERY_CACHE, enabled);
+            properties.put(AvailableSettings.CACHE_REGION_FACTORY, ConfigSettings.SIMPLE_FACTORY_NAME);
+            properties.put(ConfigSettings.CACHE_MANAGER, hibernateCacheManager);
+            properties.put(ConfigSettings.MISSING_CACHE_STRATEGY, "fail");
+        };
+    }
+
+    private static void createRegion(CacheManager cacheManager, String name, long entries, Duration ttl) {
+        CacheConfigurationBuilder<Object, Object> config = CacheConfigurationBuilder
+                .newCacheConfigurationBuilder(Object.class, Object.class, ResourcePoolsBuilder.heap(entries))
+                .withExpiry(ttl != null ? ExpiryPolicyBuilder.timeToLiveExpiration(ttl) : ExpiryPolicyBuilder.noExpiration());
+        cacheManager.createCache(name, Eh107Configuration.fromEhcacheCacheConfiguration(config));
+        cacheManager.enableStatistics(name, true);
+    }
+}
@@ -0,0 +1,66 @@
+package com.example.library.cache;
+
+import org.springframework.stereotype.Component;
+
+import javax.cache.CacheManager;
+import javax.cache.management.CacheStatisticsMXBean;
+import javax.management.JMX;
+import javax.management.MBeanServer;
+import javax.management.MalformedObjectNameException;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Reads hit, miss, put, removal and eviction counters of the second-level cache regions
+ * from the JCache statistics MBeans that {@link CacheConfig} enables.
+ */
+@Component
+public class CacheStatistics {
+
+    private final CacheManager cacheManager;
+    private final MBeanServer mBeanServer = ManagementFactory.getPlatformMBeanServer();
+
+    public CacheStatistics(CacheManager hibernateCacheManager) {
+        this.cacheManager = hibernateCacheManager;
+    }
+
+    public List<RegionStats> regions() {
+        List<RegionStats> stats = new ArrayList<>(CacheConfig.REGIONS.length);
+        for (String region : CacheConfig.REGIONS) {
+            CacheStatisticsMXBean mxBean = statistics(region);
+            if (mxBean != null) {
+                stats.add(new RegionStats(region, mxBean.getCacheHits(), mxBean.getCacheMisses(),
+                        mxBean.getCacheHitPercentage(), mxBean.getCachePuts(), mxBean.getCacheRemovals(),
+                        mxBean.getCacheEvictions()));
+            }
+        }
+        return stats;
+    }
+
+    CacheStatisticsMXBean statistics(String region) {
+        try {
+            // Ehcache registers one MBean per cache, keyed by a sanitized form of the manager URI.
+            ObjectName pattern = new ObjectName("javax.cache:type=CacheStatistics,Cache=" + region + ",*");
+            String manager = cacheManager.getURI().toString().replaceAll("[,:=\n]", ".");
+            Set<ObjectName> names = mBeanServer.queryNames(pattern, null);
+            for (ObjectName name : names) {
+                if (manager.equals(name.getKeyProperty("CacheManager"))) {
+                    return JMX.newMXBeanProxy(mBeanServer, name, CacheStatisticsMXBean.class);
+                }
+            }
+            return null;
+        } catch (MalformedObjectNameException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Counters for one cache region since startup.
+     */
+    public record RegionStats(String region, long hits, long misses, float hitPercentage,
+                              long puts, long removals, long evictions) {
+    }
+}
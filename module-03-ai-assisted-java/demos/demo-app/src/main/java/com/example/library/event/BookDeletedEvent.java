@@ -0,0 +1,7 @@
+package com.example.library.event;
+
+/**
+ * Published by BookService after a book has been deleted.
+ */
+public record BookDeletedEvent(Long bookId) {
+}
@@ -0,0 +1,8 @@
+package com.example.library.event;
+
+/**
+ * Published after new reviews of a book have been written: by BookService for direct
+ * inserts, and by ReviewWriteBuffer once a write-behind batch has committed.
+ */
+public record BookReviewedEvent(Long bookId) {
+}
@@ -0,0 +1,10 @@
+package com.example.library.event;
+
+import com.example.library.model.Book;
+
+/**
+ * Published by BookService after a book has been inserted or updated.
+ * In-memory read models (search index, facets, ...) listen for it to stay current.
+ */
+public record BookSavedEvent(Book book) {
+}
@@ -0,0 +1,303 @@
+package com.example.library.facet;
+
+import com.example.library.event.BookDeletedEvent;
+import com.example.library.event.BookSavedEvent;
+import com.example.library.model.Book;
+import com.example.library.repository.BookFacetFields;
+import com.example.library.repository.BookRepository;
+import com.example.library.search.IndexNotReadyException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * In-memory book counts per author and per publication year, kept current from
+ * BookService's write events instead of counting search results on every page view. Events
+ * are applied after the writing transaction commits, so rolled-back writes are not counted.
+ * <p>
+ * Each book's author and year are remembered in a primitive {@link LongLongHashMap} (book id
+ * to author ordinal and year), so an update or delete can take back the book's previous
+ * contribution. Year counts live in a second such map and author counts in int arrays
+ * indexed by a dense author ordinal. Only an author's first book allocates (its name to
+ * ordinal entry); updates otherwise touch primitives only.
+ * <p>
+ * Authors are also kept sorted by count. A count only ever moves by one, so re-sorting is a
+ * single swap with the edge of the author's equal-count block (the same trick as O(1) LFU
+ * caches), and {@link #topAuthors(int)} reads the first n entries without scanning. Authors
+ * with equal counts come back in no particular order.
+ * <p>
+ * Built by a keyset scan at startup; until then {@link #isReady()} is false. Disable with
+ * {@code library.facets.enabled=false}.
+ */
+@Component
+public class CatalogFacets {
+
+    public static final int MAX_TOP_AUTHORS = 1_000;
+
+    private static final Logger log = LoggerFactory.getLogger(CatalogFacets.class);
+    private static final int REBUILD_PAGE_SIZE = 10_000;
+    private static final long ABSENT = -1L;
+
+    private final BookRepository repository;
+    private final boolean enabled;
+
+    /** Book id to {@code authorOrdinal << 32 | year}; year {@link Integer#MIN_VALUE} when unknown. */
+    private final LongLongHashMap books = new LongLongHashMap(1_024);
+    private final LongLongHashMap yearCounts = new LongLongHashMap(256);
+    private long unknownYear;
+
+    private final Map<String, Integer> authorOrdinals = new HashMap<>();
+    private String[] authorNames = new String[64];
+    private int[] authorCounts = new int[64];
+    /** Author ordinals, highest count first. */
+    private int[] byCount = new int[64];
+    /** Position of each author ordinal in {@link #byCount}. */
+    private int[] positions = new int[64];
+    /** {@code atLeast[c]}: how many authors have a count of at least c, i.e. where count c ends in byCount. */
+    private int[] atLeast = new int[64];
+    private int authors;
+
+    private volatile boolean ready;
+    private boolean rebuilding;
+    private final LongLongHashMap deletedWhileRebuilding = new LongLongHashMap(16);
+
+    public CatalogFacets(BookRepository repository,
+                         @Value("${library.facets.enabled:true}") boolean enabled) {
+        this.repository = repository;
+        this.enabled = enabled;
+    }
+
+    /**
+     * Recounts the whole catalog from the repository (keyset scan of id, author and year).
+     * Writes that arrive while it runs take precedence over the rows it reads.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        if (!enabled) {
+            return;
+        }
+        long start = System.nanoTime();
+        synchronized (this) {
+            ready = false;
+            rebuilding = true;
+            clear();
+        }
+        try {
+            long afterId = 0L;
+            List<BookFacetFields> page;
+            do {
+                page = repository.findFacetFieldsAfter(afterId, Limit.of(REBUILD_PAGE_SIZE));
+                synchronized (this) {
+                    for (BookFacetFields row : page) {
+                        if (!books.containsKey(row.id()) && !deletedWhileRebuilding.containsKey(row.id())) {
+                            add(row.id(), row.author(), row.publishedYear());
+                        }
+                    }
+                }
+                if (!page.isEmpty()) {
+                    afterId = page.get(page.size() - 1).id();
+                }
+            } while (page.size() == REBUILD_PAGE_SIZE);
+        } finally {
+            synchronized (this) {
+                rebuilding = false;
+                deletedWhileRebuilding.clear();
+            }
+        }
+        ready = true;
+        log.info("Catalog facets built: {} books, {} authors, {} years in {} ms",
+                books.size(), authors, yearCounts.size(), (System.nanoTime() - start) / 1_000_000);
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onBookSaved(BookSavedEvent event) {
+        Book book = event.book();
+        if (enabled && book != null && book.getId() != null) {
+            synchronized (this) {
+                remove(book.getId());
+                add(book.getId(), book.getAuthor(), book.getPublishedYear());
+            }
+        }
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onBookDeleted(BookDeletedEvent event) {
+        if (enabled && event.bookId() != null) {
+            synchronized (this) {
+                remove(event.bookId());
+                if (rebuilding) {
+                    deletedWhileRebuilding.put(event.bookId(), 1, 0);
+                }
+            }
+        }
+    }
+
+    public boolean isReady() {
+        return enabled && ready;
+    }
+
+    /**
+     * The {@code n} authors with the most books, most first. Cost depends on n, not on the
+     * catalog size.
+     *
+     * @throws IllegalArgumentException if n is not between 1 and {@value #MAX_TOP_AUTHORS}
+     */
+    public synchronized List<AuthorCount> topAuthors(int n) {
+        requireReady();
+        if (n < 1 || n > MAX_TOP_AUTHORS) {
+            throw new IllegalArgumentException("n must be between 1 and " + MAX_TOP_AUTHORS + ".");
+        }
+        int end = Math.min(n, atLeast[1]);
+        List<AuthorCount> top = new ArrayList<>(end);
+        for (int i = 0; i < end; i++) {
+            int author = byCount[i];
+            top.add(new AuthorCount(authorNames[author], authorCounts[author]));
+        }
+        return top;
+    }
+
+    /**
+     * Number of books by exactly this author (case-sensitive), 0 if none.
+     */
+    public synchronized int countByAuthor(String author) {
+        requireReady();
+        Integer ordinal = authorOrdinals.get(author);
+        return ordinal == null ? 0 : authorCounts[ordinal];
+    }
+
+    /**
+     * Book counts for every publication year that has any, in year order, plus the books
+     * with no year. Cost depends on the number of distinct years, not on the catalog size.
+     */
+    public synchronized YearHistogram yearHistogram() {
+        requireReady();
+        long[] years = yearCounts.keys();
+        Arrays.sort(years);
+        List<YearCount> counts = new ArrayList<>(years.length);
+        for (long year : years) {
+            counts.add(new YearCount((int) year, yearCounts.get(year, 0)));
+        }
+        return new YearHistogram(counts, unknownYear, books.size());
+    }
+
+    private void requireReady() {
+        if (!isReady()) {
+            throw new IndexNotReadyException("Catalog facets are " + (enabled ? "still being built" : "disabled"));
+        }
+    }
+
+    private void add(long bookId, String author, Integer year) {
+        int ordinal = ordinalOf(author != null ? author : "");
+        int storedYear = year != null ? year : Integer.MIN_VALUE;
+        books.put(bookId, ((long) ordinal << 32) | (storedYear & 0xFFFF_FFFFL), ABSENT);
+        increment(ordinal);
+        if (year != null) {
+            yearCounts.addTo(year, 1);
+        } else {
+            unknownYear++;
+        }
+    }
+
+    private void remove(long bookId) {
+        long packed = books.remove(bookId, ABSENT);
+        if (packed == ABSENT) {
+            return;
+        }
+        decrement((int) (packed >>> 32));
+        int year = (int) packed;
+        if (year != Integer.MIN_VALUE) {
+            yearCounts.addTo(year, -1);
+        } else {
+            unknownYear--;
+        }
+    }
+
+    private int ordinalOf(String author) {
+        Integer existing = authorOrdinals.get(author);
+        if (existing != null) {
+            return existing;
+        }
+        int ordinal = authors++;
+        if (ordinal == authorNames.length) {
+            int capacity = ordinal << 1;
+            authorNames = Arrays.copyOf(authorNames, capacity);
+            authorCounts = Arrays.copyOf(authorCounts, capacity);
+            byCount = Arrays.copyOf(byCount, capacity);
+            positions = Arrays.copyOf(positions, capacity);
+        }
+        authorOrdinals.put(author, ordinal);
+        authorNames[ordinal] = author;
+        // A new author has count 0, so it goes at the end of the ranking.
+        byCount[ordinal] = ordinal;
+        positions[ordinal] = ordinal;
+        atLeast[0]++;
+        return ordinal;
+    }
+
+    /**
+     * Count c to c + 1: swap the author to the front of the count-c block, then move the
+     * block boundary past it.
+     */
+    private void increment(int author) {
+        int count = authorCounts[author];
+        if (count + 1 == atLeast.length) {
+            atLeast = Arrays.copyOf(atLeast, atLeast.length << 1);
+        }
+        swap(positions[author], atLeast[count + 1]);
+        atLeast[count + 1]++;
+        authorCounts[author] = count + 1;
+    }
+
+    /**
+     * Count c to c - 1: swap the author to the back of the count-c block, then move the
+     * block boundary in front of it.
+     */
+    private void decrement(int author) {
+        int count = authorCounts[author];
+        swap(positions[author], atLeast[count] - 1);
+        atLeast[count]--;
+        authorCounts[author] = count - 1;
+    }
+
+    private void swap(int i, int j) {
+        int a = byCount[i];
+        int b = byCount[j];
+        byCount[i] = b;
+        byCount[j] = a;
+        positions[b] = i;
+        positions[a] = j;
+    }
+
+    private void clear() {
+        books.clear();
+        yearCounts.clear();
+        deletedWhileRebuilding.clear();
+        unknownYear = 0;
+        authorOrdinals.clear();
+        Arrays.fill(authorNames, null);
+        Arrays.fill(authorCounts, 0);
+        Arrays.fill(atLeast, 0);
+        authors = 0;
+    }
+
+    public record AuthorCount(String author, int count) {
+    }
+
+    public record YearCount(int year, long count) {
+    }
+
+    public record YearHistogram(List<YearCount> years, long unknownYear, long totalBooks) {
+    }
+}
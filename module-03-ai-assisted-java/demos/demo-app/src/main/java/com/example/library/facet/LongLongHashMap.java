@@ -0,0 +1,174 @@
+package com.example.library.facet;
+
+import java.util.Arrays;
+
+/**
+ * Open-addressing {@code long -> long} hash map (linear probing, backward-shift deletion),
+ * so book ids and years can key counters without boxing. Not thread-safe; CatalogFacets
+ * guards it. {@link Long#MIN_VALUE} marks empty slots and cannot be used as a key.
+ */
+final class LongLongHashMap {
+
+    private static final long FREE = Long.MIN_VALUE;
+    private static final int MIN_CAPACITY = 16;
+
+    private long[] keys;
+    private long[] values;
+    private int mask;
+    private int size;
+    private int resizeAt;
+
+    LongLongHashMap(int expectedSize) {
+        allocate(capacityFor(expectedSize));
+    }
+
+    int size() {
+        return size;
+    }
+
+    boolean containsKey(long key) {
+        return keys[indexOf(key)] == key;
+    }
+
+    /**
+     * @return the value mapped to {@code key}, or {@code missing}
+     */
+    long get(long key, long missing) {
+        int slot = indexOf(key);
+        return keys[slot] == key ? values[slot] : missing;
+    }
+
+    /**
+     * @return the previous value, or {@code missing} if the key was absent
+     */
+    long put(long key, long value, long missing) {
+        checkKey(key);
+        int slot = indexOf(key);
+        if (keys[slot] == key) {
+            long previous = values[slot];
+            values[slot] = value;
+            return previous;
+        }
+        keys[slot] = key;
+        values[slot] = value;
+        if (++size > resizeAt) {
+            resize(keys.length << 1);
+        }
+        return missing;
+    }
+
+    /**
+     * Adds {@code delta} to the key's value (0 if absent) and removes the key when the
+     * result is 0, so counters never leave zero entries behind.
+     *
+     * @return the new value
+     */
+    long addTo(long key, long delta) {
+        long updated = get(key, 0) + delta;
+        if (updated == 0) {
+            remove(key, 0);
+        } else {
+            put(key, updated, 0);
+        }
+        return updated;
+    }
+
+    /**
+     * @return the removed value, or {@code missing} if the key was absent
+     */
+    long remove(long key, long missing) {
+        int slot = indexOf(key);
+        if (keys[slot] != key) {
+            return missing;
+        }
+        long removed = values[slot];
+        // Shift later entries of the probe run back so lookups never stop at a hole early.
+        int hole = slot;
+        int next = slot;
+        while (true) {
+            next = (next + 1) & mask;
+            long candidate = keys[next];
+            if (candidate == FREE) {
+                break;
+            }
+            int home = hash(candidate) & mask;
+            boolean stays = hole <= next ? (hole < home && home <= next) : (hole < home || home <= next);
+            if (!stays) {
+                keys[hole] = candidate;
+                values[hole] = values[next];
+                hole = next;
+            }
+        }
+        keys[hole] = FREE;
+        size--;
+        return removed;
+    }
+
+    /**
+     * The keys currently present, in no particular order.
+     */
+    long[] keys() {
+        long[] present = new long[size];
+        int i = 0;
+        for (long key : keys) {
+            if (key != FREE) {
+                present[i++] = key;
+            }
+        }
+        return present;
+    }
+
+    void clear() {
+        allocate(MIN_CAPACITY);
+    }
+
+    /**
+     * Slot holding {@code key}, or the empty slot where it would go.
+     */
+    private int indexOf(long key) {
+        int slot = hash(key) & mask;
+        while (keys[slot] != FREE && keys[slot] != key) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    private void resize(int capacity) {
+        long[] oldKeys = keys;
+        long[] oldValues = values;
+        allocate(capacity);
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != FREE) {
+                int slot = indexOf(oldKeys[i]);
+                keys[slot] = oldKeys[i];
+                values[slot] = oldValues[i];
+                size++;
+            }
+        }
+    }
+
+    private void allocate(int capacity) {
+        keys = new long[capacity];
+        values = new long[capacity];
+        Arrays.fill(keys, FREE);
+        mask = capacity - 1;
+        resizeAt = (int) (capacity * 0.6);
+        size = 0;
+    }
+
+    private static int capacityFor(int expectedSize) {
+        int needed = (int) Math.ceil(Math.max(expectedSize, 1) / 0.6);
+        return Math.max(MIN_CAPACITY, Integer.highestOneBit(needed - 1) << 1);
+    }
+
+    private static int hash(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+
+    private static void checkKey(long key) {
+        if (key == FREE) {
+            throw new IllegalArgumentException("Long.MIN_VALUE is reserved and cannot be a key");
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package com.example.library.importer;
+
+import com.example.library.model.Book;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Hands out Book ids for JDBC inserts from the same sequence Hibernate uses, one
+ * {@link Book#ID_ALLOCATION_SIZE} block per sequence call.
+ * <p>
+ * Hibernate is configured with the {@code pooled-lo} optimizer, where a sequence value
+ * {@code v} reserves ids {@code v .. v + allocationSize - 1}; this class follows the same
+ * rule, so ids from both paths never collide.
+ * <p>
+ * Guarded by a {@link ReentrantLock} rather than {@code synchronized}, so a virtual thread
+ * waiting on the sequence call does not pin its carrier thread.
+ */
+@Component
+public class BookIdAllocator {
+
+    private final JdbcTemplate jdbcTemplate;
+    private final String nextValueSql;
+    private final ReentrantLock lock = new ReentrantLock();
+    private long next;
+    private long limit;
+
+    public BookIdAllocator(JdbcTemplate jdbcTemplate, EntityManagerFactory entityManagerFactory) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.nextValueSql = entityManagerFactory.unwrap(SessionFactoryImplementor.class)
+                .getJdbcServices().getDialect().getSequenceSupport()
+                .getSequenceNextValString(Book.ID_SEQUENCE);
+    }
+
+    public long nextId() {
+        lock.lock();
+        try {
+            if (next == limit) {
+                Long low = jdbcTemplate.queryForObject(nextValueSql, Long.class);
+                if (low == null) {
+                    throw new IllegalStateException("Sequence " + Book.ID_SEQUENCE + " returned no value");
+                }
+                next = low;
+                limit = low + Book.ID_ALLOCATION_SIZE;
+            }
+            return next++;
+        } finally {
+            lock.unlock();
+        }
+    }
+}
@@ -0,0 +1,7 @@
+package com.example.library.importer;
+
+/**
+ * One parsed record of a catalog feed, with the (1-based) line it came from.
+ */
+public record BookImportRow(long line, String title, String author, String isbn, Integer publishedYear) {
+}
@@ -0,0 +1,263 @@
+package com.example.library.importer;
+
+import com.example.library.event.BookSavedEvent;
+import com.example.library.model.Book;
+import com.example.library.search.IsbnBloomFilter;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.Cache;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Streams a CSV or NDJSON catalog feed into the books table.
+ * <p>
+ * Rows are parsed one line at a time and written with plain JDBC batch inserts, one
+ * transaction per batch, using ids reserved in blocks by {@link BookIdAllocator}. Rows
+ * with a missing field, an unparsable line, or an ISBN that is already in the catalog
+ * (or earlier in the same batch) are reported as failures without aborting the load.
+ * ISBNs that {@link IsbnBloomFilter} rules out skip the per-batch existence query.
+ */
+@Service
+public class BookImportService {
+
+    static final int MAX_REPORTED_FAILURES = 1_000;
+    static final int MAX_BATCH_SIZE = 10_000;
+
+    private static final Logger log = LoggerFactory.getLogger(BookImportService.class);
+    private static final String INSERT_SQL =
+            "insert into books (id, title, author, isbn, published_year) values (?, ?, ?, ?, ?)";
+    private static final String EXISTING_ISBNS_SQL = "select isbn from books where isbn in (:isbns)";
+
+    private final NamedParameterJdbcTemplate jdbc;
+    private final TransactionTemplate transactionTemplate;
+    private final BookIdAllocator idAllocator;
+    private final ApplicationEventPublisher events;
+    private final ObjectMapper objectMapper;
+    private final EntityManagerFactory entityManagerFactory;
+    private final IsbnBloomFilter isbnFilter;
+    private final int defaultBatchSize;
+    private final long progressInterval;
+
+    public BookImportService(NamedParameterJdbcTemplate jdbc,
+                             TransactionTemplate transactionTemplate,
+                             BookIdAllocator idAllocator,
+                             ApplicationEventPublisher events,
+                             ObjectMapper objectMapper,
+                             EntityManagerFactory entityManagerFactory,
+                             IsbnBloomFilter isbnFilter,
+                             @Value("${library.import.batch-size:1000}") int defaultBatchSize,
+                             @Value("${library.import.progress-interval:100000}") long progressInterval) {
+        this.jdbc = jdbc;
+        this.transactionTemplate = transactionTemplate;
+        this.idAllocator = idAllocator;
+        this.events = events;
+        this.objectMapper = objectMapper;
+        this.entityManagerFactory = entityManagerFactory;
+        this.isbnFilter = isbnFilter;
+        this.defaultBatchSize = defaultBatchSize;
+        this.progressInterval = progressInterval;
+    }
+
+    /**
+     * Imports every row of {@code input}.
+     *
+     * @param batchSize rows per JDBC batch and transaction; {@code null} for the configured default
+     */
+    public ImportReport importBooks(InputStream input, Charset charset, ImportFormat format, Integer batchSize)
+            throws IOException {
+        int size = batchSize != null ? batchSize : defaultBatchSize;
+        if (size < 1 || size > MAX_BATCH_SIZE) {
+            throw new IllegalArgumentException("Batch size must be between 1 and " + MAX_BATCH_SIZE);
+        }
+        ImportRun run = new ImportRun();
+        BufferedReader lines = new BufferedReader(new InputStreamReader(input, charset));
+        try (BookRowReader reader = format.open(lines, objectMapper)) {
+            List<BookImportRow> batch = new ArrayList<>(size);
+            while (true) {
+                BookImportRow row;
+                try {
+                    row = reader.next();
+                } catch (MalformedRowException e) {
+                    run.rowsRead++;
+                    run.fail(e.getLine(), null, e.getMessage());
+                    continue;
+                }
+                if (row == null) {
+                    break;
+                }
+                run.rowsRead++;
+                String missing = missingField(row);
+                if (missing != null) {
+                    run.fail(row, "Missing " + missing);
+                } else {
+                    batch.add(row);
+                }
+                if (batch.size() == size) {
+                    flush(batch, run);
+                    batch.clear();
+                }
+                if (run.rowsRead % progressInterval == 0) {
+                    logProgress(run);
+                }
+            }
+            flush(batch, run);
+        }
+        ImportReport report = run.report();
+        log.info("Import finished: {} rows read, {} imported, {} failed in {} ms ({} rows/s)",
+                report.rowsRead(), report.imported(), report.failed(), report.elapsedMillis(),
+                Math.round(report.rowsPerSecond()));
+        return report;
+    }
+
+    private void flush(List<BookImportRow> batch, ImportRun run) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        Map<String, BookImportRow> byIsbn = new LinkedHashMap<>();
+        for (BookImportRow row : batch) {
+            BookImportRow first = byIsbn.putIfAbsent(row.isbn(), row);
+            if (first != null) {
+                run.fail(row, "Duplicate ISBN (first seen on line " + first.line() + ")");
+            }
+        }
+        // Only ISBNs the Bloom filter cannot rule out need checking against the table.
+        List<String> maybeExisting = new ArrayList<>();
+        for (String isbn : byIsbn.keySet()) {
+            if (isbnFilter.mightContain(isbn)) {
+                maybeExisting.add(isbn);
+            }
+        }
+        if (!maybeExisting.isEmpty()) {
+            List<String> existing = jdbc.queryForList(EXISTING_ISBNS_SQL, Map.of("isbns", maybeExisting), String.class);
+            for (String isbn : existing) {
+                run.fail(byIsbn.remove(isbn), "ISBN already exists");
+            }
+        }
+        if (byIsbn.isEmpty()) {
+            return;
+        }
+
+        List<Book> books = new ArrayList<>(byIsbn.size());
+        for (BookImportRow row : byIsbn.values()) {
+            books.add(new Book(idAllocator.nextId(), row.title(), row.author(), row.isbn(), row.publishedYear()));
+        }
+        try {
+            transactionTemplate.executeWithoutResult(status -> insert(books));
+            published(books, run);
+        } catch (DataIntegrityViolationException e) {
+            // Usually another writer took one of these ISBNs since the check above, but any
+            // constraint can fail (e.g. a title too long for its column); isolate it row by row.
+            List<BookImportRow> rows = new ArrayList<>(byIsbn.values());
+            for (int i = 0; i < books.size(); i++) {
+                Book book = books.get(i);
+                try {
+                    transactionTemplate.executeWithoutResult(status -> insert(List.of(book)));
+                    published(List.of(book), run);
+                } catch (DataIntegrityViolationException rowFailure) {
+                    run.fail(rows.get(i), failureReason(rowFailure));
+                }
+            }
+        }
+    }
+
+    private void insert(List<Book> books) {
+        jdbc.getJdbcOperations().batchUpdate(INSERT_SQL, books, books.size(), (ps, book) -> {
+            ps.setLong(1, book.getId());
+            ps.setString(2, book.getTitle());
+            ps.setString(3, book.getAuthor());
+            ps.setString(4, book.getIsbn());
+            ps.setObject(5, book.getPublishedYear());
+        });
+    }
+
+    private void published(List<Book> books, ImportRun run) {
+        // JDBC inserts bypass Hibernate, so cached finder results would not see the new rows.
+        entityManagerFactory.getCache().unwrap(Cache.class).evictDefaultQueryRegion();
+        run.imported += books.size();
+        for (Book book : books) {
+            events.publishEvent(new BookSavedEvent(book));
+        }
+    }
+
+    private void logProgress(ImportRun run) {
+        ImportReport snapshot = run.report();
+        log.info("Import progress: {} rows read, {} imported, {} failed ({} rows/s)",
+                snapshot.rowsRead(), snapshot.imported(), snapshot.failed(), Math.round(snapshot.rowsPerSecond()));
+    }
+
+    /**
+     * "ISBN already exists" only when the ISBN unique constraint is what failed; otherwise the
+     * database's own description (value too long, null in a NOT NULL column, ...).
+     */
+    static String failureReason(DataIntegrityViolationException e) {
+        String cause = e.getMostSpecificCause().getMessage();
+        if (cause == null) {
+            return "Rejected by the database";
+        }
+        if (e instanceof DuplicateKeyException && cause.toLowerCase(Locale.ROOT).contains(Book.ISBN_CONSTRAINT)) {
+            return "ISBN already exists";
+        }
+        // Drivers append the failing statement; the first line says what was wrong.
+        int end = cause.indexOf('\n');
+        return "Rejected by the database: " + (end < 0 ? cause : cause.substring(0, end)).strip();
+    }
+
+    private static String missingField(BookImportRow row) {
+        if (row.title() == null) {
+            return "title";
+        }
+        if (row.author() == null) {
+            return "author";
+        }
+        if (row.isbn() == null) {
+            return "isbn";
+        }
+        return null;
+    }
+
+    private static final class ImportRun {
+
+        private final long startNanos = System.nanoTime();
+        private final List<ImportReport.Failure> failures = new ArrayList<>();
+        private long rowsRead;
+        private long imported;
+        private long failed;
+
+        void fail(BookImportRow row, String reason) {
+            fail(row.line(), row.isbn(), reason);
+        }
+
+        void fail(long line, String isbn, String reason) {
+            failed++;
+            if (failures.size() < MAX_REPORTED_FAILURES) {
+                failures.add(new ImportReport.Failure(line, isbn, reason));
+            }
+        }
+
+        ImportReport report() {
+            long elapsedNanos = Math.max(1, System.nanoTime() - startNanos);
+            double rowsPerSecond = rowsRead * 1_000_000_000.0 / elapsedNanos;
+            return new ImportReport(rowsRead, imported, failed, elapsedNanos / 1_000_000, rowsPerSecond,
+                    List.copyOf(failures));
+        }
+    }
+}
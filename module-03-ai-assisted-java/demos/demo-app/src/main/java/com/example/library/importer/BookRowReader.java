@@ -0,0 +1,17 @@
+package com.example.library.importer;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+/**
+ * Pull-based reader over a catalog feed. Implementations read one line at a time, so
+ * memory use does not depend on the size of the feed.
+ */
+public interface BookRowReader extends Closeable {
+
+    /**
+     * @return the next row, or {@code null} at end of input
+     * @throws MalformedRowException if the next line cannot be parsed; reading may continue
+     */
+    BookImportRow next() throws IOException;
+}
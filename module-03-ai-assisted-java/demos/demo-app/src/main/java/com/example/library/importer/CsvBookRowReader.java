@@ -0,0 +1,118 @@
+package com.example.library.importer;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Reads CSV with a header row naming the columns {@code title}, {@code author},
+ * {@code isbn} and (optionally) {@code publishedYear}, in any order. Fields may be
+ * double-quoted, with {@code ""} as an escaped quote; records may not span lines.
+ */
+class CsvBookRowReader implements BookRowReader {
+
+    private final BufferedReader reader;
+    private final int titleColumn;
+    private final int authorColumn;
+    private final int isbnColumn;
+    private final int yearColumn;
+    private long line = 1;
+
+    CsvBookRowReader(BufferedReader reader) throws IOException {
+        this.reader = reader;
+        String header = reader.readLine();
+        if (header == null) {
+            throw new MalformedRowException(1, "Missing CSV header");
+        }
+        Map<String, Integer> columns = new HashMap<>();
+        List<String> names = split(header, 1);
+        for (int i = 0; i < names.size(); i++) {
+            columns.put(names.get(i).trim().toLowerCase(Locale.ROOT).replace("_", ""), i);
+        }
+        this.titleColumn = required(columns, "title");
+        this.authorColumn = required(columns, "author");
+        this.isbnColumn = required(columns, "isbn");
+        this.yearColumn = columns.getOrDefault("publishedyear", -1);
+    }
+
+    @Override
+    public BookImportRow next() throws IOException {
+        String text;
+        do {
+            text = reader.readLine();
+            line++;
+            if (text == null) {
+                return null;
+            }
+        } while (text.isBlank());
+
+        List<String> fields = split(text, line);
+        Integer year = null;
+        String yearText = field(fields, yearColumn);
+        if (yearText != null) {
+            try {
+                year = Integer.valueOf(yearText);
+            } catch (NumberFormatException e) {
+                throw new MalformedRowException(line, "Invalid publishedYear: " + yearText);
+            }
+        }
+        return new BookImportRow(line, field(fields, titleColumn), field(fields, authorColumn),
+                field(fields, isbnColumn), year);
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+
+    private static int required(Map<String, Integer> columns, String name) {
+        Integer index = columns.get(name);
+        if (index == null) {
+            throw new MalformedRowException(1, "CSV header is missing column: " + name);
+        }
+        return index;
+    }
+
+    private static String field(List<String> fields, int column) {
+        if (column < 0 || column >= fields.size()) {
+            return null;
+        }
+        String value = fields.get(column).trim();
+        return value.isEmpty() ? null : value;
+    }
+
+    static List<String> split(String text, long line) {
+        List<String> fields = new ArrayList<>();
+        StringBuilder current = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < text.length() && text.charAt(i + 1) == '"') {
+                    current.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    current.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(current.toString());
+                current.setLength(0);
+            } else {
+                current.append(c);
+            }
+        }
+        if (quoted) {
+            throw new MalformedRowException(line, "Unterminated quoted field");
+        }
+        fields.add(current.toString());
+        return fields;
+    }
+}
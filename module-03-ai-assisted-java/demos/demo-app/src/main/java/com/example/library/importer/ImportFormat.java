@@ -0,0 +1,39 @@
+package com.example.library.importer;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.http.MediaType;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+
+/**
+ * Supported catalog feed formats, selected by request Content-Type.
+ */
+public enum ImportFormat {
+
+    CSV("text/csv"),
+    NDJSON("application/x-ndjson");
+
+    private final MediaType mediaType;
+
+    ImportFormat(String mediaType) {
+        this.mediaType = MediaType.parseMediaType(mediaType);
+    }
+
+    public MediaType getMediaType() {
+        return mediaType;
+    }
+
+    public BookRowReader open(BufferedReader reader, ObjectMapper objectMapper) throws IOException {
+        return this == CSV ? new CsvBookRowReader(reader) : new NdjsonBookRowReader(reader, objectMapper);
+    }
+
+    public static ImportFormat fromContentType(MediaType contentType) {
+        for (ImportFormat format : values()) {
+            if (format.mediaType.isCompatibleWith(contentType)) {
+                return format;
+            }
+        }
+        throw new IllegalArgumentException("Unsupported import content type: " + contentType);
+    }
+}
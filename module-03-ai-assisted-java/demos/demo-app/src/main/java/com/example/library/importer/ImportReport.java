@@ -0,0 +1,17 @@
+package com.example.library.importer;
+
+import java.util.List;
+
+/**
+ * Outcome of one bulk import. Only the first {@link BookImportService#MAX_REPORTED_FAILURES}
+ * failures are listed; {@code failed} always holds the full count.
+ */
+public record ImportReport(long rowsRead, long imported, long failed, long elapsedMillis,
+                           double rowsPerSecond, List<Failure> failures) {
+
+    /**
+     * A row that was not imported, e.g. because its ISBN is already in the catalog.
+     */
+    public record Failure(long line, String isbn, String reason) {
+    }
+}
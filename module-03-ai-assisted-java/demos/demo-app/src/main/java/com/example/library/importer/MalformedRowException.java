@@ -0,0 +1,21 @@
+package com.example.library.importer;
+
+/**
+ * Thrown by a BookRowReader for a single line it cannot parse. The reader stays usable,
+ * so the import records the failure and carries on with the next line.
+ */
+public class MalformedRowException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    private final long line;
+
+    public MalformedRowException(long line, String message) {
+        super(message);
+        this.line = line;
+    }
+
+    public long getLine() {
+        return line;
+    }
+}
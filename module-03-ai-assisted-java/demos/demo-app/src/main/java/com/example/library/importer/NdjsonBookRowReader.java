@@ -0,0 +1,76 @@
+package com.example.library.importer;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+
+/**
+ * Reads newline-delimited JSON: one object per line with {@code title}, {@code author},
+ * {@code isbn} and (optionally) {@code publishedYear}. Unknown fields are ignored.
+ */
+class NdjsonBookRowReader implements BookRowReader {
+
+    private final BufferedReader reader;
+    private final ObjectMapper objectMapper;
+    private long line;
+
+    NdjsonBookRowReader(BufferedReader reader, ObjectMapper objectMapper) {
+        this.reader = reader;
+        this.objectMapper = objectMapper;
+    }
+
+    @Override
+    public BookImportRow next() throws IOException {
+        String text;
+        do {
+            text = reader.readLine();
+            line++;
+            if (text == null) {
+                return null;
+            }
+        } while (text.isBlank());
+
+        JsonNode node;
+        try {
+            node = objectMapper.readTree(text);
+        } catch (JsonProcessingException e) {
+            throw new MalformedRowException(line, "Invalid JSON: " + e.getOriginalMessage());
+        }
+        if (!node.isObject()) {
+            throw new MalformedRowException(line, "Expected a JSON object");
+        }
+        return new BookImportRow(line, text(node, "title"), text(node, "author"), text(node, "isbn"),
+                year(node.get("publishedYear")));
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+
+    private Integer year(JsonNode year) {
+        if (year == null || year.isNull()) {
+            return null;
+        }
+        if (year.canConvertToInt() && year.isIntegralNumber()) {
+            return year.intValue();
+        }
+        try {
+            return Integer.valueOf(year.asText().trim());
+        } catch (NumberFormatException e) {
+            throw new MalformedRowException(line, "Invalid publishedYear: " + year);
+        }
+    }
+
+    private static String text(JsonNode node, String field) {
+        JsonNode value = node.get(field);
+        if (value == null || value.isNull()) {
+            return null;
+        }
+        String text = value.asText().trim();
+        return text.isEmpty() ? null : text;
+    }
+}
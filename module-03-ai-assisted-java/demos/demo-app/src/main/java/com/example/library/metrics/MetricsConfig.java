@@ -0,0 +1,67 @@
+package com.example.library.metrics;
+
+import io.micrometer.core.aop.TimedAspect;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+
+/**
+ * Hot-path metrics, served at {@code /actuator/metrics}:
+ * <ul>
+ *   <li>{@code library.book.service}: latency histogram of every public BookService method
+ *   (its {@code @Timed} annotation, applied by {@link TimedAspect}).</li>
+ *   <li>{@code hibernate.*}: Hibernate statistics (queries, entity loads, collection fetches,
+ *   flushes, cache hits), bound by Spring Boot once statistics are generated.</li>
+ *   <li>{@code library.hibernate.flush}: time spent in each Hibernate flush, recorded by
+ *   {@link SessionMetricsListener}.</li>
+ *   <li>{@code library.request.statements}: JDBC statements per HTTP request, counted by
+ *   {@link StatementCountingDataSource} around the DataSource and recorded by
+ *   {@link RequestStatementsFilter}.</li>
+ * </ul>
+ * Hibernate logs any SQL statement slower than {@code library.metrics.slow-query-threshold}
+ * ({@code org.hibernate.SQL_SLOW} logger), and {@link RequestStatementsFilter} warns about
+ * requests issuing more than {@code library.metrics.request-statements-warn-threshold}
+ * statements, which is how N+1 selects usually show up.
+ */
+@Configuration
+public class MetricsConfig {
+
+    @Bean
+    public TimedAspect timedAspect(MeterRegistry registry) {
+        return new TimedAspect(registry);
+    }
+
+    /**
+     * Wraps the DataSource so statements are counted whether Hibernate or JdbcTemplate runs
+     * them. Static, so it is registered before the DataSource is created.
+     */
+    @Bean
+    public static BeanPostProcessor statementCountingDataSourcePostProcessor() {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (bean instanceof DataSource dataSource && !(bean instanceof StatementCountingDataSource)) {
+                    return new StatementCountingDataSource(dataSource);
+                }
+                return bean;
+            }
+        };
+    }
+
+    @Bean
+    public HibernatePropertiesCustomizer metricsHibernateProperties(
+            @Value("${library.metrics.slow-query-threshold:200ms}") Duration slowQueryThreshold) {
+        return properties -> {
+            properties.put(AvailableSettings.GENERATE_STATISTICS, "true");
+            properties.put(AvailableSettings.LOG_SLOW_QUERY, slowQueryThreshold.toMillis());
+            properties.put(AvailableSettings.AUTO_SESSION_EVENTS_LISTENER, SessionMetricsListener.class.getName());
+        };
+    }
+}
@@ -0,0 +1,81 @@
+package com.example.library.metrics;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.io.IOException;
+
+/**
+ * Counts the JDBC statements executed while serving each {@code /api/**} request, through
+ * Hibernate or JdbcTemplate alike (see {@link StatementCountingDataSource}), and records them
+ * in the {@code library.request.statements} distribution, tagged with the request's method and
+ * URI pattern. Requests above {@code library.metrics.request-statements-warn-threshold} are
+ * logged as likely N+1s.
+ * <p>
+ * Statements run on other threads (e.g. a streamed response body, or a write-behind batch
+ * flushed in the background) are not attributed.
+ */
+@Component
+public class RequestStatementsFilter extends OncePerRequestFilter {
+
+    static final String SUMMARY = "library.request.statements";
+
+    private static final Logger log = LoggerFactory.getLogger(RequestStatementsFilter.class);
+    private static final ThreadLocal<int[]> STATEMENTS = new ThreadLocal<>();
+
+    private final MeterRegistry registry;
+    private final int warnThreshold;
+
+    public RequestStatementsFilter(MeterRegistry registry,
+                                   @Value("${library.metrics.request-statements-warn-threshold:50}") int warnThreshold) {
+        this.registry = registry;
+        this.warnThreshold = warnThreshold;
+    }
+
+    static void statementExecuted() {
+        int[] count = STATEMENTS.get();
+        if (count != null) {
+            count[0]++;
+        }
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !request.getRequestURI().startsWith("/api/");
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response,
+                                    FilterChain chain) throws ServletException, IOException {
+        int[] count = new int[1];
+        STATEMENTS.set(count);
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            STATEMENTS.remove();
+            Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+            String uri = pattern != null ? pattern.toString() : "UNKNOWN";
+            DistributionSummary.builder(SUMMARY)
+                    .description("JDBC statements executed per HTTP request")
+                    .tag("method", request.getMethod())
+                    .tag("uri", uri)
+                    .publishPercentileHistogram()
+                    .register(registry)
+                    .record(count[0]);
+            if (count[0] > warnThreshold) {
+                log.warn("{} {} executed {} SQL statements (threshold {}); check for N+1 selects",
+                        request.getMethod(), request.getRequestURI(), count[0], warnThreshold);
+            }
+        }
+    }
+}
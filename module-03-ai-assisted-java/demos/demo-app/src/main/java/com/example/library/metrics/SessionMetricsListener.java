@@ -0,0 +1,35 @@
+package com.example.library.metrics;
+
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Timer;
+import org.hibernate.SessionEventListener;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-session Hibernate callbacks: times every flush. (Statements are counted per request by
+ * {@link StatementCountingDataSource}, which also sees those Hibernate does not issue.)
+ * <p>
+ * Hibernate creates one instance per session from the class name, so meters are looked up in
+ * Micrometer's global registry, which Spring Boot's registry is added to.
+ */
+public class SessionMetricsListener implements SessionEventListener {
+
+    static final String FLUSH_TIMER = "library.hibernate.flush";
+
+    private long flushStart;
+
+    @Override
+    public void flushStart() {
+        flushStart = System.nanoTime();
+    }
+
+    @Override
+    public void flushEnd(int numberOfEntities, int numberOfCollections) {
+        Timer.builder(FLUSH_TIMER)
+                .description("Time spent in Hibernate session flushes")
+                .publishPercentileHistogram()
+                .register(Metrics.globalRegistry)
+                .record(System.nanoTime() - flushStart, TimeUnit.NANOSECONDS);
+    }
+}
@@ -0,0 +1,75 @@
+package com.example.library.metrics;
+
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * Wraps the application's DataSource so every statement executed through it counts towards
+ * the current HTTP request (see {@link RequestStatementsFilter}), whoever issues it: Hibernate,
+ * JdbcTemplate review inserts and pages, bulk imports, or write-behind batches flushed on the
+ * request thread. A batch counts as one statement.
+ * <p>
+ * Spring Boot finds the pool behind the wrapper for its pool metrics and health checks.
+ */
+public class StatementCountingDataSource extends DelegatingDataSource {
+
+    public StatementCountingDataSource(DataSource target) {
+        super(target);
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return counting(super.getConnection());
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return counting(super.getConnection(username, password));
+    }
+
+    private static Connection counting(Connection connection) {
+        return proxy(Connection.class, connection, (target, method, result) -> {
+            Class<?> type = method.getReturnType();
+            if (result != null && type.isInterface() && Statement.class.isAssignableFrom(type)) {
+                return proxy(type, result, (statement, executed, value) -> {
+                    if (executed.getName().startsWith("execute")) {
+                        RequestStatementsFilter.statementExecuted();
+                    }
+                    return value;
+                });
+            }
+            return result;
+        });
+    }
+
+    /**
+     * Proxy that forwards every call to {@code target} and lets {@code after} see or replace
+     * the result of each successful call.
+     */
+    private static <T> T proxy(Class<T> type, Object target, AfterCall after) {
+        InvocationHandler handler = (proxy, method, args) -> {
+            Object result;
+            try {
+                result = method.invoke(target, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+            return after.apply(target, method, result);
+        };
+        return type.cast(Proxy.newProxyInstance(StatementCountingDataSource.class.getClassLoader(),
+                new Class<?>[] {type}, handler));
+    }
+
+    @FunctionalInterface
+    private interface AfterCall {
+        Object apply(Object target, Method method, Object result);
+    }
+}
@@ -1,7 +1,13 @@
 package com.example.library.model;
 
 import jakarta.persistence.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.CollectionId;
+import org.hibernate.annotations.CollectionIdJdbcTypeCode;
+import org.hibernate.annotations.SQLOrder;
 
+import java.sql.Types;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -10,11 +16,35 @@ import java.util.List;
  * Synthetic example for course use only.
  */
 @Entity
-@Table(name = "books")
+@Table(name = "books", uniqueConstraints = @UniqueConstraint(name = Book.ISBN_CONSTRAINT, columnNames = "isbn"))
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = Book.CACHE_REGION)
 public class Book {
 
+    /** Second-level cache regions for books and their review collections (see CacheConfig). */
+    public static final String CACHE_REGION = "books";
+    public static final String REVIEWS_CACHE_REGION = "book-reviews";
+
+    /** Unique constraint on {@code isbn}; named so a violation can be told apart from others. */
+    public static final String ISBN_CONSTRAINT = "uk_books_isbn";
+
+    /**
+     * Name and block size of the id sequence. Ids come from a pooled sequence (not IDENTITY)
+     * so Hibernate can batch inserts and BookImportService can reserve whole id blocks.
+     */
+    public static final String ID_SEQUENCE = "book_seq";
+    public static final int ID_ALLOCATION_SIZE = 50;
+
+    /**
+     * Sequence for the surrogate id of each book_reviews row. It gives reviews a stable order
+     * (oldest first) that review pages are keyed on, and lets Hibernate insert or delete single
+     * rows instead of rewriting the whole collection.
+     */
+    public static final String REVIEW_ID_SEQUENCE = "book_review_seq";
+
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = ID_SEQUENCE)
+    @SequenceGenerator(name = ID_SEQUENCE, sequenceName = ID_SEQUENCE, allocationSize = ID_ALLOCATION_SIZE)
     private Long id;
 
     @Column(nullable = false)
@@ -23,14 +53,20 @@ public class Book {
     @Column(nullable = false)
     private String author;
 
-    @Column(unique = true, nullable = false)
+    @Column(nullable = false)
     private String isbn;
 
     private Integer publishedYear;
 
     @ElementCollection
-    @CollectionTable(name = "book_reviews", joinColumns = @JoinColumn(name = "book_id"))
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = Book.REVIEWS_CACHE_REGION)
+    @CollectionTable(name = "book_reviews", joinColumns = @JoinColumn(name = "book_id"),
+            indexes = @Index(name = "idx_book_reviews_book_id", columnList = "book_id, id"))
     @Column(name = "review")
+    @CollectionId(column = @Column(name = "id"), generator = REVIEW_ID_SEQUENCE)
+    @CollectionIdJdbcTypeCode(Types.BIGINT)
+    @SequenceGenerator(name = REVIEW_ID_SEQUENCE, sequenceName = REVIEW_ID_SEQUENCE, allocationSize = ID_ALLOCATION_SIZE)
+    @SQLOrder("id")
     private List<String> reviews = new ArrayList<>();
 
     public Book() {}
@@ -0,0 +1,43 @@
+package com.example.library.model;
+
+import java.util.BitSet;
+import java.util.List;
+
+/**
+ * Columnar form of a list of users for bulk jobs: one active flag per row in a
+ * {@link BitSet} and the emails in a parallel array. Filtering reads two flat structures
+ * instead of dereferencing a {@link User} object per row.
+ * <p>
+ * Row {@code i} of the batch is row {@code i} of the source list; a {@code null} user is an
+ * inactive row without an email. The arrays are not copied, so callers must not modify
+ * them while the batch is in use.
+ */
+public record UserBatch(BitSet active, String[] emails) {
+
+    public UserBatch {
+        if (active == null || emails == null) {
+            throw new IllegalArgumentException("active and emails are required");
+        }
+        if (active.length() > emails.length) {
+            throw new IllegalArgumentException("active flag set beyond the last email row");
+        }
+    }
+
+    public static UserBatch of(List<User> users) {
+        BitSet active = new BitSet(users.size());
+        String[] emails = new String[users.size()];
+        int i = 0;
+        for (User user : users) {
+            if (user != null) {
+                active.set(i, user.isActive());
+                emails[i] = user.getEmail();
+            }
+            i++;
+        }
+        return new UserBatch(active, emails);
+    }
+
+    public int size() {
+        return emails.length;
+    }
+}
@@ -0,0 +1,8 @@
+package com.example.library.repository;
+
+/**
+ * Read-only projection of the columns the catalog facets count by, loaded in id order
+ * so they can be rebuilt without hydrating Book entities.
+ */
+public record BookFacetFields(Long id, String author, Integer publishedYear) {
+}
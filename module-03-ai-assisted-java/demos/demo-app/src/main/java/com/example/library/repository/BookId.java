@@ -0,0 +1,8 @@
+package com.example.library.repository;
+
+/**
+ * Id-only projection, so bulk operations can select the rows they touch without
+ * hydrating Book entities.
+ */
+public record BookId(Long id) {
+}
@@ -0,0 +1,7 @@
+package com.example.library.repository;
+
+/**
+ * Id and ISBN of a book, for scanning the catalog's ISBNs without loading entities.
+ */
+public record BookIsbn(Long id, String isbn) {
+}
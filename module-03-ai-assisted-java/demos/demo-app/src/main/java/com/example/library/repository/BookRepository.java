@@ -1,18 +1,124 @@
 package com.example.library.repository;
 
 import com.example.library.model.Book;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 /**
  * Spring Data JPA repository for Book entities.
+ * Finder results go to the second-level query cache; Hibernate invalidates them whenever
+ * the books table is written.
  */
-public interface BookRepository extends JpaRepository<Book, Long> {
+public interface BookRepository extends JpaRepository<Book, Long>, BookReviewsRepository {
 
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
     List<Book> findByAuthorContainingIgnoreCase(String author);
 
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
     List<Book> findByAuthorContainingIgnoreCaseAndTitleContainingIgnoreCase(String author, String title);
 
-    void deleteByAuthorContainingIgnoreCase(String author);
+    /**
+     * Keyset page of ids: books whose author contains {@code author} (ignoring case) with an
+     * id greater than {@code afterId}, in id order. Cost does not depend on page depth.
+     */
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
+    List<BookId> findIdsByAuthorContainingIgnoreCaseAndIdGreaterThanOrderByIdAsc(
+            String author, Long afterId, Limit limit);
+
+    /**
+     * Keyset page of ids for the author-and-title search; see
+     * {@link #findIdsByAuthorContainingIgnoreCaseAndIdGreaterThanOrderByIdAsc}.
+     */
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
+    List<BookId> findIdsByAuthorContainingIgnoreCaseAndTitleContainingIgnoreCaseAndIdGreaterThanOrderByIdAsc(
+            String author, String title, Long afterId, Limit limit);
+
+    /**
+     * Loads the given books with their reviews in one query, in id order. Used for keyset
+     * pages, whose ids are already limited, so the collection fetch cannot blow up the page.
+     */
+    @EntityGraph(attributePaths = "reviews")
+    List<Book> findWithReviewsByIdInOrderByIdAsc(Collection<Long> ids);
+
+    /**
+     * The book with this ISBN (a unique, indexed column), with its reviews.
+     */
+    @EntityGraph(attributePaths = "reviews")
+    Optional<Book> findByIsbn(String isbn);
+
+    boolean existsByIsbn(String isbn);
+
+    /**
+     * One keyset page of ids and ISBNs in id order, for rebuilding {@code IsbnBloomFilter}.
+     */
+    @Query("select new com.example.library.repository.BookIsbn(b.id, b.isbn) from Book b "
+            + "where b.id > :afterId order by b.id")
+    List<BookIsbn> findIsbnsAfter(Long afterId, Limit limit);
+
+    /**
+     * Column projection of the given books with their review counts, in id order.
+     */
+    @Query("select new com.example.library.repository.BookSummary("
+            + "b.id, b.title, b.author, b.isbn, b.publishedYear, size(b.reviews)) "
+            + "from Book b where b.id in :ids order by b.id")
+    List<BookSummary> findSummariesByIdInOrderByIdAsc(Collection<Long> ids);
+
+    /**
+     * Every review of the given books in one query, instead of one lazy load per book.
+     */
+    @Query("select new com.example.library.repository.BookReview(b.id, r) from Book b join b.reviews r "
+            + "where b.id in :ids")
+    List<BookReview> findReviewsByBookIdIn(Collection<Long> ids);
+
+    /**
+     * Up to {@code limit} ids of books whose author contains {@code author}, ignoring case.
+     */
+    List<BookId> findIdsByAuthorContainingIgnoreCase(String author, Limit limit);
+
+    /**
+     * Set-based delete of the given books. Hibernate removes their book_reviews rows with
+     * one statement first, so nothing is loaded into the persistence context.
+     *
+     * @return the number of books deleted
+     */
+    @Transactional
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("delete from Book b where b.id in :ids")
+    int bulkDeleteByIds(Collection<Long> ids);
+
+    /**
+     * Keyset scan used to (re)build the in-memory search index: the next {@code limit}
+     * books with an id greater than {@code afterId}, without loading entities or reviews.
+     */
+    @Query("select new com.example.library.repository.BookSearchFields(b.id, b.author, b.title) "
+            + "from Book b where b.id > :afterId order by b.id")
+    List<BookSearchFields> findSearchFieldsAfter(Long afterId, Limit limit);
+
+    /**
+     * Keyset scan for rebuilding {@code CatalogFacets}; see {@link #findSearchFieldsAfter}.
+     */
+    @Query("select new com.example.library.repository.BookFacetFields(b.id, b.author, b.publishedYear) "
+            + "from Book b where b.id > :afterId order by b.id")
+    List<BookFacetFields> findFacetFieldsAfter(Long afterId, Limit limit);
+
+    /**
+     * Highest book id, or 0 for an empty catalog. With {@link #count()} and {@link #countReviews()}
+     * this fingerprints the catalog for {@code BookFullTextIndex}.
+     */
+    @Query("select coalesce(max(b.id), 0) from Book b")
+    long findMaxId();
+
+    @Query("select count(r) from Book b join b.reviews r")
+    long countReviews();
 }
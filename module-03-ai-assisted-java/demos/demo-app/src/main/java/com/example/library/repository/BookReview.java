@@ -0,0 +1,7 @@
+package com.example.library.repository;
+
+/**
+ * One review row tagged with its book id, for loading the reviews of many books at once.
+ */
+public record BookReview(Long bookId, String review) {
+}
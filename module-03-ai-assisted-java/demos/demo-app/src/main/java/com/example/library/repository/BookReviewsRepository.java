@@ -0,0 +1,33 @@
+package com.example.library.repository;
+
+import java.util.List;
+
+/**
+ * Review reads and writes that bypass the Book aggregate; implemented by {@link BookReviewsRepositoryImpl}
+ * and mixed into {@link BookRepository}.
+ */
+public interface BookReviewsRepository {
+
+    /**
+     * Appends one review row for an existing book. Unlike adding to {@code Book.getReviews()}
+     * and saving, this neither loads the collection nor rewrites its existing rows, and only
+     * that book's cached review collection is evicted.
+     *
+     * @return the number of rows inserted
+     */
+    int insertReview(Long bookId, String review);
+
+    /**
+     * Appends many review rows, possibly for different books, in one JDBC batch, in list
+     * order. Each affected book's cached review collection is evicted once.
+     *
+     * @return the number of rows inserted
+     */
+    int insertReviews(List<BookReview> reviews);
+
+    /**
+     * Keyset page of a book's reviews, read straight from book_reviews without loading the
+     * Book: up to {@code limit} reviews with an id greater than {@code afterId}, oldest first.
+     */
+    List<ReviewEntry> findReviewsAfter(Long bookId, Long afterId, int limit);
+}
@@ -0,0 +1,98 @@
+package com.example.library.repository;
+
+import com.example.library.model.Book;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.Cache;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Plain JDBC insert, so Hibernate does not treat it as a native mutation of unknown scope
+ * (which would invalidate every second-level cache region). The one affected review
+ * collection is evicted explicitly once the insert is committed. Row ids come from the same
+ * sequence Hibernate uses for the collection, through the dialect's next-value expression.
+ */
+class BookReviewsRepositoryImpl implements BookReviewsRepository {
+
+    private static final String REVIEWS_ROLE = Book.class.getName() + ".reviews";
+    private static final String PAGE_SQL = "select id, review from book_reviews where book_id = ? and id > ? "
+            + "order by id fetch first ? rows only";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final EntityManagerFactory entityManagerFactory;
+    private final String insertSql;
+
+    BookReviewsRepositoryImpl(JdbcTemplate jdbcTemplate, EntityManagerFactory entityManagerFactory) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.entityManagerFactory = entityManagerFactory;
+        String nextId = entityManagerFactory.unwrap(SessionFactoryImplementor.class).getJdbcServices().getDialect()
+                .getSequenceSupport().getSelectSequenceNextValString(Book.REVIEW_ID_SEQUENCE);
+        this.insertSql = "insert into book_reviews (id, book_id, review) values (" + nextId + ", ?, ?)";
+    }
+
+    @Override
+    @Transactional
+    public int insertReview(Long bookId, String review) {
+        int rows = jdbcTemplate.update(insertSql, bookId, review);
+        evictAfterCommit(Set.of(bookId));
+        return rows;
+    }
+
+    @Override
+    @Transactional
+    public int insertReviews(List<BookReview> reviews) {
+        if (reviews.isEmpty()) {
+            return 0;
+        }
+        int[][] counts = jdbcTemplate.batchUpdate(insertSql, reviews, reviews.size(), (ps, review) -> {
+            ps.setLong(1, review.bookId());
+            ps.setString(2, review.review());
+        });
+        Set<Long> bookIds = new HashSet<>();
+        for (BookReview review : reviews) {
+            bookIds.add(review.bookId());
+        }
+        evictAfterCommit(bookIds);
+        int rows = 0;
+        for (int[] batch : counts) {
+            for (int count : batch) {
+                // Drivers may report SUCCESS_NO_INFO (-2) instead of a row count.
+                rows += count < 0 ? 1 : count;
+            }
+        }
+        return rows;
+    }
+
+    @Override
+    public List<ReviewEntry> findReviewsAfter(Long bookId, Long afterId, int limit) {
+        return jdbcTemplate.query(PAGE_SQL, (rs, row) -> new ReviewEntry(rs.getLong(1), rs.getString(2)),
+                bookId, afterId != null ? afterId : Long.MIN_VALUE, limit);
+    }
+
+    private void evictAfterCommit(Set<Long> bookIds) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    evictReviews(bookIds);
+                }
+            });
+        } else {
+            evictReviews(bookIds);
+        }
+    }
+
+    private void evictReviews(Set<Long> bookIds) {
+        Cache cache = entityManagerFactory.getCache().unwrap(Cache.class);
+        for (Long bookId : bookIds) {
+            cache.evictCollectionData(REVIEWS_ROLE, bookId);
+        }
+    }
+}
@@ -0,0 +1,8 @@
+package com.example.library.repository;
+
+/**
+ * Read-only projection of the columns the in-memory search index needs.
+ * Loaded in id order so the index can be rebuilt without hydrating Book entities.
+ */
+public record BookSearchFields(Long id, String author, String title) {
+}
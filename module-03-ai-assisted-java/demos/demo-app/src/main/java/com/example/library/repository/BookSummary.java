@@ -0,0 +1,9 @@
+package com.example.library.repository;
+
+/**
+ * Read-only projection of a book's columns plus its review count. Selected directly into
+ * this record, so nothing is attached to the persistence context or dirty-checked.
+ */
+public record BookSummary(Long id, String title, String author, String isbn, Integer publishedYear,
+                          long reviewCount) {
+}
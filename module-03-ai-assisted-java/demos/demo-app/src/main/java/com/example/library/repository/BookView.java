@@ -0,0 +1,25 @@
+package com.example.library.repository;
+
+import com.example.library.model.Book;
+
+import java.util.List;
+
+/**
+ * Read-only, immutable view of a book with its reviews. Same JSON shape as a serialized
+ * {@link Book}, without entity hydration or lazy loading.
+ */
+public record BookView(Long id, String title, String author, String isbn, Integer publishedYear,
+                       List<String> reviews) {
+
+    public BookView {
+        reviews = List.copyOf(reviews);
+    }
+
+    /**
+     * Copies a loaded book; its reviews must already be initialized.
+     */
+    public static BookView from(Book book) {
+        return new BookView(book.getId(), book.getTitle(), book.getAuthor(), book.getIsbn(), book.getPublishedYear(),
+                book.getReviews());
+    }
+}
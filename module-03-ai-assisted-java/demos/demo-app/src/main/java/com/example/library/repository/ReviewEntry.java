@@ -0,0 +1,8 @@
+package com.example.library.repository;
+
+/**
+ * One book_reviews row: its surrogate id, which orders a book's reviews and keys review
+ * pages, and the review text.
+ */
+public record ReviewEntry(Long id, String review) {
+}
@@ -0,0 +1,19 @@
+package com.example.library.review;
+
+/**
+ * Thrown when the review write-behind buffer cannot take or confirm a review in time: the
+ * queue stayed full, or a {@code SYNC} commit did not finish within {@code sync-timeout}.
+ * Mapped to {@code 503 Service Unavailable} with {@code Retry-After} by ApiExceptionHandler.
+ */
+public class ReviewBufferBusyException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    public ReviewBufferBusyException(String message) {
+        super(message);
+    }
+
+    public ReviewBufferBusyException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
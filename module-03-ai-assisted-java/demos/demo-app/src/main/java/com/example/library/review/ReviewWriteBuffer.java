@@ -0,0 +1,348 @@
+package com.example.library.review;
+
+import com.example.library.event.BookReviewedEvent;
+import com.example.library.repository.BookRepository;
+import com.example.library.repository.BookReview;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Optional write-behind buffer for review appends, for titles that receive many concurrent
+ * reviews.
+ * <p>
+ * Reviews are queued on one of {@code library.reviews.write-behind.stripes} lock-free queues,
+ * chosen by book id, and written in JDBC batches of up to {@code batch-size} rows: every
+ * {@code flush-interval}, as soon as a stripe reaches {@code batch-size}, and on shutdown.
+ * At most one thread flushes a stripe at a time, so a book's reviews keep their order.
+ * <p>
+ * {@code durability} chooses what a caller waits for:
+ * <ul>
+ *   <li>{@code ASYNC} (default) returns once the review is queued; a crash can lose queued
+ *   reviews, and reads do not see a review until its batch is flushed.</li>
+ *   <li>{@code SYNC} returns once the review is committed. Callers that find their stripe
+ *   idle flush it themselves, taking up to a batch of the reviews queued with theirs (group
+ *   commit) and leaving the rest to the background flusher.</li>
+ * </ul>
+ * At most {@code max-pending} reviews are queued at once; further callers write out a batch
+ * per idle stripe and then wait for room, up to {@code sync-timeout}.
+ * Each committed batch publishes a BookReviewedEvent per book it touched.
+ * Disabled by default; enable with {@code library.reviews.write-behind.enabled=true}.
+ */
+@Component
+public class ReviewWriteBuffer {
+
+    public enum Durability { ASYNC, SYNC }
+
+    private static final Logger log = LoggerFactory.getLogger(ReviewWriteBuffer.class);
+
+    private final BookRepository repository;
+    private final TransactionTemplate transactionTemplate;
+    private final ApplicationEventPublisher events;
+    private final boolean enabled;
+    private final int batchSize;
+    private final Semaphore room;
+    private final Durability durability;
+    private final Duration syncTimeout;
+    private final Stripe[] stripes;
+    private final ScheduledExecutorService flusher;
+
+    private final AtomicInteger pending = new AtomicInteger();
+    private final LongAdder enqueued = new LongAdder();
+    private final LongAdder written = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final LongAdder flushes = new LongAdder();
+    private final LongAdder flushNanos = new LongAdder();
+    private final LongAccumulator maxFlushNanos = new LongAccumulator(Math::max, 0);
+    private final AtomicLong lastFlushNanos = new AtomicLong();
+
+    public ReviewWriteBuffer(BookRepository repository,
+                             TransactionTemplate transactionTemplate,
+                             ApplicationEventPublisher events,
+                             @Value("${library.reviews.write-behind.enabled:false}") boolean enabled,
+                             @Value("${library.reviews.write-behind.stripes:16}") int stripes,
+                             @Value("${library.reviews.write-behind.batch-size:500}") int batchSize,
+                             @Value("${library.reviews.write-behind.max-pending:100000}") int maxPending,
+                             @Value("${library.reviews.write-behind.flush-interval:200ms}") Duration flushInterval,
+                             @Value("${library.reviews.write-behind.durability:ASYNC}") Durability durability,
+                             @Value("${library.reviews.write-behind.sync-timeout:5s}") Duration syncTimeout) {
+        if (stripes < 1 || batchSize < 1 || maxPending < batchSize) {
+            throw new IllegalArgumentException(
+                    "library.reviews.write-behind needs stripes >= 1, batch-size >= 1 and max-pending >= batch-size");
+        }
+        this.repository = repository;
+        this.transactionTemplate = transactionTemplate;
+        this.events = events;
+        this.enabled = enabled;
+        this.batchSize = batchSize;
+        this.room = new Semaphore(maxPending);
+        this.durability = durability;
+        this.syncTimeout = syncTimeout;
+        this.stripes = new Stripe[stripes];
+        for (int i = 0; i < stripes; i++) {
+            this.stripes[i] = new Stripe();
+        }
+        if (enabled) {
+            flusher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "review-write-behind");
+                thread.setDaemon(true);
+                return thread;
+            });
+            long interval = flushInterval.toMillis();
+            flusher.scheduleWithFixedDelay(this::flushAll, interval, interval, TimeUnit.MILLISECONDS);
+        } else {
+            flusher = null;
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Queues a review for an existing book. With {@code SYNC} durability, blocks until it is
+     * committed. When {@code max-pending} reviews are already queued, the caller first writes
+     * a batch from each idle stripe itself and then blocks until written rows make room.
+     *
+     * @throws IllegalStateException if the buffer is disabled or a {@code SYNC} write failed
+     * @throws ReviewBufferBusyException if the queue stayed full for {@code sync-timeout}, a
+     * {@code SYNC} write did not commit within {@code sync-timeout}, or the caller was interrupted
+     */
+    public void add(Long bookId, String review) {
+        if (!enabled) {
+            throw new IllegalStateException("Review write-behind is disabled");
+        }
+        if (!room.tryAcquire()) {
+            for (Stripe stripe : stripes) {
+                flushBatch(stripe);
+            }
+            awaitRoom();
+        }
+        Stripe stripe = stripeFor(bookId);
+        Pending entry = new Pending(new BookReview(bookId, review),
+                durability == Durability.SYNC ? new CompletableFuture<>() : null);
+        stripe.queue.add(entry);
+        int depth = stripe.depth.incrementAndGet();
+        enqueued.increment();
+        pending.incrementAndGet();
+
+        if (entry.committed != null) {
+            flushBatch(stripe);
+            await(entry.committed);
+        } else if (depth >= batchSize && !stripe.flushing.get()) {
+            flushInBackground(stripe);
+        }
+    }
+
+    /**
+     * Writes everything queued so far, on the calling thread.
+     */
+    public void flushAll() {
+        for (Stripe stripe : stripes) {
+            flush(stripe);
+        }
+    }
+
+    public Stats stats() {
+        int maxDepth = 0;
+        for (Stripe stripe : stripes) {
+            maxDepth = Math.max(maxDepth, stripe.depth.get());
+        }
+        long count = flushes.sum();
+        return new Stats(enabled, durability, pending.get(), maxDepth, enqueued.sum(), written.sum(), failed.sum(),
+                count, count == 0 ? 0 : flushNanos.sum() / count / 1e6, maxFlushNanos.get() / 1e6,
+                lastFlushNanos.get() / 1e6);
+    }
+
+    @PreDestroy
+    public void close() {
+        if (flusher != null) {
+            flusher.shutdown();
+            try {
+                flusher.awaitTermination(syncTimeout.toMillis(), TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            flushAll();
+        }
+    }
+
+    private Stripe stripeFor(Long bookId) {
+        int hash = Long.hashCode(bookId);
+        return stripes[Math.floorMod(hash ^ (hash >>> 16), stripes.length)];
+    }
+
+    /**
+     * Writes at most one batch from the stripe unless another thread is flushing it, and hands
+     * what is left to the background flusher. Bounds the time a request thread spends writing
+     * other callers' reviews.
+     */
+    private void flushBatch(Stripe stripe) {
+        if (stripe.queue.isEmpty() || !stripe.flushing.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            List<Pending> batch = new ArrayList<>(Math.min(batchSize, stripe.depth.get()));
+            Pending entry;
+            while (batch.size() < batchSize && (entry = stripe.queue.poll()) != null) {
+                batch.add(entry);
+            }
+            if (!batch.isEmpty()) {
+                write(stripe, batch);
+            }
+        } finally {
+            stripe.flushing.set(false);
+        }
+        if (!stripe.queue.isEmpty()) {
+            flushInBackground(stripe);
+        }
+    }
+
+    private void flushInBackground(Stripe stripe) {
+        try {
+            flusher.execute(() -> flush(stripe));
+        } catch (RejectedExecutionException shuttingDown) {
+            flush(stripe);
+        }
+    }
+
+    /**
+     * Drains the stripe in batches unless another thread already is. Rechecks the queue after
+     * letting go, so an entry queued just as the previous flusher finished is not left behind.
+     */
+    private void flush(Stripe stripe) {
+        while (!stripe.queue.isEmpty() && stripe.flushing.compareAndSet(false, true)) {
+            try {
+                List<Pending> batch = new ArrayList<>(Math.min(batchSize, stripe.depth.get()));
+                Pending entry;
+                while ((entry = stripe.queue.poll()) != null) {
+                    batch.add(entry);
+                    if (batch.size() == batchSize) {
+                        write(stripe, batch);
+                        batch.clear();
+                    }
+                }
+                if (!batch.isEmpty()) {
+                    write(stripe, batch);
+                }
+            } finally {
+                stripe.flushing.set(false);
+            }
+        }
+    }
+
+    private void write(Stripe stripe, List<Pending> batch) {
+        long start = System.nanoTime();
+        List<BookReview> rows = new ArrayList<>(batch.size());
+        for (Pending entry : batch) {
+            rows.add(entry.review);
+        }
+        Set<Long> reviewed = new LinkedHashSet<>();
+        try {
+            transactionTemplate.executeWithoutResult(status -> repository.insertReviews(rows));
+            for (Pending entry : batch) {
+                succeeded(entry);
+                reviewed.add(entry.review.bookId());
+            }
+        } catch (DataAccessException e) {
+            // Usually one book deleted while its reviews were queued; keep the rest of the batch.
+            log.warn("Review batch of {} failed ({}); retrying row by row", batch.size(), e.getMessage());
+            for (Pending entry : batch) {
+                try {
+                    repository.insertReview(entry.review.bookId(), entry.review.review());
+                    succeeded(entry);
+                    reviewed.add(entry.review.bookId());
+                } catch (DataAccessException rowFailure) {
+                    failed.increment();
+                    log.warn("Dropping review for book {}: {}", entry.review.bookId(), rowFailure.getMessage());
+                    if (entry.committed != null) {
+                        entry.committed.completeExceptionally(rowFailure);
+                    }
+                }
+            }
+        } finally {
+            stripe.depth.addAndGet(-batch.size());
+            pending.addAndGet(-batch.size());
+            room.release(batch.size());
+            long elapsed = System.nanoTime() - start;
+            flushes.increment();
+            flushNanos.add(elapsed);
+            maxFlushNanos.accumulate(elapsed);
+            lastFlushNanos.set(elapsed);
+        }
+        reviewed.forEach(bookId -> events.publishEvent(new BookReviewedEvent(bookId)));
+    }
+
+    private void succeeded(Pending entry) {
+        written.increment();
+        if (entry.committed != null) {
+            entry.committed.complete(null);
+        }
+    }
+
+    private void awaitRoom() {
+        try {
+            if (!room.tryAcquire(syncTimeout.toMillis(), TimeUnit.MILLISECONDS)) {
+                throw new ReviewBufferBusyException("Review write-behind queue still full after " + syncTimeout);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ReviewBufferBusyException("Interrupted while waiting for room in the review queue", e);
+        }
+    }
+
+    private void await(CompletableFuture<Void> committed) {
+        try {
+            committed.get(syncTimeout.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Review could not be saved: " + e.getCause().getMessage(), e.getCause());
+        } catch (TimeoutException e) {
+            throw new ReviewBufferBusyException("Review not committed within " + syncTimeout + "; it may still be saved");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ReviewBufferBusyException("Interrupted while waiting for review commit", e);
+        }
+    }
+
+    private static final class Stripe {
+        final ConcurrentLinkedQueue<Pending> queue = new ConcurrentLinkedQueue<>();
+        final AtomicInteger depth = new AtomicInteger();
+        final AtomicBoolean flushing = new AtomicBoolean();
+    }
+
+    private record Pending(BookReview review, CompletableFuture<Void> committed) {
+    }
+
+    /**
+     * Buffer counters; latencies are per flushed batch, in milliseconds.
+     */
+    public record Stats(boolean enabled, Durability durability, int queueDepth, int maxStripeDepth,
+                       long enqueued, long written, long failed, long flushes,
+                       double avgFlushMillis, double maxFlushMillis, double lastFlushMillis) {
+    }
+}
@@ -0,0 +1,472 @@
+package com.example.library.search;
+
+import com.example.library.event.BookDeletedEvent;
+import com.example.library.event.BookReviewedEvent;
+import com.example.library.event.BookSavedEvent;
+import com.example.library.model.Book;
+import com.example.library.repository.BookRepository;
+import com.example.library.repository.BookReview;
+import com.example.library.repository.BookSearchFields;
+import com.example.library.repository.BookSummary;
+import jakarta.annotation.PreDestroy;
+import org.apache.lucene.analysis.Analyzer;
+import org.apache.lucene.analysis.en.EnglishAnalyzer;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field;
+import org.apache.lucene.document.StringField;
+import org.apache.lucene.document.TextField;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.StoredFields;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.queryparser.classic.MultiFieldQueryParser;
+import org.apache.lucene.queryparser.classic.ParseException;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.ScoreDoc;
+import org.apache.lucene.search.SearcherManager;
+import org.apache.lucene.search.TopDocs;
+import org.apache.lucene.search.TopScoreDocCollectorManager;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.store.FSDirectory;
+import org.hibernate.Hibernate;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Optional on-disk Lucene index over Book.title, author and reviews for relevance-ranked
+ * full-text search.
+ * <p>
+ * Matches are scored with BM25 (Lucene's default similarity) across the three fields, with
+ * title and author weighted above review text, and only the top k are collected: once k
+ * hits are found Lucene skips blocks of documents that cannot beat the k-th score instead
+ * of scoring every match.
+ * <p>
+ * Kept current from the write events (books saved or deleted, reviews added), applied once
+ * the writing transaction commits so a rolled-back write never reaches the index, and committed
+ * to {@code library.search.full-text.directory} every commit-interval and on shutdown. Only
+ * the final commit of a clean shutdown, after every write event was applied, records the
+ * catalog's book count, highest id and review count; the first commit after opening clears
+ * that record again. At startup an index whose record is present and still matches the
+ * database is reused. Anything else (a crash, a write event that could not be applied, a
+ * catalog changed while the application was down) is rebuilt by a keyset scan. Searches see
+ * writes within refresh-interval. Enable with {@code library.search.full-text.enabled=true}.
+ */
+@Component
+public class BookFullTextIndex {
+
+    public static final int MAX_RESULTS = 100;
+
+    static final String ID = "id";
+    static final String TITLE = "title";
+    static final String AUTHOR = "author";
+    static final String REVIEWS = "reviews";
+
+    private static final Logger log = LoggerFactory.getLogger(BookFullTextIndex.class);
+    private static final int REBUILD_PAGE_SIZE = 1_000;
+    private static final Map<String, Float> BOOSTS = Map.of(TITLE, 3f, AUTHOR, 2f, REVIEWS, 1f);
+
+    private final BookRepository repository;
+    private final boolean enabled;
+    private final Path path;
+    private final Duration refreshInterval;
+    private final Duration commitInterval;
+    private final Analyzer analyzer = new EnglishAnalyzer();
+
+    private Directory directory;
+    private volatile IndexWriter writer;
+    private SearcherManager searcherManager;
+    private ScheduledExecutorService scheduler;
+
+    private final AtomicBoolean uncommitted = new AtomicBoolean();
+    /** Set when a write event could not be applied; the index is then not trusted after a restart. */
+    private volatile boolean missedWrites;
+    private volatile boolean ready;
+    private boolean rebuilding;
+    private final Set<Long> writtenWhileRebuilding = new HashSet<>();
+
+    public BookFullTextIndex(BookRepository repository,
+                             @Value("${library.search.full-text.enabled:false}") boolean enabled,
+                             @Value("${library.search.full-text.directory:data/full-text-index}") Path path,
+                             @Value("${library.search.full-text.refresh-interval:1s}") Duration refreshInterval,
+                             @Value("${library.search.full-text.commit-interval:30s}") Duration commitInterval) {
+        this.repository = repository;
+        this.enabled = enabled;
+        this.path = path;
+        this.refreshInterval = refreshInterval;
+        this.commitInterval = commitInterval;
+    }
+
+    /**
+     * Opens the index directory, reuses what it holds if its commit still matches the
+     * catalog and rebuilds it otherwise, then starts the refresh and commit schedule.
+     * On failure the index stays not ready and searches report it as unavailable.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void open() {
+        if (!enabled || writer != null) {
+            return;
+        }
+        try {
+            Files.createDirectories(path);
+            directory = FSDirectory.open(path);
+            IndexWriter opened = new IndexWriter(directory, new IndexWriterConfig(analyzer)
+                    .setOpenMode(IndexWriterConfig.OpenMode.CREATE_OR_APPEND));
+            searcherManager = new SearcherManager(opened, null);
+            writer = opened;
+            CatalogFingerprint committed = CatalogFingerprint.from(opened.getLiveCommitData());
+            if (committed != null && committed.equals(catalogFingerprint())) {
+                // Clear the record at once: if the application dies before a clean shutdown
+                // writes it again, the next start rebuilds.
+                uncommitted.set(true);
+                commit();
+                ready = true;
+                log.info("Full-text index reused from {}: {} books", path, committed.books());
+            } else {
+                if (committed == null) {
+                    log.info("Full-text index at {} was not closed cleanly; rebuilding", path);
+                }
+                rebuild();
+            }
+        } catch (IOException | RuntimeException e) {
+            log.error("Full-text index at {} could not be opened; full-text search is unavailable", path, e);
+            return;
+        }
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "full-text-index");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long refresh = refreshInterval.toMillis();
+        long commit = commitInterval.toMillis();
+        scheduler.scheduleWithFixedDelay(this::refresh, refresh, refresh, TimeUnit.MILLISECONDS);
+        scheduler.scheduleWithFixedDelay(this::commit, commit, commit, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Replaces the index contents with every book and review from the repository (keyset
+     * scan, no entity hydration) and commits. Writes that arrive while it runs take
+     * precedence over the rows it reads.
+     */
+    void rebuild() throws IOException {
+        long start = System.nanoTime();
+        synchronized (this) {
+            ready = false;
+            rebuilding = true;
+            writtenWhileRebuilding.clear();
+            writer.deleteAll();
+        }
+        long books = 0;
+        missedWrites = false;
+        try {
+            long afterId = 0L;
+            List<BookSearchFields> page;
+            do {
+                page = repository.findSearchFieldsAfter(afterId, Limit.of(REBUILD_PAGE_SIZE));
+                if (page.isEmpty()) {
+                    break;
+                }
+                List<Long> ids = page.stream().map(BookSearchFields::id).toList();
+                Map<Long, List<String>> reviews = reviewsOf(ids);
+                for (BookSearchFields row : page) {
+                    synchronized (this) {
+                        if (!writtenWhileRebuilding.contains(row.id())) {
+                            writer.updateDocument(idTerm(row.id()),
+                                    document(row.id(), row.title(), row.author(), reviews.get(row.id())));
+                        }
+                    }
+                    books++;
+                }
+                afterId = ids.get(ids.size() - 1);
+            } while (page.size() == REBUILD_PAGE_SIZE);
+        } finally {
+            synchronized (this) {
+                rebuilding = false;
+                writtenWhileRebuilding.clear();
+            }
+        }
+        uncommitted.set(true);
+        commit();
+        refresh();
+        ready = true;
+        log.info("Full-text index built at {}: {} books in {} ms", path, books, (System.nanoTime() - start) / 1_000_000);
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onBookSaved(BookSavedEvent event) {
+        Book book = event.book();
+        if (writer == null || book == null || book.getId() == null) {
+            return;
+        }
+        apply(book.getId(), () -> {
+            if (Hibernate.isInitialized(book.getReviews())) {
+                upsert(book.getId(), book.getTitle(), book.getAuthor(), book.getReviews());
+            } else {
+                reindex(book.getId());
+            }
+        });
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onBookReviewed(BookReviewedEvent event) {
+        if (writer != null && event.bookId() != null) {
+            apply(event.bookId(), () -> reindex(event.bookId()));
+        }
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onBookDeleted(BookDeletedEvent event) {
+        if (writer != null && event.bookId() != null) {
+            apply(event.bookId(), () -> {
+                claim(event.bookId());
+                try {
+                    writer.deleteDocuments(idTerm(event.bookId()));
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                uncommitted.set(true);
+            });
+        }
+    }
+
+    public boolean isReady() {
+        return enabled && ready;
+    }
+
+    /**
+     * The {@code k} best matches for {@code text}, best first. The text uses Lucene's classic
+     * query syntax: plain words match any field, {@code "quoted phrases"} match in order, and
+     * {@code title:}/{@code author:}/{@code reviews:} restrict a term to one field.
+     *
+     * @throws IndexNotReadyException if the index is disabled or still being built
+     * @throws IllegalArgumentException if the text is not a valid query
+     */
+    public List<FullTextHit> search(String text, int k) {
+        if (!isReady()) {
+            throw new IndexNotReadyException("Full-text index is " + (enabled ? "still being built" : "disabled"));
+        }
+        Query query;
+        try {
+            query = new MultiFieldQueryParser(new String[] {TITLE, AUTHOR, REVIEWS}, analyzer, BOOSTS).parse(text);
+        } catch (ParseException e) {
+            throw new IllegalArgumentException("Invalid search query: " + text, e);
+        }
+        try {
+            IndexSearcher searcher = searcherManager.acquire();
+            try {
+                // A total-hits threshold of k lets the collector skip non-competitive documents.
+                TopDocs top = searcher.search(query, new TopScoreDocCollectorManager(k, null, k));
+                StoredFields stored = searcher.storedFields();
+                List<FullTextHit> hits = new ArrayList<>(top.scoreDocs.length);
+                for (ScoreDoc hit : top.scoreDocs) {
+                    hits.add(new FullTextHit(Long.parseLong(stored.document(hit.doc).get(ID)), hit.score));
+                }
+                return hits;
+            } finally {
+                searcherManager.release(searcher);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Makes writes so far visible to searches. Runs every refresh-interval.
+     */
+    void refresh() {
+        try {
+            searcherManager.maybeRefresh();
+        } catch (IOException | RuntimeException e) {
+            log.warn("Full-text index refresh failed: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Commits pending writes without a catalog fingerprint, so the index is rebuilt if the
+     * application stops before {@link #close()}. Runs every commit-interval.
+     */
+    void commit() {
+        commit(null);
+    }
+
+    private void commit(CatalogFingerprint fingerprint) {
+        if (!uncommitted.getAndSet(false)) {
+            return;
+        }
+        try {
+            Map<String, String> commitData = fingerprint != null ? fingerprint.toCommitData() : Map.of();
+            writer.setLiveCommitData(commitData.entrySet());
+            writer.commit();
+        } catch (IOException | RuntimeException e) {
+            uncommitted.set(true);
+            log.warn("Full-text index commit failed: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Final commit, recording the catalog fingerprint unless a write event was missed. Runs
+     * after the web server has stopped taking requests, and before the repository and its
+     * connection pool are destroyed, since this bean depends on them.
+     */
+    @PreDestroy
+    public void close() throws IOException {
+        if (writer == null) {
+            return;
+        }
+        if (scheduler != null) {
+            scheduler.shutdown();
+            try {
+                scheduler.awaitTermination(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        CatalogFingerprint fingerprint = null;
+        if (!ready || missedWrites) {
+            log.warn("Full-text index is {}; it will be rebuilt on the next start",
+                    ready ? "missing write events" : "incomplete");
+        } else {
+            try {
+                fingerprint = catalogFingerprint();
+            } catch (RuntimeException e) {
+                log.warn("Full-text index could not fingerprint the catalog; it will be rebuilt on the next start: {}",
+                        e.getMessage());
+            }
+        }
+        try {
+            uncommitted.set(true);
+            commit(fingerprint);
+        } finally {
+            ready = false;
+            searcherManager.close();
+            writer.close();
+            directory.close();
+            writer = null;
+        }
+    }
+
+    /**
+     * Applies one write event. A failure is logged rather than thrown back at the writer, whose
+     * transaction has already committed, and marks the index as having missed a write.
+     */
+    private void apply(Long bookId, Runnable write) {
+        try {
+            write.run();
+        } catch (RuntimeException e) {
+            missedWrites = true;
+            log.warn("Full-text index could not apply a write to book {}: {}", bookId, e.getMessage());
+        }
+    }
+
+    private void reindex(Long bookId) {
+        List<BookSummary> rows = repository.findSummariesByIdInOrderByIdAsc(List.of(bookId));
+        if (rows.isEmpty()) {
+            return;
+        }
+        BookSummary book = rows.get(0);
+        upsert(bookId, book.title(), book.author(), reviewsOf(List.of(bookId)).get(bookId));
+    }
+
+    private void upsert(Long bookId, String title, String author, List<String> reviews) {
+        claim(bookId);
+        try {
+            writer.updateDocument(idTerm(bookId), document(bookId, title, author, reviews));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        uncommitted.set(true);
+    }
+
+    /**
+     * Marks a book as written by an event so a running rebuild does not overwrite it with
+     * the older row it may have read.
+     */
+    private synchronized void claim(Long bookId) {
+        if (rebuilding) {
+            writtenWhileRebuilding.add(bookId);
+        }
+    }
+
+    private Map<Long, List<String>> reviewsOf(List<Long> ids) {
+        Map<Long, List<String>> reviews = new HashMap<>();
+        for (BookReview review : repository.findReviewsByBookIdIn(ids)) {
+            reviews.computeIfAbsent(review.bookId(), id -> new ArrayList<>()).add(review.review());
+        }
+        return reviews;
+    }
+
+    private CatalogFingerprint catalogFingerprint() {
+        return new CatalogFingerprint(repository.count(), repository.findMaxId(), repository.countReviews());
+    }
+
+    private static Term idTerm(Long bookId) {
+        return new Term(ID, bookId.toString());
+    }
+
+    private static Document document(Long bookId, String title, String author, List<String> reviews) {
+        Document document = new Document();
+        document.add(new StringField(ID, bookId.toString(), Field.Store.YES));
+        document.add(new TextField(TITLE, title != null ? title : "", Field.Store.NO));
+        document.add(new TextField(AUTHOR, author != null ? author : "", Field.Store.NO));
+        if (reviews != null) {
+            for (String review : reviews) {
+                if (review != null) {
+                    document.add(new TextField(REVIEWS, review, Field.Store.NO));
+                }
+            }
+        }
+        return document;
+    }
+
+    /**
+     * What the catalog looked like when the index was closed cleanly. Since every write made
+     * through the application was applied by then, it only has to catch changes made while
+     * the application was down; it misses those that leave all three numbers unchanged (e.g.
+     * a retitled book), so delete the index directory after editing the database by hand.
+     */
+    record CatalogFingerprint(long books, long maxId, long reviews) {
+
+        private static final String BOOKS = "library.books";
+        private static final String MAX_ID = "library.max-id";
+        private static final String REVIEWS = "library.reviews";
+
+        static CatalogFingerprint from(Iterable<Map.Entry<String, String>> commitData) {
+            Map<String, String> values = new HashMap<>();
+            if (commitData != null) {
+                commitData.forEach(entry -> values.put(entry.getKey(), entry.getValue()));
+            }
+            if (!values.keySet().containsAll(Set.of(BOOKS, MAX_ID, REVIEWS))) {
+                return null;
+            }
+            return new CatalogFingerprint(Long.parseLong(values.get(BOOKS)), Long.parseLong(values.get(MAX_ID)),
+                    Long.parseLong(values.get(REVIEWS)));
+        }
+
+        Map<String, String> toCommitData() {
+            return Map.of(BOOKS, Long.toString(books), MAX_ID, Long.toString(maxId), REVIEWS, Long.toString(reviews));
+        }
+    }
+}
@@ -0,0 +1,318 @@
+package com.example.library.search;
+
+import com.example.library.event.BookDeletedEvent;
+import com.example.library.event.BookSavedEvent;
+import com.example.library.model.Book;
+import com.example.library.repository.BookRepository;
+import com.example.library.repository.BookSearchFields;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.function.Predicate;
+
+/**
+ * Optional in-memory trigram (3-gram) inverted index over Book.author and Book.title.
+ * <p>
+ * Answers case-insensitive substring queries ("contains") by intersecting the posting
+ * lists of the query's trigrams and then verifying the few remaining candidates, instead
+ * of the {@code LOWER(col) LIKE '%x%'} full table scan the repository finders issue.
+ * Posting lists are sorted by id, so a keyset page walks them from its cursor and stops once
+ * the page is full instead of collecting every match.
+ * <p>
+ * Write events are applied after the writing transaction commits. The index is cold until {@link #rebuild()} has loaded the catalog; while cold, or for
+ * queries shorter than {@link #GRAM_LENGTH} characters, {@link #canServe} returns false
+ * and BookService falls back to the repository. Enable with
+ * {@code library.search.ngram-index.enabled=true}.
+ */
+@Component
+public class BookSearchIndex {
+
+    static final int GRAM_LENGTH = 3;
+
+    private static final Logger log = LoggerFactory.getLogger(BookSearchIndex.class);
+    private static final int REBUILD_PAGE_SIZE = 1_000;
+
+    private final BookRepository repository;
+    private final boolean enabled;
+
+    private final Map<String, Posting> authorPostings = new ConcurrentHashMap<>();
+    private final Map<String, Posting> titlePostings = new ConcurrentHashMap<>();
+    private final Map<Long, IndexedBook> documents = new ConcurrentHashMap<>();
+
+    private volatile boolean ready;
+    private boolean rebuilding;
+    private final Set<Long> deletedWhileRebuilding = new HashSet<>();
+
+    public BookSearchIndex(BookRepository repository,
+                           @Value("${library.search.ngram-index.enabled:false}") boolean enabled) {
+        this.repository = repository;
+        this.enabled = enabled;
+    }
+
+    /**
+     * Loads every book's author and title from the repository (keyset scan, no entity
+     * hydration) and marks the index ready. Writes that arrive while the rebuild is
+     * running take precedence over the rows it reads.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        if (!enabled) {
+            return;
+        }
+        long start = System.nanoTime();
+        synchronized (this) {
+            ready = false;
+            rebuilding = true;
+            deletedWhileRebuilding.clear();
+        }
+        try {
+            long afterId = 0L;
+            List<BookSearchFields> page;
+            do {
+                page = repository.findSearchFieldsAfter(afterId, Limit.of(REBUILD_PAGE_SIZE));
+                for (BookSearchFields row : page) {
+                    indexFromRebuild(row);
+                    afterId = row.id();
+                }
+            } while (page.size() == REBUILD_PAGE_SIZE);
+        } finally {
+            synchronized (this) {
+                rebuilding = false;
+                deletedWhileRebuilding.clear();
+            }
+        }
+        ready = true;
+        log.info("Search index built: {} books, {} author grams, {} title grams in {} ms",
+                documents.size(), authorPostings.size(), titlePostings.size(),
+                (System.nanoTime() - start) / 1_000_000);
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onBookSaved(BookSavedEvent event) {
+        Book book = event.book();
+        if (enabled && book != null && book.getId() != null) {
+            index(book.getId(), book.getAuthor(), book.getTitle());
+        }
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onBookDeleted(BookDeletedEvent event) {
+        if (enabled && event.bookId() != null) {
+            remove(event.bookId());
+        }
+    }
+
+    public boolean isReady() {
+        return enabled && ready;
+    }
+
+    /**
+     * Whether every term can be answered from the index: it is ready and each term is
+     * long enough to produce at least one trigram.
+     */
+    public boolean canServe(String... terms) {
+        if (!isReady()) {
+            return false;
+        }
+        for (String term : terms) {
+            if (term == null || term.length() < GRAM_LENGTH) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return ids (ascending) of books whose author contains {@code author}, ignoring case
+     */
+    public List<Long> findIdsByAuthor(String author) {
+        return findIdsByAuthor(author, null, Integer.MAX_VALUE);
+    }
+
+    /**
+     * The first {@code limit} ids (ascending) above {@code after} of books whose author
+     * contains {@code author}, ignoring case; reads no further into the postings than that.
+     *
+     * @param after exclusive lower bound, or {@code null} to start at the lowest id
+     */
+    public List<Long> findIdsByAuthor(String author, Long after, int limit) {
+        String a = normalize(author);
+        List<Posting> lists = new ArrayList<>();
+        if (!addPostings(authorPostings, a, lists)) {
+            return List.of();
+        }
+        return walk(lists, after, limit, doc -> doc.author().contains(a));
+    }
+
+    /**
+     * @return ids (ascending) of books whose author contains {@code author} and whose
+     * title contains {@code title}, ignoring case
+     */
+    public List<Long> findIdsByAuthorAndTitle(String author, String title) {
+        return findIdsByAuthorAndTitle(author, title, null, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Like {@link #findIdsByAuthor(String, Long, int)}, for books matching both fields.
+     */
+    public List<Long> findIdsByAuthorAndTitle(String author, String title, Long after, int limit) {
+        String a = normalize(author);
+        String t = normalize(title);
+        List<Posting> lists = new ArrayList<>();
+        if (!addPostings(authorPostings, a, lists) || !addPostings(titlePostings, t, lists)) {
+            return List.of();
+        }
+        return walk(lists, after, limit, doc -> doc.author().contains(a) && doc.title().contains(t));
+    }
+
+    int size() {
+        return documents.size();
+    }
+
+    private synchronized void indexFromRebuild(BookSearchFields row) {
+        // A live write or delete during the rebuild is newer than the row we just read.
+        if (documents.containsKey(row.id()) || deletedWhileRebuilding.contains(row.id())) {
+            return;
+        }
+        index(row.id(), row.author(), row.title());
+    }
+
+    private synchronized void index(Long id, String author, String title) {
+        IndexedBook previous = documents.get(id);
+        IndexedBook current = new IndexedBook(normalize(author), normalize(title));
+        if (current.equals(previous)) {
+            return;
+        }
+        if (previous != null) {
+            unpost(authorPostings, previous.author(), id);
+            unpost(titlePostings, previous.title(), id);
+        }
+        post(authorPostings, current.author(), id);
+        post(titlePostings, current.title(), id);
+        documents.put(id, current);
+    }
+
+    private synchronized void remove(Long id) {
+        if (rebuilding) {
+            deletedWhileRebuilding.add(id);
+        }
+        IndexedBook previous = documents.remove(id);
+        if (previous != null) {
+            unpost(authorPostings, previous.author(), id);
+            unpost(titlePostings, previous.title(), id);
+        }
+    }
+
+    /**
+     * Adds the posting list of every trigram in {@code term} to {@code lists}.
+     *
+     * @return false if some trigram occurs in no book, so nothing can match
+     */
+    private static boolean addPostings(Map<String, Posting> postings, String term, List<Posting> lists) {
+        for (String gram : grams(term)) {
+            Posting posting = postings.get(gram);
+            if (posting == null || posting.size == 0) {
+                return false;
+            }
+            lists.add(posting);
+        }
+        return true;
+    }
+
+    /**
+     * Walks the shortest posting list in id order from {@code after}, keeping ids that are in
+     * every other list and whose stored text matches, until {@code limit} are found. Trigram
+     * containment is necessary but not sufficient ("abcxbcd" holds every gram of "abcd"), hence
+     * the check against the text.
+     */
+    private List<Long> walk(List<Posting> lists, Long after, int limit, Predicate<IndexedBook> matches) {
+        Posting shortest = lists.get(0);
+        for (Posting posting : lists) {
+            if (posting.size < shortest.size) {
+                shortest = posting;
+            }
+        }
+        List<Long> result = new ArrayList<>(Math.min(limit, 64));
+        outer:
+        for (Long id : after == null ? shortest.ids : shortest.ids.tailSet(after, false)) {
+            for (Posting posting : lists) {
+                if (posting != shortest && !posting.ids.contains(id)) {
+                    continue outer;
+                }
+            }
+            IndexedBook doc = documents.get(id);
+            if (doc != null && matches.test(doc)) {
+                result.add(id);
+                if (result.size() == limit) {
+                    break;
+                }
+            }
+        }
+        return result;
+    }
+
+    /** Caller holds the index lock. */
+    private static void post(Map<String, Posting> postings, String text, Long id) {
+        for (String gram : grams(text)) {
+            Posting posting = postings.computeIfAbsent(gram, g -> new Posting());
+            if (posting.ids.add(id)) {
+                posting.size++;
+            }
+        }
+    }
+
+    /** Caller holds the index lock. */
+    private static void unpost(Map<String, Posting> postings, String text, Long id) {
+        for (String gram : grams(text)) {
+            postings.computeIfPresent(gram, (g, posting) -> {
+                if (posting.ids.remove(id)) {
+                    posting.size--;
+                }
+                return posting.size == 0 ? null : posting;
+            });
+        }
+    }
+
+    static Set<String> grams(String text) {
+        if (text.length() < GRAM_LENGTH) {
+            return Set.of();
+        }
+        Set<String> grams = new HashSet<>();
+        for (int i = 0; i + GRAM_LENGTH <= text.length(); i++) {
+            grams.add(text.substring(i, i + GRAM_LENGTH));
+        }
+        return grams;
+    }
+
+    private static String normalize(String value) {
+        return value == null ? "" : value.toLowerCase(Locale.ROOT);
+    }
+
+    private record IndexedBook(String author, String title) {
+    }
+
+    /**
+     * Ids of the books containing one trigram, kept sorted so a page can start at its cursor.
+     * The size is tracked separately: a skip list counts its elements by walking them.
+     */
+    private static final class Posting {
+        final ConcurrentSkipListSet<Long> ids = new ConcurrentSkipListSet<>();
+        /** Written under the index lock; read without it to pick the shortest list. */
+        volatile int size;
+    }
+}
@@ -0,0 +1,7 @@
+package com.example.library.search;
+
+/**
+ * One full-text match: the book's id and its BM25 relevance score.
+ */
+public record FullTextHit(long bookId, float score) {
+}
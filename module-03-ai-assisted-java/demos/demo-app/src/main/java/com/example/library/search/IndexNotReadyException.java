@@ -0,0 +1,14 @@
+package com.example.library.search;
+
+/**
+ * Thrown when a search needs an index that is disabled or still being built.
+ * Mapped to {@code 503 Service Unavailable} by ApiExceptionHandler.
+ */
+public class IndexNotReadyException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    public IndexNotReadyException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,251 @@
+package com.example.library.search;
+
+import com.example.library.event.BookSavedEvent;
+import com.example.library.repository.BookIsbn;
+import com.example.library.repository.BookRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * In-memory Bloom filter over every ISBN in the catalog, so "is this ISBN new?" is usually
+ * answered without a query.
+ * <p>
+ * {@link #mightContain} never returns a false negative: {@code false} means no book has the
+ * ISBN, {@code true} means it probably does and must be confirmed with the indexed
+ * {@code findByIsbn}/{@code existsByIsbn} lookup. The filter is sized for
+ * {@code library.isbn-filter.expected-insertions} ISBNs (or twice the catalog, if larger) at
+ * a {@code false-positive-rate}, rebuilt from the database at startup, and updated from
+ * {@link BookSavedEvent}s once their transaction commits (until then, another thread may see
+ * {@code false} for the new ISBN; the unique constraint still rejects a duplicate). Bits cannot be cleared, so deleted or changed ISBNs stay as
+ * (confirmed-away) positives until the next rebuild, which also runs once the filter holds
+ * more ISBNs than it was sized for.
+ * <p>
+ * Until the first rebuild finishes, every ISBN "might" be present. Counters are published as
+ * {@code library.isbn.filter.checks}, tagged by result.
+ */
+@Component
+public class IsbnBloomFilter {
+
+    private static final Logger log = LoggerFactory.getLogger(IsbnBloomFilter.class);
+    private static final int REBUILD_PAGE_SIZE = 10_000;
+
+    private final BookRepository repository;
+    private final boolean enabled;
+    private final long expectedInsertions;
+    private final double falsePositiveRate;
+    private final Counter negatives;
+    private final Counter truePositives;
+    private final Counter falsePositives;
+    private final AtomicBoolean rebuilding = new AtomicBoolean();
+
+    private volatile Bits current;
+    private Bits building;
+
+    public IsbnBloomFilter(BookRepository repository, MeterRegistry registry,
+                           @Value("${library.isbn-filter.enabled:true}") boolean enabled,
+                           @Value("${library.isbn-filter.expected-insertions:1000000}") long expectedInsertions,
+                           @Value("${library.isbn-filter.false-positive-rate:0.01}") double falsePositiveRate) {
+        if (expectedInsertions < 1 || falsePositiveRate <= 0 || falsePositiveRate >= 1) {
+            throw new IllegalArgumentException("library.isbn-filter needs expected-insertions >= 1 "
+                    + "and 0 < false-positive-rate < 1");
+        }
+        this.repository = repository;
+        this.enabled = enabled;
+        this.expectedInsertions = expectedInsertions;
+        this.falsePositiveRate = falsePositiveRate;
+        this.negatives = checks(registry, "negative");
+        this.truePositives = checks(registry, "true_positive");
+        this.falsePositives = checks(registry, "false_positive");
+    }
+
+    /**
+     * Loads every ISBN into a freshly sized filter and swaps it in. ISBNs saved while the
+     * scan runs go into both the old and the new filter.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        if (!enabled || !rebuilding.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            long start = System.nanoTime();
+            Bits fresh = new Bits(Math.max(expectedInsertions, 2 * repository.count()), falsePositiveRate);
+            synchronized (this) {
+                building = fresh;
+            }
+            long afterId = 0L;
+            List<BookIsbn> page;
+            do {
+                page = repository.findIsbnsAfter(afterId, Limit.of(REBUILD_PAGE_SIZE));
+                for (BookIsbn row : page) {
+                    fresh.add(row.isbn());
+                    afterId = row.id();
+                }
+            } while (page.size() == REBUILD_PAGE_SIZE);
+            synchronized (this) {
+                current = fresh;
+                building = null;
+            }
+            log.info("ISBN filter built: {} ISBNs, {} bits, {} hashes in {} ms", fresh.inserted(), fresh.bitCount(),
+                    fresh.hashes(), (System.nanoTime() - start) / 1_000_000);
+        } finally {
+            rebuilding.set(false);
+        }
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onBookSaved(BookSavedEvent event) {
+        if (!enabled || event.book() == null || event.book().getIsbn() == null) {
+            return;
+        }
+        String isbn = event.book().getIsbn();
+        Bits full;
+        synchronized (this) {
+            if (building != null) {
+                building.add(isbn);
+            }
+            if (current == null) {
+                return;
+            }
+            current.add(isbn);
+            full = current.inserted() > current.capacity() && building == null ? current : null;
+        }
+        if (full != null) {
+            log.info("ISBN filter holds {} ISBNs, sized for {}; rebuilding", full.inserted(), full.capacity());
+            CompletableFuture.runAsync(this::rebuild);
+        }
+    }
+
+    /**
+     * @return {@code false} if no book has this ISBN; {@code true} if one probably does, or the
+     * filter is disabled or not built yet
+     */
+    public boolean mightContain(String isbn) {
+        Bits bits = current;
+        if (bits == null || isbn == null) {
+            return true;
+        }
+        if (!bits.mightContain(isbn)) {
+            negatives.increment();
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Records how the database lookup after a positive {@link #mightContain} turned out.
+     */
+    public void recordPositive(boolean found) {
+        if (current != null) {
+            (found ? truePositives : falsePositives).increment();
+        }
+    }
+
+    public boolean isReady() {
+        return current != null;
+    }
+
+    private static Counter checks(MeterRegistry registry, String result) {
+        return Counter.builder("library.isbn.filter.checks")
+                .description("ISBN Bloom filter checks by outcome")
+                .tag("result", result)
+                .register(registry);
+    }
+
+    /**
+     * Bit array and hash functions for {@code capacity} insertions at the given false-positive
+     * rate: {@code m = -n ln p / (ln 2)^2} bits and {@code k = m / n ln 2} hashes, derived by
+     * double hashing from one 64-bit hash of the ISBN.
+     */
+    static final class Bits {
+
+        private final long capacity;
+        private final long bitCount;
+        private final int hashes;
+        private final AtomicLongArray words;
+        private final AtomicLong inserted = new AtomicLong();
+
+        Bits(long capacity, double falsePositiveRate) {
+            this.capacity = capacity;
+            long bits = (long) Math.ceil(-capacity * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2)));
+            this.bitCount = Math.max(64, (bits + 63) / 64 * 64);
+            this.hashes = Math.max(1, (int) Math.round((double) bitCount / capacity * Math.log(2)));
+            this.words = new AtomicLongArray(Math.toIntExact(bitCount / 64));
+        }
+
+        void add(String isbn) {
+            long hash = hash(isbn);
+            long h2 = mix(hash) | 1;
+            for (int i = 0; i < hashes; i++) {
+                long bit = Long.remainderUnsigned(hash + i * h2, bitCount);
+                long mask = 1L << bit;
+                int word = (int) (bit >>> 6);
+                long value;
+                do {
+                    value = words.get(word);
+                } while ((value & mask) == 0 && !words.compareAndSet(word, value, value | mask));
+            }
+            inserted.incrementAndGet();
+        }
+
+        boolean mightContain(String isbn) {
+            long hash = hash(isbn);
+            long h2 = mix(hash) | 1;
+            for (int i = 0; i < hashes; i++) {
+                long bit = Long.remainderUnsigned(hash + i * h2, bitCount);
+                if ((words.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        long capacity() {
+            return capacity;
+        }
+
+        long bitCount() {
+            return bitCount;
+        }
+
+        int hashes() {
+            return hashes;
+        }
+
+        long inserted() {
+            return inserted.get();
+        }
+
+        /** FNV-1a over the UTF-8 bytes, finished with a 64-bit mix so all bits depend on the input. */
+        private static long hash(String isbn) {
+            long h = 0xcbf29ce484222325L;
+            for (byte b : isbn.getBytes(StandardCharsets.UTF_8)) {
+                h ^= b;
+                h *= 0x100000001b3L;
+            }
+            return mix(h);
+        }
+
+        private static long mix(long z) {
+            z = (z ^ (z >>> 33)) * 0xff51afd7ed558ccdL;
+            z = (z ^ (z >>> 33)) * 0xc4ceb9fe1a85ec53L;
+            return z ^ (z >>> 33);
+        }
+    }
+}
@@ -1,39 +1,115 @@
 package com.example.library.service;
 
+import com.example.library.event.BookDeletedEvent;
+import com.example.library.event.BookReviewedEvent;
+import com.example.library.event.BookSavedEvent;
 import com.example.library.model.Book;
+import com.example.library.repository.BookId;
 import com.example.library.repository.BookRepository;
+import com.example.library.repository.BookReview;
+import com.example.library.repository.BookSummary;
+import com.example.library.repository.BookView;
+import com.example.library.repository.ReviewEntry;
+import com.example.library.review.ReviewWriteBuffer;
+import com.example.library.search.BookFullTextIndex;
+import com.example.library.search.BookSearchIndex;
+import com.example.library.search.FullTextHit;
+import com.example.library.search.IsbnBloomFilter;
+import io.micrometer.core.annotation.Timed;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
 
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 /**
  * Demo service for Module 3 — Demo 1 (generation) and Demo 4 (unit testing).
  * Use findBooksByAuthor as the target for generated tests.
  */
 @Service
+@Timed(value = "library.book.service", description = "BookService method latency",
+        histogram = true, percentiles = {0.5, 0.95, 0.99})
 public class BookService {
 
+    private static final Logger log = LoggerFactory.getLogger(BookService.class);
+
+    public static final int MAX_PAGE_SIZE = 500;
+    static final int STREAM_PAGE_SIZE = 200;
+
     private final BookRepository repository;
+    private final BookSearchIndex searchIndex;
+    private final ApplicationEventPublisher events;
+    private final ReviewWriteBuffer reviewBuffer;
+    private final IsbnBloomFilter isbnFilter;
+    private final BookFullTextIndex fullTextIndex;
+
+    @Value("${library.bulk-delete.chunk-size:1000}")
+    private int deleteChunkSize = 1000;
 
-    public BookService(BookRepository repository) {
+    public BookService(BookRepository repository, BookSearchIndex searchIndex, ApplicationEventPublisher events,
+                       ReviewWriteBuffer reviewBuffer, IsbnBloomFilter isbnFilter, BookFullTextIndex fullTextIndex) {
         this.repository = repository;
+        this.searchIndex = searchIndex;
+        this.events = events;
+        this.reviewBuffer = reviewBuffer;
+        this.isbnFilter = isbnFilter;
+        this.fullTextIndex = fullTextIndex;
     }
 
-    /*
-    * deleteBooksByAuthor method to delete all books by an author
-    * @param author
-    * @return the number of books deleted
-    */
-    public void deleteBooksByAuthor(String author) {
-        // Add a log message that the books are being deleted
-        System.out.println("Deleting books by author: " + author);
-        repository.deleteByAuthorContainingIgnoreCase(author);
+    /**
+     * Deletes all books whose author contains the given text (ignoring case), with their reviews.
+     * <p>
+     * Books are removed in chunks of {@code library.bulk-delete.chunk-size}: each chunk selects
+     * matching ids and deletes their reviews and rows with set-based statements in its own
+     * transaction, so neither the heap nor a single transaction grows with the author's catalog.
+     *
+     * @param author text the author name must contain; null or blank deletes nothing
+     * @return the number of books deleted
+     */
+    public long deleteBooksByAuthor(String author) {
+        if (author == null || author.trim().isEmpty()) {
+            return 0;
+        }
+        log.info("Deleting books by author: {}", author);
+        long deleted = 0;
+        List<Long> ids;
+        do {
+            ids = repository.findIdsByAuthorContainingIgnoreCase(author, Limit.of(deleteChunkSize))
+                    .stream().map(BookId::id).toList();
+            if (ids.isEmpty()) {
+                break;
+            }
+            deleted += repository.bulkDeleteByIds(ids);
+            ids.forEach(id -> events.publishEvent(new BookDeletedEvent(id)));
+        } while (ids.size() == deleteChunkSize);
+        log.info("Deleted {} books by author: {}", deleted, author);
+        return deleted;
     }
 
     /**
-     * Adds a review to the specified book by its ID.
-     * 
+     * Adds a review to the specified book with a single insert into book_reviews.
+     * The book and its existing reviews are never loaded or re-saved, so the cost does not
+     * grow with the number of reviews the book already has, and concurrent reviews of one
+     * book neither overwrite each other nor queue up on its row.
+     * <p>
+     * With {@code library.reviews.write-behind.enabled=true} the insert goes through
+     * {@link ReviewWriteBuffer}, which batches concurrent appends; see its durability setting.
+     *
      * @param bookId the ID of the book to add the review to
      * @param review the review text to be added
      * @throws IllegalArgumentException if the book does not exist or review is null/blank
@@ -45,38 +121,295 @@ public class BookService {
         if (review == null || review.trim().isEmpty()) {
             throw new IllegalArgumentException("Review cannot be null or empty.");
         }
-        Book book = repository.findById(bookId).orElse(null);
-        if (book == null) {
+        if (!repository.existsById(bookId)) {
             throw new IllegalArgumentException("Book not found for ID: " + bookId);
         }
-        if (book.getReviews() == null) {
-            book.setReviews(new java.util.ArrayList<>());
+        if (reviewBuffer.isEnabled()) {
+            reviewBuffer.add(bookId, review);
+        } else {
+            repository.insertReview(bookId, review);
+            events.publishEvent(new BookReviewedEvent(bookId));
+        }
+    }
+
+    /**
+     * Returns one keyset page of a book's reviews, oldest first, without loading the book or
+     * its other reviews. Pages stay stable while reviews are being appended.
+     *
+     * @param after cursor from the previous page, or {@code null} for the first page
+     * @param size page size, 1 to {@value #MAX_PAGE_SIZE}
+     * @throws IllegalArgumentException if the book does not exist or the size is out of range
+     */
+    public CursorPage<String> findReviews(Long bookId, Long after, int size) {
+        if (bookId == null) {
+            throw new IllegalArgumentException("Book ID cannot be null.");
+        }
+        checkPageSize(size);
+        List<ReviewEntry> entries = repository.findReviewsAfter(bookId, after, size + 1);
+        if (entries.isEmpty()) {
+            if (!repository.existsById(bookId)) {
+                throw new IllegalArgumentException("Book not found for ID: " + bookId);
+            }
+            return CursorPage.empty();
+        }
+        boolean more = entries.size() > size;
+        List<ReviewEntry> page = more ? entries.subList(0, size) : entries;
+        return new CursorPage<>(page.stream().map(ReviewEntry::review).toList(), more ? page.get(size - 1).id() : null);
+    }
+
+    /**
+     * Looks up a book, with its reviews, by ISBN. ISBNs the {@link IsbnBloomFilter} has never
+     * seen are answered without a query; the rest use the unique index on {@code isbn}.
+     */
+    public Optional<Book> findByIsbn(String isbn) {
+        if (isbn == null || isbn.isBlank() || !isbnFilter.mightContain(isbn)) {
+            return Optional.empty();
+        }
+        Optional<Book> book = repository.findByIsbn(isbn);
+        isbnFilter.recordPositive(book.isPresent());
+        return book;
+    }
+
+    /**
+     * Whether any book has this ISBN; see {@link #findByIsbn} for how the check is answered.
+     */
+    public boolean isbnExists(String isbn) {
+        if (isbn == null || isbn.isBlank() || !isbnFilter.mightContain(isbn)) {
+            return false;
+        }
+        boolean exists = repository.existsByIsbn(isbn);
+        isbnFilter.recordPositive(exists);
+        return exists;
+    }
+
+    /**
+     * Relevance-ranked search over titles, authors and review text, best match first, from
+     * {@link BookFullTextIndex}. Hits whose book was deleted since it was indexed are dropped.
+     *
+     * @param query words or phrases to look for; see {@link BookFullTextIndex#search} for the syntax
+     * @param k     how many results to return, 1 to {@value BookFullTextIndex#MAX_RESULTS}
+     * @throws IllegalArgumentException if the query is blank or invalid, or k is out of range
+     * @throws com.example.library.search.IndexNotReadyException if the index is disabled or still building
+     */
+    public List<RankedBook> searchFullText(String query, int k) {
+        if (query == null || query.isBlank()) {
+            throw new IllegalArgumentException("Search query cannot be null or empty.");
+        }
+        if (k < 1 || k > BookFullTextIndex.MAX_RESULTS) {
+            throw new IllegalArgumentException("k must be between 1 and " + BookFullTextIndex.MAX_RESULTS + ".");
+        }
+        List<FullTextHit> hits = fullTextIndex.search(query, k);
+        if (hits.isEmpty()) {
+            return List.of();
+        }
+        Map<Long, BookSummary> books = new HashMap<>();
+        for (BookSummary summary : repository.findSummariesByIdInOrderByIdAsc(
+                hits.stream().map(FullTextHit::bookId).toList())) {
+            books.put(summary.id(), summary);
         }
-        book.getReviews().add(review);
-        repository.save(book);
+        List<RankedBook> ranked = new ArrayList<>(hits.size());
+        for (FullTextHit hit : hits) {
+            BookSummary book = books.get(hit.bookId());
+            if (book != null) {
+                ranked.add(new RankedBook(book, hit.score()));
+            }
+        }
+        return ranked;
     }
 
+    /**
+     * Case-insensitive "author contains" search. Served from the trigram index when it is
+     * enabled and warm, otherwise from the repository.
+     */
     public List<Book> findBooksByAuthor(String author) {
         if (author == null || author.trim().isEmpty()) {
             return Collections.emptyList();
         }
+        if (searchIndex.canServe(author)) {
+            return findAllInIdOrder(searchIndex.findIdsByAuthor(author));
+        }
         return repository.findByAuthorContainingIgnoreCase(author);
     }
 
+    /**
+     * Case-insensitive "author contains and title contains" search. Served from the
+     * trigram index when it is enabled and warm, otherwise from the repository.
+     */
     public List<Book> findBooksByAuthorAndTitle(String author, String title) {
         if (author == null || author.trim().isEmpty() || title == null || title.trim().isEmpty()) {
             return Collections.emptyList();
         }
+        if (searchIndex.canServe(author, title)) {
+            return findAllInIdOrder(searchIndex.findIdsByAuthorAndTitle(author, title));
+        }
         return repository.findByAuthorContainingIgnoreCaseAndTitleContainingIgnoreCase(author, title);
     }
 
+    /**
+     * Keyset-paginated variant of {@link #findBooksByAuthor}: at most {@code size} books with
+     * an id greater than {@code after}, in id order, with their reviews loaded.
+     *
+     * @param after cursor from the previous page, or {@code null} for the first page
+     * @param size page size, 1 to {@value #MAX_PAGE_SIZE}
+     */
+    public CursorPage<Book> findBooksByAuthor(String author, Long after, int size) {
+        return page(author, null, after, size, repository::findWithReviewsByIdInOrderByIdAsc);
+    }
+
+    /**
+     * Keyset-paginated variant of {@link #findBooksByAuthorAndTitle}; see
+     * {@link #findBooksByAuthor(String, Long, int)}.
+     */
+    public CursorPage<Book> findBooksByAuthorAndTitle(String author, String title, Long after, int size) {
+        if (title == null || title.trim().isEmpty()) {
+            return CursorPage.empty();
+        }
+        return page(author, title, after, size, repository::findWithReviewsByIdInOrderByIdAsc);
+    }
+
+    /**
+     * Read-only keyset page of {@link BookView}s: the matching books' columns plus all their
+     * reviews, fetched with one query for the books and one batched query for the reviews.
+     * Nothing is attached to the persistence context, so there is no dirty checking.
+     *
+     * @param title optional; {@code null} or blank matches on author only
+     */
+    public CursorPage<BookView> findBookViews(String author, String title, Long after, int size) {
+        return page(author, blankToNull(title), after, size, this::loadViews);
+    }
+
+    /**
+     * Read-only keyset page of {@link BookSummary}s, which carry a review count instead of the
+     * reviews themselves; one query per page.
+     *
+     * @param title optional; {@code null} or blank matches on author only
+     */
+    public CursorPage<BookSummary> findBookSummaries(String author, String title, Long after, int size) {
+        return page(author, blankToNull(title), after, size, repository::findSummariesByIdInOrderByIdAsc);
+    }
+
+    /**
+     * Lazily streams every book matching {@link #findBooksByAuthor}, fetching
+     * {@value #STREAM_PAGE_SIZE} at a time by keyset, so only one page is ever held in memory.
+     */
+    public Stream<Book> streamBooksByAuthor(String author) {
+        return stream(after -> findBooksByAuthor(author, after, STREAM_PAGE_SIZE));
+    }
+
+    /**
+     * Lazily streams every book matching {@link #findBooksByAuthorAndTitle}; see
+     * {@link #streamBooksByAuthor}.
+     */
+    public Stream<Book> streamBooksByAuthorAndTitle(String author, String title) {
+        return stream(after -> findBooksByAuthorAndTitle(author, title, after, STREAM_PAGE_SIZE));
+    }
+
+    /**
+     * Lazily streams the {@link BookView}s matching {@link #findBookViews}, one page at a time.
+     */
+    public Stream<BookView> streamBookViews(String author, String title) {
+        return stream(after -> findBookViews(author, title, after, STREAM_PAGE_SIZE));
+    }
+
+    private static <T> Stream<T> stream(Function<Long, CursorPage<T>> pages) {
+        Spliterator<CursorPage<T>> spliterator = new Spliterators.AbstractSpliterator<>(
+                Long.MAX_VALUE, Spliterator.ORDERED | Spliterator.NONNULL) {
+            private Long after;
+            private boolean done;
+
+            @Override
+            public boolean tryAdvance(Consumer<? super CursorPage<T>> action) {
+                if (done) {
+                    return false;
+                }
+                CursorPage<T> page = pages.apply(after);
+                after = page.nextCursor();
+                done = after == null;
+                action.accept(page);
+                return true;
+            }
+        };
+        return StreamSupport.stream(spliterator, false).flatMap(page -> page.items().stream());
+    }
+
+    /**
+     * Resolves the next {@code size} matching ids (plus one, to detect a further page) from the
+     * trigram index or the repository, then loads them with {@code loader}.
+     *
+     * @param title {@code null} to match on author only
+     */
+    private <T> CursorPage<T> page(String author, String title, Long after, int size,
+                                   Function<List<Long>, List<T>> loader) {
+        checkPageSize(size);
+        if (author == null || author.trim().isEmpty()) {
+            return CursorPage.empty();
+        }
+        List<Long> ids;
+        if (title == null) {
+            ids = searchIndex.canServe(author)
+                    ? searchIndex.findIdsByAuthor(author, after, size + 1)
+                    : repository.findIdsByAuthorContainingIgnoreCaseAndIdGreaterThanOrderByIdAsc(
+                            author, cursor(after), Limit.of(size + 1)).stream().map(BookId::id).toList();
+        } else {
+            ids = searchIndex.canServe(author, title)
+                    ? searchIndex.findIdsByAuthorAndTitle(author, title, after, size + 1)
+                    : repository.findIdsByAuthorContainingIgnoreCaseAndTitleContainingIgnoreCaseAndIdGreaterThanOrderByIdAsc(
+                            author, title, cursor(after), Limit.of(size + 1)).stream().map(BookId::id).toList();
+        }
+        if (ids.isEmpty()) {
+            return CursorPage.empty();
+        }
+        boolean more = ids.size() > size;
+        List<Long> pageIds = more ? ids.subList(0, size) : ids;
+        return new CursorPage<>(loader.apply(pageIds), more ? pageIds.get(size - 1) : null);
+    }
+
+    private List<BookView> loadViews(List<Long> ids) {
+        List<BookSummary> books = repository.findSummariesByIdInOrderByIdAsc(ids);
+        Map<Long, List<String>> reviews = new HashMap<>();
+        for (BookReview review : repository.findReviewsByBookIdIn(ids)) {
+            reviews.computeIfAbsent(review.bookId(), id -> new ArrayList<>()).add(review.review());
+        }
+        List<BookView> views = new ArrayList<>(books.size());
+        for (BookSummary book : books) {
+            views.add(new BookView(book.id(), book.title(), book.author(), book.isbn(), book.publishedYear(),
+                    reviews.getOrDefault(book.id(), List.of())));
+        }
+        return views;
+    }
+
+    private static String blankToNull(String value) {
+        return value == null || value.trim().isEmpty() ? null : value;
+    }
+
+    private static long cursor(Long after) {
+        return after != null ? after : Long.MIN_VALUE;
+    }
+
+    private static void checkPageSize(int size) {
+        if (size < 1 || size > MAX_PAGE_SIZE) {
+            throw new IllegalArgumentException("Page size must be between 1 and " + MAX_PAGE_SIZE + ".");
+        }
+    }
+
+    private List<Book> findAllInIdOrder(List<Long> ids) {
+        if (ids.isEmpty()) {
+            return Collections.emptyList();
+        }
+        List<Book> books = repository.findAllById(ids);
+        books.sort(Comparator.comparing(Book::getId));
+        return books;
+    }
+
     /**
      * addBook method to add a new book to the repository
      * @param book
      * @return the added book
      */
     public Book addBook(Book book) {
-        return repository.save(book);
+        Book saved = repository.save(book);
+        events.publishEvent(new BookSavedEvent(saved));
+        return saved;
     }
 
     /**
@@ -85,7 +418,9 @@ public class BookService {
      * @return the updated book
      */
     public Book updateBook(Book book) {
-        return repository.save(book);
+        Book saved = repository.save(book);
+        events.publishEvent(new BookSavedEvent(saved));
+        return saved;
     }
 
     /**
@@ -95,6 +430,7 @@ public class BookService {
      */
     public void deleteBook(Long id) {
         repository.deleteById(id);
+        events.publishEvent(new BookDeletedEvent(id));
     }
 
 
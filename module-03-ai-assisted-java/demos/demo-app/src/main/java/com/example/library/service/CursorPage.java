@@ -0,0 +1,14 @@
+package com.example.library.service;
+
+import java.util.List;
+
+/**
+ * One keyset page of results ordered by id. Pass {@code nextCursor} back as the
+ * {@code after} argument to get the following page; it is {@code null} on the last page.
+ */
+public record CursorPage<T>(List<T> items, Long nextCursor) {
+
+    public static <T> CursorPage<T> empty() {
+        return new CursorPage<>(List.of(), null);
+    }
+}
@@ -0,0 +1,9 @@
+package com.example.library.service;
+
+import com.example.library.repository.BookSummary;
+
+/**
+ * A full-text search result: the book and its relevance score (higher is better).
+ */
+public record RankedBook(BookSummary book, float score) {
+}
@@ -1,10 +1,17 @@
 package com.example.library.service;
 
 import com.example.library.model.User;
+import com.example.library.model.UserBatch;
 import org.springframework.stereotype.Service;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
 import java.util.List;
+import java.util.RandomAccess;
+import java.util.function.IntFunction;
+import java.util.function.IntPredicate;
+import java.util.stream.IntStream;
 
 /**
  * Demo service for Module 3 — Demo 3 (refactoring).
@@ -13,6 +20,9 @@ import java.util.List;
 @Service
 public class UserService {
 
+    /** Rows per parallel chunk; a multiple of 64 so each chunk owns whole words of the match bitmap. */
+    static final int CHUNK_SIZE = 1 << 14;
+
     public List<String> getActiveUserEmails(List<User> users) {
         List<String> emails = new ArrayList<>();
         for (User user : users) {
@@ -27,4 +37,90 @@ public class UserService {
         }
         return emails;
     }
+
+    /**
+     * Same result, in the same order, as {@link #getActiveUserEmails(List)}, computed in
+     * {@value #CHUNK_SIZE}-row chunks on the common fork-join pool.
+     * <p>
+     * The first pass marks matching rows in a bitmap and counts them per chunk; the second
+     * copies each chunk's emails straight to its offset in one exactly-sized array. Apart from
+     * that array, the only allocations are the bitmap (one bit per row) and the chunk counts.
+     *
+     * @return a fixed-size list
+     */
+    public List<String> getActiveUserEmailsParallel(List<User> users) {
+        List<User> rows = users instanceof RandomAccess ? users : new ArrayList<>(users);
+        return collectParallel(rows.size(), i -> {
+            User user = rows.get(i);
+            return user != null && user.isActive() && hasEmail(user.getEmail());
+        }, i -> rows.get(i).getEmail());
+    }
+
+    /**
+     * Active, non-empty emails of a columnar batch, in row order: the same result as
+     * {@link #getActiveUserEmails(List)} on the list the batch was built from. Only rows
+     * whose active bit is set are visited.
+     */
+    public List<String> getActiveUserEmails(UserBatch batch) {
+        BitSet active = batch.active();
+        String[] emails = batch.emails();
+        List<String> result = new ArrayList<>(active.cardinality());
+        for (int i = active.nextSetBit(0); i >= 0; i = active.nextSetBit(i + 1)) {
+            if (hasEmail(emails[i])) {
+                result.add(emails[i]);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Parallel form of {@link #getActiveUserEmails(UserBatch)}; see
+     * {@link #getActiveUserEmailsParallel(List)}.
+     *
+     * @return a fixed-size list
+     */
+    public List<String> getActiveUserEmailsParallel(UserBatch batch) {
+        BitSet active = batch.active();
+        String[] emails = batch.emails();
+        return collectParallel(batch.size(), i -> active.get(i) && hasEmail(emails[i]), i -> emails[i]);
+    }
+
+    private static List<String> collectParallel(int size, IntPredicate matches, IntFunction<String> email) {
+        int chunks = (size + CHUNK_SIZE - 1) / CHUNK_SIZE;
+        long[] matched = new long[(size + 63) >>> 6];
+        int[] counts = new int[chunks];
+        IntStream.range(0, chunks).parallel().forEach(chunk -> {
+            int count = 0;
+            for (int i = chunk * CHUNK_SIZE, end = Math.min(size, i + CHUNK_SIZE); i < end; i++) {
+                if (matches.test(i)) {
+                    matched[i >>> 6] |= 1L << i;
+                    count++;
+                }
+            }
+            counts[chunk] = count;
+        });
+
+        int[] offsets = new int[chunks];
+        int total = 0;
+        for (int chunk = 0; chunk < chunks; chunk++) {
+            offsets[chunk] = total;
+            total += counts[chunk];
+        }
+        String[] result = new String[total];
+        IntStream.range(0, chunks).parallel().forEach(chunk -> {
+            int out = offsets[chunk];
+            int firstWord = chunk * CHUNK_SIZE >>> 6;
+            int endWord = Math.min(matched.length, firstWord + (CHUNK_SIZE >>> 6));
+            for (int w = firstWord; w < endWord; w++) {
+                for (long bits = matched[w]; bits != 0; bits &= bits - 1) {
+                    result[out++] = email.apply((w << 6) + Long.numberOfTrailingZeros(bits));
+                }
+            }
+        });
+        return Arrays.asList(result);
+    }
+
+    private static boolean hasEmail(String email) {
+        return email != null && !email.isEmpty();
+    }
 }
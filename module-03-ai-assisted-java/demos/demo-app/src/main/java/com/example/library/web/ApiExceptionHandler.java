@@ -0,0 +1,38 @@
+package com.example.library.web;
+
+import com.example.library.importer.MalformedRowException;
+import com.example.library.review.ReviewBufferBusyException;
+import com.example.library.search.IndexNotReadyException;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+
+import java.util.Map;
+
+/**
+ * Maps the services' validation exceptions to {@code 400 {"error": "..."}} responses,
+ * searches against an index that is not ready to {@code 503}, and reviews the write-behind
+ * buffer cannot take in time to {@code 503} with {@code Retry-After}, like ConnectionGateFilter.
+ */
+@RestControllerAdvice
+public class ApiExceptionHandler {
+
+    @ExceptionHandler({IllegalArgumentException.class, MalformedRowException.class})
+    public ResponseEntity<Map<String, String>> badRequest(RuntimeException e) {
+        return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+    }
+
+    @ExceptionHandler(IndexNotReadyException.class)
+    public ResponseEntity<Map<String, String>> unavailable(IndexNotReadyException e) {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(Map.of("error", e.getMessage()));
+    }
+
+    @ExceptionHandler(ReviewBufferBusyException.class)
+    public ResponseEntity<Map<String, String>> busy(ReviewBufferBusyException e) {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, "1")
+                .body(Map.of("error", e.getMessage()));
+    }
+}
@@ -0,0 +1,141 @@
+package com.example.library.web;
+
+import com.example.library.repository.BookSummary;
+import com.example.library.repository.BookView;
+import com.example.library.service.BookService;
+import com.example.library.service.CursorPage;
+import com.example.library.service.RankedBook;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+/**
+ * Catalog HTTP API backed by BookService.
+ */
+@RestController
+@RequestMapping("/api/books")
+public class BookController {
+
+    private static final MediaType NDJSON = MediaType.parseMediaType("application/x-ndjson");
+
+    private final BookService bookService;
+    private final ObjectMapper objectMapper;
+
+    public BookController(BookService bookService, ObjectMapper objectMapper) {
+        this.bookService = bookService;
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * Keyset-paginated search: {@code GET /api/books?author=...[&title=...][&after=...][&size=...]}.
+     * Pass the returned {@code nextCursor} as {@code after} for the next page. Served from
+     * read-only {@link BookView} projections, not managed entities.
+     */
+    @GetMapping(params = "author")
+    public CursorPage<BookView> search(@RequestParam String author,
+                                       @RequestParam(required = false) String title,
+                                       @RequestParam(required = false) Long after,
+                                       @RequestParam(defaultValue = "50") int size) {
+        return bookService.findBookViews(author, title, after, size);
+    }
+
+    /**
+     * Like {@link #search} but returns {@link BookSummary} rows with a review count instead of
+     * the reviews: {@code GET /api/books/summaries?author=...}.
+     */
+    @GetMapping("/summaries")
+    public CursorPage<BookSummary> summaries(@RequestParam String author,
+                                             @RequestParam(required = false) String title,
+                                             @RequestParam(required = false) Long after,
+                                             @RequestParam(defaultValue = "50") int size) {
+        return bookService.findBookSummaries(author, title, after, size);
+    }
+
+    /**
+     * Streams every matching book as NDJSON (one JSON object per line), fetching from the
+     * database page by page while writing: {@code GET /api/books/stream?author=...[&title=...]}.
+     */
+    @GetMapping("/stream")
+    public ResponseEntity<StreamingResponseBody> stream(@RequestParam String author,
+                                                        @RequestParam(required = false) String title) {
+        StreamingResponseBody body = out -> {
+            try (Stream<BookView> books = bookService.streamBookViews(author, title)) {
+                Iterator<BookView> it = books.iterator();
+                while (it.hasNext()) {
+                    out.write(objectMapper.writeValueAsBytes(it.next()));
+                    out.write('\n');
+                }
+            }
+        };
+        return ResponseEntity.ok().contentType(NDJSON).body(body);
+    }
+
+    /**
+     * Relevance-ranked full-text search over titles, authors and reviews:
+     * {@code GET /api/books/search?q=...[&k=...]}. 503 while the index is disabled or building.
+     */
+    @GetMapping("/search")
+    public List<RankedBook> fullText(@RequestParam String q, @RequestParam(defaultValue = "10") int k) {
+        return bookService.searchFullText(q, k);
+    }
+
+    /**
+     * Looks up one book by ISBN: {@code GET /api/books/isbn/{isbn}}, or 404.
+     */
+    @GetMapping("/isbn/{isbn}")
+    public ResponseEntity<BookView> byIsbn(@PathVariable String isbn) {
+        return ResponseEntity.of(bookService.findByIsbn(isbn).map(BookView::from));
+    }
+
+    /**
+     * Whether an ISBN is taken, mostly answered from memory: {@code GET /api/books/isbn/{isbn}/exists}.
+     */
+    @GetMapping("/isbn/{isbn}/exists")
+    public Map<String, Boolean> isbnExists(@PathVariable String isbn) {
+        return Map.of("exists", bookService.isbnExists(isbn));
+    }
+
+    /**
+     * Deletes every book whose author contains {@code author}: {@code DELETE /api/books?author=...}.
+     */
+    @DeleteMapping(params = "author")
+    public Map<String, Long> deleteByAuthor(@RequestParam String author) {
+        return Map.of("deleted", bookService.deleteBooksByAuthor(author));
+    }
+
+    /**
+     * Appends a review: {@code POST /api/books/{id}/reviews} with body {@code {"review": "..."}}.
+     */
+    @PostMapping("/{id}/reviews")
+    public ResponseEntity<Void> addReview(@PathVariable Long id, @RequestBody Map<String, String> body) {
+        bookService.addReviewToBook(id, body != null ? body.get("review") : null);
+        return ResponseEntity.status(HttpStatus.CREATED).build();
+    }
+
+    /**
+     * One page of a book's reviews, oldest first: {@code GET /api/books/{id}/reviews[?after=...][&size=...]}.
+     * Pass the returned {@code nextCursor} as {@code after} for the next page.
+     */
+    @GetMapping("/{id}/reviews")
+    public ReviewsResponse reviews(@PathVariable Long id,
+                                   @RequestParam(required = false) Long after,
+                                   @RequestParam(defaultValue = "20") int size) {
+        CursorPage<String> reviews = bookService.findReviews(id, after, size);
+        return new ReviewsResponse(id, reviews.items(), reviews.nextCursor());
+    }
+}
@@ -0,0 +1,42 @@
+package com.example.library.web;
+
+import com.example.library.importer.BookImportService;
+import com.example.library.importer.ImportFormat;
+import com.example.library.importer.ImportReport;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Bulk catalog import: {@code POST /api/books/import} with a {@code text/csv} or
+ * {@code application/x-ndjson} body. The body is streamed, never buffered whole.
+ */
+@RestController
+@RequestMapping("/api/books")
+public class BookImportController {
+
+    private final BookImportService importService;
+
+    public BookImportController(BookImportService importService) {
+        this.importService = importService;
+    }
+
+    @PostMapping(value = "/import", consumes = {"text/csv", "application/x-ndjson"})
+    public ResponseEntity<ImportReport> importBooks(@RequestHeader(HttpHeaders.CONTENT_TYPE) MediaType contentType,
+                                                    @RequestParam(required = false) Integer batchSize,
+                                                    InputStream body) throws IOException {
+        Charset charset = contentType.getCharset() != null ? contentType.getCharset() : StandardCharsets.UTF_8;
+        ImportReport report = importService.importBooks(body, charset, ImportFormat.fromContentType(contentType), batchSize);
+        return ResponseEntity.ok(report);
+    }
+}
@@ -0,0 +1,27 @@
+package com.example.library.web;
+
+import com.example.library.cache.CacheStatistics;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+/**
+ * Second-level cache counters, for sizing {@code library.cache.*}: {@code GET /api/cache/stats}.
+ */
+@RestController
+@RequestMapping("/api/cache")
+public class CacheController {
+
+    private final CacheStatistics cacheStatistics;
+
+    public CacheController(CacheStatistics cacheStatistics) {
+        this.cacheStatistics = cacheStatistics;
+    }
+
+    @GetMapping("/stats")
+    public List<CacheStatistics.RegionStats> stats() {
+        return cacheStatistics.regions();
+    }
+}
@@ -0,0 +1,165 @@
+package com.example.library.web;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.env.Environment;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Caps how many {@code /api/**} requests run at once, so the database pool is not
+ * overwhelmed when the request threads themselves are no longer the limit.
+ * <p>
+ * With virtual threads (the {@code virtual-threads} profile) Tomcat accepts every request
+ * on its own thread, and thousands of them would otherwise pile up inside Hikari's
+ * {@code getConnection()} until they time out. Here a request waits at most
+ * {@code library.db-gate.wait} for one of {@code library.db-gate.permits} slots (default:
+ * the Hikari pool size) and is otherwise answered {@code 503} with {@code Retry-After}.
+ * Streaming responses keep their slot until the async response completes.
+ * <p>
+ * Disabled by default; enable with {@code library.db-gate.enabled=true}.
+ */
+@Component
+public class ConnectionGateFilter extends OncePerRequestFilter {
+
+    private static final Logger log = LoggerFactory.getLogger(ConnectionGateFilter.class);
+
+    private final boolean enabled;
+    private final int permits;
+    private final Duration wait;
+    private final Semaphore gate;
+    private final ObjectMapper objectMapper;
+    private final AtomicLong rejected = new AtomicLong();
+
+    public ConnectionGateFilter(@Value("${library.db-gate.enabled:false}") boolean enabled,
+                                @Value("${library.db-gate.permits:${spring.datasource.hikari.maximum-pool-size:10}}") int permits,
+                                @Value("${library.db-gate.wait:2s}") Duration wait,
+                                ObjectMapper objectMapper) {
+        if (permits < 1) {
+            throw new IllegalArgumentException("library.db-gate.permits must be positive");
+        }
+        this.enabled = enabled;
+        this.permits = permits;
+        this.wait = wait;
+        this.gate = new Semaphore(permits, true);
+        this.objectMapper = objectMapper;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void logExecutionMode(ApplicationReadyEvent event) {
+        Environment environment = event.getApplicationContext().getEnvironment();
+        boolean requested = environment.getProperty("spring.threads.virtual.enabled", Boolean.class, false);
+        if (Threading.VIRTUAL.isActive(environment)) {
+            log.info("Request execution: virtual threads; db gate {}", describeGate());
+        } else if (requested) {
+            log.warn("spring.threads.virtual.enabled is set but Java {} has no virtual threads (needs 21+); "
+                    + "running on platform threads; db gate {}", Runtime.version().feature(), describeGate());
+        } else {
+            log.info("Request execution: platform threads; db gate {}", describeGate());
+        }
+    }
+
+    public int availablePermits() {
+        return gate.availablePermits();
+    }
+
+    public long rejectedCount() {
+        return rejected.get();
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !enabled || !request.getRequestURI().startsWith("/api/");
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response,
+                                    FilterChain chain) throws ServletException, IOException {
+        if (!acquire()) {
+            rejected.incrementAndGet();
+            response.setStatus(HttpStatus.SERVICE_UNAVAILABLE.value());
+            response.setHeader(HttpHeaders.RETRY_AFTER, "1");
+            response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+            objectMapper.writeValue(response.getOutputStream(),
+                    Map.of("error", "Too many concurrent requests; retry shortly"));
+            return;
+        }
+        Runnable release = releaseOnce();
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            if (request.isAsyncStarted()) {
+                request.getAsyncContext().addListener(new ReleasingListener(release));
+            } else {
+                release.run();
+            }
+        }
+    }
+
+    private boolean acquire() {
+        try {
+            return gate.tryAcquire(wait.toNanos(), TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private Runnable releaseOnce() {
+        AtomicBoolean released = new AtomicBoolean();
+        return () -> {
+            if (released.compareAndSet(false, true)) {
+                gate.release();
+            }
+        };
+    }
+
+    private String describeGate() {
+        return enabled ? "on (" + permits + " permits, wait " + wait + ")" : "off";
+    }
+
+    private record ReleasingListener(Runnable release) implements AsyncListener {
+
+        @Override
+        public void onComplete(AsyncEvent event) {
+            release.run();
+        }
+
+        @Override
+        public void onTimeout(AsyncEvent event) {
+            release.run();
+        }
+
+        @Override
+        public void onError(AsyncEvent event) {
+            release.run();
+        }
+
+        @Override
+        public void onStartAsync(AsyncEvent event) {
+            event.getAsyncContext().addListener(this);
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package com.example.library.web;
+
+import com.example.library.facet.CatalogFacets;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+/**
+ * Catalog counts served from memory by {@link CatalogFacets}; 503 until they are built.
+ */
+@RestController
+@RequestMapping("/api/books/facets")
+public class FacetController {
+
+    private final CatalogFacets facets;
+
+    public FacetController(CatalogFacets facets) {
+        this.facets = facets;
+    }
+
+    /**
+     * Authors with the most books: {@code GET /api/books/facets/authors?top=10}.
+     */
+    @GetMapping("/authors")
+    public List<CatalogFacets.AuthorCount> topAuthors(@RequestParam(defaultValue = "10") int top) {
+        return facets.topAuthors(top);
+    }
+
+    /**
+     * Book count for one author (exact name): {@code GET /api/books/facets/authors/{author}}.
+     */
+    @GetMapping("/authors/{author}")
+    public CatalogFacets.AuthorCount author(@PathVariable String author) {
+        return new CatalogFacets.AuthorCount(author, facets.countByAuthor(author));
+    }
+
+    /**
+     * Books per publication year: {@code GET /api/books/facets/years}.
+     */
+    @GetMapping("/years")
+    public CatalogFacets.YearHistogram years() {
+        return facets.yearHistogram();
+    }
+}
@@ -0,0 +1,23 @@
+package com.example.library.web;
+
+import com.example.library.review.ReviewWriteBuffer;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * Review write-behind queue depth and flush latency: {@code GET /api/reviews/write-behind/stats}.
+ */
+@RestController
+public class ReviewBufferController {
+
+    private final ReviewWriteBuffer reviewBuffer;
+
+    public ReviewBufferController(ReviewWriteBuffer reviewBuffer) {
+        this.reviewBuffer = reviewBuffer;
+    }
+
+    @GetMapping("/api/reviews/write-behind/stats")
+    public ReviewWriteBuffer.Stats stats() {
+        return reviewBuffer.stats();
+    }
+}
@@ -0,0 +1,11 @@
+package com.example.library.web;
+
+import java.util.List;
+
+/**
+ * One keyset page of a book's reviews, oldest first. Pass {@code nextCursor} back as
+ * {@code after} for the next page; it is {@code null} on the last page. There is no total
+ * count, so reading a page never has to count every review of the book.
+ */
+public record ReviewsResponse(Long bookId, List<String> reviews, Long nextCursor) {
+}
@@ -0,0 +1,26 @@
+-- Schema for the fast-start profile (spring.jpa.hibernate.ddl-auto=none), kept in step with the
+-- Book entity; FastStartProfileTest validates it against the mappings. Idempotent, so it is safe
+-- to run on every start against a persistent database.
+create sequence if not exists book_seq start with 1 increment by 50;
+create sequence if not exists book_review_seq start with 1 increment by 50;
+
+create table if not exists books (
+    id             bigint       not null,
+    title          varchar(255) not null,
+    author         varchar(255) not null,
+    isbn           varchar(255) not null,
+    published_year integer,
+    constraint pk_books primary key (id),
+    constraint uk_books_isbn unique (isbn)
+);
+
+create table if not exists book_reviews (
+    id      bigint not null,
+    book_id bigint not null,
+    review  varchar(255),
+    constraint pk_book_reviews primary key (id),
+    constraint fk_book_reviews_book foreign key (book_id) references books (id)
+);
+
+-- Review pages are read by book, in id order.
+create index if not exists idx_book_reviews_book_id on book_reviews (book_id, id);
@@ -0,0 +1,32 @@
+package com.example.library;
+
+import com.example.library.model.Book;
+import com.example.library.repository.BookRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * The fast-start profile skips Hibernate DDL and creates tables from db/schema.sql, so that
+ * script must match the entity mappings. {@code ddl-auto=validate} fails the context if it drifts.
+ */
+@DataJpaTest(properties = "spring.jpa.hibernate.ddl-auto=validate")
+@ActiveProfiles("fast-start")
+class FastStartProfileTest {
+
+    @Autowired
+    private BookRepository repository;
+
+    @Test
+    void schemaScript_matchesTheEntityMappings() {
+        Book saved = repository.saveAndFlush(new Book(null, "The Hobbit", "J.R.R. Tolkien", "978-0-54", 1937));
+        repository.insertReview(saved.getId(), "Lovely");
+
+        assertTrue(repository.existsByIsbn("978-0-54"));
+        assertThrows(Exception.class,
+                () -> repository.saveAndFlush(new Book(null, "Copy", "Someone", "978-0-54", 2000)));
+    }
+}
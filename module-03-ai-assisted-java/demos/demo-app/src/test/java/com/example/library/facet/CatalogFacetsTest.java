@@ -0,0 +1,145 @@
+package com.example.library.facet;
+
+import com.example.library.event.BookDeletedEvent;
+import com.example.library.event.BookSavedEvent;
+import com.example.library.model.Book;
+import com.example.library.repository.BookFacetFields;
+import com.example.library.repository.BookRepository;
+import com.example.library.search.IndexNotReadyException;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Limit;
+
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+/**
+ * Unit tests for the incrementally maintained author and year counts.
+ */
+@ExtendWith(MockitoExtension.class)
+class CatalogFacetsTest {
+
+    @Mock
+    private BookRepository repository;
+
+    @Test
+    void rebuild_countsAuthorsAndYearsFromTheRepository() {
+        CatalogFacets facets = built(List.of(
+                new BookFacetFields(1L, "J.R.R. Tolkien", 1937),
+                new BookFacetFields(2L, "Frank Herbert", 1965),
+                new BookFacetFields(3L, "J.R.R. Tolkien", 1954),
+                new BookFacetFields(4L, "J.R.R. Tolkien", null)));
+
+        assertEquals(List.of(new CatalogFacets.AuthorCount("J.R.R. Tolkien", 3),
+                new CatalogFacets.AuthorCount("Frank Herbert", 1)), facets.topAuthors(10));
+        assertEquals(List.of(new CatalogFacets.AuthorCount("J.R.R. Tolkien", 3)), facets.topAuthors(1));
+        assertEquals(3, facets.countByAuthor("J.R.R. Tolkien"));
+        assertEquals(0, facets.countByAuthor("Nobody"));
+        assertEquals(new CatalogFacets.YearHistogram(List.of(new CatalogFacets.YearCount(1937, 1),
+                new CatalogFacets.YearCount(1954, 1), new CatalogFacets.YearCount(1965, 1)), 1, 4),
+                facets.yearHistogram());
+    }
+
+    @Test
+    void updatesAndDeletes_moveABooksContribution() {
+        CatalogFacets facets = built(List.of(
+                new BookFacetFields(1L, "Tolkien", 1937),
+                new BookFacetFields(2L, "Herbert", 1965)));
+
+        facets.onBookSaved(new BookSavedEvent(new Book(2L, "Dune", "Frank Herbert", "isbn-2", 1966)));
+        facets.onBookSaved(new BookSavedEvent(new Book(3L, "Dune Messiah", "Frank Herbert", "isbn-3", 1969)));
+        facets.onBookDeleted(new BookDeletedEvent(1L));
+        facets.onBookDeleted(new BookDeletedEvent(99L));
+
+        assertEquals(List.of(new CatalogFacets.AuthorCount("Frank Herbert", 2)), facets.topAuthors(10));
+        assertEquals(0, facets.countByAuthor("Herbert"));
+        assertEquals(List.of(new CatalogFacets.YearCount(1966, 1), new CatalogFacets.YearCount(1969, 1)),
+                facets.yearHistogram().years());
+        assertEquals(2, facets.yearHistogram().totalBooks());
+    }
+
+    @Test
+    void randomWrites_matchANaiveRecount() {
+        CatalogFacets facets = built(List.of());
+        Map<Long, Book> catalog = new HashMap<>();
+        Random random = new Random(7);
+
+        for (int i = 0; i < 20_000; i++) {
+            long id = random.nextInt(500);
+            if (random.nextInt(4) == 0) {
+                catalog.remove(id);
+                facets.onBookDeleted(new BookDeletedEvent(id));
+            } else {
+                Integer year = random.nextInt(10) == 0 ? null : 1990 + random.nextInt(30);
+                Book book = new Book(id, "T", "Author " + random.nextInt(40), "isbn-" + id, year);
+                catalog.put(id, book);
+                facets.onBookSaved(new BookSavedEvent(book));
+            }
+        }
+
+        Map<String, Long> byAuthor = catalog.values().stream()
+                .collect(Collectors.groupingBy(Book::getAuthor, Collectors.counting()));
+        List<CatalogFacets.AuthorCount> top = facets.topAuthors(CatalogFacets.MAX_TOP_AUTHORS);
+        assertEquals(byAuthor.size(), top.size());
+        for (CatalogFacets.AuthorCount entry : top) {
+            assertEquals(byAuthor.get(entry.author()).intValue(), entry.count(), entry.author());
+        }
+        assertTrue(top.stream().map(CatalogFacets.AuthorCount::count).toList()
+                .equals(top.stream().map(CatalogFacets.AuthorCount::count).sorted(Comparator.reverseOrder()).toList()));
+
+        Map<Integer, Long> byYear = catalog.values().stream().filter(b -> b.getPublishedYear() != null)
+                .collect(Collectors.groupingBy(Book::getPublishedYear, TreeMap::new, Collectors.counting()));
+        CatalogFacets.YearHistogram histogram = facets.yearHistogram();
+        assertEquals(byYear.entrySet().stream().map(e -> new CatalogFacets.YearCount(e.getKey(), e.getValue())).toList(),
+                histogram.years());
+        assertEquals(catalog.values().stream().filter(b -> b.getPublishedYear() == null).count(), histogram.unknownYear());
+        assertEquals(catalog.size(), histogram.totalBooks());
+    }
+
+    @Test
+    void beforeRebuild_countsAreUnavailable() {
+        CatalogFacets facets = new CatalogFacets(repository, true);
+
+        assertFalse(facets.isReady());
+        assertThrows(IndexNotReadyException.class, () -> facets.topAuthors(10));
+        assertThrows(IndexNotReadyException.class, facets::yearHistogram);
+    }
+
+    @Test
+    void disabledFacets_neverLoad() {
+        CatalogFacets facets = new CatalogFacets(repository, false);
+
+        facets.rebuild();
+
+        assertFalse(facets.isReady());
+        verifyNoInteractions(repository);
+    }
+
+    @Test
+    void topAuthors_withOutOfRangeN_throwsIllegalArgumentException() {
+        CatalogFacets facets = built(List.of());
+
+        assertThrows(IllegalArgumentException.class, () -> facets.topAuthors(0));
+        assertThrows(IllegalArgumentException.class, () -> facets.topAuthors(CatalogFacets.MAX_TOP_AUTHORS + 1));
+    }
+
+    private CatalogFacets built(List<BookFacetFields> rows) {
+        when(repository.findFacetFieldsAfter(eq(0L), any(Limit.class))).thenReturn(rows);
+        CatalogFacets facets = new CatalogFacets(repository, true);
+        facets.rebuild();
+        return facets;
+    }
+}
@@ -0,0 +1,56 @@
+package com.example.library.facet;
+
+import com.example.library.event.BookSavedEvent;
+import com.example.library.model.Book;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Checks that write events reach the facets only once their transaction commits, with the
+ * listener registered by Spring as in the application.
+ */
+@DataJpaTest
+@Import(CatalogFacets.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class CatalogFacetsTransactionTest {
+
+    @Autowired
+    private CatalogFacets facets;
+
+    @Autowired
+    private ApplicationEventPublisher events;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Test
+    void writeEvents_areAppliedAfterCommitAndDroppedOnRollback() {
+        facets.rebuild();
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+
+        transaction.executeWithoutResult(status -> {
+            events.publishEvent(new BookSavedEvent(new Book(1L, "Dune", "Frank Herbert", "isbn-1", 1965)));
+            assertEquals(0, facets.countByAuthor("Frank Herbert"));
+        });
+        assertEquals(1, facets.countByAuthor("Frank Herbert"));
+
+        transaction.executeWithoutResult(status -> {
+            events.publishEvent(new BookSavedEvent(new Book(2L, "Emma", "Jane Austen", "isbn-2", 1815)));
+            status.setRollbackOnly();
+        });
+        assertEquals(0, facets.countByAuthor("Jane Austen"));
+
+        // Outside a transaction (bulk import, review write-behind) events apply at once.
+        events.publishEvent(new BookSavedEvent(new Book(3L, "Persuasion", "Jane Austen", "isbn-3", 1817)));
+        assertEquals(1, facets.countByAuthor("Jane Austen"));
+    }
+}
@@ -0,0 +1,73 @@
+package com.example.library.facet;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the primitive long-to-long map, checked against java.util.HashMap.
+ */
+class LongLongHashMapTest {
+
+    @Test
+    void randomOperations_matchHashMap() {
+        LongLongHashMap map = new LongLongHashMap(4);
+        Map<Long, Long> expected = new HashMap<>();
+        Random random = new Random(42);
+
+        for (int i = 0; i < 200_000; i++) {
+            // A small key range forces long probe runs, collisions and backward shifts.
+            long key = random.nextInt(2_000) - 1_000;
+            switch (random.nextInt(3)) {
+                case 0 -> {
+                    assertEquals(expected.getOrDefault(key, -1L), map.put(key, i, -1L));
+                    expected.put(key, (long) i);
+                }
+                case 1 -> {
+                    assertEquals(expected.getOrDefault(key, -1L), map.remove(key, -1L));
+                    expected.remove(key);
+                }
+                default -> {
+                    long updated = expected.getOrDefault(key, 0L) + 1;
+                    assertEquals(updated, map.addTo(key, 1));
+                    if (updated == 0) {
+                        expected.remove(key);
+                    } else {
+                        expected.put(key, updated);
+                    }
+                }
+            }
+        }
+
+        assertEquals(expected.size(), map.size());
+        for (Map.Entry<Long, Long> entry : expected.entrySet()) {
+            assertEquals(entry.getValue(), map.get(entry.getKey(), -1L));
+        }
+        long[] keys = map.keys();
+        Arrays.sort(keys);
+        assertArrayEquals(expected.keySet().stream().mapToLong(Long::longValue).sorted().toArray(), keys);
+    }
+
+    @Test
+    void addTo_removesKeysThatReachZero() {
+        LongLongHashMap map = new LongLongHashMap(16);
+
+        map.addTo(1999, 2);
+        map.addTo(1999, -2);
+
+        assertFalse(map.containsKey(1999));
+        assertEquals(0, map.size());
+    }
+
+    @Test
+    void reservedKey_isRejected() {
+        LongLongHashMap map = new LongLongHashMap(16);
+
+        assertThrows(IllegalArgumentException.class, () -> map.put(Long.MIN_VALUE, 1, 0));
+    }
+}
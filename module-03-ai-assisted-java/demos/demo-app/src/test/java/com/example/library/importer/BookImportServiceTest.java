@@ -0,0 +1,82 @@
+package com.example.library.importer;
+
+import com.example.library.search.IsbnBloomFilter;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManagerFactory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Tests for the bulk importer's handling of rows the database rejects, against the embedded
+ * H2 database. Runs outside the test transaction, as each import batch commits on its own.
+ */
+@DataJpaTest
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class BookImportServiceTest {
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @AfterEach
+    void clear() {
+        jdbcTemplate.update("delete from book_reviews");
+        jdbcTemplate.update("delete from books");
+    }
+
+    @Test
+    void rowsRejectedByTheDatabase_reportTheConstraintThatFailed() throws Exception {
+        jdbcTemplate.update("insert into books (id, title, author, isbn) values (-1, 'Existing', 'Someone', 'isbn-taken')");
+        String csv = """
+                title,author,isbn,publishedYear
+                Fine,Someone,isbn-new,2001
+                Taken,Someone,isbn-taken,2002
+                %s,Someone,isbn-long,2003
+                """.formatted("T".repeat(300));
+
+        ImportReport report = service().importBooks(
+                new ByteArrayInputStream(csv.getBytes(StandardCharsets.UTF_8)), StandardCharsets.UTF_8, ImportFormat.CSV, 10);
+
+        assertEquals(1, report.imported());
+        assertEquals(2, report.failed());
+        List<ImportReport.Failure> failures = report.failures();
+        assertEquals(new ImportReport.Failure(3, "isbn-taken", "ISBN already exists"), failures.get(0));
+        assertEquals(4, failures.get(1).line());
+        assertTrue(failures.get(1).reason().startsWith("Rejected by the database: "), failures.get(1).reason());
+        assertFalse(failures.get(1).reason().contains("ISBN"), failures.get(1).reason());
+    }
+
+    private BookImportService service() {
+        // A filter that rules every ISBN out sends duplicates straight to the unique constraint.
+        IsbnBloomFilter isbnFilter = mock(IsbnBloomFilter.class);
+        when(isbnFilter.mightContain(any())).thenReturn(false);
+        return new BookImportService(new NamedParameterJdbcTemplate(jdbcTemplate),
+                new TransactionTemplate(transactionManager),
+                new BookIdAllocator(jdbcTemplate, entityManagerFactory),
+                mock(ApplicationEventPublisher.class), new ObjectMapper(), entityManagerFactory, isbnFilter,
+                1000, 100_000);
+    }
+}
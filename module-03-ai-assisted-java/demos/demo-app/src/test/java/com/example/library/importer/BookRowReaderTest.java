@@ -0,0 +1,90 @@
+package com.example.library.importer;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.MediaType;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.StringReader;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the streaming CSV and NDJSON catalog readers.
+ */
+class BookRowReaderTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    void csv_readsColumnsByHeaderNameAndHandlesQuotedFields() throws IOException {
+        String csv = """
+                isbn,author,title,published_year
+                978-0-54,J.R.R. Tolkien,The Hobbit,1937
+
+                978-0-55,"Tolkien, J.R.R.","The ""Fellowship""\",
+                """;
+        try (BookRowReader reader = open(ImportFormat.CSV, csv)) {
+            BookImportRow first = reader.next();
+            assertEquals(new BookImportRow(2, "The Hobbit", "J.R.R. Tolkien", "978-0-54", 1937), first);
+
+            BookImportRow second = reader.next();
+            assertEquals(4, second.line());
+            assertEquals("Tolkien, J.R.R.", second.author());
+            assertEquals("The \"Fellowship\"", second.title());
+            assertNull(second.publishedYear());
+
+            assertNull(reader.next());
+        }
+    }
+
+    @Test
+    void csv_reportsMalformedLineAndKeepsReading() throws IOException {
+        String csv = """
+                title,author,isbn,publishedYear
+                Bad Year,Someone,isbn-1,nineteen
+                Good,Someone,isbn-2,2001
+                """;
+        try (BookRowReader reader = open(ImportFormat.CSV, csv)) {
+            MalformedRowException e = assertThrows(MalformedRowException.class, reader::next);
+            assertEquals(2, e.getLine());
+
+            assertEquals("isbn-2", reader.next().isbn());
+        }
+    }
+
+    @Test
+    void csv_withoutRequiredHeaderColumn_isRejected() {
+        assertThrows(MalformedRowException.class, () -> open(ImportFormat.CSV, "title,author\nA,B\n"));
+    }
+
+    @Test
+    void ndjson_readsOneObjectPerLineAndSkipsBadLines() throws IOException {
+        String ndjson = """
+                {"title":"The Hobbit","author":"J.R.R. Tolkien","isbn":"978-0-54","publishedYear":1937,"extra":true}
+                {not json}
+                {"title":"Dune","author":"Frank Herbert","isbn":"978-0-44","publishedYear":"1965"}
+                """;
+        try (BookRowReader reader = open(ImportFormat.NDJSON, ndjson)) {
+            assertEquals(new BookImportRow(1, "The Hobbit", "J.R.R. Tolkien", "978-0-54", 1937), reader.next());
+
+            MalformedRowException e = assertThrows(MalformedRowException.class, reader::next);
+            assertEquals(2, e.getLine());
+
+            assertEquals(1965, reader.next().publishedYear());
+            assertNull(reader.next());
+        }
+    }
+
+    @Test
+    void fromContentType_matchesIgnoringCharsetParameter() {
+        assertEquals(ImportFormat.CSV, ImportFormat.fromContentType(MediaType.parseMediaType("text/csv;charset=UTF-8")));
+        assertEquals(ImportFormat.NDJSON, ImportFormat.fromContentType(MediaType.parseMediaType("application/x-ndjson")));
+        assertThrows(IllegalArgumentException.class, () -> ImportFormat.fromContentType(MediaType.APPLICATION_XML));
+    }
+
+    private BookRowReader open(ImportFormat format, String content) throws IOException {
+        return format.open(new BufferedReader(new StringReader(content)), objectMapper);
+    }
+}
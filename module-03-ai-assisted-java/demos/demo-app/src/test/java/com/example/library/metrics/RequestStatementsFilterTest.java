@@ -0,0 +1,68 @@
+package com.example.library.metrics;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the per-request JDBC statement counter.
+ */
+class RequestStatementsFilterTest {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final RequestStatementsFilter filter = new RequestStatementsFilter(registry, 2);
+
+    @Test
+    void recordsStatementsExecutedDuringTheRequestByUriPattern() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/books/7/reviews");
+
+        filter.doFilter(request, new MockHttpServletResponse(), (req, res) -> {
+            req.setAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE, "/api/books/{id}/reviews");
+            RequestStatementsFilter.statementExecuted();
+            RequestStatementsFilter.statementExecuted();
+            RequestStatementsFilter.statementExecuted();
+        });
+
+        DistributionSummary summary = registry.get(RequestStatementsFilter.SUMMARY)
+                .tag("method", "GET").tag("uri", "/api/books/{id}/reviews").summary();
+        assertEquals(1, summary.count());
+        assertEquals(3, summary.totalAmount());
+    }
+
+    @Test
+    void countsStatementsRunThroughTheWrappedDataSourceByAnyClient() throws Exception {
+        JdbcDataSource h2 = new JdbcDataSource();
+        h2.setURL("jdbc:h2:mem:statements;DB_CLOSE_DELAY=-1");
+        JdbcTemplate jdbc = new JdbcTemplate(new StatementCountingDataSource(h2));
+        jdbc.execute("create table if not exists notes (id int, text varchar(20))");
+
+        filter.doFilter(new MockHttpServletRequest("POST", "/api/notes"), new MockHttpServletResponse(), (req, res) -> {
+            jdbc.update("insert into notes values (?, ?)", 1, "one");
+            jdbc.batchUpdate("insert into notes values (?, ?)", List.of(new Object[] {2, "two"}, new Object[] {3, "three"}));
+            jdbc.queryForObject("select count(*) from notes", Integer.class);
+        });
+
+        DistributionSummary summary = registry.get(RequestStatementsFilter.SUMMARY).tag("method", "POST").summary();
+        assertEquals(3, summary.totalAmount());
+    }
+
+    @Test
+    void statementsOutsideARequestAreIgnoredAndNonApiPathsAreNotFiltered() throws Exception {
+        RequestStatementsFilter.statementExecuted();
+
+        filter.doFilter(new MockHttpServletRequest("GET", "/actuator/health"), new MockHttpServletResponse(),
+                new MockFilterChain());
+
+        assertNull(registry.find(RequestStatementsFilter.SUMMARY).summary());
+    }
+}
@@ -0,0 +1,179 @@
+package com.example.library.repository;
+
+import com.example.library.model.Book;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.data.domain.Limit;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for the hand-written queries in BookRepository, against the embedded H2 database.
+ */
+@DataJpaTest
+class BookRepositoryTest {
+
+    @Autowired
+    private BookRepository repository;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Test
+    void insertReview_appendsRowsThatArePagedInInsertionOrder() {
+        Book book = entityManager.persistFlushFind(new Book(null, "The Hobbit", "J.R.R. Tolkien", "978-0-54", 1937));
+        entityManager.clear();
+
+        repository.insertReview(book.getId(), "First");
+        repository.insertReview(book.getId(), "Second");
+        repository.insertReview(book.getId(), "Third");
+
+        List<ReviewEntry> first = repository.findReviewsAfter(book.getId(), null, 2);
+        List<ReviewEntry> second = repository.findReviewsAfter(book.getId(), first.get(1).id(), 2);
+        assertEquals(List.of("First", "Second"), first.stream().map(ReviewEntry::review).toList());
+        assertEquals(List.of("Third"), second.stream().map(ReviewEntry::review).toList());
+        assertEquals(List.of("First", "Second", "Third"),
+                repository.findById(book.getId()).orElseThrow().getReviews());
+    }
+
+    @Test
+    void findReviewsAfter_keepsPagesStableWhileReviewsAreAppended() {
+        Book book = entityManager.persistFlushFind(new Book(null, "The Hobbit", "J.R.R. Tolkien", "978-0-54", 1937));
+        book.getReviews().add("Saved with the book");
+        entityManager.flush();
+        repository.insertReview(book.getId(), "Inserted");
+
+        List<ReviewEntry> first = repository.findReviewsAfter(book.getId(), null, 1);
+        repository.insertReview(book.getId(), "Appended meanwhile");
+        List<ReviewEntry> rest = repository.findReviewsAfter(book.getId(), first.get(0).id(), 10);
+
+        assertEquals("Saved with the book", first.get(0).review());
+        assertEquals(List.of("Inserted", "Appended meanwhile"), rest.stream().map(ReviewEntry::review).toList());
+    }
+
+    @Test
+    void searchAndFacetFieldScans_goInIdOrderFromTheGivenKey() {
+        Book first = entityManager.persist(new Book(null, "A", "Author A", "isbn-a", 2000));
+        Book second = entityManager.persist(new Book(null, "B", "Author B", "isbn-b", 2001));
+        Book third = entityManager.persist(new Book(null, "C", "Author C", "isbn-c", 2002));
+        entityManager.flush();
+
+        List<BookSearchFields> page = repository.findSearchFieldsAfter(first.getId(), Limit.of(1));
+
+        assertEquals(List.of(new BookSearchFields(second.getId(), "Author B", "B")), page);
+        assertEquals(third.getId(), repository.findSearchFieldsAfter(second.getId(), Limit.of(10)).get(0).id());
+        assertEquals(List.of(new BookFacetFields(second.getId(), "Author B", 2001)),
+                repository.findFacetFieldsAfter(first.getId(), Limit.of(1)));
+    }
+
+    @Test
+    void bulkDeleteByIds_removesBooksAndTheirReviews() {
+        Book tolkien = entityManager.persist(new Book(null, "The Hobbit", "J.R.R. Tolkien", "isbn-1", 1937));
+        Book other = entityManager.persist(new Book(null, "Dune", "Frank Herbert", "isbn-2", 1965));
+        entityManager.flush();
+        repository.insertReview(tolkien.getId(), "Lovely");
+        repository.insertReview(other.getId(), "Sandy");
+
+        List<Long> ids = repository.findIdsByAuthorContainingIgnoreCase("TOLK", Limit.of(10))
+                .stream().map(BookId::id).toList();
+        int deleted = repository.bulkDeleteByIds(ids);
+
+        assertEquals(List.of(tolkien.getId()), ids);
+        assertEquals(1, deleted);
+        assertEquals(List.of(other.getId()), repository.findAll().stream().map(Book::getId).toList());
+        Number reviewRows = (Number) entityManager.getEntityManager()
+                .createNativeQuery("select count(*) from book_reviews").getSingleResult();
+        assertEquals(1, reviewRows.intValue());
+    }
+
+    @Test
+    void keysetIdsAndFetchWithReviews_pageInIdOrder() {
+        Book first = entityManager.persist(new Book(null, "The Hobbit", "J.R.R. Tolkien", "isbn-1", 1937));
+        entityManager.persist(new Book(null, "Dune", "Frank Herbert", "isbn-2", 1965));
+        Book third = entityManager.persist(new Book(null, "The Silmarillion", "Christopher Tolkien", "isbn-3", 1977));
+        entityManager.flush();
+        repository.insertReview(third.getId(), "Dense");
+        entityManager.clear();
+
+        List<Long> page = repository.findIdsByAuthorContainingIgnoreCaseAndIdGreaterThanOrderByIdAsc(
+                "tolkien", first.getId(), Limit.of(5)).stream().map(BookId::id).toList();
+        List<Long> titled = repository.findIdsByAuthorContainingIgnoreCaseAndTitleContainingIgnoreCaseAndIdGreaterThanOrderByIdAsc(
+                "tolkien", "HOBBIT", Long.MIN_VALUE, Limit.of(5)).stream().map(BookId::id).toList();
+        List<Book> books = repository.findWithReviewsByIdInOrderByIdAsc(page);
+        entityManager.clear();
+
+        assertEquals(List.of(third.getId()), page);
+        assertEquals(List.of(first.getId()), titled);
+        assertEquals(List.of("Dense"), books.get(0).getReviews());
+    }
+
+    @Test
+    void summariesAndBatchedReviews_projectWithoutEntities() {
+        Book hobbit = entityManager.persist(new Book(null, "The Hobbit", "J.R.R. Tolkien", "isbn-1", 1937));
+        Book dune = entityManager.persist(new Book(null, "Dune", "Frank Herbert", "isbn-2", 1965));
+        entityManager.flush();
+        repository.insertReview(hobbit.getId(), "Lovely");
+        repository.insertReview(hobbit.getId(), "Long");
+        entityManager.clear();
+
+        List<BookSummary> summaries = repository.findSummariesByIdInOrderByIdAsc(List.of(dune.getId(), hobbit.getId()));
+        List<BookReview> reviews = repository.findReviewsByBookIdIn(List.of(hobbit.getId(), dune.getId()));
+
+        assertEquals(List.of(
+                new BookSummary(hobbit.getId(), "The Hobbit", "J.R.R. Tolkien", "isbn-1", 1937, 2),
+                new BookSummary(dune.getId(), "Dune", "Frank Herbert", "isbn-2", 1965, 0)), summaries);
+        assertEquals(List.of("Lovely", "Long"), reviews.stream().map(BookReview::review).toList());
+        assertTrue(reviews.stream().allMatch(r -> r.bookId().equals(hobbit.getId())));
+    }
+
+    @Test
+    void insertReviews_appendsOneBatchAcrossBooksInListOrder() {
+        Book hobbit = entityManager.persist(new Book(null, "The Hobbit", "J.R.R. Tolkien", "isbn-1", 1937));
+        Book dune = entityManager.persist(new Book(null, "Dune", "Frank Herbert", "isbn-2", 1965));
+        entityManager.flush();
+
+        int rows = repository.insertReviews(List.of(new BookReview(hobbit.getId(), "One"),
+                new BookReview(dune.getId(), "Sandy"), new BookReview(hobbit.getId(), "Two")));
+
+        assertEquals(3, rows);
+        assertEquals(List.of("One", "Two"),
+                repository.findReviewsAfter(hobbit.getId(), null, 10).stream().map(ReviewEntry::review).toList());
+        assertEquals(0, repository.insertReviews(List.of()));
+    }
+
+    @Test
+    void findByIsbnAndIsbnScan_useTheUniqueIsbnColumn() {
+        Book hobbit = entityManager.persist(new Book(null, "The Hobbit", "J.R.R. Tolkien", "978-0-54", 1937));
+        Book dune = entityManager.persist(new Book(null, "Dune", "Frank Herbert", "978-0-44", 1965));
+        entityManager.flush();
+        repository.insertReview(hobbit.getId(), "Lovely");
+        entityManager.clear();
+
+        Book found = repository.findByIsbn("978-0-54").orElseThrow();
+        entityManager.clear();
+
+        assertEquals(List.of("Lovely"), found.getReviews());
+        assertTrue(repository.existsByIsbn("978-0-44"));
+        assertFalse(repository.existsByIsbn("978-0-00"));
+        assertEquals(List.of(new BookIsbn(dune.getId(), "978-0-44")),
+                repository.findIsbnsAfter(hobbit.getId(), Limit.of(10)));
+    }
+
+    @Test
+    void catalogFingerprintQueries_countBooksAndReviews() {
+        assertEquals(0, repository.findMaxId());
+        Book hobbit = entityManager.persist(new Book(null, "The Hobbit", "J.R.R. Tolkien", "isbn-1", 1937));
+        Book dune = entityManager.persist(new Book(null, "Dune", "Frank Herbert", "isbn-2", 1965));
+        entityManager.flush();
+        repository.insertReview(hobbit.getId(), "Lovely");
+        repository.insertReview(dune.getId(), "Sandy");
+        repository.insertReview(dune.getId(), "Long");
+
+        assertEquals(Math.max(hobbit.getId(), dune.getId()), repository.findMaxId());
+        assertEquals(3, repository.countReviews());
+    }
+}
@@ -0,0 +1,263 @@
+package com.example.library.review;
+
+import com.example.library.event.BookReviewedEvent;
+import com.example.library.repository.BookRepository;
+import com.example.library.repository.BookReview;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
+import static org.mockito.Mockito.when;
+
+/**
+ * Unit tests for the striped review write-behind buffer.
+ */
+@ExtendWith(MockitoExtension.class)
+class ReviewWriteBufferTest {
+
+    @Mock
+    private BookRepository repository;
+
+    @Mock
+    private ApplicationEventPublisher events;
+
+    private final TransactionTemplate transactionTemplate = new TransactionTemplate(mock(PlatformTransactionManager.class));
+    private ReviewWriteBuffer buffer;
+
+    @AfterEach
+    void close() {
+        if (buffer != null) {
+            buffer.close();
+        }
+    }
+
+    @Test
+    void async_queuesUntilFlushedThenWritesOneOrderedBatch() {
+        buffer = buffer(ReviewWriteBuffer.Durability.ASYNC, 1, 100);
+
+        buffer.add(1L, "First");
+        buffer.add(2L, "Other");
+        buffer.add(1L, "Second");
+        verify(repository, never()).insertReviews(anyList());
+        assertEquals(3, buffer.stats().queueDepth());
+
+        buffer.flushAll();
+
+        verify(repository).insertReviews(List.of(
+                new BookReview(1L, "First"), new BookReview(2L, "Other"), new BookReview(1L, "Second")));
+        ReviewWriteBuffer.Stats stats = buffer.stats();
+        assertEquals(0, stats.queueDepth());
+        assertEquals(3, stats.written());
+        assertEquals(1, stats.flushes());
+        verify(events).publishEvent(new BookReviewedEvent(1L));
+        verify(events).publishEvent(new BookReviewedEvent(2L));
+        verifyNoMoreInteractions(events);
+    }
+
+    @Test
+    void sync_returnsOnlyOnceTheReviewIsWritten() {
+        buffer = buffer(ReviewWriteBuffer.Durability.SYNC, 4, 100);
+
+        buffer.add(7L, "Committed");
+
+        verify(repository).insertReviews(List.of(new BookReview(7L, "Committed")));
+        assertEquals(0, buffer.stats().queueDepth());
+    }
+
+    @Test
+    void sync_concurrentWritersForOneBookShareBatchesAndKeepEveryReview() throws Exception {
+        buffer = buffer(ReviewWriteBuffer.Durability.SYNC, 4, 50);
+        int writers = 8;
+        int perWriter = 50;
+        ExecutorService pool = Executors.newFixedThreadPool(writers);
+        CountDownLatch start = new CountDownLatch(1);
+        for (int w = 0; w < writers; w++) {
+            int writer = w;
+            pool.execute(() -> {
+                try {
+                    start.await();
+                    for (int i = 0; i < perWriter; i++) {
+                        buffer.add(42L, "w" + writer + "-" + i);
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+        }
+        start.countDown();
+        pool.shutdown();
+        assertTrue(pool.awaitTermination(10, TimeUnit.SECONDS));
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<BookReview>> batches = ArgumentCaptor.forClass(List.class);
+        verify(repository, atLeastOnce()).insertReviews(batches.capture());
+        List<BookReview> all = new ArrayList<>();
+        for (List<BookReview> batch : batches.getAllValues()) {
+            assertTrue(batch.size() <= 50);
+            all.addAll(batch);
+        }
+        assertEquals(writers * perWriter, all.size());
+        assertEquals(writers * perWriter, buffer.stats().written());
+    }
+
+    @Test
+    void sync_callerWritesAtMostOneBatchAndLeavesTheRestToTheFlusher() throws Exception {
+        buffer = buffer(ReviewWriteBuffer.Durability.SYNC, 1, 2);
+        CountDownLatch writing = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        Map<String, Integer> batchesByThread = new ConcurrentHashMap<>();
+        when(repository.insertReviews(anyList())).thenAnswer(invocation -> {
+            batchesByThread.merge(Thread.currentThread().getName(), 1, Integer::sum);
+            writing.countDown();
+            release.await();
+            return 2;
+        });
+        ExecutorService writers = Executors.newFixedThreadPool(5);
+        writers.execute(() -> buffer.add(1L, "first"));
+        assertTrue(writing.await(5, TimeUnit.SECONDS));
+        for (int i = 0; i < 4; i++) {
+            int n = i;
+            writers.execute(() -> buffer.add(1L, "queued-" + n));
+        }
+        while (buffer.stats().queueDepth() < 5) {
+            Thread.onSpinWait();
+        }
+
+        release.countDown();
+        writers.shutdown();
+        assertTrue(writers.awaitTermination(5, TimeUnit.SECONDS));
+
+        assertEquals(5, buffer.stats().written());
+        batchesByThread.forEach((thread, batches) -> {
+            if (!thread.equals("review-write-behind")) {
+                assertEquals(1, batches, thread);
+            }
+        });
+    }
+
+    @Test
+    void failedBatch_isRetriedRowByRowAndOnlyBadRowsAreDropped() {
+        buffer = buffer(ReviewWriteBuffer.Durability.ASYNC, 1, 100);
+        when(repository.insertReviews(anyList())).thenThrow(new DataIntegrityViolationException("fk"));
+        when(repository.insertReview(any(), any())).thenAnswer(invocation -> {
+            if (invocation.getArgument(0).equals(9L)) {
+                throw new DataIntegrityViolationException("fk");
+            }
+            return 1;
+        });
+
+        buffer.add(1L, "Kept");
+        buffer.add(9L, "Deleted book");
+        buffer.flushAll();
+
+        verify(repository).insertReview(1L, "Kept");
+        verify(events).publishEvent(new BookReviewedEvent(1L));
+        verify(events, never()).publishEvent(new BookReviewedEvent(9L));
+        ReviewWriteBuffer.Stats stats = buffer.stats();
+        assertEquals(1, stats.written());
+        assertEquals(1, stats.failed());
+        assertEquals(0, stats.queueDepth());
+    }
+
+    @Test
+    void sync_whenRowFails_throwsIllegalStateException() {
+        buffer = buffer(ReviewWriteBuffer.Durability.SYNC, 1, 100);
+        when(repository.insertReviews(anyList())).thenThrow(new DataIntegrityViolationException("fk"));
+        when(repository.insertReview(any(), any())).thenThrow(new DataIntegrityViolationException("fk"));
+
+        assertThrows(IllegalStateException.class, () -> buffer.add(9L, "Deleted book"));
+    }
+
+    @Test
+    void async_whenMaxPendingReached_blocksProducersUntilRowsAreWritten() throws Exception {
+        buffer = new ReviewWriteBuffer(repository, transactionTemplate, events, true, 1, 2, 2,
+                Duration.ofMinutes(10), ReviewWriteBuffer.Durability.ASYNC, Duration.ofSeconds(5));
+        CountDownLatch writing = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        when(repository.insertReviews(anyList())).thenAnswer(invocation -> {
+            writing.countDown();
+            release.await();
+            return 2;
+        });
+
+        buffer.add(1L, "a");
+        buffer.add(1L, "b");
+        assertTrue(writing.await(5, TimeUnit.SECONDS));
+        ExecutorService producer = Executors.newSingleThreadExecutor();
+        Future<?> third = producer.submit(() -> buffer.add(1L, "c"));
+
+        assertThrows(TimeoutException.class, () -> third.get(200, TimeUnit.MILLISECONDS));
+        assertEquals(2, buffer.stats().queueDepth());
+        release.countDown();
+        third.get(5, TimeUnit.SECONDS);
+        producer.shutdown();
+        // Waits for the background flusher, which may be writing "c" already, then drains.
+        buffer.close();
+
+        assertEquals(3, buffer.stats().written());
+        assertEquals(0, buffer.stats().queueDepth());
+    }
+
+    @Test
+    void async_whenQueueStaysFull_throwsAfterSyncTimeout() throws Exception {
+        buffer = new ReviewWriteBuffer(repository, transactionTemplate, events, true, 1, 1, 1,
+                Duration.ofMinutes(10), ReviewWriteBuffer.Durability.ASYNC, Duration.ofMillis(100));
+        CountDownLatch writing = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        when(repository.insertReviews(anyList())).thenAnswer(invocation -> {
+            writing.countDown();
+            release.await();
+            return 1;
+        });
+
+        buffer.add(1L, "a");
+        assertTrue(writing.await(5, TimeUnit.SECONDS));
+        try {
+            assertThrows(ReviewBufferBusyException.class, () -> buffer.add(1L, "b"));
+        } finally {
+            release.countDown();
+        }
+    }
+
+    @Test
+    void disabledBuffer_rejectsAdds() {
+        buffer = new ReviewWriteBuffer(repository, transactionTemplate, events, false, 1, 1, 1,
+                Duration.ofMinutes(1), ReviewWriteBuffer.Durability.ASYNC, Duration.ofSeconds(1));
+
+        assertFalse(buffer.isEnabled());
+        assertThrows(IllegalStateException.class, () -> buffer.add(1L, "Nope"));
+    }
+
+    private ReviewWriteBuffer buffer(ReviewWriteBuffer.Durability durability, int stripes, int batchSize) {
+        // Long interval: tests flush explicitly or through the synchronous path.
+        return new ReviewWriteBuffer(repository, transactionTemplate, events, true, stripes, batchSize, 10_000,
+                Duration.ofMinutes(10), durability, Duration.ofSeconds(5));
+    }
+}
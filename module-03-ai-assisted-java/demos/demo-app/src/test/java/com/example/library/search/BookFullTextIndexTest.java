@@ -0,0 +1,215 @@
+package com.example.library.search;
+
+import com.example.library.event.BookDeletedEvent;
+import com.example.library.event.BookReviewedEvent;
+import com.example.library.event.BookSavedEvent;
+import com.example.library.model.Book;
+import com.example.library.repository.BookRepository;
+import com.example.library.repository.BookReview;
+import com.example.library.repository.BookSearchFields;
+import com.example.library.repository.BookSummary;
+import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.queryparser.classic.ParseException;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.store.FSDirectory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Limit;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Unit tests for the Lucene full-text index, against a temporary directory.
+ */
+@ExtendWith(MockitoExtension.class)
+class BookFullTextIndexTest {
+
+    @Mock
+    private BookRepository repository;
+
+    @TempDir
+    private Path directory;
+
+    private BookFullTextIndex index;
+
+    @AfterEach
+    void close() throws IOException {
+        if (index != null) {
+            index.close();
+        }
+    }
+
+    @Test
+    void rebuild_ranksTitleMatchesAboveReviewMentions() {
+        catalog(3, List.of(
+                        new BookSearchFields(1L, "Ursula Le Guin", "A Wizard of Earthsea"),
+                        new BookSearchFields(2L, "J.R.R. Tolkien", "The Hobbit"),
+                        new BookSearchFields(3L, "Frank Herbert", "Dune")),
+                List.of(new BookReview(2L, "The dragon Smaug steals the show"),
+                        new BookReview(3L, "Sand, spice and politics")));
+        index = open();
+
+        List<FullTextHit> wizard = index.search("wizard", 10);
+        List<FullTextHit> dragons = index.search("dragons", 10);
+
+        assertEquals(List.of(1L), ids(wizard));
+        // Stemming: "dragons" matches the review's "dragon".
+        assertEquals(List.of(2L), ids(dragons));
+        assertEquals(List.of(2L, 3L), ids(index.search("hobbit OR politics", 10)));
+        assertEquals(List.of(3L), ids(index.search("\"spice and politics\"", 10)));
+    }
+
+    @Test
+    void search_returnsOnlyTheTopKBestFirst() {
+        catalog(4, List.of(
+                        new BookSearchFields(1L, "A", "Tea"),
+                        new BookSearchFields(2L, "B", "Tea tea tea"),
+                        new BookSearchFields(3L, "C", "Tea and cake"),
+                        new BookSearchFields(4L, "D", "Coffee")),
+                List.of());
+        index = open();
+
+        List<FullTextHit> top = index.search("tea", 2);
+
+        assertEquals(2, top.size());
+        assertEquals(2L, top.get(0).bookId());
+        assertTrue(top.get(0).score() >= top.get(1).score());
+    }
+
+    @Test
+    void writeEvents_updateTheIndexIncrementally() {
+        catalog(0, List.of(), List.of());
+        index = open();
+
+        index.onBookSaved(new BookSavedEvent(new Book(5L, "Dune", "Frank Herbert", "isbn-5", 1965)));
+        index.refresh();
+        assertEquals(List.of(5L), ids(index.search("herbert", 10)));
+
+        when(repository.findSummariesByIdInOrderByIdAsc(List.of(5L)))
+                .thenReturn(List.of(new BookSummary(5L, "Dune", "Frank Herbert", "isbn-5", 1965, 1)));
+        when(repository.findReviewsByBookIdIn(List.of(5L))).thenReturn(List.of(new BookReview(5L, "Sandworms!")));
+        index.onBookReviewed(new BookReviewedEvent(5L));
+        index.refresh();
+        assertEquals(List.of(5L), ids(index.search("sandworm", 10)));
+
+        index.onBookDeleted(new BookDeletedEvent(5L));
+        index.refresh();
+        assertTrue(index.search("herbert", 10).isEmpty());
+    }
+
+    @Test
+    void reopen_reusesTheCommittedIndexWhileItMatchesTheCatalog() throws IOException {
+        catalog(1, List.of(new BookSearchFields(1L, "J.R.R. Tolkien", "The Hobbit")), List.of());
+        index = open();
+        index.close();
+
+        index = open();
+
+        assertEquals(List.of(1L), ids(index.search("hobbit", 10)));
+        verify(repository, times(1)).findSearchFieldsAfter(eq(0L), any(Limit.class));
+    }
+
+    @Test
+    void reopen_rebuildsWhenTheCatalogChangedWhileClosed() throws IOException {
+        catalog(1, List.of(new BookSearchFields(1L, "J.R.R. Tolkien", "The Hobbit")), List.of());
+        index = open();
+        index.close();
+        // The database was reset: an empty catalog now.
+        when(repository.count()).thenReturn(0L);
+        when(repository.findMaxId()).thenReturn(0L);
+        when(repository.findSearchFieldsAfter(eq(0L), any(Limit.class))).thenReturn(List.of());
+
+        index = open();
+
+        assertTrue(index.search("hobbit", 10).isEmpty());
+        verify(repository, times(2)).findSearchFieldsAfter(eq(0L), any(Limit.class));
+    }
+
+    @Test
+    void reopen_clearsTheCleanShutdownRecordSoACrashForcesARebuild() throws IOException {
+        catalog(1, List.of(new BookSearchFields(1L, "J.R.R. Tolkien", "The Hobbit")), List.of());
+        index = open();
+        index.close();
+        index = open();
+
+        // Reused, and the record of the clean shutdown is already gone from the latest commit.
+        try (Directory files = FSDirectory.open(directory); DirectoryReader reader = DirectoryReader.open(files)) {
+            assertNull(BookFullTextIndex.CatalogFingerprint.from(reader.getIndexCommit().getUserData().entrySet()));
+        }
+    }
+
+    @Test
+    void reopen_rebuildsWhenAWriteEventCouldNotBeApplied() throws IOException {
+        catalog(1, List.of(new BookSearchFields(1L, "J.R.R. Tolkien", "The Hobbit")), List.of());
+        index = open();
+        when(repository.findSummariesByIdInOrderByIdAsc(List.of(1L))).thenThrow(new IllegalStateException("pool closed"));
+
+        index.onBookReviewed(new BookReviewedEvent(1L));
+        index.close();
+        index = open();
+
+        verify(repository, times(2)).findSearchFieldsAfter(eq(0L), any(Limit.class));
+    }
+
+    @Test
+    void search_withInvalidSyntax_throwsIllegalArgumentException() {
+        catalog(0, List.of(), List.of());
+        index = open();
+
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class,
+                () -> index.search("title:(unclosed", 10));
+        assertInstanceOf(ParseException.class, e.getCause());
+    }
+
+    @Test
+    void disabledIndex_isNeverReadyAndIgnoresEvents() {
+        index = new BookFullTextIndex(repository, false, directory, Duration.ofMinutes(10), Duration.ofMinutes(10));
+
+        index.open();
+        index.onBookSaved(new BookSavedEvent(new Book(1L, "T", "A", "isbn-1", 2000)));
+
+        assertFalse(index.isReady());
+        assertThrows(IndexNotReadyException.class, () -> index.search("anything", 10));
+        verify(repository, never()).findSearchFieldsAfter(anyLong(), any());
+    }
+
+    private void catalog(long maxId, List<BookSearchFields> books, List<BookReview> reviews) {
+        when(repository.count()).thenReturn((long) books.size());
+        when(repository.findMaxId()).thenReturn(maxId);
+        when(repository.countReviews()).thenReturn((long) reviews.size());
+        when(repository.findSearchFieldsAfter(eq(0L), any(Limit.class))).thenReturn(books);
+        if (!books.isEmpty()) {
+            when(repository.findReviewsByBookIdIn(books.stream().map(BookSearchFields::id).toList()))
+                    .thenReturn(reviews);
+        }
+    }
+
+    private BookFullTextIndex open() {
+        // Long intervals: tests refresh explicitly.
+        BookFullTextIndex opened = new BookFullTextIndex(repository, true, directory,
+                Duration.ofMinutes(10), Duration.ofMinutes(10));
+        opened.open();
+        assertTrue(opened.isReady());
+        return opened;
+    }
+
+    private static List<Long> ids(List<FullTextHit> hits) {
+        return hits.stream().map(FullTextHit::bookId).toList();
+    }
+}
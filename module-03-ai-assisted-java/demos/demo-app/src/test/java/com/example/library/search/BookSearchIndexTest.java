@@ -0,0 +1,135 @@
+package com.example.library.search;
+
+import com.example.library.event.BookDeletedEvent;
+import com.example.library.event.BookSavedEvent;
+import com.example.library.model.Book;
+import com.example.library.repository.BookRepository;
+import com.example.library.repository.BookSearchFields;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Limit;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+/**
+ * Unit tests for the trigram BookSearchIndex.
+ */
+@ExtendWith(MockitoExtension.class)
+class BookSearchIndexTest {
+
+    @Mock
+    private BookRepository repository;
+
+    private BookSearchIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new BookSearchIndex(repository, true);
+    }
+
+    @Test
+    void rebuild_loadsCatalogAndMarksIndexReady() {
+        when(repository.findSearchFieldsAfter(eq(0L), any(Limit.class))).thenReturn(Arrays.asList(
+                new BookSearchFields(1L, "J.R.R. Tolkien", "The Hobbit"),
+                new BookSearchFields(2L, "Ursula K. Le Guin", "A Wizard of Earthsea")));
+
+        assertFalse(index.isReady());
+        index.rebuild();
+
+        assertTrue(index.isReady());
+        assertEquals(List.of(1L), index.findIdsByAuthor("tolk"));
+        assertEquals(List.of(2L), index.findIdsByAuthor("LE GUIN"));
+    }
+
+    @Test
+    void canServe_isFalseWhileColdOrForTermsShorterThanATrigram() {
+        assertFalse(index.canServe("Tolkien"));
+
+        warmUpEmpty();
+
+        assertTrue(index.canServe("Tolkien"));
+        assertFalse(index.canServe("To"));
+        assertFalse(index.canServe("Tolkien", null));
+    }
+
+    @Test
+    void findIdsByAuthor_matchesCaseInsensitiveSubstringsOnly() {
+        warmUpEmpty();
+        index.onBookSaved(new BookSavedEvent(new Book(3L, "Sandman", "Neil Gaiman", "isbn-3", 1989)));
+        index.onBookSaved(new BookSavedEvent(new Book(1L, "Coraline", "Neil Gaiman", "isbn-1", 2002)));
+        // Contains every trigram of "gaiman" but not the substring itself.
+        index.onBookSaved(new BookSavedEvent(new Book(2L, "Decoy", "Gaimxaiman", "isbn-2", 2000)));
+
+        assertEquals(List.of(1L, 3L), index.findIdsByAuthor("GAIMAN"));
+        assertEquals(Collections.emptyList(), index.findIdsByAuthor("pratchett"));
+    }
+
+    @Test
+    void findIdsByAuthorAndTitle_requiresBothFieldsToMatch() {
+        warmUpEmpty();
+        index.onBookSaved(new BookSavedEvent(new Book(1L, "The Hobbit", "J.R.R. Tolkien", "isbn-1", 1937)));
+        index.onBookSaved(new BookSavedEvent(new Book(2L, "The Silmarillion", "J.R.R. Tolkien", "isbn-2", 1977)));
+        index.onBookSaved(new BookSavedEvent(new Book(3L, "The Hobbit Companion", "David Day", "isbn-3", 1997)));
+
+        assertEquals(List.of(1L), index.findIdsByAuthorAndTitle("tolkien", "hobbit"));
+    }
+
+    @Test
+    void findIdsAfterCursor_returnsTheNextMatchesInIdOrderUpToTheLimit() {
+        warmUpEmpty();
+        for (long id = 10; id >= 1; id--) {
+            String author = id % 3 == 0 ? "Gaimxaiman" : "Neil Gaiman";
+            index.onBookSaved(new BookSavedEvent(new Book(id, id % 2 == 0 ? "Sandman " + id : "Stardust " + id,
+                    author, "isbn-" + id, 2000)));
+        }
+
+        assertEquals(List.of(1L, 2L, 4L), index.findIdsByAuthor("gaiman", null, 3));
+        assertEquals(List.of(5L, 7L, 8L), index.findIdsByAuthor("gaiman", 4L, 3));
+        assertEquals(List.of(10L), index.findIdsByAuthor("gaiman", 8L, 3));
+        assertEquals(Collections.emptyList(), index.findIdsByAuthor("gaiman", 10L, 3));
+        assertEquals(List.of(4L, 8L), index.findIdsByAuthorAndTitle("gaiman", "sandman", 2L, 2));
+    }
+
+    @Test
+    void onBookSaved_reindexesChangedFieldsAndOnBookDeleted_removesBook() {
+        warmUpEmpty();
+        Book book = new Book(1L, "The Hobbit", "Tolkien", "isbn-1", 1937);
+        index.onBookSaved(new BookSavedEvent(book));
+
+        book.setAuthor("Christopher Tolkien");
+        index.onBookSaved(new BookSavedEvent(book));
+        assertEquals(List.of(1L), index.findIdsByAuthor("christopher"));
+
+        index.onBookDeleted(new BookDeletedEvent(1L));
+        assertEquals(Collections.emptyList(), index.findIdsByAuthor("tolkien"));
+        assertEquals(0, index.size());
+    }
+
+    @Test
+    void disabledIndex_neverBecomesReadyAndIgnoresWrites() {
+        BookSearchIndex disabled = new BookSearchIndex(repository, false);
+
+        disabled.rebuild();
+        disabled.onBookSaved(new BookSavedEvent(new Book(1L, "The Hobbit", "Tolkien", "isbn-1", 1937)));
+
+        assertFalse(disabled.isReady());
+        assertEquals(0, disabled.size());
+        verifyNoInteractions(repository);
+    }
+
+    private void warmUpEmpty() {
+        when(repository.findSearchFieldsAfter(eq(0L), any(Limit.class))).thenReturn(Collections.emptyList());
+        index.rebuild();
+    }
+}
@@ -0,0 +1,112 @@
+package com.example.library.search;
+
+import com.example.library.event.BookSavedEvent;
+import com.example.library.model.Book;
+import com.example.library.repository.BookIsbn;
+import com.example.library.repository.BookRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Limit;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+/**
+ * Unit tests for the ISBN Bloom filter.
+ */
+@ExtendWith(MockitoExtension.class)
+class IsbnBloomFilterTest {
+
+    @Mock
+    private BookRepository repository;
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+    @Test
+    void beforeRebuild_everyIsbnMightBePresent() {
+        IsbnBloomFilter filter = filter(1_000);
+
+        assertFalse(filter.isReady());
+        assertTrue(filter.mightContain("isbn-1"));
+    }
+
+    @Test
+    void rebuild_loadsEveryIsbnWithoutFalseNegatives() {
+        List<BookIsbn> rows = new ArrayList<>();
+        for (long id = 1; id <= 500; id++) {
+            rows.add(new BookIsbn(id, "978-" + id));
+        }
+        when(repository.count()).thenReturn(500L);
+        when(repository.findIsbnsAfter(eq(0L), any(Limit.class))).thenReturn(rows);
+        IsbnBloomFilter filter = filter(1_000);
+
+        filter.rebuild();
+
+        assertTrue(filter.isReady());
+        for (BookIsbn row : rows) {
+            assertTrue(filter.mightContain(row.isbn()), row.isbn());
+        }
+    }
+
+    @Test
+    void unknownIsbnsAreMostlyRuledOutAtTheConfiguredRate() {
+        IsbnBloomFilter filter = builtEmpty(10_000);
+        for (int i = 0; i < 10_000; i++) {
+            filter.onBookSaved(new BookSavedEvent(new Book((long) i, "T", "A", "known-" + i, 2000)));
+        }
+
+        int falsePositives = 0;
+        for (int i = 0; i < 10_000; i++) {
+            if (filter.mightContain("unknown-" + i)) {
+                falsePositives++;
+            }
+        }
+
+        // Configured for 1%; allow generous slack for hash variance.
+        assertTrue(falsePositives < 300, "false positives: " + falsePositives);
+        assertEquals(10_000 - falsePositives,
+                registry.get("library.isbn.filter.checks").tag("result", "negative").counter().count());
+    }
+
+    @Test
+    void onBookSaved_addsIsbnWrittenAfterTheRebuild() {
+        IsbnBloomFilter filter = builtEmpty(1_000);
+        assertFalse(filter.mightContain("978-0-54"));
+
+        filter.onBookSaved(new BookSavedEvent(new Book(1L, "The Hobbit", "Tolkien", "978-0-54", 1937)));
+
+        assertTrue(filter.mightContain("978-0-54"));
+    }
+
+    @Test
+    void disabledFilter_neverRulesAnythingOut() {
+        IsbnBloomFilter filter = new IsbnBloomFilter(repository, registry, false, 1_000, 0.01);
+
+        filter.rebuild();
+        filter.onBookSaved(new BookSavedEvent(new Book(1L, "T", "A", "isbn-1", 2000)));
+
+        assertTrue(filter.mightContain("anything"));
+        verifyNoInteractions(repository);
+    }
+
+    private IsbnBloomFilter builtEmpty(long expected) {
+        when(repository.findIsbnsAfter(eq(0L), any(Limit.class))).thenReturn(Collections.emptyList());
+        IsbnBloomFilter filter = filter(expected);
+        filter.rebuild();
+        return filter;
+    }
+
+    private IsbnBloomFilter filter(long expected) {
+        return new IsbnBloomFilter(repository, registry, true, expected, 0.01);
+    }
+}
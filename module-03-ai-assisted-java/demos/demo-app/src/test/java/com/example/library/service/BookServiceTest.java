@@ -1,20 +1,41 @@
 package com.example.library.service;
 
+import com.example.library.event.BookDeletedEvent;
+import com.example.library.event.BookReviewedEvent;
+import com.example.library.event.BookSavedEvent;
 import com.example.library.model.Book;
+import com.example.library.repository.BookId;
 import com.example.library.repository.BookRepository;
+import com.example.library.repository.BookReview;
+import com.example.library.repository.BookSummary;
+import com.example.library.repository.BookView;
+import com.example.library.repository.ReviewEntry;
+import com.example.library.review.ReviewWriteBuffer;
+import com.example.library.search.BookFullTextIndex;
+import com.example.library.search.BookSearchIndex;
+import com.example.library.search.FullTextHit;
+import com.example.library.search.IsbnBloomFilter;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
+import org.springframework.test.util.ReflectionTestUtils;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -28,6 +49,21 @@ class BookServiceTest {
     @Mock
     private BookRepository repository;
 
+    @Mock
+    private BookSearchIndex searchIndex;
+
+    @Mock
+    private ApplicationEventPublisher events;
+
+    @Mock
+    private ReviewWriteBuffer reviewBuffer;
+
+    @Mock
+    private IsbnBloomFilter isbnFilter;
+
+    @Mock
+    private BookFullTextIndex fullTextIndex;
+
     @InjectMocks
     private BookService service;
 
@@ -109,6 +145,132 @@ class BookServiceTest {
         verify(repository).findByAuthorContainingIgnoreCase("Rowling");
     }
 
+    @Test
+    void findBooksByAuthor_whenSearchIndexCanServe_loadsIndexedIdsInsteadOfScanning() {
+        Book hobbit = new Book(1L, "The Hobbit", "J.R.R. Tolkien", "978-0-54", 1937);
+        Book fellowship = new Book(2L, "The Fellowship", "J.R.R. Tolkien", "978-0-55", 1954);
+        when(searchIndex.canServe("tolk")).thenReturn(true);
+        when(searchIndex.findIdsByAuthor("tolk")).thenReturn(Arrays.asList(1L, 2L));
+        when(repository.findAllById(Arrays.asList(1L, 2L))).thenReturn(new ArrayList<>(Arrays.asList(fellowship, hobbit)));
+
+        List<Book> result = service.findBooksByAuthor("tolk");
+
+        assertEquals(2, result.size());
+        assertEquals(1L, result.get(0).getId());
+        assertEquals(2L, result.get(1).getId());
+        verify(repository, never()).findByAuthorContainingIgnoreCase(any());
+    }
+
+    // --- keyset pages and streams ---
+
+    @Test
+    void findBooksByAuthorPage_fetchesOneExtraIdToDetectNextPage() {
+        Book hobbit = new Book(1L, "The Hobbit", "J.R.R. Tolkien", "978-0-54", 1937);
+        Book fellowship = new Book(2L, "The Fellowship", "J.R.R. Tolkien", "978-0-55", 1954);
+        when(repository.findIdsByAuthorContainingIgnoreCaseAndIdGreaterThanOrderByIdAsc("Tolkien", Long.MIN_VALUE, Limit.of(3)))
+                .thenReturn(List.of(new BookId(1L), new BookId(2L), new BookId(5L)));
+        when(repository.findWithReviewsByIdInOrderByIdAsc(List.of(1L, 2L))).thenReturn(List.of(hobbit, fellowship));
+
+        CursorPage<Book> page = service.findBooksByAuthor("Tolkien", null, 2);
+
+        assertEquals(List.of(hobbit, fellowship), page.items());
+        assertEquals(2L, page.nextCursor());
+    }
+
+    @Test
+    void findBooksByAuthorPage_lastPageHasNoCursor() {
+        Book silmarillion = new Book(5L, "The Silmarillion", "J.R.R. Tolkien", "978-0-56", 1977);
+        when(repository.findIdsByAuthorContainingIgnoreCaseAndIdGreaterThanOrderByIdAsc("Tolkien", 2L, Limit.of(3)))
+                .thenReturn(List.of(new BookId(5L)));
+        when(repository.findWithReviewsByIdInOrderByIdAsc(List.of(5L))).thenReturn(List.of(silmarillion));
+
+        CursorPage<Book> page = service.findBooksByAuthor("Tolkien", 2L, 2);
+
+        assertEquals(List.of(silmarillion), page.items());
+        assertNull(page.nextCursor());
+    }
+
+    @Test
+    void findBooksByAuthorPage_whenSearchIndexCanServe_seeksPastCursorInIndexedIds() {
+        when(searchIndex.canServe("Tolkien")).thenReturn(true);
+        when(searchIndex.findIdsByAuthor("Tolkien", 3L, 2)).thenReturn(List.of(5L, 8L));
+        Book book = new Book(5L, "The Silmarillion", "J.R.R. Tolkien", "978-0-56", 1977);
+        when(repository.findWithReviewsByIdInOrderByIdAsc(List.of(5L))).thenReturn(List.of(book));
+
+        CursorPage<Book> page = service.findBooksByAuthor("Tolkien", 3L, 1);
+
+        assertEquals(List.of(book), page.items());
+        assertEquals(5L, page.nextCursor());
+    }
+
+    @Test
+    void findBooksByAuthorPage_withOversizedPage_throwsIllegalArgumentException() {
+        assertThrows(IllegalArgumentException.class, () ->
+                service.findBooksByAuthor("Tolkien", null, BookService.MAX_PAGE_SIZE + 1));
+    }
+
+    @Test
+    void streamBooksByAuthor_fetchesPagesLazilyUntilLastPage() {
+        when(searchIndex.canServe("Tolkien")).thenReturn(true);
+        List<Long> ids = new ArrayList<>();
+        for (long id = 1; id <= BookService.STREAM_PAGE_SIZE + 1; id++) {
+            ids.add(id);
+        }
+        when(searchIndex.findIdsByAuthor(eq("Tolkien"), any(), anyInt())).thenAnswer(invocation -> {
+            Long after = invocation.getArgument(1);
+            int limit = invocation.getArgument(2);
+            return ids.stream().filter(id -> after == null || id > after).limit(limit).toList();
+        });
+        when(repository.findWithReviewsByIdInOrderByIdAsc(any())).thenAnswer(invocation -> {
+            List<Long> pageIds = invocation.getArgument(0);
+            return pageIds.stream().map(id -> new Book(id, "T" + id, "Tolkien", "isbn-" + id, 1950)).toList();
+        });
+
+        try (Stream<Book> books = service.streamBooksByAuthor("Tolkien")) {
+            assertEquals(1L, books.findFirst().orElseThrow().getId());
+        }
+        verify(repository).findWithReviewsByIdInOrderByIdAsc(any());
+
+        try (Stream<Book> books = service.streamBooksByAuthor("Tolkien")) {
+            assertEquals(BookService.STREAM_PAGE_SIZE + 1, books.count());
+        }
+    }
+
+    // --- read-only projections ---
+
+    @Test
+    void findBookViews_joinsBatchedReviewsWithoutLoadingEntities() {
+        when(repository.findIdsByAuthorContainingIgnoreCaseAndIdGreaterThanOrderByIdAsc("Tolkien", Long.MIN_VALUE, Limit.of(11)))
+                .thenReturn(List.of(new BookId(1L), new BookId(2L)));
+        when(repository.findSummariesByIdInOrderByIdAsc(List.of(1L, 2L))).thenReturn(List.of(
+                new BookSummary(1L, "The Hobbit", "J.R.R. Tolkien", "978-0-54", 1937, 2),
+                new BookSummary(2L, "The Fellowship", "J.R.R. Tolkien", "978-0-55", 1954, 0)));
+        when(repository.findReviewsByBookIdIn(List.of(1L, 2L))).thenReturn(List.of(
+                new BookReview(1L, "Lovely"), new BookReview(1L, "Long")));
+
+        CursorPage<BookView> page = service.findBookViews("Tolkien", "  ", null, 10);
+
+        assertEquals(List.of(
+                new BookView(1L, "The Hobbit", "J.R.R. Tolkien", "978-0-54", 1937, List.of("Lovely", "Long")),
+                new BookView(2L, "The Fellowship", "J.R.R. Tolkien", "978-0-55", 1954, List.of())), page.items());
+        assertNull(page.nextCursor());
+        verify(repository, never()).findWithReviewsByIdInOrderByIdAsc(any());
+    }
+
+    @Test
+    void findBookSummaries_withTitle_usesTitleFilterAndOneQueryPerPage() {
+        BookSummary hobbit = new BookSummary(1L, "The Hobbit", "J.R.R. Tolkien", "978-0-54", 1937, 3);
+        when(repository.findIdsByAuthorContainingIgnoreCaseAndTitleContainingIgnoreCaseAndIdGreaterThanOrderByIdAsc(
+                "Tolkien", "Hobbit", Long.MIN_VALUE, Limit.of(2))).thenReturn(List.of(new BookId(1L), new BookId(4L)));
+        when(repository.findSummariesByIdInOrderByIdAsc(List.of(1L))).thenReturn(List.of(hobbit));
+
+        CursorPage<BookSummary> page = service.findBookSummaries("Tolkien", "Hobbit", null, 1);
+
+        assertEquals(List.of(hobbit), page.items());
+        assertEquals(1L, page.nextCursor());
+        verify(repository, never()).findReviewsByBookIdIn(any());
+    }
+
     // --- findBooksByAuthorAndTitle ---
 
     @Test
@@ -168,6 +330,18 @@ class BookServiceTest {
         verify(repository).findByAuthorContainingIgnoreCaseAndTitleContainingIgnoreCase(author, title);
     }
 
+    @Test
+    void findBooksByAuthorAndTitle_whenSearchIndexCanServe_returnsEmptyListWithoutQuerying() {
+        when(searchIndex.canServe("Tolkien", "Silmarillion")).thenReturn(true);
+        when(searchIndex.findIdsByAuthorAndTitle("Tolkien", "Silmarillion")).thenReturn(Collections.emptyList());
+
+        List<Book> result = service.findBooksByAuthorAndTitle("Tolkien", "Silmarillion");
+
+        assertTrue(result.isEmpty());
+        verify(repository, never()).findAllById(any());
+        verify(repository, never()).findByAuthorContainingIgnoreCaseAndTitleContainingIgnoreCase(any(), any());
+    }
+
     // --- addBook ---
 
     @Test
@@ -182,6 +356,7 @@ class BookServiceTest {
         assertEquals(1L, result.getId());
         assertEquals("New Book", result.getTitle());
         verify(repository).save(book);
+        verify(events).publishEvent(new BookSavedEvent(saved));
     }
 
     // --- updateBook ---
@@ -208,39 +383,37 @@ class BookServiceTest {
         service.deleteBook(id);
 
         verify(repository).deleteById(id);
+        verify(events).publishEvent(new BookDeletedEvent(id));
     }
 
     // --- addReviewToBook ---
 
     @Test
-    void addReviewToBook_withValidBookIdAndReview_addsReviewAndSaves() {
+    void addReviewToBook_withValidBookIdAndReview_insertsReviewWithoutRewritingBook() {
         Long bookId = 1L;
         String review = "Great read!";
-        Book book = new Book(bookId, "The Hobbit", "J.R.R. Tolkien", "978-0-54", 1937);
-        when(repository.findById(bookId)).thenReturn(Optional.of(book));
-        when(repository.save(any(Book.class))).thenReturn(book);
+        when(repository.existsById(bookId)).thenReturn(true);
 
         service.addReviewToBook(bookId, review);
 
-        assertTrue(book.getReviews().contains(review));
-        verify(repository).findById(bookId);
-        verify(repository).save(book);
+        verify(repository).insertReview(bookId, review);
+        verify(repository, never()).findById(any());
+        verify(repository, never()).save(any());
+        verify(events).publishEvent(new BookReviewedEvent(bookId));
     }
 
     @Test
-    void addReviewToBook_appendsToExistingReviews() {
-        Long bookId = 1L;
-        Book book = new Book(bookId, "The Hobbit", "J.R.R. Tolkien", "978-0-54", 1937);
-        book.getReviews().add("First review");
-        when(repository.findById(bookId)).thenReturn(Optional.of(book));
-        when(repository.save(any(Book.class))).thenReturn(book);
+    void addReviewToBook_withWriteBehindEnabled_queuesReview() {
+        when(repository.existsById(1L)).thenReturn(true);
+        when(reviewBuffer.isEnabled()).thenReturn(true);
 
-        service.addReviewToBook(bookId, "Second review");
+        service.addReviewToBook(1L, "Second review");
 
-        assertEquals(2, book.getReviews().size());
-        assertEquals("First review", book.getReviews().get(0));
-        assertEquals("Second review", book.getReviews().get(1));
-        verify(repository).save(book);
+        verify(reviewBuffer).add(1L, "Second review");
+        verify(repository, never()).insertReview(any(), any());
+        verify(repository, never()).save(any());
+        // The buffer announces the review once its batch commits.
+        verify(events, never()).publishEvent(any());
     }
 
     @Test
@@ -270,11 +443,144 @@ class BookServiceTest {
     @Test
     void addReviewToBook_whenBookNotFound_throwsIllegalArgumentException() {
         Long bookId = 999L;
-        when(repository.findById(bookId)).thenReturn(Optional.empty());
+        when(repository.existsById(bookId)).thenReturn(false);
 
         IllegalArgumentException ex = assertThrows(IllegalArgumentException.class, () ->
                 service.addReviewToBook(bookId, "A review"));
         assertTrue(ex.getMessage().contains("Book not found"));
-        verify(repository).findById(bookId);
+        verify(repository, never()).insertReview(any(), any());
+    }
+
+    // --- deleteBooksByAuthor ---
+
+    @Test
+    void deleteBooksByAuthor_deletesMatchingIdsChunkByChunkAndReturnsCount() {
+        ReflectionTestUtils.setField(service, "deleteChunkSize", 2);
+        when(repository.findIdsByAuthorContainingIgnoreCase("Tolkien", Limit.of(2)))
+                .thenReturn(List.of(new BookId(1L), new BookId(2L)))
+                .thenReturn(List.of(new BookId(3L)));
+        when(repository.bulkDeleteByIds(List.of(1L, 2L))).thenReturn(2);
+        when(repository.bulkDeleteByIds(List.of(3L))).thenReturn(1);
+
+        long deleted = service.deleteBooksByAuthor("Tolkien");
+
+        assertEquals(3, deleted);
+        verify(events).publishEvent(new BookDeletedEvent(1L));
+        verify(events).publishEvent(new BookDeletedEvent(3L));
+        verify(repository, never()).findAll();
+    }
+
+    @Test
+    void deleteBooksByAuthor_whenNothingMatches_returnsZero() {
+        when(repository.findIdsByAuthorContainingIgnoreCase(any(), any())).thenReturn(List.of());
+
+        assertEquals(0, service.deleteBooksByAuthor("Nobody"));
+        verify(repository, never()).bulkDeleteByIds(any());
+    }
+
+    @Test
+    void deleteBooksByAuthor_withBlankAuthor_deletesNothing() {
+        assertEquals(0, service.deleteBooksByAuthor(" "));
+        verify(repository, never()).findIdsByAuthorContainingIgnoreCase(any(), any());
+    }
+
+    // --- searchFullText ---
+
+    @Test
+    void searchFullText_returnsSummariesInRelevanceOrderAndDropsDeletedBooks() {
+        BookSummary hobbit = new BookSummary(1L, "The Hobbit", "J.R.R. Tolkien", "978-0-54", 1937, 2);
+        BookSummary dune = new BookSummary(3L, "Dune", "Frank Herbert", "978-0-44", 1965, 0);
+        when(fullTextIndex.search("dragon", 10)).thenReturn(List.of(
+                new FullTextHit(3L, 2.5f), new FullTextHit(2L, 1.5f), new FullTextHit(1L, 0.5f)));
+        when(repository.findSummariesByIdInOrderByIdAsc(List.of(3L, 2L, 1L))).thenReturn(List.of(hobbit, dune));
+
+        List<RankedBook> results = service.searchFullText("dragon", 10);
+
+        assertEquals(List.of(new RankedBook(dune, 2.5f), new RankedBook(hobbit, 0.5f)), results);
+    }
+
+    @Test
+    void searchFullText_withNoHits_skipsRepository() {
+        when(fullTextIndex.search("nothing", 5)).thenReturn(List.of());
+
+        assertTrue(service.searchFullText("nothing", 5).isEmpty());
+        verify(repository, never()).findSummariesByIdInOrderByIdAsc(any());
+    }
+
+    @Test
+    void searchFullText_withBlankQueryOrBadK_throwsIllegalArgumentException() {
+        assertThrows(IllegalArgumentException.class, () -> service.searchFullText(" ", 10));
+        assertThrows(IllegalArgumentException.class, () -> service.searchFullText("dragon", 0));
+        assertThrows(IllegalArgumentException.class,
+                () -> service.searchFullText("dragon", BookFullTextIndex.MAX_RESULTS + 1));
+    }
+
+    // --- findByIsbn / isbnExists ---
+
+    @Test
+    void findByIsbn_whenFilterRulesIsbnOut_skipsRepository() {
+        when(isbnFilter.mightContain("978-0-00")).thenReturn(false);
+
+        assertTrue(service.findByIsbn("978-0-00").isEmpty());
+        assertFalse(service.isbnExists("978-0-00"));
+        verify(repository, never()).findByIsbn(any());
+        verify(repository, never()).existsByIsbn(any());
+    }
+
+    @Test
+    void findByIsbn_whenFilterMightContainIsbn_confirmsWithRepository() {
+        Book book = new Book(1L, "The Hobbit", "J.R.R. Tolkien", "978-0-54", 1937);
+        when(isbnFilter.mightContain(any())).thenReturn(true);
+        when(repository.findByIsbn("978-0-54")).thenReturn(Optional.of(book));
+        when(repository.existsByIsbn("978-0-99")).thenReturn(false);
+
+        assertEquals(Optional.of(book), service.findByIsbn("978-0-54"));
+        assertFalse(service.isbnExists("978-0-99"));
+        verify(isbnFilter).recordPositive(true);
+        verify(isbnFilter).recordPositive(false);
+    }
+
+    @Test
+    void findByIsbn_withBlankIsbn_returnsEmpty() {
+        assertTrue(service.findByIsbn("  ").isEmpty());
+        assertTrue(service.findByIsbn(null).isEmpty());
+    }
+
+    // --- findReviews ---
+
+    @Test
+    void findReviews_returnsKeysetPageWithCursorOfLastReview() {
+        when(repository.findReviewsAfter(1L, 10L, 2)).thenReturn(List.of(
+                new ReviewEntry(11L, "Second review"), new ReviewEntry(15L, "Third review")));
+
+        CursorPage<String> result = service.findReviews(1L, 10L, 1);
+
+        assertEquals(List.of("Second review"), result.items());
+        assertEquals(11L, result.nextCursor());
+        verify(repository, never()).existsById(any());
+    }
+
+    @Test
+    void findReviews_onLastPage_returnsNoCursor() {
+        when(repository.findReviewsAfter(1L, null, 21)).thenReturn(List.of(new ReviewEntry(3L, "Only")));
+
+        CursorPage<String> result = service.findReviews(1L, null, 20);
+
+        assertEquals(List.of("Only"), result.items());
+        assertNull(result.nextCursor());
+    }
+
+    @Test
+    void findReviews_whenEmptyAndBookNotFound_throwsIllegalArgumentException() {
+        when(repository.findReviewsAfter(999L, null, 21)).thenReturn(List.of());
+        when(repository.existsById(999L)).thenReturn(false);
+
+        assertThrows(IllegalArgumentException.class, () -> service.findReviews(999L, null, 20));
+    }
+
+    @Test
+    void findReviews_withOversizedPage_throwsIllegalArgumentException() {
+        assertThrows(IllegalArgumentException.class, () ->
+                service.findReviews(1L, null, BookService.MAX_PAGE_SIZE + 1));
     }
 }
@@ -1,12 +1,16 @@
 package com.example.library.service;
 
 import com.example.library.model.User;
+import com.example.library.model.UserBatch;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.junit.jupiter.MockitoExtension;
 
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.LinkedList;
 import java.util.List;
+import java.util.SplittableRandom;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -33,4 +37,34 @@ class UserServiceTest {
         assertEquals(1, emails.size());
         assertEquals("john@example.com", emails.get(0));
     }
+
+    @Test
+    void bulkVariants_returnSameEmailsInSameOrderAsGetActiveUserEmails() {
+        List<User> users = new ArrayList<>();
+        SplittableRandom random = new SplittableRandom(7);
+        // Several chunks, with a partial last chunk and a partial last bitmap word.
+        for (int i = 0; i < UserService.CHUNK_SIZE * 3 + 100; i++) {
+            int roll = random.nextInt(10);
+            users.add(roll == 0 ? null : new User("u" + i, roll == 1 ? "" : roll == 2 ? null : "u" + i + "@example.com",
+                    random.nextBoolean()));
+        }
+        List<String> expected = service.getActiveUserEmails(users);
+
+        assertEquals(expected, service.getActiveUserEmailsParallel(users));
+        assertEquals(expected, service.getActiveUserEmailsParallel(new LinkedList<>(users)));
+        assertEquals(expected, service.getActiveUserEmails(UserBatch.of(users)));
+        assertEquals(expected, service.getActiveUserEmailsParallel(UserBatch.of(users)));
+    }
+
+    @Test
+    void bulkVariants_onSmallAndEmptyInputs() {
+        User activeUser = new User("John", "john@example.com", true);
+        User inactiveUser = new User("Jane", "jane@example.com", false);
+        List<User> users = Arrays.asList(null, inactiveUser, activeUser, new User("Bob", "", true));
+
+        assertEquals(List.of("john@example.com"), service.getActiveUserEmailsParallel(users));
+        assertEquals(List.of("john@example.com"), service.getActiveUserEmails(UserBatch.of(users)));
+        assertEquals(List.of(), service.getActiveUserEmailsParallel(List.of()));
+        assertEquals(List.of(), service.getActiveUserEmailsParallel(UserBatch.of(List.of())));
+    }
 }
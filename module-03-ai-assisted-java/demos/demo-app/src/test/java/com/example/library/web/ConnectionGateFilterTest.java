@@ -0,0 +1,81 @@
+package com.example.library.web;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.FilterChain;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the ConnectionGateFilter concurrency cap.
+ */
+class ConnectionGateFilterTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    void whenAllPermitsAreHeld_rejectsWith503AndReleasesAfterwards() throws Exception {
+        ConnectionGateFilter filter = new ConnectionGateFilter(true, 1, Duration.ofMillis(10), objectMapper);
+        MockHttpServletResponse rejected = new MockHttpServletResponse();
+
+        FilterChain nested = (request, response) ->
+                filter.doFilter(apiRequest(), rejected, new MockFilterChain());
+        filter.doFilter(apiRequest(), new MockHttpServletResponse(), nested);
+
+        assertEquals(503, rejected.getStatus());
+        assertEquals("1", rejected.getHeader("Retry-After"));
+        assertTrue(rejected.getContentAsString().contains("\"error\""));
+        assertEquals(1, filter.rejectedCount());
+        assertEquals(1, filter.availablePermits());
+    }
+
+    @Test
+    void releasesPermitWhenTheChainThrows() {
+        ConnectionGateFilter filter = new ConnectionGateFilter(true, 1, Duration.ofMillis(10), objectMapper);
+
+        assertThrows(IllegalStateException.class, () -> filter.doFilter(apiRequest(), new MockHttpServletResponse(),
+                (request, response) -> {
+                    throw new IllegalStateException("boom");
+                }));
+
+        assertEquals(1, filter.availablePermits());
+    }
+
+    @Test
+    void asyncRequest_holdsPermitUntilTheResponseCompletes() throws Exception {
+        ConnectionGateFilter filter = new ConnectionGateFilter(true, 2, Duration.ofMillis(10), objectMapper);
+        MockHttpServletRequest request = apiRequest();
+        request.setAsyncSupported(true);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        filter.doFilter(request, response, (req, res) -> req.startAsync());
+        assertEquals(1, filter.availablePermits());
+
+        request.getAsyncContext().complete();
+        assertEquals(2, filter.availablePermits());
+    }
+
+    @Test
+    void disabledOrNonApiRequests_passThroughWithoutPermits() throws Exception {
+        ConnectionGateFilter disabled = new ConnectionGateFilter(false, 1, Duration.ZERO, objectMapper);
+        ConnectionGateFilter enabled = new ConnectionGateFilter(true, 1, Duration.ZERO, objectMapper);
+        MockFilterChain chain = new MockFilterChain();
+
+        disabled.doFilter(apiRequest(), new MockHttpServletResponse(), chain);
+        enabled.doFilter(new MockHttpServletRequest("GET", "/h2-console"), new MockHttpServletResponse(),
+                (request, response) -> assertEquals(1, enabled.availablePermits()));
+
+        assertNotNull(chain.getRequest());
+        assertThrows(IllegalArgumentException.class,
+                () -> new ConnectionGateFilter(true, 0, Duration.ZERO, objectMapper));
+    }
+
+    private static MockHttpServletRequest apiRequest() {
+        return new MockHttpServletRequest("GET", "/api/books");
+    }
+}
@@ -1,5 +1,7 @@
 package com.example.rag;
 
+import com.example.rag.embedding.ContentHash;
+import com.example.rag.event.DocumentsChangedEvent;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.ai.document.Document;
@@ -7,26 +9,32 @@ import org.springframework.ai.vectorstore.VectorStore;
 import org.springframework.boot.ApplicationArguments;
 import org.springframework.boot.ApplicationRunner;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Component;
 
 import java.util.List;
 import java.util.Map;
+import java.util.stream.Collectors;
 
 /**
  * Seeds the vector store with sample policy chunks so the RAG demo can answer
  * questions like "What's our data retention policy?" without requiring manual ingestion.
- * Set app.rag.seed-on-startup=false after first run to avoid duplicate chunks.
+ * Each chunk gets a stable id from its source and text, so re-seeding replaces the stored rows
+ * instead of duplicating them, and the embedding cache answers for chunks embedded before.
+ * Set app.rag.seed-on-startup=false to skip seeding.
  */
 @Component
-@ConditionalOnProperty(name = "app.rag.seed-on-startup", havingValue = "false")
+@ConditionalOnProperty(name = "app.rag.seed-on-startup", havingValue = "true", matchIfMissing = true)
 public class DocumentSeeder implements ApplicationRunner {
 
     private static final Logger log = LoggerFactory.getLogger(DocumentSeeder.class);
 
     private final VectorStore vectorStore;
+    private final ApplicationEventPublisher eventPublisher;
 
-    public DocumentSeeder(VectorStore vectorStore) {
+    public DocumentSeeder(VectorStore vectorStore, ApplicationEventPublisher eventPublisher) {
         this.vectorStore = vectorStore;
+        this.eventPublisher = eventPublisher;
     }
 
     @Override
@@ -48,8 +56,11 @@ public class DocumentSeeder implements ApplicationRunner {
                         "Data retention exception: Legal hold may extend retention beyond 7 years " +
                                 "until the hold is released by Legal.",
                         Map.of("source", "data-retention-policy", "section", "exceptions"))
-        );
+        ).stream().map(ContentHash::withChunkId).toList();
         vectorStore.add(docs);
+        eventPublisher.publishEvent(new DocumentsChangedEvent(docs.stream()
+                .map(doc -> doc.getMetadata().get("source").toString())
+                .collect(Collectors.toSet())));
         log.info("Seeded vector store with {} sample documents for RAG demo", docs.size());
     }
 }
@@ -1,19 +1,30 @@
 package com.example.rag;
 
+import com.example.rag.context.ContextAssembler;
+import com.example.rag.context.ContextAssemblingVectorStore;
 import org.springframework.ai.chat.client.ChatClient;
 import org.springframework.ai.chat.model.ChatModel;
 import org.springframework.ai.chat.client.advisor.vectorstore.QuestionAnswerAdvisor;
 import org.springframework.ai.vectorstore.SearchRequest;
 import org.springframework.ai.vectorstore.VectorStore;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
 @Configuration
 public class RagConfig {
 
+    /**
+     * Retrieved chunks pass through {@link ContextAssembler} (dedupe, merge per source, token
+     * budget) before they reach the prompt, unless {@code app.rag.context.enabled=false}.
+     */
     @Bean
-    public QuestionAnswerAdvisor questionAnswerAdvisor(VectorStore vectorStore) {
-        return QuestionAnswerAdvisor.builder(vectorStore)
+    public QuestionAnswerAdvisor questionAnswerAdvisor(VectorStore vectorStore,
+                                                       ContextAssembler contextAssembler,
+                                                       @Value("${app.rag.context.enabled:true}") boolean assembleContext) {
+        return QuestionAnswerAdvisor.builder(assembleContext
+                        ? new ContextAssemblingVectorStore(vectorStore, contextAssembler)
+                        : vectorStore)
                 .searchRequest(SearchRequest.builder()
                         .similarityThreshold(0.5)
                         .topK(5)
@@ -24,7 +35,8 @@ public class RagConfig {
     @Bean
     public ChatClient ragChatClient(ChatModel chatModel, QuestionAnswerAdvisor questionAnswerAdvisor) {
         return ChatClient.builder(chatModel)
-                .defaultAdvisors(questionAnswerAdvisor)
+                .defaultAdvisors(questionAnswerAdvisor,
+                        new RetrievedSourcesAdvisor(questionAnswerAdvisor.getOrder() + 1))
                 .build();
     }
 }
@@ -1,19 +1,72 @@
 package com.example.rag;
 
+import com.example.rag.answer.RequestCoalescer;
+import com.example.rag.answer.SemanticAnswerCache;
+import com.example.rag.bulkhead.BulkheadFullException;
+import com.example.rag.bulkhead.Bulkheads;
+import com.example.rag.bulkhead.RagExecutor;
+import com.example.rag.context.ContextReport;
+import com.example.rag.filter.MetadataFilter;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.ai.chat.client.ChatClient;
+import org.springframework.ai.chat.client.ChatClientResponse;
+import org.springframework.ai.chat.client.advisor.vectorstore.QuestionAnswerAdvisor;
+import org.springframework.ai.chat.model.ChatResponse;
+import org.springframework.ai.document.Document;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.http.codec.ServerSentEvent;
+import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
 
 /**
  * RAG endpoint: accepts a query, retrieves relevant chunks from the vector store,
  * enriches the prompt with that context, and sends to the configured LLM (OpenAI or Ollama).
+ * Questions close enough in meaning to one answered recently are served from the
+ * {@link SemanticAnswerCache}; the {@code X-Answer-Cache} header says which happened.
+ * <p>
+ * {@code POST /api/rag/stream} answers the same request as server-sent events: one
+ * {@code sources} event with the retrieved chunks as soon as retrieval is done, a
+ * {@code token} event per chunk of generated text, then {@code done} (or {@code error}).
+ * If the client disconnects, the subscription to the model stream is cancelled and
+ * generation stops.
+ * <p>
+ * Both accept an optional {@code filter} on {@code source} and/or {@code section} metadata
+ * (see {@link MetadataFilter}); it is handed to the vector store as a filter expression, so
+ * only matching chunks are searched.
+ * <p>
+ * Retrieved chunks are condensed by the {@link com.example.rag.context.ContextAssembler}
+ * before generation; {@code X-Context-Tokens}, {@code X-Context-Tokens-Saved} and (when the
+ * model reports usage) {@code X-Prompt-Tokens} give the sizes, as does the stream's
+ * {@code done} event.
+ * <p>
+ * Identical questions arriving while one is being answered share that answer (or stream)
+ * through the {@link RequestCoalescer}; such responses carry {@code X-Coalesced: true}.
+ * <p>
+ * {@code POST /api/rag} runs on the {@link RagExecutor}, not the servlet thread. Model calls
+ * go through the {@link Bulkheads}; when one is full the request gets 429 Too Many Requests
+ * with {@code Retry-After}, and so does a stream that cannot get an embedding or chat slot
+ * right away. The stream's answer-cache lookup, which embeds the query, runs on a
+ * bounded-elastic thread rather than the servlet thread.
  */
 @RestController
 @RequestMapping("/api")
@@ -22,26 +75,269 @@ public class RagController {
     private static final Logger log = LoggerFactory.getLogger(RagController.class);
 
     private final ChatClient ragChatClient;
+    private final SemanticAnswerCache answerCache;
+    private final RequestCoalescer coalescer;
+    private final RagExecutor executor;
+    private final Bulkheads bulkheads;
 
-    public RagController(ChatClient ragChatClient) {
+    public RagController(ChatClient ragChatClient, SemanticAnswerCache answerCache, RequestCoalescer coalescer,
+                         RagExecutor executor, Bulkheads bulkheads) {
         this.ragChatClient = ragChatClient;
+        this.answerCache = answerCache;
+        this.coalescer = coalescer;
+        this.executor = executor;
+        this.bulkheads = bulkheads;
     }
 
     @PostMapping("/rag")
-    public ResponseEntity<Map<String, String>> rag(@RequestBody Map<String, String> body) {
-        String query = body != null ? body.get("query") : null;
-        if (query == null || query.isBlank()) {
-            return ResponseEntity.badRequest()
-                    .body(Map.of("error", "Missing or empty 'query' in request body"));
+    public CompletableFuture<ResponseEntity<Map<String, String>>> rag(@RequestBody Map<String, Object> body) {
+        String query = query(body);
+        if (query == null) {
+            return CompletableFuture.completedFuture(ResponseEntity.badRequest()
+                    .body(Map.of("error", "Missing or empty 'query' in request body")));
+        }
+        MetadataFilter filter;
+        try {
+            filter = MetadataFilter.from(body.get("filter"));
+        } catch (IllegalArgumentException e) {
+            return CompletableFuture.completedFuture(ResponseEntity.badRequest().body(Map.of("error", e.getMessage())));
+        }
+        log.info("RAG request: query=\"{}\" filter={}", query, filter);
+
+        try {
+            return executor.submit(() -> answer(query, filter)).exceptionally(RagController::rejected);
+        } catch (TaskRejectedException e) {
+            log.warn("RAG request rejected: all request threads busy");
+            return CompletableFuture.completedFuture(tooManyRequests("Too many concurrent requests; try again shortly"));
+        }
+    }
+
+    private ResponseEntity<Map<String, String>> answer(String query, MetadataFilter filter) {
+        SemanticAnswerCache.Lookup cached = answerCache.lookup(query, filter.expression());
+        if (cached.hit()) {
+            log.info("RAG response served from answer cache (length={})", cached.answer().length());
+            return ResponseEntity.ok().header("X-Answer-Cache", "HIT")
+                    .body(Map.of("query", query, "answer", cached.answer()));
         }
-        log.info("RAG request: query=\"{}\"", query);
 
-        String answer = ragChatClient.prompt()
+        RequestCoalescer.Shared<Generated> generated = coalescer.call(
+                RequestCoalescer.key(query, filter.expression()), () -> generate(query, filter, cached));
+        Generated result = generated.value();
+        ResponseEntity.BodyBuilder ok = ResponseEntity.ok().header("X-Answer-Cache", "MISS");
+        if (generated.joined()) {
+            ok.header("X-Coalesced", "true");
+        }
+        if (result.promptTokens() != null) {
+            ok.header("X-Prompt-Tokens", result.promptTokens().toString());
+        }
+        if (result.context() != null) {
+            ok.header("X-Context-Tokens", String.valueOf(result.context().contextTokens()));
+            ok.header("X-Context-Tokens-Saved", String.valueOf(result.context().savedTokens()));
+        }
+        return ok.body(Map.of("query", query, "answer", result.answer()));
+    }
+
+    @PostMapping(value = "/rag/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public Mono<ResponseEntity<Flux<ServerSentEvent<Object>>>> ragStream(@RequestBody Map<String, Object> body) {
+        String query = query(body);
+        if (query == null) {
+            return Mono.just(ResponseEntity.badRequest()
+                    .body(Flux.just(event("error", Map.of("error", "Missing or empty 'query' in request body")))));
+        }
+        MetadataFilter filter;
+        try {
+            filter = MetadataFilter.from(body.get("filter"));
+        } catch (IllegalArgumentException e) {
+            return Mono.just(ResponseEntity.badRequest().body(Flux.just(event("error", Map.of("error", e.getMessage())))));
+        }
+        log.info("RAG stream request: query=\"{}\" filter={}", query, filter);
+
+        if (bulkheads.embedding().isSaturated()) {
+            log.warn("RAG stream rejected: embedding bulkhead full");
+            return Mono.just(tooManyRequests(Flux.just(event("error",
+                    Map.of("error", "Too many concurrent embedding requests; try again shortly")))));
+        }
+        // The lookup embeds the query and may wait for an embedding slot: keep that off the
+        // servlet thread. The response is only committed once it is done, so a full bulkhead
+        // can still be answered with 429.
+        return Mono.fromCallable(() -> answerCache.lookup(query, filter.expression()))
+                .subscribeOn(Schedulers.boundedElastic())
+                .map(cached -> streamResponse(query, filter, cached))
+                .onErrorResume(BulkheadFullException.class, e -> {
+                    log.warn("RAG stream rejected: {}", e.getMessage());
+                    return Mono.just(tooManyRequests(Flux.just(event("error", Map.of("error", e.getMessage())))));
+                });
+    }
+
+    private ResponseEntity<Flux<ServerSentEvent<Object>>> streamResponse(String query, MetadataFilter filter,
+                                                                         SemanticAnswerCache.Lookup cached) {
+        if (cached.hit()) {
+            return ResponseEntity.ok().header("X-Answer-Cache", "HIT").body(Flux.just(
+                    event("sources", List.of()),
+                    event("token", Map.of("text", cached.answer())),
+                    event("done", Map.of("length", cached.answer().length(), "cached", true))));
+        }
+
+        // Once the response is committed, a full bulkhead can only be reported as an error event.
+        if (bulkheads.chat().isSaturated() && !coalescer.isStreaming(RequestCoalescer.key(query, filter.expression()))) {
+            log.warn("RAG stream rejected: chat bulkhead full");
+            return tooManyRequests(Flux.just(event("error", Map.of("error", "Too many concurrent chat requests; try again shortly"))));
+        }
+        RequestCoalescer.Shared<Flux<ServerSentEvent<Object>>> stream = coalescer.stream(
+                RequestCoalescer.key(query, filter.expression()), () -> generateStream(query, filter, cached));
+        ResponseEntity.BodyBuilder ok = ResponseEntity.ok().header("X-Answer-Cache", "MISS");
+        if (stream.joined()) {
+            log.info("RAG stream joined an identical request in progress");
+            ok.header("X-Coalesced", "true");
+        }
+        return ok.body(stream.value());
+    }
+
+    @GetMapping("/rag/cache/stats")
+    public SemanticAnswerCache.Stats answerCacheStats() {
+        return answerCache.stats();
+    }
+
+    private Generated generate(String query, MetadataFilter filter, SemanticAnswerCache.Lookup cached) {
+        ChatClientResponse response = ragChatClient.prompt()
                 .user(query)
+                .advisors(advisor -> advisor.param(QuestionAnswerAdvisor.FILTER_EXPRESSION, filter.expression()))
                 .call()
-                .content();
+                .chatClientResponse();
+        String answer = text(response);
+        ContextReport context = ContextReport.of(retrievedDocuments(response.context()));
+        Integer promptTokens = promptTokens(response.chatResponse());
+
+        answerCache.put(query, cached, answer);
+        log.info("RAG response generated (length={}, prompt tokens={}, context={})",
+                answer != null ? answer.length() : 0, promptTokens, context);
+        return new Generated(answer != null ? answer : "", promptTokens, context);
+    }
+
+    private Flux<ServerSentEvent<Object>> generateStream(String query, MetadataFilter filter,
+                                                         SemanticAnswerCache.Lookup cached) {
+        long start = System.nanoTime();
+        Sinks.One<List<Document>> sources = Sinks.one();
+        StringBuilder answer = new StringBuilder();
+        AtomicReference<ContextReport> context = new AtomicReference<>();
+        AtomicReference<Integer> promptTokens = new AtomicReference<>();
+        Consumer<List<Document>> sourcesListener = documents -> {
+            context.set(ContextReport.of(documents));
+            sources.tryEmitValue(documents);
+        };
+        Flux<ServerSentEvent<Object>> tokens = ragChatClient.prompt()
+                .user(query)
+                .advisors(advisor -> advisor
+                        .param(QuestionAnswerAdvisor.FILTER_EXPRESSION, filter.expression())
+                        .param(RetrievedSourcesAdvisor.SOURCES_LISTENER, sourcesListener))
+                .stream()
+                .chatClientResponse()
+                .doOnNext(response -> {
+                    Integer usage = promptTokens(response.chatResponse());
+                    if (usage != null) {
+                        promptTokens.set(usage);
+                    }
+                })
+                .mapNotNull(RagController::text)
+                .map(text -> {
+                    answer.append(text);
+                    return event("token", Map.of("text", text));
+                })
+                .concatWith(Mono.fromSupplier(() -> {
+                    answerCache.put(query, cached, answer.toString());
+                    log.info("RAG stream completed (length={}, prompt tokens={}, context={}) in {} ms", answer.length(),
+                            promptTokens.get(), context.get(), (System.nanoTime() - start) / 1_000_000);
+                    Map<String, Object> done = new LinkedHashMap<>();
+                    done.put("length", answer.length());
+                    done.put("cached", false);
+                    if (promptTokens.get() != null) {
+                        done.put("promptTokens", promptTokens.get());
+                    }
+                    if (context.get() != null) {
+                        done.put("context", context.get());
+                    }
+                    return event("done", done);
+                }))
+                .onErrorResume(e -> {
+                    log.warn("RAG stream failed", e);
+                    return Mono.just(event("error", Map.of("error", String.valueOf(e.getMessage()))));
+                })
+                // Nothing retrieved (e.g. retrieval failed): let the merge below complete.
+                .doFinally(signal -> sources.tryEmitEmpty())
+                .doOnCancel(() -> log.info("RAG stream cancelled by client after {} chars; generation stopped",
+                        answer.length()));
+
+        Flux<ServerSentEvent<Object>> sourceEvent = sources.asMono()
+                .map(documents -> {
+                    log.info("RAG stream sources ready ({} chunks) in {} ms", documents.size(),
+                            (System.nanoTime() - start) / 1_000_000);
+                    return event("sources", documents.stream().map(RagController::describe).toList());
+                })
+                .flux();
+        // The sources listener fires before the model is called, so "sources" precedes every token.
+        return Flux.merge(sourceEvent, tokens);
+    }
+
+    private static ResponseEntity<Map<String, String>> rejected(Throwable failure) {
+        Throwable cause = failure instanceof CompletionException && failure.getCause() != null ? failure.getCause() : failure;
+        if (cause instanceof BulkheadFullException e) {
+            log.warn("RAG request rejected: {}", e.getMessage());
+            return tooManyRequests(e.getMessage());
+        }
+        throw failure instanceof CompletionException completion ? completion : new CompletionException(cause);
+    }
+
+    private static ResponseEntity<Map<String, String>> tooManyRequests(String message) {
+        return tooManyRequests(Map.of("error", message));
+    }
+
+    private static <T> ResponseEntity<T> tooManyRequests(T body) {
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS).header("Retry-After", "1").body(body);
+    }
+
+    private static String query(Map<String, Object> body) {
+        Object query = body != null ? body.get("query") : null;
+        return query instanceof String text && !text.isBlank() ? text : null;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<Document> retrievedDocuments(Map<String, Object> context) {
+        return context.get(QuestionAnswerAdvisor.RETRIEVED_DOCUMENTS) instanceof List<?> documents
+                ? (List<Document>) documents
+                : List.of();
+    }
+
+    /** Prompt tokens as counted by the model, when it reports usage. */
+    private static Integer promptTokens(ChatResponse chatResponse) {
+        if (chatResponse == null || chatResponse.getMetadata() == null || chatResponse.getMetadata().getUsage() == null) {
+            return null;
+        }
+        Integer tokens = chatResponse.getMetadata().getUsage().getPromptTokens();
+        return tokens != null && tokens > 0 ? tokens : null;
+    }
+
+    private static String text(ChatClientResponse response) {
+        ChatResponse chatResponse = response.chatResponse();
+        if (chatResponse == null || chatResponse.getResult() == null || chatResponse.getResult().getOutput() == null) {
+            return null;
+        }
+        String text = chatResponse.getResult().getOutput().getText();
+        return text == null || text.isEmpty() ? null : text;
+    }
+
+    private static Map<String, Object> describe(Document document) {
+        Map<String, Object> source = new LinkedHashMap<>();
+        source.put("id", document.getId());
+        source.put("source", document.getMetadata().get("source"));
+        source.put("section", document.getMetadata().get("section"));
+        source.put("score", document.getScore());
+        return source;
+    }
+
+    private static ServerSentEvent<Object> event(String name, Object data) {
+        return ServerSentEvent.builder(data).event(name).build();
+    }
 
-        log.info("RAG response generated (length={})", answer != null ? answer.length() : 0);
-        return ResponseEntity.ok(Map.of("query", query, "answer", answer != null ? answer : ""));
+    private record Generated(String answer, Integer promptTokens, ContextReport context) {
     }
 }
@@ -0,0 +1,50 @@
+package com.example.rag;
+
+import org.springframework.ai.chat.client.ChatClientRequest;
+import org.springframework.ai.chat.client.ChatClientResponse;
+import org.springframework.ai.chat.client.advisor.api.StreamAdvisor;
+import org.springframework.ai.chat.client.advisor.api.StreamAdvisorChain;
+import org.springframework.ai.chat.client.advisor.vectorstore.QuestionAnswerAdvisor;
+import org.springframework.ai.document.Document;
+import reactor.core.publisher.Flux;
+
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Streaming-only advisor, ordered right after {@link QuestionAnswerAdvisor}: hands the chunks
+ * it retrieved to the {@link #SOURCES_LISTENER} in the request context before the chat model
+ * is called, so a streaming response can send its sources ahead of the first token.
+ */
+public class RetrievedSourcesAdvisor implements StreamAdvisor {
+
+    /** Context key for a {@code Consumer<List<Document>>}; absent means nobody is listening. */
+    public static final String SOURCES_LISTENER = "rag_sources_listener";
+
+    private final int order;
+
+    public RetrievedSourcesAdvisor(int order) {
+        this.order = order;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public Flux<ChatClientResponse> adviseStream(ChatClientRequest request, StreamAdvisorChain chain) {
+        if (request.context().get(SOURCES_LISTENER) instanceof Consumer<?> listener) {
+            Object documents = request.context().get(QuestionAnswerAdvisor.RETRIEVED_DOCUMENTS);
+            ((Consumer<List<Document>>) listener).accept(
+                    documents instanceof List<?> list ? (List<Document>) list : List.of());
+        }
+        return chain.nextStream(request);
+    }
+
+    @Override
+    public String getName() {
+        return "RetrievedSourcesAdvisor";
+    }
+
+    @Override
+    public int getOrder() {
+        return order;
+    }
+}
@@ -0,0 +1,118 @@
+package com.example.rag.answer;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+
+import java.util.Locale;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Single-flight execution of the RAG pipeline: while an answer for a question is being
+ * generated, identical questions (same {@link #key(String, String) normalized text and scope})
+ * wait for that answer instead of running retrieval and generation again. Once it finishes,
+ * the {@link SemanticAnswerCache} serves later askers.
+ * <p>
+ * A shared stream is replayed from its first event to every subscriber, and generation is
+ * cancelled only when the last subscriber disconnects.
+ */
+@Component
+public class RequestCoalescer {
+
+    private static final Logger log = LoggerFactory.getLogger(RequestCoalescer.class);
+
+    private final ConcurrentHashMap<String, CompletableFuture<Object>> calls = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, Flux<?>> streams = new ConcurrentHashMap<>();
+
+    private final AtomicLong leaders = new AtomicLong();
+    private final AtomicLong followers = new AtomicLong();
+
+    public RequestCoalescer(ObjectProvider<MeterRegistry> meterRegistry) {
+        meterRegistry.ifAvailable(this::registerMetrics);
+    }
+
+    /**
+     * Lower-cased, with runs of whitespace collapsed, plus the scope (the metadata filter):
+     * "What is  our policy?" and "what is our policy?" coalesce, different filters do not.
+     */
+    public static String key(String query, String scope) {
+        return scope + '\n' + query.strip().replaceAll("\\s+", " ").toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Runs {@code work}, or waits for the run already in progress under {@code key} and
+     * returns its result (or throws its exception).
+     */
+    @SuppressWarnings("unchecked")
+    public <T> Shared<T> call(String key, Supplier<T> work) {
+        CompletableFuture<Object> mine = new CompletableFuture<>();
+        CompletableFuture<Object> running = calls.putIfAbsent(key, mine);
+        if (running != null) {
+            followers.incrementAndGet();
+            log.debug("Joined in-flight request {}", key);
+            try {
+                return new Shared<>((T) running.join(), true);
+            } catch (CompletionException e) {
+                throw e.getCause() instanceof RuntimeException cause ? cause : e;
+            }
+        }
+        leaders.incrementAndGet();
+        try {
+            T result = work.get();
+            mine.complete(result);
+            return new Shared<>(result, false);
+        } catch (RuntimeException e) {
+            mine.completeExceptionally(e);
+            throw e;
+        } finally {
+            calls.remove(key, mine);
+        }
+    }
+
+    /**
+     * The stream in progress under {@code key}, or a new one from {@code work}.
+     */
+    @SuppressWarnings("unchecked")
+    public <T> Shared<Flux<T>> stream(String key, Supplier<Flux<T>> work) {
+        boolean[] created = {false};
+        Flux<?> stream = streams.computeIfAbsent(key, k -> {
+            created[0] = true;
+            Object[] self = new Object[1];
+            Flux<T> shared = work.get()
+                    .doFinally(signal -> streams.remove(k, self[0]))
+                    .replay()
+                    .refCount();
+            self[0] = shared;
+            return shared;
+        });
+        (created[0] ? leaders : followers).incrementAndGet();
+        return new Shared<>((Flux<T>) stream, !created[0]);
+    }
+
+    /**
+     * Whether a stream is in progress under {@code key}, i.e. {@link #stream} would join it.
+     */
+    public boolean isStreaming(String key) {
+        return streams.containsKey(key);
+    }
+
+    private void registerMetrics(MeterRegistry registry) {
+        FunctionCounter.builder("rag.requests.coalesced", leaders, AtomicLong::get).tag("role", "leader").register(registry);
+        FunctionCounter.builder("rag.requests.coalesced", followers, AtomicLong::get).tag("role", "follower").register(registry);
+    }
+
+    /**
+     * @param value  the result
+     * @param joined whether it came from a run another request started
+     */
+    public record Shared<T>(T value, boolean joined) {
+    }
+}
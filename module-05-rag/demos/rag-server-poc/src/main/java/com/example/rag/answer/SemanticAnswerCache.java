@@ -0,0 +1,215 @@
+package com.example.rag.answer;
+
+import com.example.rag.event.DocumentsChangedEvent;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Answers already generated, looked up by the meaning of the question rather than its exact
+ * text: a query whose embedding has cosine similarity of at least
+ * {@code app.rag.answer-cache.similarity-threshold} with a cached query gets that query's
+ * answer without retrieval or generation. Only entries of the same scope (the metadata filter
+ * the question was asked with) are compared, since a filtered answer draws on other chunks.
+ * <p>
+ * Entries expire after {@code ttl}, and the least recently used entry is evicted beyond
+ * {@code max-entries}. Lookup compares against every live entry; at the default 1,000 entries
+ * that is well under a millisecond next to the seconds an LLM call takes.
+ * <p>
+ * Any {@link DocumentsChangedEvent} clears the cache: new or changed chunks can change the
+ * answer to any question, not only to those that retrieved the changed source. Answers
+ * generated while a change happened are not stored.
+ */
+@Component
+public class SemanticAnswerCache {
+
+    private static final Logger log = LoggerFactory.getLogger(SemanticAnswerCache.class);
+
+    private final EmbeddingModel embeddingModel;
+    private final boolean enabled;
+    private final double threshold;
+    private final long ttlNanos;
+    private final int maxEntries;
+
+    /** Access-ordered, so iteration starts at the least recently used entry. */
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long generation;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+    private final AtomicLong invalidations = new AtomicLong();
+
+    public SemanticAnswerCache(EmbeddingModel embeddingModel,
+                               @Value("${app.rag.answer-cache.enabled:true}") boolean enabled,
+                               @Value("${app.rag.answer-cache.similarity-threshold:0.95}") double threshold,
+                               @Value("${app.rag.answer-cache.ttl:10m}") Duration ttl,
+                               @Value("${app.rag.answer-cache.max-entries:1000}") int maxEntries,
+                               ObjectProvider<MeterRegistry> meterRegistry) {
+        this.embeddingModel = embeddingModel;
+        this.enabled = enabled;
+        this.threshold = threshold;
+        this.ttlNanos = ttl.toNanos();
+        this.maxEntries = maxEntries;
+        meterRegistry.ifAvailable(this::registerMetrics);
+    }
+
+    /**
+     * Embeds the query and finds the most similar cached question above the threshold within
+     * {@code scope}. Pass a miss to {@link #put(String, Lookup, String)} once the answer is
+     * generated.
+     */
+    public Lookup lookup(String query, String scope) {
+        if (!enabled) {
+            return new Lookup(null, null, scope, -1);
+        }
+        float[] embedding = normalize(embeddingModel.embed(query));
+        long now = System.nanoTime();
+        synchronized (this) {
+            Entry best = null;
+            double bestSimilarity = threshold;
+            for (Iterator<Entry> it = entries.values().iterator(); it.hasNext(); ) {
+                Entry entry = it.next();
+                if (now - entry.createdNanos > ttlNanos) {
+                    it.remove();
+                    evictions.incrementAndGet();
+                    continue;
+                }
+                if (!entry.scope.equals(scope)) {
+                    continue;
+                }
+                double similarity = dot(embedding, entry.embedding);
+                if (similarity >= bestSimilarity) {
+                    best = entry;
+                    bestSimilarity = similarity;
+                }
+            }
+            if (best != null) {
+                // Marks the entry as recently used.
+                entries.get(key(best.query, scope));
+                hits.incrementAndGet();
+                log.debug("Answer cache hit: \"{}\" matched \"{}\" (similarity {})", query, best.query, bestSimilarity);
+                return new Lookup(best.answer, embedding, scope, generation);
+            }
+            misses.incrementAndGet();
+            return new Lookup(null, embedding, scope, generation);
+        }
+    }
+
+    /**
+     * Caches the answer generated for a missed lookup, unless documents changed since the
+     * lookup or the answer is empty.
+     */
+    public void put(String query, Lookup miss, String answer) {
+        if (!enabled || miss.hit() || answer == null || answer.isBlank()) {
+            return;
+        }
+        synchronized (this) {
+            if (miss.generation != generation) {
+                return;
+            }
+            entries.put(key(query, miss.scope), new Entry(query, miss.scope, miss.embedding, answer, System.nanoTime()));
+            if (entries.size() > maxEntries) {
+                Iterator<Entry> eldest = entries.values().iterator();
+                eldest.next();
+                eldest.remove();
+                evictions.incrementAndGet();
+            }
+        }
+    }
+
+    @EventListener
+    public synchronized void onDocumentsChanged(DocumentsChangedEvent event) {
+        generation++;
+        if (!entries.isEmpty()) {
+            invalidations.addAndGet(entries.size());
+            log.info("Answer cache cleared ({} entries): documents changed in {}", entries.size(), event.sources());
+            entries.clear();
+        }
+    }
+
+    public synchronized Stats stats() {
+        long h = hits.get();
+        long m = misses.get();
+        return new Stats(enabled, entries.size(), h, m, h + m == 0 ? 0 : (double) h / (h + m),
+                evictions.get(), invalidations.get());
+    }
+
+    private void registerMetrics(MeterRegistry registry) {
+        FunctionCounter.builder("rag.answer.cache.requests", hits, AtomicLong::get).tag("result", "hit").register(registry);
+        FunctionCounter.builder("rag.answer.cache.requests", misses, AtomicLong::get).tag("result", "miss").register(registry);
+        FunctionCounter.builder("rag.answer.cache.evictions", evictions, AtomicLong::get).register(registry);
+        FunctionCounter.builder("rag.answer.cache.invalidations", invalidations, AtomicLong::get).register(registry);
+        Gauge.builder("rag.answer.cache.size", this, cache -> cache.stats().size()).register(registry);
+    }
+
+    private static String key(String query, String scope) {
+        return scope + '\n' + query;
+    }
+
+    private static float[] normalize(float[] vector) {
+        double norm = Math.sqrt(dot(vector, vector));
+        float[] unit = new float[vector.length];
+        for (int i = 0; i < vector.length; i++) {
+            unit[i] = norm == 0 ? 0 : (float) (vector[i] / norm);
+        }
+        return unit;
+    }
+
+    private static double dot(float[] a, float[] b) {
+        if (a.length != b.length) {
+            return 0;
+        }
+        double sum = 0;
+        for (int i = 0; i < a.length; i++) {
+            sum += a[i] * b[i];
+        }
+        return sum;
+    }
+
+    private record Entry(String query, String scope, float[] embedding, String answer, long createdNanos) {
+    }
+
+    /**
+     * Result of {@link #lookup(String, String)}: the cached answer on a hit, and in either case
+     * the query embedding, scope and cache generation that {@link #put} needs.
+     */
+    public static final class Lookup {
+
+        private final String answer;
+        private final float[] embedding;
+        private final String scope;
+        private final long generation;
+
+        private Lookup(String answer, float[] embedding, String scope, long generation) {
+            this.answer = answer;
+            this.embedding = embedding;
+            this.scope = scope;
+            this.generation = generation;
+        }
+
+        public boolean hit() {
+            return answer != null;
+        }
+
+        public String answer() {
+            return answer;
+        }
+    }
+
+    public record Stats(boolean enabled, int size, long hits, long misses, double hitRate,
+                        long evictions, long invalidations) {
+    }
+}
@@ -0,0 +1,118 @@
+package com.example.rag.bulkhead;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import reactor.core.publisher.Flux;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.Duration;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Limits concurrent calls to one model: at most {@code maxConcurrent} run, at most
+ * {@code maxQueue} more wait (first come, first served) for up to {@code maxWait}, and anything
+ * beyond that is rejected at once with {@link BulkheadFullException}. A slow model then backs
+ * up into a short, bounded queue and fast rejections instead of into every server thread.
+ */
+public class Bulkhead implements MeterBinder {
+
+    private final String name;
+    private final int maxConcurrent;
+    private final int maxQueue;
+    private final Duration maxWait;
+    private final Semaphore permits;
+    private final AtomicInteger waiting = new AtomicInteger();
+    private final AtomicLong rejected = new AtomicLong();
+
+    public Bulkhead(String name, int maxConcurrent, int maxQueue, Duration maxWait) {
+        if (maxConcurrent < 1 || maxQueue < 0) {
+            throw new IllegalArgumentException("Bulkhead " + name + " needs max-concurrent >= 1 and max-queue >= 0");
+        }
+        this.name = name;
+        this.maxConcurrent = maxConcurrent;
+        this.maxQueue = maxQueue;
+        this.maxWait = maxWait;
+        this.permits = new Semaphore(maxConcurrent, true);
+    }
+
+    public String name() {
+        return name;
+    }
+
+    /**
+     * Runs {@code work} once a slot is free.
+     *
+     * @throws BulkheadFullException if the queue is full or no slot freed up within the wait
+     */
+    public <T> T call(Supplier<T> work) {
+        acquire();
+        try {
+            return work.get();
+        } finally {
+            permits.release();
+        }
+    }
+
+    /**
+     * Subscribes to {@code work} once a slot is free and holds the slot until the stream
+     * completes, fails or is cancelled. Waiting happens on a bounded-elastic thread.
+     */
+    public <T> Flux<T> stream(Supplier<Flux<T>> work) {
+        return Flux.using(() -> {
+                    acquire();
+                    return permits;
+                }, permit -> work.get(), Semaphore::release)
+                .subscribeOn(Schedulers.boundedElastic());
+    }
+
+    /**
+     * Whether a call made now would be rejected without waiting; for rejecting early, before
+     * a response is committed.
+     */
+    public boolean isSaturated() {
+        return permits.availablePermits() == 0 && waiting.get() >= maxQueue;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("rag.bulkhead.active", permits, p -> maxConcurrent - p.availablePermits())
+                .tag("name", name).register(registry);
+        Gauge.builder("rag.bulkhead.waiting", waiting, AtomicInteger::get).tag("name", name).register(registry);
+        FunctionCounter.builder("rag.bulkhead.rejected", rejected, AtomicLong::get).tag("name", name).register(registry);
+    }
+
+    private void acquire() {
+        // A zero timeout, unlike tryAcquire(), respects the queue of fair waiters.
+        if (tryAcquire(0)) {
+            return;
+        }
+        if (waiting.incrementAndGet() > maxQueue) {
+            waiting.decrementAndGet();
+            rejected.incrementAndGet();
+            throw new BulkheadFullException(name, maxConcurrent + " running and " + maxQueue + " waiting");
+        }
+        try {
+            if (!tryAcquire(maxWait.toMillis())) {
+                rejected.incrementAndGet();
+                throw new BulkheadFullException(name, "no slot free within " + maxWait.toMillis() + " ms");
+            }
+        } finally {
+            waiting.decrementAndGet();
+        }
+    }
+
+    private boolean tryAcquire(long millis) {
+        try {
+            return permits.tryAcquire(millis, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new BulkheadFullException(name, "interrupted while waiting");
+        }
+    }
+}
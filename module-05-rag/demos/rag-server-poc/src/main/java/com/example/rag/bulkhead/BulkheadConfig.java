@@ -0,0 +1,58 @@
+package com.example.rag.bulkhead;
+
+import org.springframework.ai.chat.model.ChatModel;
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+
+import java.time.Duration;
+
+/**
+ * Puts the auto-configured chat and embedding models behind their {@link Bulkheads}. The
+ * post-processor runs first of all ({@link Ordered#HIGHEST_PRECEDENCE}), so the bulkhead sits
+ * directly around the model, inside the embedding caches.
+ */
+@Configuration
+public class BulkheadConfig {
+
+    @Bean
+    public Bulkheads bulkheads(@Value("${app.rag.bulkhead.embedding.max-concurrent:8}") int embeddingConcurrent,
+                               @Value("${app.rag.bulkhead.embedding.max-queue:64}") int embeddingQueue,
+                               @Value("${app.rag.bulkhead.embedding.max-wait:10s}") Duration embeddingWait,
+                               @Value("${app.rag.bulkhead.chat.max-concurrent:4}") int chatConcurrent,
+                               @Value("${app.rag.bulkhead.chat.max-queue:16}") int chatQueue,
+                               @Value("${app.rag.bulkhead.chat.max-wait:30s}") Duration chatWait) {
+        return new Bulkheads(
+                new Bulkhead("embedding", embeddingConcurrent, embeddingQueue, embeddingWait),
+                new Bulkhead("chat", chatConcurrent, chatQueue, chatWait));
+    }
+
+    @Bean
+    public static BeanPostProcessor bulkheadModelPostProcessor(ObjectProvider<Bulkheads> bulkheads) {
+        return new BulkheadModelPostProcessor(bulkheads);
+    }
+
+    private record BulkheadModelPostProcessor(ObjectProvider<Bulkheads> bulkheads)
+            implements BeanPostProcessor, Ordered {
+
+        @Override
+        public Object postProcessAfterInitialization(Object bean, String beanName) {
+            if (bean instanceof ChatModel model && !(bean instanceof BulkheadChatModel)) {
+                return new BulkheadChatModel(model, bulkheads.getObject().chat());
+            }
+            if (bean instanceof EmbeddingModel model && !(bean instanceof BulkheadEmbeddingModel)) {
+                return new BulkheadEmbeddingModel(model, bulkheads.getObject().embedding());
+            }
+            return bean;
+        }
+
+        @Override
+        public int getOrder() {
+            return Ordered.HIGHEST_PRECEDENCE;
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package com.example.rag.bulkhead;
+
+import org.springframework.ai.document.Document;
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.ai.embedding.EmbeddingRequest;
+import org.springframework.ai.embedding.EmbeddingResponse;
+
+/**
+ * {@link EmbeddingModel} whose requests each hold a slot of the embedding {@link Bulkhead}.
+ * It wraps the model itself, inside the embedding caches, so cache hits never wait for a slot.
+ */
+public class BulkheadEmbeddingModel implements EmbeddingModel {
+
+    private final EmbeddingModel delegate;
+    private final Bulkhead bulkhead;
+
+    public BulkheadEmbeddingModel(EmbeddingModel delegate, Bulkhead bulkhead) {
+        this.delegate = delegate;
+        this.bulkhead = bulkhead;
+    }
+
+    @Override
+    public EmbeddingResponse call(EmbeddingRequest request) {
+        return bulkhead.call(() -> delegate.call(request));
+    }
+
+    @Override
+    public float[] embed(Document document) {
+        return embed(document.getText());
+    }
+
+    @Override
+    public int dimensions() {
+        return delegate.dimensions();
+    }
+}
@@ -0,0 +1,20 @@
+package com.example.rag.bulkhead;
+
+/**
+ * A {@link Bulkhead} turned a call away; callers answer with 429 Too Many Requests.
+ */
+public class BulkheadFullException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    private final String bulkhead;
+
+    public BulkheadFullException(String bulkhead, String reason) {
+        super("Too many concurrent " + bulkhead + " requests (" + reason + "); try again shortly");
+        this.bulkhead = bulkhead;
+    }
+
+    public String getBulkhead() {
+        return bulkhead;
+    }
+}
@@ -0,0 +1,17 @@
+package com.example.rag.bulkhead;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+
+/**
+ * The two model bulkheads, kept apart so a backlog of slow generations never holds up the
+ * embedding calls that retrieval, the answer cache and ingestion depend on.
+ */
+public record Bulkheads(Bulkhead embedding, Bulkhead chat) implements MeterBinder {
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        embedding.bindTo(registry);
+        chat.bindTo(registry);
+    }
+}
@@ -0,0 +1,67 @@
+package com.example.rag.bulkhead;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
+
+/**
+ * Where {@code POST /api/rag} runs, so the servlet thread is handed back as soon as the
+ * request is accepted and the multi-second model round trip happens elsewhere.
+ * <p>
+ * On Java 21+ each request gets a virtual thread ({@code app.rag.execution.virtual-threads}),
+ * and the {@link Bulkheads} are the only limit. On older runtimes it is a pool of
+ * {@code max-threads} platform threads with no queue: when all are busy, {@link #submit}
+ * fails at once and the caller answers 429.
+ * <p>
+ * Not registered as an {@code Executor} bean, which would replace Spring Boot's
+ * {@code applicationTaskExecutor}.
+ */
+@Component
+public class RagExecutor implements DisposableBean {
+
+    private static final Logger log = LoggerFactory.getLogger(RagExecutor.class);
+
+    private final AsyncTaskExecutor executor;
+
+    public RagExecutor(@Value("${app.rag.execution.virtual-threads:true}") boolean virtualThreads,
+                       @Value("${app.rag.execution.max-threads:64}") int maxThreads) {
+        if (virtualThreads && Runtime.version().feature() >= 21) {
+            SimpleAsyncTaskExecutor virtual = new SimpleAsyncTaskExecutor("rag-");
+            virtual.setVirtualThreads(true);
+            executor = virtual;
+            log.info("RAG requests run on virtual threads");
+        } else {
+            ThreadPoolTaskExecutor pool = new ThreadPoolTaskExecutor();
+            pool.setCorePoolSize(maxThreads);
+            pool.setMaxPoolSize(maxThreads);
+            pool.setQueueCapacity(0);
+            pool.setThreadNamePrefix("rag-");
+            pool.initialize();
+            executor = pool;
+            log.info("RAG requests run on up to {} platform threads{}", maxThreads,
+                    virtualThreads ? " (virtual threads need Java 21+)" : "");
+        }
+    }
+
+    /**
+     * @throws org.springframework.core.task.TaskRejectedException if all platform threads are busy
+     */
+    public <T> CompletableFuture<T> submit(Supplier<T> work) {
+        return CompletableFuture.supplyAsync(work, executor);
+    }
+
+    @Override
+    public void destroy() {
+        if (executor instanceof ThreadPoolTaskExecutor pool) {
+            pool.shutdown();
+        }
+    }
+}
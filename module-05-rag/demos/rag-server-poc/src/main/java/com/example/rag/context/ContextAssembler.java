@@ -0,0 +1,272 @@
+package com.example.rag.context;
+
+import com.knuddels.jtokkit.Encodings;
+import com.knuddels.jtokkit.api.Encoding;
+import com.knuddels.jtokkit.api.EncodingResult;
+import com.knuddels.jtokkit.api.EncodingType;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.ai.document.Document;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Turns retrieved chunks into the context the model gets, spending as few prompt tokens as
+ * possible:
+ * <ol>
+ *   <li>chunks whose word 3-grams overlap a better-ranked chunk's by at least
+ *   {@code app.rag.context.dedupe-threshold} (Jaccard) are dropped;</li>
+ *   <li>chunks from the same {@code source} become one block, in document order when sections
+ *   are numbered ({@code part-N}) and otherwise in rank order; text repeated where one chunk
+ *   ends and the next begins (overlapping splitters) is kept once;</li>
+ *   <li>blocks are taken best first until {@code app.rag.context.token-budget} is reached, the
+ *   last one cut at a sentence boundary if enough of the budget is left for it.</li>
+ * </ol>
+ * Each block carries the request's {@link ContextReport} in its metadata.
+ */
+@Component
+public class ContextAssembler {
+
+    private static final Logger log = LoggerFactory.getLogger(ContextAssembler.class);
+
+    /** Below this many tokens of remaining budget, a block is dropped rather than cut. */
+    private static final int MIN_TRUNCATED_TOKENS = 48;
+    /** Shortest run of words treated as overlap between consecutive chunks. */
+    private static final int MIN_OVERLAP_WORDS = 8;
+    private static final int MAX_OVERLAP_WORDS = 300;
+
+    private static final Pattern WORD = Pattern.compile("[\\p{L}\\p{N}]+");
+    private static final Pattern PART = Pattern.compile("part-(\\d+)");
+
+    private final Encoding encoding = Encodings.newLazyEncodingRegistry().getEncoding(EncodingType.CL100K_BASE);
+    private final int tokenBudget;
+    private final double dedupeThreshold;
+    private DistributionSummary contextTokens;
+    private DistributionSummary savedTokens;
+
+    public ContextAssembler(@Value("${app.rag.context.token-budget:2000}") int tokenBudget,
+                            @Value("${app.rag.context.dedupe-threshold:0.9}") double dedupeThreshold,
+                            ObjectProvider<MeterRegistry> meterRegistry) {
+        this.tokenBudget = tokenBudget;
+        this.dedupeThreshold = dedupeThreshold;
+        meterRegistry.ifAvailable(this::registerMetrics);
+    }
+
+    /**
+     * @param retrieved chunks best first, as the vector store returns them
+     * @return context blocks best first
+     */
+    public List<Document> assemble(List<Document> retrieved) {
+        if (retrieved.isEmpty()) {
+            return retrieved;
+        }
+        int retrievedTokens = 0;
+        List<Chunk> kept = new ArrayList<>();
+        for (Document document : retrieved) {
+            String text = document.getText() != null ? document.getText() : "";
+            retrievedTokens += encoding.countTokens(text);
+            Chunk chunk = new Chunk(document, text, words(text));
+            if (kept.stream().noneMatch(other -> similarity(chunk.shingles(), other.shingles()) >= dedupeThreshold)) {
+                kept.add(chunk);
+            }
+        }
+        int duplicates = retrieved.size() - kept.size();
+
+        Map<Object, List<Chunk>> bySource = new LinkedHashMap<>();
+        for (Chunk chunk : kept) {
+            Object source = chunk.document().getMetadata().get("source");
+            bySource.computeIfAbsent(source != null ? source : chunk.document().getId(), s -> new ArrayList<>()).add(chunk);
+        }
+
+        List<Block> blocks = new ArrayList<>();
+        int used = 0;
+        int dropped = 0;
+        boolean truncated = false;
+        for (List<Chunk> group : bySource.values()) {
+            if (truncated || (tokenBudget > 0 && tokenBudget - used < MIN_TRUNCATED_TOKENS)) {
+                dropped += group.size();
+                continue;
+            }
+            List<Chunk> ordered = inDocumentOrder(group);
+            String text = merge(ordered);
+            int tokens = encoding.countTokens(text);
+            if (tokenBudget > 0 && used + tokens > tokenBudget) {
+                text = cut(text, tokenBudget - used);
+                tokens = encoding.countTokens(text);
+                truncated = true;
+            }
+            used += tokens;
+            blocks.add(new Block(group.get(0).document(), ordered, text));
+        }
+
+        ContextReport report = new ContextReport(retrieved.size(), duplicates, dropped, blocks.size(),
+                retrievedTokens, used, retrievedTokens - used, truncated);
+        if (contextTokens != null) {
+            contextTokens.record(used);
+            savedTokens.record(report.savedTokens());
+        }
+        log.debug("Context assembled: {}", report);
+        return blocks.stream().map(block -> block.toDocument(report)).toList();
+    }
+
+    private void registerMetrics(MeterRegistry registry) {
+        contextTokens = DistributionSummary.builder("rag.context.tokens")
+                .description("Estimated tokens of retrieved context sent to the model per request")
+                .register(registry);
+        savedTokens = DistributionSummary.builder("rag.context.tokens.saved")
+                .description("Estimated tokens removed from retrieved context by dedupe, merge and budget")
+                .register(registry);
+    }
+
+    private static List<Chunk> inDocumentOrder(List<Chunk> group) {
+        if (group.size() < 2 || group.stream().anyMatch(chunk -> part(chunk) < 0)) {
+            return group;
+        }
+        List<Chunk> ordered = new ArrayList<>(group);
+        ordered.sort(Comparator.comparingInt(ContextAssembler::part));
+        return ordered;
+    }
+
+    private static int part(Chunk chunk) {
+        Object section = chunk.document().getMetadata().get("section");
+        Matcher matcher = PART.matcher(section != null ? section.toString() : "");
+        return matcher.matches() ? Integer.parseInt(matcher.group(1)) : -1;
+    }
+
+    /**
+     * Joins a source's chunks, dropping each chunk's leading words that repeat the end of the
+     * previous one.
+     */
+    private static String merge(List<Chunk> chunks) {
+        StringBuilder merged = new StringBuilder(chunks.get(0).text().strip());
+        for (int i = 1; i < chunks.size(); i++) {
+            Chunk previous = chunks.get(i - 1);
+            Chunk next = chunks.get(i);
+            int overlap = overlap(previous.words(), next.words());
+            String text = overlap > 0 ? next.text().substring(endOfWord(next.text(), overlap)) : next.text();
+            if (!text.isBlank()) {
+                // Overlapping chunks continue the same passage; others start a new paragraph.
+                merged.append(overlap > 0 ? " " : "\n\n").append(text.strip());
+            }
+        }
+        return merged.toString();
+    }
+
+    /** Largest n such that the last n words of {@code a} are the first n of {@code b}; 0 if under the minimum. */
+    private static int overlap(List<String> a, List<String> b) {
+        for (int n = Math.min(MAX_OVERLAP_WORDS, Math.min(a.size(), b.size())); n >= MIN_OVERLAP_WORDS; n--) {
+            if (a.subList(a.size() - n, a.size()).equals(b.subList(0, n))) {
+                return n;
+            }
+        }
+        return 0;
+    }
+
+    private static int endOfWord(String text, int words) {
+        Matcher matcher = WORD.matcher(text);
+        int end = 0;
+        for (int i = 0; i < words && matcher.find(); i++) {
+            end = matcher.end();
+        }
+        return end;
+    }
+
+    /**
+     * The longest prefix of {@code text} within {@code budget} tokens, backed off to the end of
+     * a sentence (or at least a word) when one is in the second half.
+     */
+    private String cut(String text, int budget) {
+        EncodingResult encoded = encoding.encode(text, budget);
+        if (!encoded.isTruncated()) {
+            return text;
+        }
+        String prefix = encoding.decode(encoded.getTokens());
+        int sentence = Math.max(prefix.lastIndexOf(". "), Math.max(prefix.lastIndexOf(".\n"), prefix.lastIndexOf('\n')));
+        if (sentence > prefix.length() / 2) {
+            return prefix.substring(0, sentence + 1).strip();
+        }
+        int space = prefix.lastIndexOf(' ');
+        return (space > 0 ? prefix.substring(0, space) : prefix).strip() + " ...";
+    }
+
+    private static List<String> words(String text) {
+        List<String> words = new ArrayList<>();
+        Matcher matcher = WORD.matcher(text.toLowerCase());
+        while (matcher.find()) {
+            words.add(matcher.group());
+        }
+        return words;
+    }
+
+    private static double similarity(Set<String> a, Set<String> b) {
+        if (a.isEmpty() || b.isEmpty()) {
+            return a.isEmpty() && b.isEmpty() ? 1 : 0;
+        }
+        int common = 0;
+        for (String shingle : a) {
+            if (b.contains(shingle)) {
+                common++;
+            }
+        }
+        return (double) common / (a.size() + b.size() - common);
+    }
+
+    private record Chunk(Document document, String text, List<String> words, Set<String> shingles) {
+
+        Chunk(Document document, String text, List<String> words) {
+            this(document, text, words, shingles(words));
+        }
+
+        private static Set<String> shingles(List<String> words) {
+            Set<String> shingles = new HashSet<>();
+            if (words.size() < 3) {
+                shingles.addAll(words);
+            }
+            for (int i = 0; i + 3 <= words.size(); i++) {
+                shingles.add(words.get(i) + ' ' + words.get(i + 1) + ' ' + words.get(i + 2));
+            }
+            return shingles;
+        }
+    }
+
+    /**
+     * @param best   the block's best-ranked chunk
+     * @param chunks its chunks in the order they appear in the block
+     */
+    private record Block(Document best, List<Chunk> chunks, String text) {
+
+        /**
+         * The block as one document: the best chunk's id, score and metadata, plus the
+         * sections and chunk ids it was built from.
+         */
+        Document toDocument(ContextReport report) {
+            Map<String, Object> metadata = new LinkedHashMap<>(best.getMetadata());
+            if (chunks.size() > 1) {
+                metadata.put("section", String.join(", ", chunks.stream()
+                        .map(chunk -> String.valueOf(chunk.document().getMetadata().get("section")))
+                        .toList()));
+            }
+            metadata.put("chunk_ids", chunks.stream().map(chunk -> chunk.document().getId()).toList());
+            metadata.put(ContextReport.METADATA_KEY, report);
+            return Document.builder()
+                    .id(best.getId())
+                    .text(text)
+                    .metadata(metadata)
+                    .score(best.getScore())
+                    .build();
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package com.example.rag.context;
+
+import org.springframework.ai.chat.client.advisor.vectorstore.QuestionAnswerAdvisor;
+import org.springframework.ai.document.Document;
+import org.springframework.ai.vectorstore.SearchRequest;
+import org.springframework.ai.vectorstore.VectorStore;
+import org.springframework.ai.vectorstore.filter.Filter;
+
+import java.util.List;
+
+/**
+ * The vector store as {@link QuestionAnswerAdvisor} sees it: searches return the output of
+ * {@link ContextAssembler} instead of the raw chunks. The advisor puts whatever the search
+ * returns into the prompt verbatim and offers no other hook between retrieval and
+ * generation. Writes go straight to the underlying store.
+ */
+public class ContextAssemblingVectorStore implements VectorStore {
+
+    private final VectorStore delegate;
+    private final ContextAssembler assembler;
+
+    public ContextAssemblingVectorStore(VectorStore delegate, ContextAssembler assembler) {
+        this.delegate = delegate;
+        this.assembler = assembler;
+    }
+
+    @Override
+    public String getName() {
+        return delegate.getName();
+    }
+
+    @Override
+    public void add(List<Document> documents) {
+        delegate.add(documents);
+    }
+
+    @Override
+    public void delete(List<String> idList) {
+        delegate.delete(idList);
+    }
+
+    @Override
+    public void delete(Filter.Expression filterExpression) {
+        delegate.delete(filterExpression);
+    }
+
+    @Override
+    public List<Document> similaritySearch(SearchRequest request) {
+        return assembler.assemble(delegate.similaritySearch(request));
+    }
+}
@@ -0,0 +1,36 @@
+package com.example.rag.context;
+
+import org.springframework.ai.document.Document;
+
+import java.util.List;
+
+/**
+ * What {@link ContextAssembler} did to one request's retrieved chunks. Token counts are
+ * estimates with the {@code cl100k_base} encoding, which is close enough for budgeting across
+ * models.
+ *
+ * @param retrievedChunks chunks returned by the vector store
+ * @param duplicateChunks chunks dropped as near-duplicates of a better-ranked one
+ * @param droppedChunks   chunks left out because the budget was spent
+ * @param blocks          context blocks sent to the model (one per source)
+ * @param retrievedTokens tokens in the chunks as retrieved
+ * @param contextTokens   tokens in the assembled context
+ * @param savedTokens     {@code retrievedTokens - contextTokens}
+ * @param truncated       whether the last block was cut to fit the budget
+ */
+public record ContextReport(int retrievedChunks, int duplicateChunks, int droppedChunks, int blocks,
+                            int retrievedTokens, int contextTokens, int savedTokens, boolean truncated) {
+
+    /** Metadata key under which every assembled block carries the report of its request. */
+    public static final String METADATA_KEY = "context_report";
+
+    /**
+     * The report attached to assembled documents, or {@code null} if they were not assembled
+     * (or nothing was retrieved).
+     */
+    public static ContextReport of(List<Document> documents) {
+        return documents.isEmpty() || !(documents.get(0).getMetadata().get(METADATA_KEY) instanceof ContextReport report)
+                ? null
+                : report;
+    }
+}
@@ -0,0 +1,105 @@
+package com.example.rag.embedding;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.ai.document.Document;
+import org.springframework.ai.embedding.Embedding;
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.ai.embedding.EmbeddingRequest;
+import org.springframework.ai.embedding.EmbeddingResponse;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * {@link EmbeddingModel} that looks every text up in an {@link EmbeddingCache} first and only
+ * sends the misses to the wrapped model, in one request. Vector stores embed through
+ * {@link #call(EmbeddingRequest)}, so re-ingesting unchanged chunks costs no model calls.
+ */
+public class CachingEmbeddingModel implements EmbeddingModel {
+
+    private static final Logger log = LoggerFactory.getLogger(CachingEmbeddingModel.class);
+
+    private final EmbeddingModel delegate;
+    private final EmbeddingCache cache;
+    private final String modelId;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong modelCalls = new AtomicLong();
+
+    public CachingEmbeddingModel(EmbeddingModel delegate, EmbeddingCache cache, String modelId) {
+        this.delegate = delegate;
+        this.cache = cache;
+        this.modelId = modelId;
+    }
+
+    @Override
+    public EmbeddingResponse call(EmbeddingRequest request) {
+        List<String> texts = request.getInstructions();
+        List<String> keys = new ArrayList<>(texts.size());
+        for (String text : texts) {
+            keys.add(ContentHash.of(modelId, text));
+        }
+        Map<String, float[]> vectors = new HashMap<>(cache.getAll(keys));
+
+        // Distinct missing texts, each sent once even if it appears twice in the request.
+        Map<String, String> missing = new LinkedHashMap<>();
+        for (int i = 0; i < texts.size(); i++) {
+            if (!vectors.containsKey(keys.get(i))) {
+                missing.putIfAbsent(keys.get(i), texts.get(i));
+            }
+        }
+        hits.addAndGet(texts.size() - missing.size());
+        misses.addAndGet(missing.size());
+
+        if (!missing.isEmpty()) {
+            modelCalls.incrementAndGet();
+            EmbeddingResponse response = delegate.call(
+                    new EmbeddingRequest(new ArrayList<>(missing.values()), request.getOptions()));
+            List<String> missingKeys = new ArrayList<>(missing.keySet());
+            Map<String, float[]> computed = new HashMap<>();
+            List<Embedding> embeddings = response.getResults();
+            for (int i = 0; i < embeddings.size(); i++) {
+                computed.put(missingKeys.get(i), embeddings.get(i).getOutput());
+            }
+            cache.putAll(computed);
+            vectors.putAll(computed);
+        }
+        log.debug("Embedding request: {} texts, {} from cache", texts.size(), texts.size() - missing.size());
+
+        List<Embedding> results = new ArrayList<>(texts.size());
+        for (int i = 0; i < keys.size(); i++) {
+            results.add(new Embedding(vectors.get(keys.get(i)), i));
+        }
+        return new EmbeddingResponse(results);
+    }
+
+    @Override
+    public float[] embed(Document document) {
+        return embed(document.getText());
+    }
+
+    @Override
+    public int dimensions() {
+        return delegate.dimensions();
+    }
+
+    public EmbeddingModel getDelegate() {
+        return delegate;
+    }
+
+    /**
+     * Texts served from the cache, texts sent to the model, and model requests made, since startup.
+     */
+    public Stats stats() {
+        return new Stats(hits.get(), misses.get(), modelCalls.get());
+    }
+
+    public record Stats(long hits, long misses, long modelCalls) {
+    }
+}
@@ -0,0 +1,68 @@
+package com.example.rag.embedding;
+
+import org.springframework.ai.document.Document;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * SHA-256 content keys for embedding-cache entries and stable chunk ids.
+ */
+public final class ContentHash {
+
+    private ContentHash() {
+    }
+
+    /**
+     * Cache key for one text embedded by one model: the same text under another model is a
+     * different key.
+     */
+    public static String of(String modelId, String text) {
+        return HexFormat.of().formatHex(sha256(modelId, text));
+    }
+
+    /**
+     * Stable id for a chunk, derived from its {@code source} metadata and its text. Adding the
+     * same chunk again replaces the stored row instead of adding a duplicate.
+     */
+    public static String chunkId(String source, String text) {
+        byte[] hash = sha256(source != null ? source : "", text);
+        long msb = 0;
+        long lsb = 0;
+        for (int i = 0; i < 8; i++) {
+            msb = (msb << 8) | (hash[i] & 0xFF);
+            lsb = (lsb << 8) | (hash[i + 8] & 0xFF);
+        }
+        // Version 8 (custom) and the IETF variant, so the id is a well-formed UUID.
+        msb = (msb & ~0xF000L) | 0x8000L;
+        lsb = (lsb & 0x3FFF_FFFF_FFFF_FFFFL) | 0x8000_0000_0000_0000L;
+        return new UUID(msb, lsb).toString();
+    }
+
+    /**
+     * Copy of the document under its {@link #chunkId(String, String) chunk id}.
+     */
+    public static Document withChunkId(Document document) {
+        Map<String, Object> metadata = document.getMetadata();
+        Object source = metadata.get("source");
+        return new Document(chunkId(source != null ? source.toString() : null, document.getText()),
+                document.getText(), metadata);
+    }
+
+    private static byte[] sha256(String prefix, String text) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update(prefix.getBytes(StandardCharsets.UTF_8));
+            // Separator, so ("ab", "c") and ("a", "bc") hash differently.
+            digest.update((byte) 0);
+            digest.update(text.getBytes(StandardCharsets.UTF_8));
+            return digest.digest();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+}
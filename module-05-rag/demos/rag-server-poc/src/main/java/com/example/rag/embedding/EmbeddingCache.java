@@ -0,0 +1,87 @@
+package com.example.rag.embedding;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Array;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Embeddings already computed, keyed by {@link ContentHash#of(String, String)} (model plus
+ * text) and stored in Postgres next to the vector store, so they survive restarts. A text
+ * that was embedded once is never sent to the embedding model again.
+ */
+public class EmbeddingCache {
+
+    private static final Logger log = LoggerFactory.getLogger(EmbeddingCache.class);
+
+    static final String TABLE = "rag_embedding_cache";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public EmbeddingCache(JdbcTemplate jdbcTemplate, boolean initializeSchema) {
+        this.jdbcTemplate = jdbcTemplate;
+        if (initializeSchema) {
+            jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS " + TABLE + " ("
+                    + "content_hash char(64) PRIMARY KEY, "
+                    + "embedding real[] NOT NULL, "
+                    + "created_at timestamptz NOT NULL DEFAULT now())");
+            log.info("Embedding cache table {} ready", TABLE);
+        }
+    }
+
+    /**
+     * Cached embeddings for the given keys; keys with no entry are absent from the result.
+     */
+    public Map<String, float[]> getAll(Collection<String> keys) {
+        Map<String, float[]> found = new HashMap<>();
+        if (keys.isEmpty()) {
+            return found;
+        }
+        jdbcTemplate.query(connection -> {
+            var statement = connection.prepareStatement(
+                    "SELECT content_hash, embedding FROM " + TABLE + " WHERE content_hash = ANY (?)");
+            statement.setArray(1, connection.createArrayOf("text", keys.toArray()));
+            return statement;
+        }, rs -> {
+            found.put(rs.getString(1), toFloats(rs.getArray(2)));
+        });
+        return found;
+    }
+
+    /**
+     * Stores embeddings; keys already present keep their existing value.
+     */
+    public void putAll(Map<String, float[]> embeddings) {
+        if (embeddings.isEmpty()) {
+            return;
+        }
+        List<Map.Entry<String, float[]>> entries = new ArrayList<>(embeddings.entrySet());
+        jdbcTemplate.batchUpdate(
+                "INSERT INTO " + TABLE + " (content_hash, embedding) VALUES (?, ?) ON CONFLICT (content_hash) DO NOTHING",
+                entries, entries.size(), (statement, entry) -> {
+                    float[] vector = entry.getValue();
+                    Float[] boxed = new Float[vector.length];
+                    for (int i = 0; i < vector.length; i++) {
+                        boxed[i] = vector[i];
+                    }
+                    statement.setString(1, entry.getKey());
+                    statement.setArray(2, statement.getConnection().createArrayOf("float4", boxed));
+                });
+    }
+
+    private static float[] toFloats(Array array) throws SQLException {
+        Object[] values = (Object[]) array.getArray();
+        float[] vector = new float[values.length];
+        for (int i = 0; i < values.length; i++) {
+            vector[i] = ((Number) values[i]).floatValue();
+        }
+        return vector;
+    }
+}
@@ -0,0 +1,56 @@
+package com.example.rag.embedding;
+
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+/**
+ * Wraps the auto-configured {@link EmbeddingModel} (Ollama or OpenAI) in a
+ * {@link CachingEmbeddingModel}, so the vector store and the query path both go through the
+ * cache. Disable with {@code app.rag.embedding-cache.enabled=false}.
+ */
+@Configuration
+@ConditionalOnProperty(name = "app.rag.embedding-cache.enabled", havingValue = "true", matchIfMissing = true)
+public class EmbeddingCacheConfig {
+
+    @Bean
+    public EmbeddingCache embeddingCache(JdbcTemplate jdbcTemplate,
+                                         @Value("${app.rag.embedding-cache.initialize-schema:true}") boolean initializeSchema) {
+        return new EmbeddingCache(jdbcTemplate, initializeSchema);
+    }
+
+    /**
+     * Static, and resolving the cache lazily, so registering the post-processor does not
+     * create the JDBC beans early. {@code Ordered}, so it wraps the model before any
+     * unordered post-processor (such as the {@link QueryEmbeddingCache} one) does.
+     */
+    @Bean
+    public static BeanPostProcessor cachingEmbeddingModelPostProcessor(
+            ObjectProvider<EmbeddingCache> embeddingCache,
+            @Value("${app.rag.embedding-cache.model-id}") String modelId) {
+        return new CachingEmbeddingModelPostProcessor(embeddingCache, modelId);
+    }
+
+    private record CachingEmbeddingModelPostProcessor(ObjectProvider<EmbeddingCache> embeddingCache, String modelId)
+            implements BeanPostProcessor, Ordered {
+
+        @Override
+        public Object postProcessAfterInitialization(Object bean, String beanName) {
+            if (bean instanceof EmbeddingModel model && !(bean instanceof CachingEmbeddingModel)) {
+                return new CachingEmbeddingModel(model, embeddingCache.getObject(), modelId);
+            }
+            return bean;
+        }
+
+        @Override
+        public int getOrder() {
+            return Ordered.LOWEST_PRECEDENCE;
+        }
+    }
+}
@@ -0,0 +1,124 @@
+package com.example.rag.embedding;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.ai.document.Document;
+import org.springframework.ai.embedding.Embedding;
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.ai.embedding.EmbeddingRequest;
+import org.springframework.ai.embedding.EmbeddingResponse;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * In-memory LRU of query text to embedding in front of the embedding model. A question is
+ * embedded by the answer cache and again by the vector store search; with this, the model (or
+ * the {@link EmbeddingCache} table) sees it once, and a question asked again skips the round
+ * trip altogether. Concurrent requests for the same text share one call.
+ * <p>
+ * Only single-text requests are cached, which is what queries are; ingestion batches pass
+ * straight through so they do not push queries out. Keys are the exact text: request options
+ * are not part of the key, as this application embeds everything with the model's defaults.
+ */
+public class QueryEmbeddingCache implements EmbeddingModel {
+
+    private final EmbeddingModel delegate;
+    private final int maxEntries;
+    private final Map<String, float[]> entries;
+    private final ConcurrentHashMap<String, CompletableFuture<float[]>> inFlight = new ConcurrentHashMap<>();
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong shared = new AtomicLong();
+
+    public QueryEmbeddingCache(EmbeddingModel delegate, int maxEntries) {
+        this.delegate = delegate;
+        this.maxEntries = maxEntries;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, float[]> eldest) {
+                return size() > QueryEmbeddingCache.this.maxEntries;
+            }
+        };
+    }
+
+    @Override
+    public EmbeddingResponse call(EmbeddingRequest request) {
+        if (request.getInstructions().size() != 1) {
+            return delegate.call(request);
+        }
+        String text = request.getInstructions().get(0);
+        float[] vector;
+        synchronized (entries) {
+            vector = entries.get(text);
+        }
+        if (vector != null) {
+            hits.incrementAndGet();
+        } else {
+            vector = embedOnce(text, request);
+        }
+        return new EmbeddingResponse(List.of(new Embedding(vector.clone(), 0)));
+    }
+
+    @Override
+    public float[] embed(Document document) {
+        return embed(document.getText());
+    }
+
+    @Override
+    public int dimensions() {
+        return delegate.dimensions();
+    }
+
+    public EmbeddingModel getDelegate() {
+        return delegate;
+    }
+
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("rag.query.embedding.cache.requests", hits, AtomicLong::get).tag("result", "hit").register(registry);
+        FunctionCounter.builder("rag.query.embedding.cache.requests", misses, AtomicLong::get).tag("result", "miss").register(registry);
+        FunctionCounter.builder("rag.query.embedding.cache.requests", shared, AtomicLong::get).tag("result", "shared").register(registry);
+        Gauge.builder("rag.query.embedding.cache.size", entries, map -> {
+            synchronized (map) {
+                return map.size();
+            }
+        }).register(registry);
+    }
+
+    /**
+     * Embeds {@code text}, or waits for the call already embedding it.
+     */
+    private float[] embedOnce(String text, EmbeddingRequest request) {
+        CompletableFuture<float[]> mine = new CompletableFuture<>();
+        CompletableFuture<float[]> running = inFlight.putIfAbsent(text, mine);
+        if (running != null) {
+            shared.incrementAndGet();
+            try {
+                return running.join();
+            } catch (CompletionException e) {
+                throw e.getCause() instanceof RuntimeException cause ? cause : e;
+            }
+        }
+        misses.incrementAndGet();
+        try {
+            float[] vector = delegate.call(request).getResults().get(0).getOutput();
+            synchronized (entries) {
+                entries.put(text, vector);
+            }
+            mine.complete(vector);
+            return vector;
+        } catch (RuntimeException e) {
+            mine.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(text, mine);
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package com.example.rag.embedding;
+
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Wraps the {@link EmbeddingModel} in a {@link QueryEmbeddingCache}. The post-processor is
+ * not {@code Ordered}, so it runs after the (ordered) one in {@link EmbeddingCacheConfig}
+ * and the in-memory cache ends up outermost, in front of the Postgres one. Disable with
+ * {@code app.rag.query-embedding-cache.enabled=false}.
+ */
+@Configuration
+@ConditionalOnProperty(name = "app.rag.query-embedding-cache.enabled", havingValue = "true", matchIfMissing = true)
+public class QueryEmbeddingCacheConfig {
+
+    @Bean
+    public static BeanPostProcessor queryEmbeddingCachePostProcessor(
+            @Value("${app.rag.query-embedding-cache.max-entries:10000}") int maxEntries) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (bean instanceof EmbeddingModel model && !(bean instanceof QueryEmbeddingCache)) {
+                    return new QueryEmbeddingCache(model, maxEntries);
+                }
+                return bean;
+            }
+        };
+    }
+
+    @Bean
+    public MeterBinder queryEmbeddingCacheMetrics(EmbeddingModel embeddingModel) {
+        return registry -> {
+            if (embeddingModel instanceof QueryEmbeddingCache cache) {
+                cache.bindTo(registry);
+            }
+        };
+    }
+}
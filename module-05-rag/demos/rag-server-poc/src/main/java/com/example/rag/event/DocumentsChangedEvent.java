@@ -0,0 +1,12 @@
+package com.example.rag.event;
+
+import java.util.Set;
+
+/**
+ * Published after chunks were written to (or removed from) the vector store, so anything
+ * derived from earlier search results can be dropped.
+ *
+ * @param sources {@code source} metadata of the chunks that changed
+ */
+public record DocumentsChangedEvent(Set<String> sources) {
+}
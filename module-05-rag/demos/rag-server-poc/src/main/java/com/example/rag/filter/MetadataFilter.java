@@ -0,0 +1,114 @@
+package com.example.rag.filter;
+
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.StringJoiner;
+
+/**
+ * Restricts retrieval to chunks whose {@code source} and/or {@code section} metadata match, as
+ * given in a request body:
+ * <pre>
+ * "filter": { "source": "hr-policy" }
+ * "filter": { "source": ["hr-policy", "security-policy"], "section": "access-control" }
+ * </pre>
+ * Values of one key are alternatives, keys are combined with AND. {@link #expression()} renders
+ * the filter in Spring AI's filter expression language for
+ * {@code QuestionAnswerAdvisor.FILTER_EXPRESSION}, so the vector store applies it inside the
+ * similarity search instead of the application discarding results afterwards.
+ */
+public final class MetadataFilter {
+
+    /** Metadata keys a filter may use; both are indexed by the vector stores. */
+    public static final Set<String> KEYS = Set.of("source", "section");
+
+    public static final MetadataFilter NONE = new MetadataFilter(Map.of());
+
+    private final Map<String, List<String>> values;
+    private final String expression;
+
+    private MetadataFilter(Map<String, List<String>> values) {
+        this.values = values;
+        StringJoiner and = new StringJoiner(" && ");
+        values.forEach((key, alternatives) -> and.add(alternatives.size() == 1
+                ? key + " == " + literal(alternatives.get(0))
+                : key + " in [" + String.join(", ", alternatives.stream().map(MetadataFilter::literal).toList()) + "]"));
+        this.expression = and.toString();
+    }
+
+    /**
+     * Parses the {@code filter} member of a request body; {@code null} means no filter.
+     *
+     * @throws IllegalArgumentException if it is not an object of {@link #KEYS} to a string or
+     *                                  a non-empty list of strings
+     */
+    public static MetadataFilter from(Object filter) {
+        if (filter == null) {
+            return NONE;
+        }
+        if (!(filter instanceof Map<?, ?> map)) {
+            throw new IllegalArgumentException("'filter' must be an object, e.g. {\"source\": \"hr-policy\"}");
+        }
+        Map<String, List<String>> values = new LinkedHashMap<>();
+        for (Map.Entry<?, ?> entry : map.entrySet()) {
+            String key = String.valueOf(entry.getKey());
+            if (!KEYS.contains(key)) {
+                throw new IllegalArgumentException("Unsupported filter key '" + key + "'; supported: " + KEYS);
+            }
+            List<String> alternatives = strings(key, entry.getValue());
+            if (alternatives.isEmpty()) {
+                throw new IllegalArgumentException("Filter '" + key + "' must not be empty");
+            }
+            values.put(key, alternatives);
+        }
+        return values.isEmpty() ? NONE : new MetadataFilter(values);
+    }
+
+    public boolean isEmpty() {
+        return values.isEmpty();
+    }
+
+    /**
+     * The filter as a Spring AI filter expression, e.g. {@code source in ['a', 'b'] && section == 'c'};
+     * empty when there is no filter.
+     */
+    public String expression() {
+        return expression;
+    }
+
+    @Override
+    public String toString() {
+        return expression.isEmpty() ? "none" : expression;
+    }
+
+    private static List<String> strings(String key, Object value) {
+        if (value instanceof String s) {
+            return List.of(s);
+        }
+        if (value instanceof Collection<?> collection) {
+            return collection.stream()
+                    .map(item -> {
+                        if (!(item instanceof String s)) {
+                            throw new IllegalArgumentException("Filter '" + key + "' must contain strings only");
+                        }
+                        return s;
+                    })
+                    .distinct()
+                    .toList();
+        }
+        throw new IllegalArgumentException("Filter '" + key + "' must be a string or a list of strings");
+    }
+
+    /**
+     * Quotes a value for the filter expression parser, which has no escape sequences: the
+     * value is wrapped in whichever quote it does not contain.
+     */
+    private static String literal(String value) {
+        if (value.indexOf('\\') >= 0 || (value.indexOf('\'') >= 0 && value.indexOf('"') >= 0)) {
+            throw new IllegalArgumentException("Filter value must not contain a backslash or both kinds of quotes: " + value);
+        }
+        return value.indexOf('\'') >= 0 ? "\"" + value + "\"" : "'" + value + "'";
+    }
+}
@@ -0,0 +1,46 @@
+package com.example.rag.filter;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.ai.vectorstore.VectorStore;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * Indexes the pgvector table's metadata for filtered searches. PgVectorStore turns a filter
+ * expression into {@code metadata::jsonb @@ '$.source == "..."'::jsonpath}; a GIN
+ * {@code jsonb_path_ops} index on that same expression answers it, so Postgres can read only
+ * the matching rows and rank them exactly instead of walking the HNSW index over every row
+ * and dropping most of what it finds.
+ * <p>
+ * Created after the vector store (which creates the table). Disable with
+ * {@code app.rag.filter.initialize-index=false} when the schema is managed elsewhere.
+ */
+@Component
+@ConditionalOnProperty(name = "spring.ai.vectorstore.type", havingValue = "pgvector", matchIfMissing = true)
+public class PgVectorMetadataIndex {
+
+    private static final Logger log = LoggerFactory.getLogger(PgVectorMetadataIndex.class);
+
+    public PgVectorMetadataIndex(VectorStore vectorStore,
+                                 JdbcTemplate jdbcTemplate,
+                                 @Value("${spring.ai.vectorstore.pgvector.schema-name:public}") String schema,
+                                 @Value("${spring.ai.vectorstore.pgvector.table-name:vector_store}") String table,
+                                 @Value("${app.rag.filter.initialize-index:true}") boolean initializeIndex) {
+        if (!initializeIndex) {
+            return;
+        }
+        String index = table + "_metadata_idx";
+        try {
+            jdbcTemplate.execute("CREATE INDEX IF NOT EXISTS " + index + " ON " + schema + "." + table
+                    + " USING gin ((metadata::jsonb) jsonb_path_ops)");
+            log.info("Metadata index {} on {}.{} ready for {} filters", index, schema, table, vectorStore.getName());
+        } catch (DataAccessException e) {
+            log.warn("Could not create metadata index {} on {}.{}; filtered searches will scan: {}",
+                    index, schema, table, e.getMessage());
+        }
+    }
+}
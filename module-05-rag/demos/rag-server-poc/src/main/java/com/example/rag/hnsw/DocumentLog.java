@@ -0,0 +1,108 @@
+package com.example.rag.hnsw;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.ai.document.Document;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
+
+/**
+ * Append-only file of document id, text and metadata; {@link HnswIndex} nodes point at their
+ * document's offset. Each record is {@code [int idLength][id][int bodyLength][JSON text and
+ * metadata]}, so the id can be read without parsing the body.
+ * <p>
+ * Anything past the end recorded by the index's last commit is left over from an interrupted
+ * write and is overwritten.
+ */
+final class DocumentLog implements Closeable {
+
+    private static final TypeReference<Map<String, Object>> BODY = new TypeReference<>() {
+    };
+
+    private final FileChannel channel;
+    private final ObjectMapper objectMapper;
+    private long end;
+
+    DocumentLog(Path file, long committedEnd, ObjectMapper objectMapper) throws IOException {
+        this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        this.objectMapper = objectMapper;
+        this.end = committedEnd;
+    }
+
+    long end() {
+        return end;
+    }
+
+    /**
+     * Appends a document (not yet durable until {@link #force()}).
+     *
+     * @return its offset
+     */
+    long append(Document document) throws IOException {
+        byte[] id = document.getId().getBytes(StandardCharsets.UTF_8);
+        byte[] body = objectMapper.writeValueAsBytes(Map.of(
+                "text", document.getText() != null ? document.getText() : "",
+                "metadata", document.getMetadata()));
+        ByteBuffer record = ByteBuffer.allocate(2 * Integer.BYTES + id.length + body.length);
+        record.putInt(id.length).put(id).putInt(body.length).put(body).flip();
+        long offset = end;
+        while (record.hasRemaining()) {
+            end += channel.write(record, end);
+        }
+        return offset;
+    }
+
+    String readId(long offset) throws IOException {
+        int length = readInt(offset);
+        return new String(read(offset + Integer.BYTES, length).array(), StandardCharsets.UTF_8);
+    }
+
+    /**
+     * The document at {@code offset}, with {@code score} set.
+     */
+    Document read(long offset, Double score) throws IOException {
+        int idLength = readInt(offset);
+        String id = new String(read(offset + Integer.BYTES, idLength).array(), StandardCharsets.UTF_8);
+        long bodyOffset = offset + Integer.BYTES + idLength;
+        int bodyLength = readInt(bodyOffset);
+        Map<String, Object> body = objectMapper.readValue(read(bodyOffset + Integer.BYTES, bodyLength).array(), BODY);
+        @SuppressWarnings("unchecked")
+        Map<String, Object> metadata = (Map<String, Object>) body.get("metadata");
+        return Document.builder()
+                .id(id)
+                .text((String) body.get("text"))
+                .metadata(metadata != null ? metadata : Map.of())
+                .score(score)
+                .build();
+    }
+
+    void force() throws IOException {
+        channel.force(false);
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    private int readInt(long offset) throws IOException {
+        return read(offset, Integer.BYTES).getInt();
+    }
+
+    private ByteBuffer read(long offset, int length) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, offset + buffer.position()) < 0) {
+                throw new IOException("Unexpected end of document log at " + (offset + buffer.position()));
+            }
+        }
+        return buffer.flip();
+    }
+}
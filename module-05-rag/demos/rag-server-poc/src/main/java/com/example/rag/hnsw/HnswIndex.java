@@ -0,0 +1,504 @@
+package com.example.rag.hnsw;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * Hierarchical Navigable Small World graph over unit-length float vectors, scored by dot
+ * product (cosine similarity), stored in two {@link MappedRecords} files:
+ * <ul>
+ *   <li>{@code nodes.bin}: a header, then one record per node with its level, flags, document
+ *   offset, vector and layer-0 neighbors (up to 2M);</li>
+ *   <li>{@code links.bin}: neighbor lists (up to M) for layers 1 and up, one record per node
+ *   and layer, allocated only for the few nodes that reach those layers.</li>
+ * </ul>
+ * Node ids are dense ints in insertion order. Deleted nodes stay in the graph, so searches
+ * still route through them, but never take a result slot, so a search still finds k live nodes
+ * when deleted ones are nearer. {@link #commit(long)} writes the header,
+ * which is what a reopened index trusts: neighbors pointing past the committed node count
+ * (from a crash mid-insert) are ignored.
+ * <p>
+ * Not thread-safe: callers hold a write lock for {@link #add} and {@link #delete}, and a read
+ * lock for everything else.
+ */
+final class HnswIndex implements Closeable {
+
+    private static final int MAGIC = 0x484E5357;
+    private static final int VERSION = 1;
+    private static final int MAX_LEVEL = 16;
+
+    private static final int HEADER_BYTES = 64;
+    private static final int H_MAGIC = 0;
+    private static final int H_VERSION = 4;
+    private static final int H_DIMENSIONS = 8;
+    private static final int H_M = 12;
+    private static final int H_COUNT = 16;
+    private static final int H_ENTRY_POINT = 20;
+    private static final int H_MAX_LEVEL = 24;
+    private static final int H_UPPER_COUNT = 28;
+    private static final int H_DATA_END = 32;
+    private static final int H_LIVE = 40;
+
+    private static final int N_LEVEL = 0;
+    private static final int N_FLAGS = 4;
+    private static final int N_DATA = 8;
+    private static final int N_UPPER = 16;
+    private static final int N_VECTOR = 24;
+    private static final int DELETED = 1;
+
+    private final int dimensions;
+    private final int m;
+    private final int m0;
+    private final int efConstruction;
+    private final double levelMultiplier;
+    private final int layer0Offset;
+    private final SplittableRandom random = new SplittableRandom();
+
+    private final MappedRecords nodes;
+    private final MappedRecords links;
+
+    private int count;
+    private int live;
+    private int entryPoint = -1;
+    private int maxLevel = -1;
+    private int upperCount;
+    private long dataEnd;
+
+    HnswIndex(Path directory, int dimensions, int m, int efConstruction) throws IOException {
+        this.dimensions = dimensions;
+        this.m = m;
+        this.m0 = 2 * m;
+        this.efConstruction = efConstruction;
+        this.levelMultiplier = 1 / Math.log(m);
+        this.layer0Offset = N_VECTOR + dimensions * Float.BYTES;
+        this.nodes = new MappedRecords(directory.resolve("nodes.bin"), HEADER_BYTES,
+                layer0Offset + (1 + m0) * Integer.BYTES);
+        this.links = new MappedRecords(directory.resolve("links.bin"), Integer.BYTES, (1 + m) * Integer.BYTES);
+
+        MappedByteBuffer header = nodes.header();
+        if (header.getInt(H_MAGIC) == 0) {
+            header.putInt(H_MAGIC, MAGIC);
+            header.putInt(H_VERSION, VERSION);
+            header.putInt(H_DIMENSIONS, dimensions);
+            header.putInt(H_M, m);
+            commit(0);
+            return;
+        }
+        if (header.getInt(H_MAGIC) != MAGIC || header.getInt(H_VERSION) != VERSION) {
+            throw new IllegalStateException(directory + " does not contain an HNSW index of version " + VERSION);
+        }
+        if (header.getInt(H_DIMENSIONS) != dimensions || header.getInt(H_M) != m) {
+            throw new IllegalStateException("HNSW index in " + directory + " was built with dimensions="
+                    + header.getInt(H_DIMENSIONS) + ", m=" + header.getInt(H_M) + "; configured dimensions="
+                    + dimensions + ", m=" + m + ". Delete the directory to rebuild it.");
+        }
+        count = header.getInt(H_COUNT);
+        live = header.getInt(H_LIVE);
+        entryPoint = header.getInt(H_ENTRY_POINT);
+        maxLevel = header.getInt(H_MAX_LEVEL);
+        upperCount = header.getInt(H_UPPER_COUNT);
+        dataEnd = header.getLong(H_DATA_END);
+        nodes.ensureCapacity(count);
+        links.ensureCapacity(upperCount);
+    }
+
+    int dimensions() {
+        return dimensions;
+    }
+
+    /** Nodes ever added, including deleted ones. */
+    int size() {
+        return count;
+    }
+
+    int liveSize() {
+        return live;
+    }
+
+    /** End of the document log as of the last commit. */
+    long dataEnd() {
+        return dataEnd;
+    }
+
+    long dataOffset(int node) {
+        return nodes.getLong(node, N_DATA);
+    }
+
+    boolean isDeleted(int node) {
+        return (nodes.getInt(node, N_FLAGS) & DELETED) != 0;
+    }
+
+    /**
+     * Inserts a unit-length vector and links it into the graph.
+     *
+     * @return the new node's id
+     */
+    int add(float[] vector, long dataOffset) throws IOException {
+        int node = count;
+        int level = (int) Math.min(MAX_LEVEL, Math.floor(-Math.log(1 - random.nextDouble()) * levelMultiplier));
+        nodes.ensureCapacity(node + 1);
+        nodes.putInt(node, N_LEVEL, level);
+        nodes.putInt(node, N_FLAGS, 0);
+        nodes.putLong(node, N_DATA, dataOffset);
+        nodes.putInt(node, N_UPPER, level > 0 ? upperCount : -1);
+        nodes.putFloats(node, N_VECTOR, vector);
+        nodes.putInt(node, layer0Offset, 0);
+        if (level > 0) {
+            links.ensureCapacity(upperCount + level);
+            for (int l = 0; l < level; l++) {
+                links.putInt(upperCount + l, 0, 0);
+            }
+            upperCount += level;
+        }
+        count++;
+        live++;
+
+        if (entryPoint < 0) {
+            entryPoint = node;
+            maxLevel = level;
+            return node;
+        }
+        int ep = entryPoint;
+        float epScore = similarity(vector, ep);
+        for (int lc = maxLevel; lc > level; lc--) {
+            ep = greedy(vector, ep, epScore, lc);
+            epScore = similarity(vector, ep);
+        }
+        int[] entryPoints = {ep};
+        float[] entryScores = {epScore};
+        for (int lc = Math.min(level, maxLevel); lc >= 0; lc--) {
+            // Deleted nodes are still linked, so the graph stays connected around them.
+            NeighborQueue found = searchLayer(vector, entryPoints, entryScores, efConstruction, lc,
+                    false, null, Integer.MAX_VALUE);
+            int n = found.size();
+            entryPoints = new int[n];
+            entryScores = new float[n];
+            // The queue pops worst first; fill from the back so index 0 is the best.
+            for (int i = n - 1; i >= 0; i--) {
+                entryScores[i] = found.topScore();
+                entryPoints[i] = found.pop();
+            }
+            int[] selected = selectNeighbors(entryPoints, entryScores, n, maxConnections(lc));
+            setNeighbors(node, lc, selected, selected.length);
+            for (int neighbor : selected) {
+                link(neighbor, node, lc);
+            }
+        }
+        if (level > maxLevel) {
+            maxLevel = level;
+            entryPoint = node;
+        }
+        return node;
+    }
+
+    void delete(int node) {
+        if (!isDeleted(node)) {
+            nodes.putInt(node, N_FLAGS, nodes.getInt(node, N_FLAGS) | DELETED);
+            live--;
+        }
+    }
+
+    /**
+     * Approximate k nearest live nodes to a unit-length query, best first. A larger {@code ef}
+     * explores more of the graph: better recall, more time.
+     * <p>
+     * With {@code accept}, only those nodes are returned. The graph walk still routes through
+     * the others, but once it has computed as many similarities as there are accepted nodes,
+     * ranking the accepted nodes directly is cheaper and exact, so the search switches to
+     * that; a small set is ranked directly from the start.
+     *
+     * @param accept the nodes that may be returned, or {@code null} for all live nodes
+     */
+    List<Hit> search(float[] query, int k, int ef, BitSet accept) {
+        if (entryPoint < 0 || k <= 0) {
+            return List.of();
+        }
+        int visitLimit = Integer.MAX_VALUE;
+        if (accept != null) {
+            visitLimit = accept.cardinality();
+            if (visitLimit <= Math.max(ef, k)) {
+                return exact(query, k, accept);
+            }
+        }
+        int ep = entryPoint;
+        float epScore = similarity(query, ep);
+        for (int lc = maxLevel; lc > 0; lc--) {
+            ep = greedy(query, ep, epScore, lc);
+            epScore = similarity(query, ep);
+        }
+        NeighborQueue found = searchLayer(query, new int[]{ep}, new float[]{epScore}, Math.max(ef, k), 0,
+                true, accept, visitLimit);
+        if (found == null) {
+            return exact(query, k, accept);
+        }
+        int n = found.size();
+        int[] ranked = new int[n];
+        float[] scores = new float[n];
+        for (int i = n - 1; i >= 0; i--) {
+            scores[i] = found.topScore();
+            ranked[i] = found.pop();
+        }
+        List<Hit> hits = new ArrayList<>(Math.min(k, n));
+        for (int i = 0; i < n && hits.size() < k; i++) {
+            hits.add(new Hit(ranked[i], scores[i]));
+        }
+        return hits;
+    }
+
+    /**
+     * Makes the nodes added so far part of the persistent index and flushes both files.
+     */
+    void commit(long dataEnd) {
+        this.dataEnd = dataEnd;
+        links.force();
+        MappedByteBuffer header = nodes.header();
+        header.putInt(H_COUNT, count);
+        header.putInt(H_LIVE, live);
+        header.putInt(H_ENTRY_POINT, entryPoint);
+        header.putInt(H_MAX_LEVEL, maxLevel);
+        header.putInt(H_UPPER_COUNT, upperCount);
+        header.putLong(H_DATA_END, dataEnd);
+        nodes.force();
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            links.close();
+        } finally {
+            nodes.close();
+        }
+    }
+
+    /**
+     * Walks to ever more similar neighbors on one layer until none is better.
+     */
+    private int greedy(float[] query, int ep, float epScore, int level) {
+        boolean changed = true;
+        while (changed) {
+            changed = false;
+            int degree = neighborCount(ep, level);
+            for (int i = 0; i < degree; i++) {
+                int candidate = neighbor(ep, level, i);
+                if (candidate >= count) {
+                    continue;
+                }
+                float score = similarity(query, candidate);
+                if (score > epScore) {
+                    ep = candidate;
+                    epScore = score;
+                    changed = true;
+                }
+            }
+        }
+        return ep;
+    }
+
+    /**
+     * Similarity to every live node in {@code accept}, best k first.
+     */
+    private List<Hit> exact(float[] query, int k, BitSet accept) {
+        NeighborQueue best = new NeighborQueue(k + 1, false);
+        for (int node = accept.nextSetBit(0); node >= 0 && node < count; node = accept.nextSetBit(node + 1)) {
+            if (isDeleted(node)) {
+                continue;
+            }
+            float score = similarity(query, node);
+            if (best.size() < k || score > best.topScore()) {
+                best.push(node, score);
+                if (best.size() > k) {
+                    best.pop();
+                }
+            }
+        }
+        Hit[] hits = new Hit[best.size()];
+        for (int i = hits.length - 1; i >= 0; i--) {
+            float score = best.topScore();
+            hits[i] = new Hit(best.pop(), score);
+        }
+        return List.of(hits);
+    }
+
+    /**
+     * Best-first search of one layer: returns up to {@code ef} nodes, least similar on top.
+     * Only live nodes ({@code liveOnly}) in {@code accept} (all, if null) become results, though
+     * all are traversed; the others cannot crowd admitted nodes out of the {@code ef} slots.
+     *
+     * @return {@code null} once more than {@code visitLimit} similarities were computed
+     */
+    private NeighborQueue searchLayer(float[] query, int[] entryPoints, float[] entryScores, int ef, int level,
+                                      boolean liveOnly, BitSet accept, int visitLimit) {
+        BitSet visited = new BitSet(count);
+        NeighborQueue candidates = new NeighborQueue(ef, true);
+        NeighborQueue results = new NeighborQueue(ef + 1, false);
+        for (int i = 0; i < entryPoints.length; i++) {
+            visited.set(entryPoints[i]);
+            candidates.push(entryPoints[i], entryScores[i]);
+            if (admits(entryPoints[i], liveOnly, accept)) {
+                results.push(entryPoints[i], entryScores[i]);
+                if (results.size() > ef) {
+                    results.pop();
+                }
+            }
+        }
+        int visits = entryPoints.length;
+        while (!candidates.isEmpty()) {
+            float bestScore = candidates.topScore();
+            int best = candidates.pop();
+            if (results.size() >= ef && bestScore < results.topScore()) {
+                break;
+            }
+            int degree = neighborCount(best, level);
+            for (int i = 0; i < degree; i++) {
+                int candidate = neighbor(best, level, i);
+                if (candidate >= count || visited.get(candidate)) {
+                    continue;
+                }
+                visited.set(candidate);
+                if (++visits > visitLimit) {
+                    return null;
+                }
+                float score = similarity(query, candidate);
+                if (results.size() < ef || score > results.topScore()) {
+                    candidates.push(candidate, score);
+                    if (admits(candidate, liveOnly, accept)) {
+                        results.push(candidate, score);
+                        if (results.size() > ef) {
+                            results.pop();
+                        }
+                    }
+                }
+            }
+        }
+        return results;
+    }
+
+    private boolean admits(int node, boolean liveOnly, BitSet accept) {
+        return (accept == null || accept.get(node)) && !(liveOnly && isDeleted(node));
+    }
+
+    /**
+     * The neighbor-selection heuristic from the HNSW paper: take candidates best first, and
+     * keep one only if it is closer to the base than to every neighbor kept so far, which
+     * spreads links across directions instead of one dense cluster. Remaining slots are then
+     * filled with the best of the skipped candidates.
+     *
+     * @param candidates candidate nodes, most similar to the base first
+     * @param scores     their similarity to the base
+     */
+    private int[] selectNeighbors(int[] candidates, float[] scores, int n, int max) {
+        if (n <= max) {
+            return Arrays.copyOf(candidates, n);
+        }
+        int[] selected = new int[max];
+        int kept = 0;
+        int[] skipped = new int[n];
+        int skippedCount = 0;
+        for (int i = 0; i < n && kept < max; i++) {
+            float[] vector = nodes.getFloats(candidates[i], N_VECTOR, dimensions);
+            boolean diverse = true;
+            for (int j = 0; j < kept; j++) {
+                if (nodes.dot(selected[j], N_VECTOR, vector) > scores[i]) {
+                    diverse = false;
+                    break;
+                }
+            }
+            if (diverse) {
+                selected[kept++] = candidates[i];
+            } else {
+                skipped[skippedCount++] = candidates[i];
+            }
+        }
+        for (int i = 0; i < skippedCount && kept < max; i++) {
+            selected[kept++] = skipped[i];
+        }
+        return selected;
+    }
+
+    /**
+     * Adds a back link from {@code node} to {@code added}, re-selecting node's neighbors when
+     * its list is full.
+     */
+    private void link(int node, int added, int level) {
+        int degree = neighborCount(node, level);
+        int max = maxConnections(level);
+        if (degree < max) {
+            setNeighbor(node, level, degree, added);
+            setNeighborCount(node, level, degree + 1);
+            return;
+        }
+        float[] base = nodes.getFloats(node, N_VECTOR, dimensions);
+        NeighborQueue ranked = new NeighborQueue(degree + 1, false);
+        for (int i = 0; i < degree; i++) {
+            int neighbor = neighbor(node, level, i);
+            ranked.push(neighbor, nodes.dot(neighbor, N_VECTOR, base));
+        }
+        ranked.push(added, nodes.dot(added, N_VECTOR, base));
+        int n = ranked.size();
+        int[] candidates = new int[n];
+        float[] scores = new float[n];
+        for (int i = n - 1; i >= 0; i--) {
+            scores[i] = ranked.topScore();
+            candidates[i] = ranked.pop();
+        }
+        int[] selected = selectNeighbors(candidates, scores, n, max);
+        setNeighbors(node, level, selected, selected.length);
+    }
+
+    private int maxConnections(int level) {
+        return level == 0 ? m0 : m;
+    }
+
+    private float similarity(float[] query, int node) {
+        return nodes.dot(node, N_VECTOR, query);
+    }
+
+    private int neighborCount(int node, int level) {
+        return level == 0
+                ? nodes.getInt(node, layer0Offset)
+                : links.getInt(upperSlot(node, level), 0);
+    }
+
+    private void setNeighborCount(int node, int level, int degree) {
+        if (level == 0) {
+            nodes.putInt(node, layer0Offset, degree);
+        } else {
+            links.putInt(upperSlot(node, level), 0, degree);
+        }
+    }
+
+    private int neighbor(int node, int level, int i) {
+        return level == 0
+                ? nodes.getInt(node, layer0Offset + (1 + i) * Integer.BYTES)
+                : links.getInt(upperSlot(node, level), (1 + i) * Integer.BYTES);
+    }
+
+    private void setNeighbor(int node, int level, int i, int neighbor) {
+        if (level == 0) {
+            nodes.putInt(node, layer0Offset + (1 + i) * Integer.BYTES, neighbor);
+        } else {
+            links.putInt(upperSlot(node, level), (1 + i) * Integer.BYTES, neighbor);
+        }
+    }
+
+    private void setNeighbors(int node, int level, int[] neighbors, int n) {
+        for (int i = 0; i < n; i++) {
+            setNeighbor(node, level, i, neighbors[i]);
+        }
+        setNeighborCount(node, level, n);
+    }
+
+    private int upperSlot(int node, int level) {
+        return nodes.getInt(node, N_UPPER) + level - 1;
+    }
+
+    record Hit(int node, float score) {
+    }
+}
@@ -0,0 +1,278 @@
+package com.example.rag.hnsw;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.ai.document.Document;
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.ai.embedding.EmbeddingOptions;
+import org.springframework.ai.embedding.TokenCountBatchingStrategy;
+import org.springframework.ai.vectorstore.SearchRequest;
+import org.springframework.ai.vectorstore.VectorStore;
+import org.springframework.ai.vectorstore.filter.Filter;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-process {@link VectorStore}: an {@link HnswIndex} over memory-mapped files plus a
+ * {@link DocumentLog}, all under one directory. Vectors and graph stay off the Java heap, and
+ * opening an existing directory maps the files and reads one header, so a restart is ready in
+ * milliseconds with nothing re-embedded.
+ * <p>
+ * Scores are cosine similarity, as with pgvector's {@code COSINE_DISTANCE}, so
+ * {@link SearchRequest#getTopK()} and {@link SearchRequest#getSimilarityThreshold()} mean the
+ * same thing here. Filter expressions are resolved by a {@link MetadataIndex} to the matching
+ * nodes before the search, and only those are ranked (see {@link HnswIndex#search}); the index
+ * is built from the document log on the first filtered search or delete. Adding a document whose id is already stored replaces it; if text and
+ * metadata are unchanged, it is skipped without being embedded. Replaced and deleted entries
+ * stay on disk until the directory is rebuilt.
+ * <p>
+ * One writer at a time; searches run concurrently with each other. Embedding happens before
+ * the write lock is taken.
+ */
+public class HnswVectorStore implements VectorStore, Closeable {
+
+    private static final Logger log = LoggerFactory.getLogger(HnswVectorStore.class);
+
+    private final EmbeddingModel embeddingModel;
+    private final Path directory;
+    private final int efSearch;
+    private final HnswIndex index;
+    private final DocumentLog documents;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    /** Document id to node; built on the first write, so opening stays cheap. */
+    private Map<String, Integer> nodesById;
+    /** Built on first use, under {@code this}, since that may happen under the read lock. */
+    private volatile MetadataIndex metadataIndex;
+
+    public HnswVectorStore(EmbeddingModel embeddingModel, Path directory, int dimensions, int m,
+                           int efConstruction, int efSearch, ObjectMapper objectMapper) throws IOException {
+        long start = System.nanoTime();
+        this.embeddingModel = embeddingModel;
+        this.directory = directory;
+        this.efSearch = efSearch;
+        Files.createDirectories(directory);
+        this.index = new HnswIndex(directory, dimensions, m, efConstruction);
+        this.documents = new DocumentLog(directory.resolve("documents.bin"), index.dataEnd(), objectMapper);
+        log.info("HNSW vector store opened from {} in {} ms: {} documents ({} nodes, dimensions={}, m={})",
+                directory.toAbsolutePath(), (System.nanoTime() - start) / 1_000_000, index.liveSize(), index.size(),
+                dimensions, m);
+    }
+
+    @Override
+    public String getName() {
+        return "HnswVectorStore";
+    }
+
+    @Override
+    public void add(List<Document> batch) {
+        List<Document> changed = withoutUnchanged(batch);
+        if (changed.isEmpty()) {
+            return;
+        }
+        List<float[]> vectors = embeddingModel.embed(changed, EmbeddingOptions.builder().build(), Batching.STRATEGY);
+        lock.writeLock().lock();
+        try {
+            Map<String, Integer> ids = nodesById();
+            for (int i = 0; i < changed.size(); i++) {
+                float[] vector = normalize(vectors.get(i));
+                if (vector.length != index.dimensions()) {
+                    throw new IllegalArgumentException("Embedding has " + vector.length
+                            + " dimensions; the store was configured for " + index.dimensions());
+                }
+                Document document = changed.get(i);
+                Integer previous = ids.get(document.getId());
+                if (previous != null) {
+                    index.delete(previous);
+                }
+                int node = index.add(vector, documents.append(document));
+                ids.put(document.getId(), node);
+                if (metadataIndex != null) {
+                    metadataIndex.add(node, document.getMetadata());
+                }
+            }
+            documents.force();
+            index.commit(documents.end());
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to write to the HNSW store in " + directory, e);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void delete(List<String> idList) {
+        lock.writeLock().lock();
+        try {
+            Map<String, Integer> ids = nodesById();
+            for (String id : idList) {
+                Integer node = ids.remove(id);
+                if (node != null) {
+                    index.delete(node);
+                }
+            }
+            index.commit(documents.end());
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void delete(Filter.Expression filterExpression) {
+        lock.writeLock().lock();
+        try {
+            Map<String, Integer> ids = nodesById();
+            BitSet matching = metadataIndex().matching(filterExpression, index.size());
+            for (int node = matching.nextSetBit(0); node >= 0; node = matching.nextSetBit(node + 1)) {
+                if (!index.isDeleted(node)) {
+                    ids.remove(documents.readId(index.dataOffset(node)));
+                    index.delete(node);
+                }
+            }
+            index.commit(documents.end());
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to read from the HNSW store in " + directory, e);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public List<Document> similaritySearch(SearchRequest request) {
+        float[] query = normalize(embeddingModel.embed(request.getQuery()));
+        lock.readLock().lock();
+        try {
+            BitSet accept = request.hasFilterExpression()
+                    ? metadataIndex().matching(request.getFilterExpression(), index.size())
+                    : null;
+            List<HnswIndex.Hit> hits = index.search(query, request.getTopK(), Math.max(efSearch, request.getTopK()),
+                    accept);
+            List<Document> results = new ArrayList<>(hits.size());
+            for (HnswIndex.Hit hit : hits) {
+                if (hit.score() >= request.getSimilarityThreshold()) {
+                    results.add(documents.read(index.dataOffset(hit.node()), (double) hit.score()));
+                }
+            }
+            return results;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to read from the HNSW store in " + directory, e);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        lock.writeLock().lock();
+        try {
+            index.commit(documents.end());
+            documents.close();
+            index.close();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Drops documents stored already with the same id, text and metadata, so re-adding them
+     * costs neither an embedding call nor a write.
+     */
+    private List<Document> withoutUnchanged(List<Document> batch) {
+        lock.writeLock().lock();
+        try {
+            Map<String, Integer> ids = nodesById();
+            List<Document> changed = new ArrayList<>(batch.size());
+            for (Document document : batch) {
+                Integer node = ids.get(document.getId());
+                if (node != null) {
+                    Document stored = documents.read(index.dataOffset(node), null);
+                    if (Objects.equals(stored.getText(), document.getText())
+                            && Objects.equals(stored.getMetadata(), document.getMetadata())) {
+                        continue;
+                    }
+                }
+                changed.add(document);
+            }
+            return changed;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to read from the HNSW store in " + directory, e);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /** Caller holds the write lock. */
+    private Map<String, Integer> nodesById() {
+        if (nodesById == null) {
+            Map<String, Integer> ids = new HashMap<>(Math.max(16, index.liveSize() * 2));
+            try {
+                for (int node = 0; node < index.size(); node++) {
+                    if (!index.isDeleted(node)) {
+                        ids.put(documents.readId(index.dataOffset(node)), node);
+                    }
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException("Failed to read document ids from " + directory, e);
+            }
+            nodesById = ids;
+        }
+        return nodesById;
+    }
+
+    /** Caller holds the read or write lock. */
+    private MetadataIndex metadataIndex() {
+        MetadataIndex built = metadataIndex;
+        if (built == null) {
+            synchronized (this) {
+                built = metadataIndex;
+                if (built == null) {
+                    long start = System.nanoTime();
+                    built = new MetadataIndex();
+                    try {
+                        for (int node = 0; node < index.size(); node++) {
+                            if (!index.isDeleted(node)) {
+                                built.add(node, documents.read(index.dataOffset(node), null).getMetadata());
+                            }
+                        }
+                    } catch (IOException e) {
+                        throw new UncheckedIOException("Failed to read document metadata from " + directory, e);
+                    }
+                    metadataIndex = built;
+                    log.info("HNSW metadata index built over {} documents in {} ms", index.liveSize(),
+                            (System.nanoTime() - start) / 1_000_000);
+                }
+            }
+        }
+        return built;
+    }
+
+    private static float[] normalize(float[] vector) {
+        double norm = 0;
+        for (float v : vector) {
+            norm += v * v;
+        }
+        norm = Math.sqrt(norm);
+        float[] unit = new float[vector.length];
+        for (int i = 0; i < vector.length; i++) {
+            unit[i] = norm == 0 ? 0 : (float) (vector[i] / norm);
+        }
+        return unit;
+    }
+
+    /** Created on first use and shared: constructing one loads the tokenizer's vocabulary. */
+    private static final class Batching {
+        static final TokenCountBatchingStrategy STRATEGY = new TokenCountBatchingStrategy();
+    }
+}
@@ -0,0 +1,32 @@
+package com.example.rag.hnsw;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+/**
+ * Replaces pgvector with the embedded {@link HnswVectorStore} when
+ * {@code spring.ai.vectorstore.type=hnsw}; Spring AI's pgvector auto-configuration backs off
+ * for any type other than {@code pgvector}.
+ */
+@Configuration
+@ConditionalOnProperty(name = "spring.ai.vectorstore.type", havingValue = "hnsw")
+public class HnswVectorStoreConfig {
+
+    @Bean(destroyMethod = "close")
+    public HnswVectorStore vectorStore(EmbeddingModel embeddingModel,
+                                       ObjectMapper objectMapper,
+                                       @Value("${app.rag.hnsw.directory:data/hnsw}") Path directory,
+                                       @Value("${app.rag.hnsw.dimensions}") int dimensions,
+                                       @Value("${app.rag.hnsw.m:16}") int m,
+                                       @Value("${app.rag.hnsw.ef-construction:100}") int efConstruction,
+                                       @Value("${app.rag.hnsw.ef-search:100}") int efSearch) throws IOException {
+        return new HnswVectorStore(embeddingModel, directory, dimensions, m, efConstruction, efSearch, objectMapper);
+    }
+}
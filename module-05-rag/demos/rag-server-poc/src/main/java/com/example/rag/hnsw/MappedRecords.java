@@ -0,0 +1,133 @@
+package com.example.rag.hnsw;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * A file of fixed-size records behind a small header, memory-mapped in segments so it can
+ * grow past the 2 GB limit of a single mapping. Record contents live in the page cache, not
+ * on the Java heap, and a reopened file is usable as soon as it is mapped. Values are
+ * little-endian, the native order of x86 and ARM, so float reads need no byte swapping.
+ * <p>
+ * Not thread-safe: callers serialize writes against reads.
+ */
+final class MappedRecords implements Closeable {
+
+    private static final long MAX_SEGMENT_BYTES = 32L << 20;
+
+    private final FileChannel channel;
+    private final int headerBytes;
+    private final int recordBytes;
+    private final int recordsPerSegment;
+    private final MappedByteBuffer header;
+    private MappedByteBuffer[] segments = new MappedByteBuffer[0];
+    private FloatBuffer[] floats = new FloatBuffer[0];
+
+    MappedRecords(Path file, int headerBytes, int recordBytes) throws IOException {
+        if (recordBytes % Float.BYTES != 0 || headerBytes % Float.BYTES != 0) {
+            throw new IllegalArgumentException("Header and record sizes must be multiples of 4 bytes");
+        }
+        this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        this.headerBytes = headerBytes;
+        this.recordBytes = recordBytes;
+        this.recordsPerSegment = (int) Math.max(1, MAX_SEGMENT_BYTES / recordBytes);
+        this.header = channel.map(FileChannel.MapMode.READ_WRITE, 0, headerBytes);
+        header.order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    MappedByteBuffer header() {
+        return header;
+    }
+
+    /**
+     * Maps enough segments to hold {@code records} records; the file grows as needed.
+     */
+    void ensureCapacity(int records) throws IOException {
+        int needed = (records + recordsPerSegment - 1) / recordsPerSegment;
+        if (needed <= segments.length) {
+            return;
+        }
+        MappedByteBuffer[] grown = Arrays.copyOf(segments, needed);
+        FloatBuffer[] grownFloats = Arrays.copyOf(floats, needed);
+        long segmentBytes = (long) recordsPerSegment * recordBytes;
+        for (int i = segments.length; i < needed; i++) {
+            grown[i] = channel.map(FileChannel.MapMode.READ_WRITE, headerBytes + i * segmentBytes, segmentBytes);
+            grown[i].order(ByteOrder.LITTLE_ENDIAN);
+            grownFloats[i] = grown[i].duplicate().order(ByteOrder.LITTLE_ENDIAN).asFloatBuffer();
+        }
+        segments = grown;
+        floats = grownFloats;
+    }
+
+    int getInt(int record, int offset) {
+        return segments[record / recordsPerSegment].getInt(position(record, offset));
+    }
+
+    void putInt(int record, int offset, int value) {
+        segments[record / recordsPerSegment].putInt(position(record, offset), value);
+    }
+
+    long getLong(int record, int offset) {
+        return segments[record / recordsPerSegment].getLong(position(record, offset));
+    }
+
+    void putLong(int record, int offset, long value) {
+        segments[record / recordsPerSegment].putLong(position(record, offset), value);
+    }
+
+    void putFloats(int record, int offset, float[] values) {
+        FloatBuffer buffer = floats[record / recordsPerSegment];
+        int base = position(record, offset) / Float.BYTES;
+        for (int i = 0; i < values.length; i++) {
+            buffer.put(base + i, values[i]);
+        }
+    }
+
+    float[] getFloats(int record, int offset, int length) {
+        FloatBuffer buffer = floats[record / recordsPerSegment];
+        int base = position(record, offset) / Float.BYTES;
+        float[] values = new float[length];
+        buffer.get(base, values);
+        return values;
+    }
+
+    /**
+     * Dot product of {@code query} with the floats stored at {@code offset} in a record.
+     */
+    float dot(int record, int offset, float[] query) {
+        FloatBuffer buffer = floats[record / recordsPerSegment];
+        int base = position(record, offset) / Float.BYTES;
+        float sum = 0;
+        for (int i = 0; i < query.length; i++) {
+            sum += query[i] * buffer.get(base + i);
+        }
+        return sum;
+    }
+
+    /**
+     * Writes dirty pages of the header and every segment to disk.
+     */
+    void force() {
+        for (MappedByteBuffer segment : segments) {
+            segment.force();
+        }
+        header.force();
+    }
+
+    @Override
+    public void close() throws IOException {
+        force();
+        channel.close();
+    }
+
+    private int position(int record, int offset) {
+        return (record % recordsPerSegment) * recordBytes + offset;
+    }
+}
@@ -0,0 +1,167 @@
+package com.example.rag.hnsw;
+
+import org.springframework.ai.vectorstore.filter.Filter;
+
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Inverted index from metadata key and value to the nodes carrying them, one {@link BitSet}
+ * per pair, so a filter expression resolves to the exact set of matching nodes without
+ * reading any document. Numbers are compared by value and everything else by its string form.
+ * <p>
+ * Deleted nodes stay in the postings; the caller removes them from the result. Not
+ * thread-safe: updated under the store's write lock, read under its read lock.
+ */
+final class MetadataIndex {
+
+    /** Key to value to nodes. */
+    private final Map<String, Map<Object, BitSet>> postings = new HashMap<>();
+    /** Key to nodes that have the key at all. */
+    private final Map<String, BitSet> present = new HashMap<>();
+
+    void add(int node, Map<String, Object> metadata) {
+        metadata.forEach((key, value) -> {
+            if (value == null) {
+                return;
+            }
+            present.computeIfAbsent(key, k -> new BitSet()).set(node);
+            Map<Object, BitSet> values = postings.computeIfAbsent(key, k -> new HashMap<>());
+            if (value instanceof Collection<?> collection) {
+                collection.forEach(item -> values.computeIfAbsent(normalize(item), v -> new BitSet()).set(node));
+            } else {
+                values.computeIfAbsent(normalize(value), v -> new BitSet()).set(node);
+            }
+        });
+    }
+
+    /**
+     * Nodes among the first {@code size} that satisfy the expression.
+     *
+     * @throws UnsupportedOperationException for operands this index cannot evaluate
+     */
+    BitSet matching(Filter.Expression expression, int size) {
+        return switch (expression.type()) {
+            case AND -> {
+                BitSet result = matching(operand(expression.left()), size);
+                result.and(matching(operand(expression.right()), size));
+                yield result;
+            }
+            case OR -> {
+                BitSet result = matching(operand(expression.left()), size);
+                result.or(matching(operand(expression.right()), size));
+                yield result;
+            }
+            case NOT -> complement(matching(operand(expression.left()), size), size);
+            case EQ -> copy(postings(key(expression)).get(normalize(value(expression))));
+            case NE -> without(present(key(expression)), postings(key(expression)).get(normalize(value(expression))));
+            case IN -> union(postings(key(expression)), values(expression));
+            case NIN -> without(present(key(expression)), union(postings(key(expression)), values(expression)));
+            case GT, GTE, LT, LTE -> range(expression);
+            case ISNOTNULL -> present(key(expression));
+            case ISNULL -> complement(present(key(expression)), size);
+        };
+    }
+
+    private BitSet range(Filter.Expression expression) {
+        Object bound = normalize(value(expression));
+        BitSet result = new BitSet();
+        postings(key(expression)).forEach((value, nodes) -> {
+            Integer order = compare(value, bound);
+            if (order != null && switch (expression.type()) {
+                case GT -> order > 0;
+                case GTE -> order >= 0;
+                case LT -> order < 0;
+                default -> order <= 0;
+            }) {
+                result.or(nodes);
+            }
+        });
+        return result;
+    }
+
+    private Map<Object, BitSet> postings(String key) {
+        return postings.getOrDefault(key, Map.of());
+    }
+
+    private BitSet present(String key) {
+        return copy(present.get(key));
+    }
+
+    private static BitSet union(Map<Object, BitSet> values, List<?> wanted) {
+        BitSet result = new BitSet();
+        for (Object value : wanted) {
+            BitSet nodes = values.get(normalize(value));
+            if (nodes != null) {
+                result.or(nodes);
+            }
+        }
+        return result;
+    }
+
+    private static BitSet without(BitSet from, BitSet removed) {
+        if (removed != null) {
+            from.andNot(removed);
+        }
+        return from;
+    }
+
+    private static BitSet complement(BitSet nodes, int size) {
+        nodes.flip(0, size);
+        return nodes;
+    }
+
+    private static BitSet copy(BitSet nodes) {
+        return nodes != null ? (BitSet) nodes.clone() : new BitSet();
+    }
+
+    private static Filter.Expression operand(Filter.Operand operand) {
+        if (operand instanceof Filter.Group group) {
+            return group.content();
+        }
+        if (operand instanceof Filter.Expression expression) {
+            return expression;
+        }
+        throw new UnsupportedOperationException("Expected an expression, got " + operand);
+    }
+
+    private static String key(Filter.Expression expression) {
+        if (!(expression.left() instanceof Filter.Key key)) {
+            throw new UnsupportedOperationException("Expected a metadata key on the left of " + expression);
+        }
+        String name = key.key();
+        boolean quoted = name.length() > 1 && (name.charAt(0) == '\'' || name.charAt(0) == '"')
+                && name.charAt(name.length() - 1) == name.charAt(0);
+        return quoted ? name.substring(1, name.length() - 1) : name;
+    }
+
+    private static Object value(Filter.Expression expression) {
+        if (!(expression.right() instanceof Filter.Value value)) {
+            throw new UnsupportedOperationException("Expected a value on the right of " + expression);
+        }
+        return value.value();
+    }
+
+    private static List<?> values(Filter.Expression expression) {
+        Object value = value(expression);
+        return value instanceof List<?> list ? list : List.of(value);
+    }
+
+    private static Object normalize(Object value) {
+        return value instanceof Number number ? (Object) number.doubleValue() : String.valueOf(value);
+    }
+
+    /** Null when the two are not comparable (a number and a string). */
+    private static Integer compare(Object a, Object b) {
+        if (a instanceof Double x && b instanceof Double y) {
+            return Double.compare(x, y);
+        }
+        if (a instanceof String x && b instanceof String y) {
+            return x.compareTo(y);
+        }
+        return null;
+    }
+}
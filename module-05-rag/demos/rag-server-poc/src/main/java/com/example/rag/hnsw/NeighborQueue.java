@@ -0,0 +1,89 @@
+package com.example.rag.hnsw;
+
+import java.util.Arrays;
+
+/**
+ * Binary heap of (node, similarity) pairs in two parallel primitive arrays, ordered with the
+ * most similar on top ({@code bestFirst}) or the least similar on top.
+ */
+final class NeighborQueue {
+
+    private final boolean bestFirst;
+    private int[] nodes;
+    private float[] scores;
+    private int size;
+
+    NeighborQueue(int capacity, boolean bestFirst) {
+        this.bestFirst = bestFirst;
+        this.nodes = new int[Math.max(capacity, 1)];
+        this.scores = new float[Math.max(capacity, 1)];
+    }
+
+    int size() {
+        return size;
+    }
+
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    int topNode() {
+        return nodes[0];
+    }
+
+    float topScore() {
+        return scores[0];
+    }
+
+    void push(int node, float score) {
+        if (size == nodes.length) {
+            nodes = Arrays.copyOf(nodes, size << 1);
+            scores = Arrays.copyOf(scores, size << 1);
+        }
+        int i = size++;
+        while (i > 0) {
+            int parent = (i - 1) >>> 1;
+            if (!above(score, scores[parent])) {
+                break;
+            }
+            nodes[i] = nodes[parent];
+            scores[i] = scores[parent];
+            i = parent;
+        }
+        nodes[i] = node;
+        scores[i] = score;
+    }
+
+    /**
+     * Removes the top entry and returns its node.
+     */
+    int pop() {
+        int top = nodes[0];
+        size--;
+        int node = nodes[size];
+        float score = scores[size];
+        int i = 0;
+        while (true) {
+            int child = (i << 1) + 1;
+            if (child >= size) {
+                break;
+            }
+            if (child + 1 < size && above(scores[child + 1], scores[child])) {
+                child++;
+            }
+            if (!above(scores[child], score)) {
+                break;
+            }
+            nodes[i] = nodes[child];
+            scores[i] = scores[child];
+            i = child;
+        }
+        nodes[i] = node;
+        scores[i] = score;
+        return top;
+    }
+
+    private boolean above(float a, float b) {
+        return bestFirst ? a > b : a < b;
+    }
+}
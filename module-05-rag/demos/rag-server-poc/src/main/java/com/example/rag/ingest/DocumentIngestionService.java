@@ -0,0 +1,336 @@
+package com.example.rag.ingest;
+
+import com.example.rag.embedding.CachingEmbeddingModel;
+import com.example.rag.embedding.QueryEmbeddingCache;
+import com.example.rag.embedding.ContentHash;
+import com.example.rag.event.DocumentsChangedEvent;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.ai.document.Document;
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.ai.transformer.splitter.TokenTextSplitter;
+import org.springframework.ai.vectorstore.VectorStore;
+import org.springframework.ai.vectorstore.filter.FilterExpressionBuilder;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
+
+/**
+ * Streams text files from a directory under {@code app.rag.ingest.root} into the vector store.
+ * <p>
+ * The calling thread walks the directory, reads and chunks one file at a time, and hands off
+ * a batch every {@code batch-size} chunks. At most {@code parallelism} batches are embedded
+ * and stored at once; when all are busy the reader blocks, so a slow embedding model holds
+ * back reading instead of filling memory with pending chunks.
+ * <p>
+ * Chunk ids are stable ({@link ContentHash#chunkId}) and also stored as {@code chunk_id}
+ * metadata, so storing a file again overwrites its unchanged chunks in place (the HNSW store
+ * skips them, and with the embedding cache on they cost no model calls). Once every batch
+ * holding a file's chunks has been stored, the chunks stored for its {@code source} whose ids
+ * the file no longer produces are deleted, so text removed or rewritten since an earlier run
+ * stops being retrieved. If one of those batches fails, the old chunks are kept: a failed
+ * run never leaves a file with less than it had. One ingestion runs at a time.
+ */
+@Service
+public class DocumentIngestionService {
+
+    private static final Logger log = LoggerFactory.getLogger(DocumentIngestionService.class);
+    private static final int MAX_REPORTED_ERRORS = 100;
+
+    private final VectorStore vectorStore;
+    private final EmbeddingModel embeddingModel;
+    /** Whether a {@link CachingEmbeddingModel} sits behind the model (possibly under the query cache). */
+    private final boolean cachesEmbeddings;
+    private final ApplicationEventPublisher eventPublisher;
+    private final Path root;
+    private final int batchSize;
+    private final int parallelism;
+    private final TokenTextSplitter splitter;
+    private final String defaultGlob;
+    private final ReentrantLock running = new ReentrantLock();
+
+    public DocumentIngestionService(VectorStore vectorStore,
+                                    EmbeddingModel embeddingModel,
+                                    ApplicationEventPublisher eventPublisher,
+                                    @Value("${app.rag.ingest.root:data/docs}") Path root,
+                                    @Value("${app.rag.ingest.batch-size:64}") int batchSize,
+                                    @Value("${app.rag.ingest.parallelism:4}") int parallelism,
+                                    @Value("${app.rag.ingest.chunk-tokens:800}") int chunkTokens,
+                                    @Value("${app.rag.ingest.glob:*.{md,txt}}") String defaultGlob) {
+        if (batchSize < 1 || parallelism < 1) {
+            throw new IllegalArgumentException("app.rag.ingest.batch-size and parallelism must be at least 1");
+        }
+        this.vectorStore = vectorStore;
+        this.embeddingModel = embeddingModel;
+        EmbeddingModel model = embeddingModel;
+        while (model instanceof QueryEmbeddingCache queryCache) {
+            model = queryCache.getDelegate();
+        }
+        this.cachesEmbeddings = model instanceof CachingEmbeddingModel;
+        this.eventPublisher = eventPublisher;
+        this.root = root.toAbsolutePath().normalize();
+        this.batchSize = batchSize;
+        this.parallelism = parallelism;
+        this.splitter = TokenTextSplitter.builder().withChunkSize(chunkTokens).build();
+        this.defaultGlob = defaultGlob;
+    }
+
+    /**
+     * Ingests every file under {@code directory} (relative to the ingest root) whose name
+     * matches {@code glob}, or the configured default glob when null.
+     *
+     * @throws IllegalArgumentException if the directory is outside the ingest root or missing
+     * @throws IllegalStateException    if another ingestion is running
+     */
+    public IngestionReport ingest(String directory, String glob) {
+        Path dir = root.resolve(directory != null ? directory : "").normalize();
+        if (!dir.startsWith(root)) {
+            throw new IllegalArgumentException("Directory must be inside the ingest root " + root);
+        }
+        if (!Files.isDirectory(dir)) {
+            throw new IllegalArgumentException("Not a directory: " + dir);
+        }
+        PathMatcher matcher = FileSystems.getDefault().getPathMatcher("glob:" + (glob != null ? glob : defaultGlob));
+        if (!running.tryLock()) {
+            throw new IllegalStateException("An ingestion is already running");
+        }
+        try {
+            return run(dir, matcher);
+        } finally {
+            running.unlock();
+        }
+    }
+
+    private IngestionReport run(Path dir, PathMatcher matcher) {
+        long start = System.nanoTime();
+        StageTimer read = new StageTimer();
+        StageTimer chunk = new StageTimer();
+        StageTimer embed = new StageTimer();
+        StageTimer store = new StageTimer();
+        StageTimer prune = new StageTimer();
+        long files = 0;
+        AtomicLong failedFiles = new AtomicLong();
+        long chunks = 0;
+        long batches = 0;
+        AtomicInteger failedBatches = new AtomicInteger();
+        AtomicLong threadIds = new AtomicLong();
+        List<String> errors = Collections.synchronizedList(new ArrayList<>());
+
+        Semaphore inFlight = new Semaphore(parallelism);
+        ExecutorService workers = Executors.newFixedThreadPool(parallelism, runnable -> {
+            Thread thread = new Thread(runnable, "ingest-" + threadIds.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        List<Document> batch = new ArrayList<>(batchSize);
+        List<PendingSource> batchSources = new ArrayList<>();
+        try (Stream<Path> paths = Files.walk(dir)) {
+            Iterator<Path> it = paths.iterator();
+            while (it.hasNext()) {
+                Path file = it.next();
+                if (!Files.isRegularFile(file) || !matcher.matches(file.getFileName())) {
+                    continue;
+                }
+                String source = root.relativize(file).toString().replace('\\', '/');
+                String text;
+                long t = System.nanoTime();
+                try {
+                    text = Files.readString(file);
+                } catch (IOException | UncheckedIOException e) {
+                    failedFiles.incrementAndGet();
+                    addError(errors, source + ": " + e.getMessage());
+                    continue;
+                } finally {
+                    read.record(t);
+                }
+                files++;
+
+                t = System.nanoTime();
+                List<Document> parts = text.isBlank() ? List.of() : splitter.split(new Document(text));
+                chunk.record(t);
+
+                PendingSource pending = new PendingSource(source, new ArrayList<>(parts.size()), prune, failedFiles, errors);
+                for (int i = 0; i < parts.size(); i++) {
+                    String chunkText = parts.get(i).getText();
+                    String id = ContentHash.chunkId(source, chunkText);
+                    pending.chunkIds.add(id);
+                    if (batchSources.isEmpty() || batchSources.get(batchSources.size() - 1) != pending) {
+                        pending.holds.incrementAndGet();
+                        batchSources.add(pending);
+                    }
+                    batch.add(new Document(id, chunkText,
+                            Map.of("source", source, "section", "part-" + (i + 1), "chunk_id", id)));
+                    if (batch.size() == batchSize) {
+                        submit(batch, batchSources, workers, inFlight, embed, store, failedBatches, errors);
+                        batches++;
+                        chunks += batch.size();
+                        batch = new ArrayList<>(batchSize);
+                        batchSources = new ArrayList<>();
+                    }
+                }
+                // Every chunk is in a batch now; the last batch to finish prunes the source.
+                pending.release(true);
+                if (files % 1_000 == 0) {
+                    log.info("Ingestion progress: {} files, {} chunks submitted", files, chunks);
+                }
+            }
+            if (!batch.isEmpty()) {
+                submit(batch, batchSources, workers, inFlight, embed, store, failedBatches, errors);
+                batches++;
+                chunks += batch.size();
+            }
+            // Wait for the batches still in flight.
+            inFlight.acquireUninterruptibly(parallelism);
+        } catch (IOException | UncheckedIOException e) {
+            throw new IllegalStateException("Failed to walk " + dir, e);
+        } finally {
+            workers.shutdownNow();
+        }
+
+        long elapsedNanos = System.nanoTime() - start;
+        double seconds = Math.max(elapsedNanos / 1e9, 1e-9);
+        Map<String, IngestionReport.Stage> stageReport = new LinkedHashMap<>();
+        stageReport.put("read", read.snapshot());
+        stageReport.put("chunk", chunk.snapshot());
+        stageReport.put("embed", embed.snapshot());
+        stageReport.put("store", store.snapshot());
+        stageReport.put("prune", prune.snapshot());
+        IngestionReport report = new IngestionReport(root.relativize(dir).toString(), files, failedFiles.get(), chunks,
+                batches, failedBatches.get(), elapsedNanos / 1_000_000,
+                Math.round(files / seconds * 10) / 10.0, Math.round(chunks / seconds * 10) / 10.0,
+                stageReport, List.copyOf(errors));
+        log.info("Ingested {} files ({} chunks, {} failed batches) from {} in {} ms: {} docs/s, stages {}",
+                files, chunks, report.failedBatches(), dir, report.elapsedMs(), report.docsPerSecond(), stageReport);
+        return report;
+    }
+
+    /**
+     * Blocks until a worker is free, then embeds and stores the batch on it and releases the
+     * batch's hold on each of its sources.
+     */
+    private void submit(List<Document> batch, List<PendingSource> sources, ExecutorService workers, Semaphore inFlight,
+                        StageTimer embed, StageTimer store, AtomicInteger failedBatches, List<String> errors) {
+        inFlight.acquireUninterruptibly();
+        try {
+            workers.execute(() -> {
+                boolean stored = false;
+                try {
+                    // With the cache, embedding first fills it, and the store's own embedding
+                    // call is then all hits: the two stages can be timed apart. Without the
+                    // cache that would embed twice, so "store" includes embedding instead.
+                    if (cachesEmbeddings) {
+                        long t = System.nanoTime();
+                        embeddingModel.embed(batch.stream().map(Document::getText).toList());
+                        embed.record(t);
+                    }
+                    long t = System.nanoTime();
+                    vectorStore.add(batch);
+                    store.record(t);
+                    stored = true;
+                } catch (RuntimeException e) {
+                    failedBatches.incrementAndGet();
+                    addError(errors, "batch starting at " + batch.get(0).getMetadata().get("source") + ": " + e.getMessage());
+                    log.warn("Ingestion batch of {} chunks failed", batch.size(), e);
+                } finally {
+                    try {
+                        for (PendingSource source : sources) {
+                            source.release(stored);
+                        }
+                    } finally {
+                        inFlight.release();
+                    }
+                }
+            });
+        } catch (RuntimeException e) {
+            inFlight.release();
+            throw e;
+        }
+    }
+
+    /**
+     * Deletes the chunks stored for {@code source} that the file no longer produces, then
+     * announces the source as changed.
+     */
+    private void prune(PendingSource source) {
+        if (source.failed) {
+            // Some new chunks are missing, so the old ones are still the best there is.
+            addError(source.errors, source.source + ": kept previous chunks because a batch failed");
+        } else {
+            long t = System.nanoTime();
+            try {
+                FilterExpressionBuilder filter = new FilterExpressionBuilder();
+                vectorStore.delete(source.chunkIds.isEmpty()
+                        ? filter.eq("source", source.source).build()
+                        : filter.and(filter.eq("source", source.source),
+                                filter.nin("chunk_id", new ArrayList<Object>(source.chunkIds))).build());
+            } catch (RuntimeException e) {
+                source.failedFiles.incrementAndGet();
+                addError(source.errors, source.source + ": could not remove stale chunks: " + e.getMessage());
+                log.warn("Could not remove stale chunks of {}", source.source, e);
+            } finally {
+                source.prune.record(t);
+            }
+        }
+        eventPublisher.publishEvent(new DocumentsChangedEvent(Set.of(source.source)));
+    }
+
+    /**
+     * One file's chunks on their way into the store. Each batch holding some of them takes a
+     * hold, as does the reader until the last chunk is in a batch; whoever releases the last
+     * hold prunes the source.
+     */
+    private final class PendingSource {
+
+        final String source;
+        final List<String> chunkIds;
+        final StageTimer prune;
+        final AtomicLong failedFiles;
+        final List<String> errors;
+        final AtomicInteger holds = new AtomicInteger(1);
+        volatile boolean failed;
+
+        PendingSource(String source, List<String> chunkIds, StageTimer prune, AtomicLong failedFiles, List<String> errors) {
+            this.source = source;
+            this.chunkIds = chunkIds;
+            this.prune = prune;
+            this.failedFiles = failedFiles;
+            this.errors = errors;
+        }
+
+        void release(boolean stored) {
+            if (!stored) {
+                failed = true;
+            }
+            if (holds.decrementAndGet() == 0) {
+                prune(this);
+            }
+        }
+    }
+
+    private static void addError(List<String> errors, String error) {
+        if (errors.size() < MAX_REPORTED_ERRORS) {
+            errors.add(error);
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package com.example.rag.ingest;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.Map;
+
+/**
+ * Ingestion endpoint: streams a directory of text files into the vector store and returns
+ * throughput and per-stage latency once it is done.
+ */
+@RestController
+@RequestMapping("/api")
+public class IngestionController {
+
+    private static final Logger log = LoggerFactory.getLogger(IngestionController.class);
+
+    private final DocumentIngestionService ingestionService;
+
+    public IngestionController(DocumentIngestionService ingestionService) {
+        this.ingestionService = ingestionService;
+    }
+
+    @PostMapping("/ingest")
+    public ResponseEntity<?> ingest(@RequestBody(required = false) Map<String, String> body) {
+        String directory = body != null ? body.get("directory") : null;
+        String glob = body != null ? body.get("glob") : null;
+        log.info("Ingestion request: directory=\"{}\", glob=\"{}\"", directory, glob);
+        try {
+            return ResponseEntity.ok(ingestionService.ingest(directory, glob));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(Map.of("error", e.getMessage()));
+        }
+    }
+}
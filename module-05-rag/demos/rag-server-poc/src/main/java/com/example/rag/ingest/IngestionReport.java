@@ -0,0 +1,30 @@
+package com.example.rag.ingest;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Outcome of one ingestion run. {@code stages} holds the time spent reading files, splitting
+ * them into chunks, embedding batches, writing batches to the vector store and deleting the
+ * chunks a file no longer has ({@code prune}); the last three overlap across the parallel
+ * batches, so their totals can exceed {@code elapsedMs}.
+ */
+public record IngestionReport(
+        String directory,
+        long files,
+        long failedFiles,
+        long chunks,
+        long batches,
+        long failedBatches,
+        long elapsedMs,
+        double docsPerSecond,
+        double chunksPerSecond,
+        Map<String, Stage> stages,
+        List<String> errors) {
+
+    /**
+     * Times in milliseconds: per file for read, chunk and prune, per batch for embed and store.
+     */
+    public record Stage(long count, double totalMs, double meanMs, double maxMs) {
+    }
+}
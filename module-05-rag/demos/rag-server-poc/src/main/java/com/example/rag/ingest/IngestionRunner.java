@@ -0,0 +1,47 @@
+package com.example.rag.ingest;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Command-line ingestion: {@code java -jar rag-server-poc.jar --ingest=<directory> [--ingest.glob=<glob>]}
+ * ingests the directory (relative to {@code app.rag.ingest.root}), logs the report and exits;
+ * the exit code is non-zero if any file or batch failed. Without {@code --ingest} the server
+ * starts as usual.
+ */
+@Component
+public class IngestionRunner implements ApplicationRunner {
+
+    private static final Logger log = LoggerFactory.getLogger(IngestionRunner.class);
+
+    private final DocumentIngestionService ingestionService;
+    private final ConfigurableApplicationContext context;
+
+    public IngestionRunner(DocumentIngestionService ingestionService, ConfigurableApplicationContext context) {
+        this.ingestionService = ingestionService;
+        this.context = context;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        if (!args.containsOption("ingest")) {
+            return;
+        }
+        IngestionReport report = ingestionService.ingest(first(args.getOptionValues("ingest")),
+                first(args.getOptionValues("ingest.glob")));
+        log.info("Ingestion report: {}", report);
+        int exitCode = report.failedFiles() + report.failedBatches() == 0 ? 0 : 1;
+        System.exit(SpringApplication.exit(context, () -> exitCode));
+    }
+
+    private static String first(List<String> values) {
+        return values == null || values.isEmpty() ? null : values.get(0);
+    }
+}
@@ -0,0 +1,31 @@
+package com.example.rag.ingest;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Count, total and worst-case time of one ingestion stage; safe to record from several threads.
+ */
+class StageTimer {
+
+    private final LongAdder count = new LongAdder();
+    private final LongAdder totalNanos = new LongAdder();
+    private final AtomicLong maxNanos = new AtomicLong();
+
+    void record(long startNanos) {
+        long elapsed = System.nanoTime() - startNanos;
+        count.increment();
+        totalNanos.add(elapsed);
+        maxNanos.accumulateAndGet(elapsed, Math::max);
+    }
+
+    IngestionReport.Stage snapshot() {
+        long n = count.sum();
+        double totalMs = totalNanos.sum() / 1_000_000.0;
+        return new IngestionReport.Stage(n, round(totalMs), n == 0 ? 0 : round(totalMs / n), round(maxNanos.get() / 1_000_000.0));
+    }
+
+    private static double round(double ms) {
+        return Math.round(ms * 100) / 100.0;
+    }
+}
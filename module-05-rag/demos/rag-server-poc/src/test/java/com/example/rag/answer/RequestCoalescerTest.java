@@ -0,0 +1,102 @@
+package com.example.rag.answer;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for single-flight execution of identical questions.
+ */
+class RequestCoalescerTest {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final RequestCoalescer coalescer = new RequestCoalescer(
+            new StaticListableBeanFactory(Map.of("registry", registry)).getBeanProvider(MeterRegistry.class));
+    private final ExecutorService callers = Executors.newCachedThreadPool();
+    private final CountDownLatch started = new CountDownLatch(1);
+    private final CountDownLatch release = new CountDownLatch(1);
+
+    @AfterEach
+    void shutdown() {
+        release.countDown();
+        callers.shutdownNow();
+    }
+
+    @Test
+    void key_ignoresCaseAndWhitespaceButNotScope() {
+        assertEquals(RequestCoalescer.key("What is  our policy? ", ""), RequestCoalescer.key("what is our policy?", ""));
+        assertNotEquals(RequestCoalescer.key("policy", "source == 'a'"), RequestCoalescer.key("policy", ""));
+    }
+
+    @Test
+    void call_identicalQuestionWhileInFlight_joinsTheRunningCall() throws Exception {
+        AtomicInteger runs = new AtomicInteger();
+        Future<RequestCoalescer.Shared<String>> leader = callers.submit(() -> coalescer.call("q", () -> {
+            runs.incrementAndGet();
+            await(release);
+            return "answer";
+        }));
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        Future<RequestCoalescer.Shared<String>> follower = callers.submit(() -> coalescer.call("q", () -> {
+            runs.incrementAndGet();
+            return "second run";
+        }));
+        awaitFollowers(1);
+        release.countDown();
+
+        assertEquals(new RequestCoalescer.Shared<>("answer", false), leader.get(5, TimeUnit.SECONDS));
+        assertEquals(new RequestCoalescer.Shared<>("answer", true), follower.get(5, TimeUnit.SECONDS));
+        assertEquals(1, runs.get());
+        // Finished calls are forgotten; the next asker runs again.
+        assertEquals(new RequestCoalescer.Shared<>("fresh", false), coalescer.call("q", () -> "fresh"));
+    }
+
+    @Test
+    void call_whenTheRunningCallFails_followersGetTheSameException() throws Exception {
+        IllegalStateException failure = new IllegalStateException("model unavailable");
+        Future<?> leader = callers.submit(() -> coalescer.call("q", () -> {
+            await(release);
+            throw failure;
+        }));
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        Future<?> follower = callers.submit(() -> coalescer.call("q", () -> "second run"));
+        awaitFollowers(1);
+        release.countDown();
+
+        ExecutionException leaderFailure = assertThrows(ExecutionException.class, () -> leader.get(5, TimeUnit.SECONDS));
+        ExecutionException followerFailure = assertThrows(ExecutionException.class, () -> follower.get(5, TimeUnit.SECONDS));
+        assertSame(failure, leaderFailure.getCause());
+        assertSame(failure, followerFailure.getCause());
+    }
+
+    private void await(CountDownLatch latch) {
+        started.countDown();
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /** Waits until {@code count} callers have joined an in-flight call. */
+    private void awaitFollowers(int count) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (registry.get("rag.requests.coalesced").tag("role", "follower").functionCounter().count() < count) {
+            assertTrue(System.nanoTime() < deadline, "no caller joined");
+            Thread.sleep(5);
+        }
+    }
+}
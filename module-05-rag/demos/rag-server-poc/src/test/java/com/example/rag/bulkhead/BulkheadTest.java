@@ -0,0 +1,87 @@
+package com.example.rag.bulkhead;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the per-model concurrency limit.
+ */
+class BulkheadTest {
+
+    private final ExecutorService callers = Executors.newCachedThreadPool();
+    private final CountDownLatch release = new CountDownLatch(1);
+
+    @AfterEach
+    void shutdown() {
+        release.countDown();
+        callers.shutdownNow();
+    }
+
+    @Test
+    void call_whenSlotsAndQueueAreFull_isRejectedAtOnce() throws Exception {
+        Bulkhead bulkhead = new Bulkhead("chat", 1, 0, Duration.ofSeconds(10));
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        bulkhead.bindTo(registry);
+        occupy(bulkhead);
+
+        long start = System.nanoTime();
+        BulkheadFullException e = assertThrows(BulkheadFullException.class, () -> bulkhead.call(() -> "late"));
+
+        assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(1));
+        assertEquals("chat", e.getBulkhead());
+        assertTrue(bulkhead.isSaturated());
+        assertEquals(1, registry.get("rag.bulkhead.rejected").tag("name", "chat").functionCounter().count());
+        assertEquals(1, registry.get("rag.bulkhead.active").tag("name", "chat").gauge().value());
+    }
+
+    @Test
+    void call_whenNoSlotFreesUpWithinMaxWait_timesOut() throws Exception {
+        Bulkhead bulkhead = new Bulkhead("embedding", 1, 1, Duration.ofMillis(100));
+        occupy(bulkhead);
+
+        long start = System.nanoTime();
+        BulkheadFullException e = assertThrows(BulkheadFullException.class, () -> bulkhead.call(() -> "late"));
+
+        assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(100));
+        assertTrue(e.getMessage().contains("no slot free within 100 ms"), e.getMessage());
+        assertFalse(bulkhead.isSaturated());
+    }
+
+    @Test
+    void call_queuedCallerRunsOnceTheSlotIsReleased() throws Exception {
+        Bulkhead bulkhead = new Bulkhead("chat", 1, 1, Duration.ofSeconds(5));
+        Future<String> first = occupy(bulkhead);
+
+        Future<String> queued = callers.submit(() -> bulkhead.call(() -> "queued"));
+        release.countDown();
+
+        assertEquals("held", first.get(5, TimeUnit.SECONDS));
+        assertEquals("queued", queued.get(5, TimeUnit.SECONDS));
+    }
+
+    /** Takes the only slot on another thread and keeps it until {@link #release}. */
+    private Future<String> occupy(Bulkhead bulkhead) throws InterruptedException {
+        CountDownLatch running = new CountDownLatch(1);
+        Future<String> held = callers.submit(() -> bulkhead.call(() -> {
+            running.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return "held";
+        }));
+        assertTrue(running.await(5, TimeUnit.SECONDS));
+        return held;
+    }
+}
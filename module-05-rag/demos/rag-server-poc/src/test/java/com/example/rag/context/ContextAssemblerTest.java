@@ -0,0 +1,98 @@
+package com.example.rag.context;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.ai.document.Document;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for dedupe, merging and budgeting of retrieved chunks.
+ */
+class ContextAssemblerTest {
+
+    @Test
+    void assemble_dropsNearDuplicatesOfBetterRankedChunks() {
+        String text = words("policy", 1, 40);
+        List<Document> retrieved = List.of(
+                chunk("a", "handbook.md", "part-1", text),
+                chunk("b", "wiki.md", "part-4", text + " Updated."),
+                chunk("c", "faq.md", "part-1", words("refund", 1, 40)));
+
+        List<Document> context = assembler(0).assemble(retrieved);
+
+        assertEquals(List.of("a", "c"), context.stream().map(Document::getId).toList());
+        ContextReport report = ContextReport.of(context);
+        assertEquals(3, report.retrievedChunks());
+        assertEquals(1, report.duplicateChunks());
+        assertEquals(2, report.blocks());
+        assertTrue(report.savedTokens() > 0);
+    }
+
+    @Test
+    void assemble_mergesASourcesChunksInDocumentOrderAndKeepsOverlapOnce() {
+        // Chunks 1-30 and 21-50 of one document, the later one ranked higher.
+        List<Document> retrieved = List.of(
+                chunk("second", "guide.md", "part-2", words("step", 21, 50)),
+                chunk("first", "guide.md", "part-1", words("step", 1, 30)));
+
+        List<Document> context = assembler(0).assemble(retrieved);
+
+        assertEquals(1, context.size());
+        Document block = context.get(0);
+        assertEquals("second", block.getId());
+        assertEquals(words("step", 1, 50), block.getText());
+        assertEquals("part-1, part-2", block.getMetadata().get("section"));
+        assertEquals(List.of("first", "second"), block.getMetadata().get("chunk_ids"));
+        assertEquals(0, ContextReport.of(context).duplicateChunks());
+    }
+
+    @Test
+    void assemble_cutsTheLastBlockToTheBudgetAndDropsTheRest() {
+        String sentences = IntStream.rangeClosed(1, 30)
+                .mapToObj(i -> "Sentence number " + i + " explains the policy.")
+                .collect(Collectors.joining(" "));
+        List<Document> retrieved = List.of(
+                chunk("a", "handbook.md", "part-1", sentences),
+                chunk("b", "faq.md", "part-1", words("refund", 1, 100)));
+
+        List<Document> context = assembler(100).assemble(retrieved);
+
+        assertEquals(1, context.size());
+        String text = context.get(0).getText();
+        assertTrue(sentences.startsWith(text), text);
+        assertTrue(text.endsWith("."), text);
+        ContextReport report = ContextReport.of(context);
+        assertTrue(report.truncated());
+        assertEquals(1, report.droppedChunks());
+        assertTrue(report.contextTokens() <= 100, "used " + report.contextTokens());
+    }
+
+    @Test
+    void assemble_withNothingRetrieved_returnsNothing() {
+        List<Document> context = assembler(100).assemble(List.of());
+
+        assertTrue(context.isEmpty());
+        assertNull(ContextReport.of(context));
+    }
+
+    private static ContextAssembler assembler(int tokenBudget) {
+        return new ContextAssembler(tokenBudget, 0.9, new StaticListableBeanFactory().getBeanProvider(MeterRegistry.class));
+    }
+
+    private static Document chunk(String id, String source, String section, String text) {
+        return Document.builder().id(id).text(text).metadata(Map.of("source", source, "section", section))
+                .score(0.8).build();
+    }
+
+    /** "prefix1 prefix2 ... prefixN" for {@code from..to}. */
+    private static String words(String prefix, int from, int to) {
+        return IntStream.rangeClosed(from, to).mapToObj(i -> prefix + i).collect(Collectors.joining(" "));
+    }
+}
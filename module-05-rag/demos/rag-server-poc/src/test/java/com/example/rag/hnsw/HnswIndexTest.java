@@ -0,0 +1,184 @@
+package com.example.rag.hnsw;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.SplittableRandom;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for the memory-mapped HNSW graph, checked against brute-force ranking of the same
+ * vectors.
+ */
+class HnswIndexTest {
+
+    private static final int DIMENSIONS = 32;
+    private static final int COUNT = 2_000;
+
+    @TempDir
+    Path directory;
+
+    private final float[][] vectors = randomVectors(COUNT, 42);
+
+    @Test
+    void search_findsNearlyAllOfTheExactNearestNeighbors() throws IOException {
+        try (HnswIndex index = build()) {
+            float[][] queries = randomVectors(50, 7);
+            int found = 0;
+            for (float[] query : queries) {
+                Set<Integer> expected = bruteForce(query, 10, null, Set.of());
+                found += (int) index.search(query, 10, 64, null).stream().filter(hit -> expected.contains(hit.node())).count();
+            }
+            double recall = found / (queries.length * 10.0);
+            assertTrue(recall >= 0.9, "recall@10 was " + recall);
+        }
+    }
+
+    @Test
+    void search_returnsHitsBestFirstWithTheirSimilarity() throws IOException {
+        try (HnswIndex index = build()) {
+            List<HnswIndex.Hit> hits = index.search(vectors[5], 5, 64, null);
+
+            assertEquals(5, hits.size());
+            assertEquals(5, hits.get(0).node());
+            assertEquals(1.0f, hits.get(0).score(), 1e-5);
+            for (int i = 1; i < hits.size(); i++) {
+                assertTrue(hits.get(i - 1).score() >= hits.get(i).score());
+                assertEquals(dot(vectors[5], vectors[hits.get(i).node()]), hits.get(i).score(), 1e-5);
+            }
+        }
+    }
+
+    @Test
+    void search_whenTheNearestNodesAreDeleted_stillReturnsKLiveNodes() throws IOException {
+        try (HnswIndex index = build()) {
+            float[] query = vectors[0];
+            List<Integer> nearest = bruteForce(query, 50, null, Set.of()).stream().toList();
+            nearest.forEach(index::delete);
+
+            List<HnswIndex.Hit> hits = index.search(query, 10, 20, null);
+
+            assertEquals(10, hits.size());
+            assertTrue(hits.stream().noneMatch(hit -> index.isDeleted(hit.node())));
+            assertEquals(COUNT - 50, index.liveSize());
+        }
+    }
+
+    @Test
+    void filteredSearch_rankingASmallSetDirectly_isExact() throws IOException {
+        try (HnswIndex index = build()) {
+            BitSet accept = new BitSet();
+            IntStream.range(0, COUNT).filter(node -> node % 200 == 3).forEach(accept::set);
+            index.delete(203);
+            float[] query = randomVectors(1, 9)[0];
+
+            List<HnswIndex.Hit> hits = index.search(query, 5, 64, accept);
+
+            assertEquals(List.copyOf(bruteForce(query, 5, accept, Set.of(203))), nodes(hits));
+        }
+    }
+
+    @Test
+    void filteredSearch_throughTheGraph_returnsOnlyAcceptedNodes() throws IOException {
+        try (HnswIndex index = build()) {
+            BitSet accept = new BitSet();
+            IntStream.range(0, COUNT).filter(node -> node % 2 == 0).forEach(accept::set);
+            float[][] queries = randomVectors(20, 11);
+            int found = 0;
+            for (float[] query : queries) {
+                List<HnswIndex.Hit> hits = index.search(query, 10, 64, accept);
+                assertEquals(10, hits.size());
+                assertTrue(hits.stream().allMatch(hit -> accept.get(hit.node())));
+                Set<Integer> expected = bruteForce(query, 10, accept, Set.of());
+                found += (int) hits.stream().filter(hit -> expected.contains(hit.node())).count();
+            }
+            double recall = found / (queries.length * 10.0);
+            assertTrue(recall >= 0.9, "filtered recall@10 was " + recall);
+        }
+    }
+
+    @Test
+    void reopen_keepsCommittedNodesAndDropsLaterOnes() throws IOException {
+        try (HnswIndex index = build()) {
+            index.delete(5);
+            index.commit(1234);
+            // Never committed, as if the process died here.
+            index.add(vectors[6], 9999);
+        }
+
+        try (HnswIndex reopened = new HnswIndex(directory, DIMENSIONS, 16, 100)) {
+            assertEquals(COUNT, reopened.size());
+            assertEquals(COUNT - 1, reopened.liveSize());
+            assertEquals(1234, reopened.dataEnd());
+            assertTrue(reopened.isDeleted(5));
+            List<HnswIndex.Hit> hits = reopened.search(vectors[6], 10, 64, null);
+            assertEquals(10, hits.size());
+            assertEquals(6, hits.get(0).node());
+            assertTrue(hits.stream().allMatch(hit -> hit.node() < COUNT && hit.node() != 5));
+        }
+    }
+
+    @Test
+    void reopen_withDifferentDimensions_isRejected() throws IOException {
+        build().close();
+
+        assertThrows(IllegalStateException.class, () -> new HnswIndex(directory, DIMENSIONS * 2, 16, 100));
+    }
+
+    private HnswIndex build() throws IOException {
+        HnswIndex index = new HnswIndex(directory, DIMENSIONS, 16, 100);
+        for (int i = 0; i < vectors.length; i++) {
+            index.add(vectors[i], i);
+        }
+        index.commit(0);
+        return index;
+    }
+
+    /** The k most similar nodes in {@code accept} (all, if null), skipping {@code deleted}, best first. */
+    private Set<Integer> bruteForce(float[] query, int k, BitSet accept, Set<Integer> deleted) {
+        return IntStream.range(0, vectors.length)
+                .filter(node -> (accept == null || accept.get(node)) && !deleted.contains(node))
+                .boxed()
+                .sorted(Comparator.comparingDouble(node -> -dot(query, vectors[node])))
+                .limit(k)
+                .collect(Collectors.toCollection(LinkedHashSet::new));
+    }
+
+    private static List<Integer> nodes(List<HnswIndex.Hit> hits) {
+        return hits.stream().map(HnswIndex.Hit::node).toList();
+    }
+
+    private static float[][] randomVectors(int count, long seed) {
+        SplittableRandom random = new SplittableRandom(seed);
+        float[][] vectors = new float[count][DIMENSIONS];
+        for (float[] vector : vectors) {
+            double norm = 0;
+            for (int j = 0; j < DIMENSIONS; j++) {
+                vector[j] = (float) (random.nextDouble() * 2 - 1);
+                norm += vector[j] * vector[j];
+            }
+            for (int j = 0; j < DIMENSIONS; j++) {
+                vector[j] /= (float) Math.sqrt(norm);
+            }
+        }
+        return vectors;
+    }
+
+    private static float dot(float[] a, float[] b) {
+        float sum = 0;
+        for (int i = 0; i < a.length; i++) {
+            sum += a[i] * b[i];
+        }
+        return sum;
+    }
+}
@@ -0,0 +1,162 @@
+package com.example.rag.hnsw;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.ai.document.Document;
+import org.springframework.ai.embedding.Embedding;
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.ai.embedding.EmbeddingRequest;
+import org.springframework.ai.embedding.EmbeddingResponse;
+import org.springframework.ai.vectorstore.SearchRequest;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for the HNSW-backed VectorStore, with a fake embedding model that maps each text to a
+ * fixed vector.
+ */
+class HnswVectorStoreTest {
+
+    @TempDir
+    Path directory;
+
+    private final FakeEmbeddingModel embeddingModel = new FakeEmbeddingModel();
+
+    @Test
+    void similaritySearch_appliesTopKAndSimilarityThreshold() throws IOException {
+        embeddingModel.put("north", 1, 0, 0);
+        embeddingModel.put("north-east", 1, 1, 0);
+        embeddingModel.put("east", 0, 1, 0);
+        embeddingModel.put("west", -1, 0, 0);
+        try (HnswVectorStore store = open()) {
+            store.add(List.of(document("n", "north"), document("ne", "north-east"), document("e", "east"),
+                    document("w", "west")));
+
+            List<Document> all = store.similaritySearch(SearchRequest.builder().query("north").topK(10).build());
+            List<Document> top = store.similaritySearch(SearchRequest.builder().query("north").topK(2).build());
+            List<Document> close = store.similaritySearch(SearchRequest.builder().query("north").topK(10)
+                    .similarityThreshold(0.5).build());
+
+            // The default threshold is 0, so the opposite direction (score -1) is left out.
+            assertEquals(List.of("n", "ne", "e"), ids(all));
+            assertEquals(1.0, all.get(0).getScore(), 1e-6);
+            assertEquals(Math.sqrt(0.5), all.get(1).getScore(), 1e-6);
+            assertEquals(List.of("n", "ne"), ids(top));
+            assertEquals(List.of("n", "ne"), ids(close));
+        }
+    }
+
+    @Test
+    void similaritySearch_withFilterExpression_returnsOnlyMatchingDocuments() throws IOException {
+        embeddingModel.put("query", 1, 0, 0);
+        List<Document> documents = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            embeddingModel.put("doc " + i, 1, i / 200f, 0);
+            documents.add(Document.builder().id("d" + i).text("doc " + i)
+                    .metadata(Map.of("source", i % 2 == 0 ? "even.md" : "odd.md", "part", i)).build());
+        }
+        try (HnswVectorStore store = open()) {
+            store.add(documents);
+
+            // 100 matches: ranked by walking the graph.
+            List<Document> odd = store.similaritySearch(SearchRequest.builder().query("query").topK(3)
+                    .filterExpression("source == 'odd.md'").build());
+            // 3 matches: ranked directly.
+            List<Document> few = store.similaritySearch(SearchRequest.builder().query("query").topK(2)
+                    .filterExpression("part in [150, 40, 7]").build());
+
+            assertEquals(List.of("d1", "d3", "d5"), ids(odd));
+            assertEquals(List.of("d7", "d40"), ids(few));
+        }
+    }
+
+    @Test
+    void reopen_servesCommittedDocumentsWithoutEmbeddingThemAgain() throws IOException {
+        embeddingModel.put("north", 1, 0, 0);
+        embeddingModel.put("east", 0, 1, 0);
+        try (HnswVectorStore store = open()) {
+            store.add(List.of(document("n", "north"), document("e", "east")));
+            store.delete(List.of("e"));
+        }
+        int embedded = embeddingModel.calls;
+
+        try (HnswVectorStore reopened = open()) {
+            reopened.add(List.of(document("n", "north")));
+            List<Document> hits = reopened.similaritySearch(SearchRequest.builder().query("north").topK(5).build());
+
+            assertEquals(List.of("n"), ids(hits));
+            assertEquals("north", hits.get(0).getText());
+            assertEquals("test", hits.get(0).getMetadata().get("source"));
+        }
+        // Only the query was embedded: the unchanged document was skipped.
+        assertEquals(embedded + 1, embeddingModel.calls);
+    }
+
+    @Test
+    void add_withSameIdAndNewText_replacesTheDocument() throws IOException {
+        embeddingModel.put("north", 1, 0, 0);
+        embeddingModel.put("east", 0, 1, 0);
+        try (HnswVectorStore store = open()) {
+            store.add(List.of(document("a", "north")));
+            store.add(List.of(document("a", "east")));
+
+            List<Document> hits = store.similaritySearch(SearchRequest.builder().query("north").topK(5).build());
+
+            assertEquals(1, hits.size());
+            assertEquals("east", hits.get(0).getText());
+        }
+    }
+
+    private HnswVectorStore open() throws IOException {
+        return new HnswVectorStore(embeddingModel, directory, 3, 8, 64, 16, new ObjectMapper());
+    }
+
+    private static Document document(String id, String text) {
+        return Document.builder().id(id).text(text).metadata(Map.of("source", "test")).build();
+    }
+
+    private static List<String> ids(List<Document> documents) {
+        return documents.stream().map(Document::getId).toList();
+    }
+
+    private static final class FakeEmbeddingModel implements EmbeddingModel {
+
+        private final Map<String, float[]> vectors = new HashMap<>();
+        int calls;
+
+        void put(String text, float... vector) {
+            vectors.put(text, vector);
+        }
+
+        @Override
+        public EmbeddingResponse call(EmbeddingRequest request) {
+            calls++;
+            List<Embedding> embeddings = new ArrayList<>();
+            for (String text : request.getInstructions()) {
+                embeddings.add(new Embedding(vector(text), embeddings.size()));
+            }
+            return new EmbeddingResponse(embeddings);
+        }
+
+        @Override
+        public float[] embed(Document document) {
+            return vector(document.getText());
+        }
+
+        private float[] vector(String text) {
+            float[] vector = vectors.get(text);
+            if (vector == null) {
+                throw new IllegalArgumentException("No vector for " + text);
+            }
+            return vector;
+        }
+    }
+}
@@ -0,0 +1,138 @@
+package com.example.rag.ingest;
+
+import com.example.rag.event.DocumentsChangedEvent;
+import com.example.rag.hnsw.HnswVectorStore;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.ai.document.Document;
+import org.springframework.ai.embedding.Embedding;
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.ai.embedding.EmbeddingRequest;
+import org.springframework.ai.embedding.EmbeddingResponse;
+import org.springframework.ai.vectorstore.SearchRequest;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for directory ingestion into an HNSW store, with an embedding model that gives every
+ * text the same vector, so a search returns everything stored.
+ */
+class DocumentIngestionServiceTest {
+
+    @TempDir
+    Path root;
+
+    @TempDir
+    Path storeDirectory;
+
+    private final List<Object> events = new CopyOnWriteArrayList<>();
+    private final ConstantEmbeddingModel embeddingModel = new ConstantEmbeddingModel();
+    private HnswVectorStore vectorStore;
+    private DocumentIngestionService service;
+
+    @BeforeEach
+    void open() throws IOException {
+        Files.createDirectories(root.resolve("docs"));
+        vectorStore = new HnswVectorStore(embeddingModel, storeDirectory, 3, 8, 64, 16, new ObjectMapper());
+        service = new DocumentIngestionService(vectorStore, embeddingModel, events::add, root, 2, 2, 800, "*.md");
+    }
+
+    @AfterEach
+    void close() throws IOException {
+        vectorStore.close();
+    }
+
+    @Test
+    void ingest_reingestingAnEditedFile_removesItsOldChunks() throws IOException {
+        Files.writeString(root.resolve("docs/policy.md"), "Passwords rotate every 90 days.");
+        Files.writeString(root.resolve("docs/faq.md"), "Refunds take five days.");
+        service.ingest("docs", null);
+
+        Files.writeString(root.resolve("docs/policy.md"), "Passwords no longer rotate.");
+        IngestionReport report = service.ingest("docs", null);
+
+        assertEquals(2, report.files());
+        assertEquals(0, report.failedFiles());
+        assertEquals(2, report.stages().get("prune").count());
+        assertEquals(Set.of("Passwords no longer rotate.", "Refunds take five days."), storedTexts());
+    }
+
+    @Test
+    void ingest_unchangedFiles_areNotEmbeddedAgain() throws IOException {
+        Files.writeString(root.resolve("docs/policy.md"), "Passwords rotate every 90 days.");
+        service.ingest("docs", null);
+        int embedded = embeddingModel.texts.get();
+
+        service.ingest("docs", null);
+
+        assertEquals(embedded, embeddingModel.texts.get());
+        assertEquals(Set.of("Passwords rotate every 90 days."), storedTexts());
+    }
+
+    @Test
+    void ingest_whenABatchFails_keepsTheFilesPreviousChunks() throws IOException {
+        Files.writeString(root.resolve("docs/policy.md"), "Passwords rotate every 90 days.");
+        service.ingest("docs", null);
+
+        Files.writeString(root.resolve("docs/policy.md"), "Passwords no longer rotate.");
+        embeddingModel.failing = true;
+        IngestionReport report = service.ingest("docs", null);
+        embeddingModel.failing = false;
+
+        assertEquals(1, report.failedBatches());
+        assertEquals(0, report.stages().get("prune").count());
+        assertEquals(Set.of("Passwords rotate every 90 days."), storedTexts());
+    }
+
+    @Test
+    void ingest_fileNowBlank_removesItsChunksAndAnnouncesTheSource() throws IOException {
+        Files.writeString(root.resolve("docs/policy.md"), "Passwords rotate every 90 days.");
+        service.ingest("docs", null);
+        events.clear();
+
+        Files.writeString(root.resolve("docs/policy.md"), " ");
+        IngestionReport report = service.ingest("docs", null);
+
+        assertEquals(0, report.chunks());
+        assertEquals(Set.of(), storedTexts());
+        assertEquals(List.of(new DocumentsChangedEvent(Set.of("docs/policy.md"))), events);
+    }
+
+    private Set<String> storedTexts() {
+        List<Document> all = vectorStore.similaritySearch(SearchRequest.builder().query("anything").topK(100).build());
+        return Set.copyOf(all.stream().map(Document::getText).toList());
+    }
+
+    private static final class ConstantEmbeddingModel implements EmbeddingModel {
+
+        final AtomicInteger texts = new AtomicInteger();
+        volatile boolean failing;
+
+        @Override
+        public EmbeddingResponse call(EmbeddingRequest request) {
+            if (failing) {
+                throw new IllegalStateException("model unavailable");
+            }
+            texts.addAndGet(request.getInstructions().size());
+            return new EmbeddingResponse(request.getInstructions().stream()
+                    .map(text -> new Embedding(new float[]{1, 1, 1}, 0))
+                    .toList());
+        }
+
+        @Override
+        public float[] embed(Document document) {
+            return new float[]{1, 1, 1};
+        }
+    }
+}